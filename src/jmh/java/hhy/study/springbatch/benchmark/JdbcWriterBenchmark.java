@@ -0,0 +1,128 @@
+package hhy.study.springbatch.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hhy.study.springbatch.common.writer.JdbcNumberItemWriter;
+import hhy.study.springbatch.job.NumberVO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : txt -> DB 적재 writer 측정 - 1건씩 executeUpdate vs JDBC batch vs multi-row VALUES vs 병렬 connection
+ * @Comment         : rows 개 item 을 chunkSize 단위로 NUMBER_ITEM 에 insert (ms/op), 매 invocation 전에 table 을 비움
+ *                    rowByRow : item 마다 executeUpdate + chunk 마다 commit (기존 방식 기준선)
+ *                    batch : JdbcNumberItemWriter(rowsPerStatement=1) / multiRow : rowsPerStatement=100 / parallel : multiRow + connection 4개
+ *                    H2 메모리 DB 라 network round trip 은 빠져있음 -> 실제 DB 에서는 batch/multiRow 차이가 더 큼
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class JdbcWriterBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    private List<NumberVO> chunk;
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(chunkSize);
+        chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            NumberVO numberVO = new NumberVO();
+            numberVO.setKey(random.nextBoolean() ? "yes" : "no");
+            numberVO.setNum(random.nextInt());
+            chunk.add(numberVO);
+        }
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:jdbcWriterBenchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(4);
+        execute("CREATE TABLE IF NOT EXISTS NUMBER_ITEM (NUM_KEY VARCHAR(255) NOT NULL, NUM INT NOT NULL)");
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException {
+        execute("TRUNCATE TABLE NUMBER_ITEM");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public long rowByRow() throws SQLException {
+        long written = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO NUMBER_ITEM (NUM_KEY, NUM) VALUES (?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < rows; i += chunkSize) {
+                for (NumberVO numberVO : chunk) {
+                    statement.setString(1, numberVO.getKey());
+                    statement.setInt(2, numberVO.getNum());
+                    written += statement.executeUpdate();
+                }
+                connection.commit();
+            }
+            connection.setAutoCommit(true);
+        }
+        return written;
+    }
+
+    @Benchmark
+    public long batch() throws Exception {
+        return writeAll(1, 1);
+    }
+
+    @Benchmark
+    public long multiRow() throws Exception {
+        return writeAll(100, 1);
+    }
+
+    @Benchmark
+    public long parallel() throws Exception {
+        return writeAll(100, 4);
+    }
+
+    private long writeAll(int rowsPerStatement, int parallelism) throws Exception {
+        JdbcNumberItemWriter itemWriter = new JdbcNumberItemWriter();
+        itemWriter.setDataSource(dataSource);
+        itemWriter.setRowsPerStatement(rowsPerStatement);
+        itemWriter.setParallelism(parallelism);
+        itemWriter.open(new ExecutionContext());
+        long written = 0;
+        try {
+            /* transaction 밖이라 write() 마다 commit = chunk 마다 commit */
+            for (int i = 0; i < rows; i += chunkSize) {
+                itemWriter.write(chunk);
+                written += chunk.size();
+            }
+        } finally {
+            itemWriter.close();
+        }
+        return written;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package hhy.study.springbatch.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * @Purpose         : benchmark 용 key|num 입력 파일 생성
+ * @Comment         : data/bench/input-{lines}.txt 에 생성, 같은 line 수 파일이 있으면 재사용 (100M line 은 생성만 수십초 걸림)
+ *                    seed 고정이라 매번 같은 내용
+ */
+public final class NumberFiles {
+
+    public static final String DIRECTORY = "data/bench";
+
+    private static final String[] KEYS = {"no", "yes", "skip", "retry", "epopcon", "emart"};
+
+    private NumberFiles() {
+    }
+
+    public static Path input(long lines) throws IOException {
+        Path path = Paths.get(DIRECTORY, "input-" + lines + ".txt");
+        if (Files.exists(path)) {
+            return path;
+        }
+
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(path.getParent(), "input-", ".tmp");
+        Random random = new Random(lines);
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < lines; i++) {
+                writer.write(KEYS[random.nextInt(KEYS.length)]);
+                writer.write('|');
+                writer.write(Integer.toString(random.nextInt()));
+                writer.write('\n');
+            }
+        }
+        /* 생성 도중 중단되면 잘린 파일이 재사용되지 않도록 다 쓴 뒤 이름 변경 */
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        return path;
+    }
+
+    public static Path output(String name) throws IOException {
+        Path path = Paths.get(DIRECTORY, name);
+        Files.createDirectories(path.getParent());
+        Files.deleteIfExists(path);
+        return path;
+    }
+}
@@ -0,0 +1,95 @@
+package hhy.study.springbatch.benchmark;
+
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.job.NumberVO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : reader hot path 측정 - FlatFileItemReader(DefaultLineMapper + BeanWrapperFieldSetMapper) vs MappedNumberItemReader
+ * @Comment         : readFlatFile / readMapped : 파일 1개 전체 읽기 (ms/op, -prof gc 의 gc.alloc.rate.norm = 파일당 할당량)
+ *                    mapLine : line 1개 매핑 (ns/op), 2020.03 부터 쓰던 tokenizer + reflection 매핑 비용만 따로 측정
+ *                    line 수 변경 : -p lines=1000000,10000000,100000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"1000000"})
+    public long lines;
+
+    private Resource input;
+    private DefaultLineMapper<NumberVO> lineMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        input = new FileSystemResource(NumberFiles.input(lines).toFile());
+        lineMapper = lineMapper();
+    }
+
+    @Benchmark
+    public long readFlatFile(Blackhole blackhole) throws Exception {
+        FlatFileItemReader<NumberVO> itemReader = new FlatFileItemReader<>();
+        itemReader.setResource(input);
+        itemReader.setLineMapper(lineMapper);
+        itemReader.setSaveState(false);
+        return readAll(itemReader, blackhole);
+    }
+
+    @Benchmark
+    public long readMapped(Blackhole blackhole) throws Exception {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        itemReader.setResource(input);
+        itemReader.setSaveState(false);
+        return readAll(itemReader, blackhole);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public NumberVO mapLine() throws Exception {
+        return lineMapper.mapLine("epopcon|-1234567", 1);
+    }
+
+    private long readAll(ItemStreamReader<NumberVO> itemReader, Blackhole blackhole) throws Exception {
+        long count = 0;
+        itemReader.open(new ExecutionContext());
+        try {
+            NumberVO item;
+            while ((item = itemReader.read()) != null) {
+                blackhole.consume(item);
+                count++;
+            }
+        } finally {
+            itemReader.close();
+        }
+        return count;
+    }
+
+    /* 변경 전 simpleItemReader 의 FlatFileItemReader 설정과 동일 */
+    private static DefaultLineMapper<NumberVO> lineMapper() {
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer("|");
+        tokenizer.setNames("key", "num");
+
+        BeanWrapperFieldSetMapper<NumberVO> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
+        fieldSetMapper.setTargetType(NumberVO.class);
+
+        DefaultLineMapper<NumberVO> lineMapper = new DefaultLineMapper<>();
+        lineMapper.setLineTokenizer(tokenizer);
+        lineMapper.setFieldSetMapper(fieldSetMapper);
+        return lineMapper;
+    }
+}
@@ -0,0 +1,110 @@
+package hhy.study.springbatch.benchmark;
+
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.step.MultiThreadStepSupport;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.job.NumberVO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.core.io.FileSystemResource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : simpleJobStep 전체(read -> process -> write + chunk commit) 측정
+ * @Comment         : SimpleJobConfig.simpleJobStep 과 같은 구성(MultiThreadStepSupport + MappedNumberItemReader + ChannelNumberItemWriter)을
+ *                    Map JobRepository 위에서 직접 만들어 실행. simpleJob 은 입력을 classpath 에서 찾으므로 생성 파일을 쓰기 위해 분리함
+ *                    processor 는 그대로 넘기기만 함 (simpleItemProcessor 의 sampled item 로그는 측정에서 제외)
+ *                    chunk 크기는 chunkMin = chunkMax = chunkSize 로 고정, workerCount 2 이상이면 multi-thread step
+ *                    -p lines=1000000,10000000,100000000 -p chunkSize=5,100,1000,10000 -p workerCount=1,4
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SimpleStepBenchmark {
+
+    @Param({"1000000"})
+    public long lines;
+
+    @Param({"5", "100", "1000", "10000"})
+    public int chunkSize;
+
+    @Param({"1"})
+    public long workerCount;
+
+    private MapJobRepositoryFactoryBean repositoryFactory;
+    private JobBuilderFactory jobBuilderFactory;
+    private StepBuilderFactory stepBuilderFactory;
+    private SimpleJobLauncher jobLauncher;
+    private FileSystemResource input;
+    private FileSystemResource output;
+    private long run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ResourcelessTransactionManager transactionManager = new ResourcelessTransactionManager();
+        repositoryFactory = new MapJobRepositoryFactoryBean(transactionManager);
+        repositoryFactory.afterPropertiesSet();
+        JobRepository jobRepository = repositoryFactory.getObject();
+
+        jobBuilderFactory = new JobBuilderFactory(jobRepository);
+        stepBuilderFactory = new StepBuilderFactory(jobRepository, transactionManager);
+        jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+
+        input = new FileSystemResource(NumberFiles.input(lines).toFile());
+        output = new FileSystemResource(NumberFiles.output("step-output.csv").toFile());
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearRepository() {
+        /* Map 저장소에 쌓인 execution 이 측정에 영향 주지 않도록 */
+        repositoryFactory.clear();
+    }
+
+    @Benchmark
+    public int simpleJobStep() throws Exception {
+        Job job = jobBuilderFactory.get("simpleStepBenchmark")
+                .start(step())
+                .build();
+        JobExecution jobExecution = jobLauncher.run(job, new JobParametersBuilder()
+                .addLong("run", ++run)
+                .toJobParameters());
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException("simpleJobStep " + jobExecution.getStatus() + " : " + jobExecution.getAllFailureExceptions());
+        }
+        return jobExecution.getStepExecutions().iterator().next().getWriteCount();
+    }
+
+    private Step step() {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        itemReader.setResource(input);
+
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(output);
+        itemWriter.setDelimiter("@");
+
+        ItemProcessor<NumberVO, NumberVO> itemProcessor = numberVO -> numberVO;
+
+        return MultiThreadStepSupport.readAndWrite(MultiThreadStepSupport
+                        .<NumberVO, NumberVO>chunk(stepBuilderFactory.get("simpleJobStep"), chunkSize, workerCount, (long) chunkSize, (long) chunkSize)
+                        .processor(itemProcessor),
+                itemReader, itemWriter, chunkSize, workerCount)
+                .build();
+    }
+}
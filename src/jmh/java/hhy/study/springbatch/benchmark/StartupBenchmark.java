@@ -0,0 +1,139 @@
+package hhy.study.springbatch.benchmark;
+
+import hhy.study.springbatch.job.chunk.flow.DecideJobConfig;
+import hhy.study.springbatch.job.chunk.flow.FlowJobConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import hhy.study.springbatch.job.startup.LazyJobStartupConfig;
+import hhy.study.springbatch.job.tasklet.TaskletJobConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : 기동 ~ 첫 item 까지 걸리는 시간 (time-to-first-item) 측정 : 전체 설정(eager) vs lazy 기동
+ * @Comment         : eager : Simple/Flow/Decide/TaskletJobConfig 를 한 context 로 띄움 (SpringbatchApplication 과 같은 bean 구성)
+ *                    lazy  : LazyJobStartupConfig 만 띄우고 JobRegistry 에서 simpleJob 을 꺼냄 (simpleJob 설정만 child context 로 생성)
+ *                    context 생성 -> simpleJob 실행 -> 첫 chunk 시작(beforeChunk, 바로 다음이 첫 item read) 까지를 잰다.
+ *                    fork 마다 1번만 측정 (SingleShotTime, warmup 없음) = 새 JVM 의 cold start, JIT/class loading 포함
+ *                    AppCDS 비교 : -jvmArgsAppend "-XX:SharedArchiveFile=target/springbatch.jsa" (pom 의 cds profile 로 archive 생성)
+ *                    mvn -Pjmh compile exec:exec -Djmh.args="StartupBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({"eager", "lazy"})
+    public String mode;
+
+    private AnnotationConfigApplicationContext context;
+    private SimpleAsyncTaskExecutor taskExecutor;
+    private volatile JobExecution jobExecution;
+
+    @Benchmark
+    public JobExecution timeToFirstItem() throws Exception {
+        FirstItemProbe.reset();
+
+        context = new AnnotationConfigApplicationContext();
+        if ("lazy".equals(mode)) {
+            context.getEnvironment().getPropertySources()
+                    .addFirst(new MapPropertySource("startup", Collections.singletonMap("springbatch.startup.lazy", "true")));
+            context.register(FirstItemProbe.class, LazyJobStartupConfig.class);
+        } else {
+            context.register(FirstItemProbe.class, TaskletJobConfig.class, SimpleJobConfig.class, FlowJobConfig.class, DecideJobConfig.class);
+        }
+        context.refresh();
+
+        Job job = "lazy".equals(mode) ? context.getBean(JobRegistry.class).getJob("simpleJob") : context.getBean("simpleJob", Job.class);
+
+        /* 첫 item 시점에 반환하기 위해 비동기로 실행, 완료는 tearDown 에서 기다림 */
+        taskExecutor = new SimpleAsyncTaskExecutor("startup-");
+        SimpleJobLauncher jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(context.getBean(JobRepository.class));
+        jobLauncher.setTaskExecutor(taskExecutor);
+        jobLauncher.afterPropertiesSet();
+        jobExecution = jobLauncher.run(job, new JobParametersBuilder()
+                .addString("requiredVal", "/input.txt")
+                .addLong("executeTime", System.nanoTime())
+                .toJobParameters());
+
+        FirstItemProbe.await();
+        return jobExecution;
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws InterruptedException {
+        while (jobExecution != null && jobExecution.isRunning()) {
+            Thread.sleep(10);
+        }
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * step bean 이 만들어질 때 ChunkListener 를 붙여 첫 chunk 시작을 알림
+     * (lazy 모드의 child context 에도 parent 의 BeanPostProcessor 가 복사됨)
+     */
+    @Configuration
+    static class FirstItemProbe {
+
+        private static volatile CountDownLatch firstChunk;
+
+        static void reset() {
+            firstChunk = new CountDownLatch(1);
+        }
+
+        static void await() throws InterruptedException {
+            if (!firstChunk.await(1, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("simpleJob did not start a chunk");
+            }
+        }
+
+        @Bean
+        public static BeanPostProcessor firstItemProbePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof TaskletStep) {
+                        ((TaskletStep) bean).registerChunkListener(new ChunkListener() {
+                            @Override
+                            public void beforeChunk(ChunkContext context) {
+                                firstChunk.countDown();
+                            }
+
+                            @Override
+                            public void afterChunk(ChunkContext context) {
+                            }
+
+                            @Override
+                            public void afterChunkError(ChunkContext context) {
+                            }
+                        });
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
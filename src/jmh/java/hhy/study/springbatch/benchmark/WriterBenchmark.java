@@ -0,0 +1,105 @@
+package hhy.study.springbatch.benchmark;
+
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.job.NumberVO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.file.FlatFileItemWriter;
+import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
+import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
+import org.springframework.core.io.FileSystemResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : writer hot path 측정 - FlatFileItemWriter(DelimitedLineAggregator + BeanWrapperFieldExtractor) vs ChannelNumberItemWriter
+ * @Comment         : writeFlatFile / writeChannel : lines 개 item 을 chunkSize 단위 write() 로 파일 1개에 쓰기 (ms/op)
+ *                    aggregate : item 1개 -> line String (ns/op)
+ *                    chunk 크기 sweep : -p chunkSize=5,100,1000,10000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class WriterBenchmark {
+
+    @Param({"1000000"})
+    public long lines;
+
+    @Param({"5", "100", "1000"})
+    public int chunkSize;
+
+    private List<NumberVO> chunk;
+    private DelimitedLineAggregator<NumberVO> lineAggregator;
+    private FileSystemResource output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Random random = new Random(chunkSize);
+        chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            NumberVO numberVO = new NumberVO();
+            numberVO.setKey("epopcon");
+            numberVO.setNum(random.nextInt());
+            chunk.add(numberVO);
+        }
+        lineAggregator = lineAggregator();
+        output = new FileSystemResource(NumberFiles.output("writer-output.csv").toFile());
+    }
+
+    @Benchmark
+    public long writeFlatFile() throws Exception {
+        FlatFileItemWriter<NumberVO> itemWriter = new FlatFileItemWriter<>();
+        itemWriter.setResource(output);
+        itemWriter.setLineAggregator(lineAggregator);
+        itemWriter.setSaveState(false);
+        itemWriter.afterPropertiesSet();
+        return writeAll(itemWriter);
+    }
+
+    @Benchmark
+    public long writeChannel() throws Exception {
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(output);
+        itemWriter.setDelimiter("@");
+        itemWriter.setSaveState(false);
+        return writeAll(itemWriter);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String aggregate() {
+        return lineAggregator.aggregate(chunk.get(0));
+    }
+
+    private long writeAll(ItemStreamWriter<NumberVO> itemWriter) throws Exception {
+        long count = 0;
+        itemWriter.open(new ExecutionContext());
+        try {
+            while (count < lines) {
+                itemWriter.write(chunk);
+                count += chunk.size();
+            }
+        } finally {
+            itemWriter.close();
+        }
+        return count;
+    }
+
+    /* 변경 전 simpleItemWriter 의 FlatFileItemWriter 설정과 동일 */
+    private static DelimitedLineAggregator<NumberVO> lineAggregator() {
+        BeanWrapperFieldExtractor<NumberVO> fieldExtractor = new BeanWrapperFieldExtractor<>();
+        fieldExtractor.setNames(new String[]{"key", "num"});
+
+        DelimitedLineAggregator<NumberVO> lineAggregator = new DelimitedLineAggregator<>();
+        lineAggregator.setDelimiter("@");
+        lineAggregator.setFieldExtractor(fieldExtractor);
+        return lineAggregator;
+    }
+}
@@ -0,0 +1,48 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.job.startup.LazyJobStartupConfig;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.converter.DefaultJobParametersConverter;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StringUtils;
+
+import java.util.Properties;
+
+/**
+ * @Purpose : job 1개 실행용 lazy 기동 (요청한 job 의 설정 class 만 띄움)
+ * @Test    : Junit
+ * @Comment : SpringbatchApplication 은 component scan 으로 모든 job 의 bean 을 만들어서 job 1개만 돌려도 기동이 실행보다 오래 걸림
+ *            component scan / auto configuration 없이 LazyJobStartupConfig 만 띄우고, job 은 JobRegistry 에서 꺼낼 때 child context 생성
+ *            ex) java -Dloader.main=hhy.study.springbatch.LazyJobApplication -cp springbatch-1.0.jar org.springframework.boot.loader.PropertiesLauncher \
+ *                     --springbatch.startup.job=simpleJob requiredVal=/input.txt executeTime(long)=1
+ *            job parameter 는 spring boot 와 같은 key(type)=value 형식 (DefaultJobParametersConverter)
+ *            종료 코드 : COMPLETED 0, 그 외 1
+ *            기동 시간 추가 단축 (JDK 13 이상 AppCDS) : pom 의 cds profile 참고
+ */
+public class LazyJobApplication {
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LazyJobStartupConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("springbatch.startup.lazy=true")
+                .run(args);
+
+        String jobName = context.getEnvironment().getRequiredProperty("springbatch.startup.job");
+        String[] nonOptionArgs = new DefaultApplicationArguments(args).getNonOptionArgs().toArray(new String[0]);
+        Properties properties = StringUtils.splitArrayElementsIntoProperties(nonOptionArgs, "=");
+        JobParameters parameters = new DefaultJobParametersConverter().getJobParameters(properties == null ? new Properties() : properties);
+
+        JobExecution jobExecution = context.getBean(JobLauncher.class)
+                .run(context.getBean(JobRegistry.class).getJob(jobName), parameters);
+
+        System.exit(SpringApplication.exit(context, () -> jobExecution.getStatus() == BatchStatus.COMPLETED ? 0 : 1));
+    }
+}
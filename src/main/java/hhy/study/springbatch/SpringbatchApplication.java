@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.quartz.QuartzAutoConfiguration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
@@ -13,7 +14,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * @Test    : Junit
  */
 @EnableScheduling
-@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class})
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, QuartzAutoConfiguration.class})
 public class SpringbatchApplication {
 
     /**
@@ -29,6 +30,7 @@ public class SpringbatchApplication {
      *    다양한 이유로 단독 요청이 잦으므로 각 단계를 Job으로 구성해서 job parameter로 로컬대신 서버에서 돌린 단계를 선택하도록 개발하고 싶었음
      *    job끼리는 순서보장이 되지 않음(치명적). 순차적으로 job이 실행되는 코드를 개발하였음. 추후 이런 유사한 개발을 해야한다면 삽질하지말고
      *    순차적으로 개발되도록 코드를 짜서 관리하는 것이 심신의 건강에 좋을 것 같음.
+     *    -> JobChainConfig : job 순서를 DAG(JobChain)로 정의, 선행 job 이 없는 branch 는 동시 실행 (완료된 job 은 재실행시 건너뜀)
      * 2020.04, epopcon migration issue
      * -> batch job 순차적으로 실행되도록 커스텀 후 배치 속도 이슈로 멀티쓰레드로 변경했을때
      *    Reader쪽 쓰레드가 꼬이는 이슈 발생, 해당 부분 모두 커스텀으로 최상위단 implements 받아서 개발 진행하였음
@@ -42,6 +44,9 @@ public class SpringbatchApplication {
      * -> source 가 분산되어 있는 경우 chunk로 개량하려 했으나 한계점 발생
      *    개발 검토 결과 Job이 싱글톤으로 존재, Step은 동적으로 source 갯수 만큼 생성되어야 했음. (배치 실행 각 단계에서 무지해서 발생)
      *    Job은 1개, Step내에서 tasklet을 source 갯수만큼 동적으로 생성하여 해결하였음.
+     *    -> MultiSourceJobConfig : source(파일/block) 마다 partition 을 만들어 gridSize 개 쓰레드로 병렬 처리 (source 별 재시작)
+     *    -> LoadJobConfig : txt -> DB 적재 (JdbcNumberItemWriter : multi-row VALUES + JDBC batch + 병렬 connection, staging table 교체)
+     *    -> TaskletJobConfig tasklet1 : 적재 후 update 쿼리를 key 구간 단위로 병렬 update (KeysetBulkUpdateTasklet : 구간별 commit, cursor 로 재시작)
      */
 
     public static void main(String[] args) {
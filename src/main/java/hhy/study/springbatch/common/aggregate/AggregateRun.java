@@ -0,0 +1,104 @@
+package hhy.study.springbatch.common.aggregate;
+
+import hhy.study.springbatch.common.spill.SpillRuns;
+import hhy.study.springbatch.job.NumberAggregateVO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * @Purpose         : key 순으로 정렬된 집계 run 파일 읽기/쓰기
+ * @Comment         : record = key(UTF) | sum(long) | count(long) | min(int) | max(int)
+ *                    KeyAggregateTable spill 과 KeyedAggregateTasklet 의 중간 병합 결과에 같은 형식 사용
+ */
+public final class AggregateRun {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AggregateRun() {
+    }
+
+    public static Writer writer(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        return new Writer(file);
+    }
+
+    public static Reader reader(File file) throws IOException {
+        return new Reader(file);
+    }
+
+    public static final class Writer implements SpillRuns.Writer<NumberAggregateVO> {
+
+        private final DataOutputStream out;
+        private final FileOutputStream file;
+
+        private Writer(File file) throws IOException {
+            this.file = new FileOutputStream(file);
+            this.out = new DataOutputStream(new BufferedOutputStream(this.file, BUFFER_SIZE));
+        }
+
+        public void write(String key, long sum, long count, int min, int max) throws IOException {
+            out.writeUTF(key);
+            out.writeLong(sum);
+            out.writeLong(count);
+            out.writeInt(min);
+            out.writeInt(max);
+        }
+
+        @Override
+        public void write(NumberAggregateVO aggregate) throws IOException {
+            write(aggregate.getKey(), aggregate.getSum(), aggregate.getCount(), aggregate.getMin(), aggregate.getMax());
+        }
+
+        /* checkpoint 에 기록되는 run 이므로 close 전에 disk 까지 내림 */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                file.getFD().sync();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    public static final class Reader implements SpillRuns.Reader<NumberAggregateVO> {
+
+        private final DataInputStream in;
+
+        private Reader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+
+        @Override
+        public NumberAggregateVO read() throws IOException {
+            String key;
+            try {
+                key = in.readUTF();
+            } catch (EOFException e) {
+                return null;
+            }
+            NumberAggregateVO aggregate = new NumberAggregateVO();
+            aggregate.setKey(key);
+            aggregate.setSum(in.readLong());
+            aggregate.setCount(in.readLong());
+            aggregate.setMin(in.readInt());
+            aggregate.setMax(in.readInt());
+            return aggregate;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
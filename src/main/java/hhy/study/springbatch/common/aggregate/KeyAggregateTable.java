@@ -0,0 +1,208 @@
+package hhy.study.springbatch.common.aggregate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @Purpose         : key 별 sum/count/min/max 집계용 open addressing hash table
+ * @Comment         : 집계값은 key 당 객체 없이 long[] / int[] 컬럼에 저장 (HashMap<String, 집계객체> 대비 entry/boxing 할당 없음)
+ *                    key 는 reader 가 만든 String 을 그대로 참조 (KeyInternCache 를 쓰면 같은 key 는 같은 String)
+ *                    KeyedAggregateTasklet 에서 size() 가 memory budget 을 넘으면 key 순으로 정렬해서 run 파일로 내보내고 clear()
+ *                    작은 table 은 checkpoint 에서 snapshot() 으로 ExecutionContext 에 저장, 재시작시 restore()
+ *                    쓰레드 안전하지 않음
+ */
+public class KeyAggregateTable {
+
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    private String[] keys;
+    private long[] sums;
+    private long[] counts;
+    private int[] mins;
+    private int[] maxs;
+    private int size;
+
+    public KeyAggregateTable() {
+        this(1024);
+    }
+
+    public KeyAggregateTable(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public void add(String key, int num) {
+        add(key, num, 1, num, num);
+    }
+
+    private void add(String key, long sum, long count, int min, int max) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            String current = keys[slot];
+            if (current == null) {
+                keys[slot] = key;
+                sums[slot] = sum;
+                counts[slot] = count;
+                mins[slot] = min;
+                maxs[slot] = max;
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+                return;
+            }
+            if (current == key || current.equals(key)) {
+                sums[slot] += sum;
+                counts[slot] += count;
+                if (min < mins[slot]) {
+                    mins[slot] = min;
+                }
+                if (max > maxs[slot]) {
+                    maxs[slot] = max;
+                }
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* capacity 는 유지 (다음 spill 구간에서 재할당 없음) */
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    /* key 오름차순으로 run 에 기록 */
+    public void writeSorted(AggregateRun.Writer writer) throws IOException {
+        int[] slots = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                slots[n++] = slot;
+            }
+        }
+        sort(slots, 0, n - 1);
+        for (int slot : slots) {
+            writer.write(keys[slot], sums[slot], counts[slot], mins[slot], maxs[slot]);
+        }
+    }
+
+    /* 현재 entry 를 정렬 없이 byte[] 로 (record 형식은 AggregateRun 과 같음) */
+    public byte[] snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) {
+                    out.writeUTF(keys[slot]);
+                    out.writeLong(sums[slot]);
+                    out.writeLong(counts[slot]);
+                    out.writeInt(mins[slot]);
+                    out.writeInt(maxs[slot]);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /* snapshot() 의 entry 를 table 에 합침 */
+    public void restore(byte[] snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            while (true) {
+                String key;
+                try {
+                    key = in.readUTF();
+                } catch (EOFException e) {
+                    return;
+                }
+                add(key, in.readLong(), in.readLong(), in.readInt(), in.readInt());
+            }
+        }
+    }
+
+    /* slot 번호를 key 순으로 정렬 (boxing 없는 quicksort, 짧은 쪽만 재귀해서 깊이 log n)
+     * slot 순서는 hash 순서라 key 순으로는 무작위 -> 가운데 pivot 으로 충분, key 는 중복 없음 */
+    private void sort(int[] slots, int from, int to) {
+        while (to - from >= INSERTION_SORT_SIZE) {
+            String pivot = keys[slots[(from + to) >>> 1]];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (keys[slots[i]].compareTo(pivot) < 0) {
+                    i++;
+                }
+                while (keys[slots[j]].compareTo(pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    int slot = slots[i];
+                    slots[i++] = slots[j];
+                    slots[j--] = slot;
+                }
+            }
+            if (j - from < to - i) {
+                sort(slots, from, j);
+                from = i;
+            } else {
+                sort(slots, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            int slot = slots[i];
+            String key = keys[slot];
+            int j = i - 1;
+            while (j >= from && keys[slots[j]].compareTo(key) > 0) {
+                slots[j + 1] = slots[j];
+                j--;
+            }
+            slots[j + 1] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        sums = new long[capacity];
+        counts = new long[capacity];
+        mins = new int[capacity];
+        maxs = new int[capacity];
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        long[] oldSums = sums;
+        long[] oldCounts = counts;
+        int[] oldMins = mins;
+        int[] oldMaxs = maxs;
+
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = mix(oldKeys[i].hashCode()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            sums[slot] = oldSums[i];
+            counts[slot] = oldCounts[i];
+            mins[slot] = oldMins[i];
+            maxs[slot] = oldMaxs[i];
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
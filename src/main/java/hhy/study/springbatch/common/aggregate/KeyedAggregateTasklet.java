@@ -0,0 +1,177 @@
+package hhy.study.springbatch.common.aggregate;
+
+import hhy.study.springbatch.common.spill.SpillRuns;
+import hhy.study.springbatch.job.NumberAggregateVO;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @Purpose         : NumberVO 를 key 별 sum/count/min/max 로 집계하는 Tasklet (외부 DB 없이 group by)
+ * @Comment         : 1) 읽기 : tasklet 1회 실행(= transaction 1개)마다 checkpointItems 건을 KeyAggregateTable 에 누적.
+ *                       table 의 key 수가 maxEntries 를 넘거나 읽기가 끝나면 key 순으로 정렬해서 run 파일로 spill.
+ *                       checkpoint 에서는 table 이 contextEntries 이하면 spill 하지 않고 snapshot 을 StepExecutionContext 에 저장
+ *                       (table 은 memory 에 두고 계속 누적, 더 크면 spill) -> commit 마다 작은 run 이 생기지 않음
+ *                       run 수 / table snapshot 은 StepExecutionContext, reader offset 은 reader 의 ItemStream 으로 같은 commit 에 저장
+ *                       -> 재시작시 마지막 commit 의 run 목록 + snapshot + reader 위치부터 이어서 집계 (commit 안된 run 은 덮어씀)
+ *                    2) 병합 : run 을 key 순으로 SpillRuns 로 병합 (같은 key 는 하나로 합침) 해서 writer 로 writeBatch 건씩 출력
+ *                    3) step 이 COMPLETED 면 run 파일 삭제
+ *                    reader / writer 가 ItemStream 이면 step 에 stream 으로, tasklet 은 listener 로 등록해야 함 (AggregateJobConfig 참고)
+ * @Disadvantages   : snapshot 은 commit 마다 table 전체를 다시 씀 -> contextEntries 를 크게 잡으면 ExecutionContext 가 커짐
+ *                    병합 단계는 transaction 1개 (중간에 실패하면 병합을 처음부터 다시 함)
+ */
+public class KeyedAggregateTasklet implements Tasklet, StepExecutionListener {
+
+    public static final String RUN_COUNT_KEY = "KeyedAggregateTasklet.runs";
+    public static final String READ_DONE_KEY = "KeyedAggregateTasklet.readDone";
+    public static final String TABLE_KEY = "KeyedAggregateTasklet.table";
+
+    private final ItemReader<? extends NumberVO> reader;
+    private final ItemWriter<? super NumberAggregateVO> writer;
+    private final SpillRuns<NumberAggregateVO> spillRuns;
+
+    private int maxEntries = 100_000;
+    private int checkpointItems = 100_000;
+    private int contextEntries = 1024;
+    private int writeBatch = 1000;
+
+    private KeyAggregateTable table;
+
+    public KeyedAggregateTasklet(ItemReader<? extends NumberVO> reader, ItemWriter<? super NumberAggregateVO> writer, File spillDirectory) {
+        Assert.notNull(reader, "reader must be set");
+        Assert.notNull(writer, "writer must be set");
+        Assert.notNull(spillDirectory, "spillDirectory must be set");
+        this.reader = reader;
+        this.writer = writer;
+        this.spillRuns = new SpillRuns<>(spillDirectory, AggregateRun::reader, AggregateRun::writer, Comparator.comparing(NumberAggregateVO::getKey));
+        this.spillRuns.setCombiner(NumberAggregateVO::merge);
+    }
+
+    /* memory budget : table 에 들고 있을 최대 key 수 */
+    public void setMaxEntries(int maxEntries) {
+        Assert.isTrue(maxEntries > 0, "maxEntries must be greater than zero");
+        this.maxEntries = maxEntries;
+    }
+
+    public void setCheckpointItems(int checkpointItems) {
+        Assert.isTrue(checkpointItems > 0, "checkpointItems must be greater than zero");
+        this.checkpointItems = checkpointItems;
+    }
+
+    /* checkpoint 에서 spill 대신 ExecutionContext 에 저장할 최대 key 수 (0 이면 항상 spill) */
+    public void setContextEntries(int contextEntries) {
+        Assert.isTrue(contextEntries >= 0, "contextEntries must not be negative");
+        this.contextEntries = contextEntries;
+    }
+
+    public void setMergeFanIn(int mergeFanIn) {
+        spillRuns.setMergeFanIn(mergeFanIn);
+    }
+
+    public void setWriteBatch(int writeBatch) {
+        Assert.isTrue(writeBatch > 0, "writeBatch must be greater than zero");
+        this.writeBatch = writeBatch;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        spillRuns.open(stepExecution);
+        table = new KeyAggregateTable(Math.min(maxEntries, 1 << 16));
+        /* 재시작 : 마지막 commit 의 snapshot 부터 */
+        Object snapshot = stepExecution.getExecutionContext().get(TABLE_KEY);
+        if (snapshot != null) {
+            try {
+                table.restore((byte[]) snapshot);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to restore aggregate table of " + stepExecution.getStepName(), e);
+            }
+        }
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        int runs = executionContext.getInt(RUN_COUNT_KEY, 0);
+
+        if (!executionContext.containsKey(READ_DONE_KEY)) {
+            boolean done = false;
+            for (int i = 0; i < checkpointItems; i++) {
+                NumberVO item = reader.read();
+                if (item == null) {
+                    done = true;
+                    break;
+                }
+                contribution.incrementReadCount();
+                table.add(item.getKey(), item.getNum());
+                if (table.size() >= maxEntries) {
+                    spill(runs++);
+                }
+            }
+            if (table.size() > 0 && (done || table.size() > contextEntries)) {
+                spill(runs++);
+            }
+            if (table.size() > 0) {
+                executionContext.put(TABLE_KEY, table.snapshot());
+            } else {
+                executionContext.remove(TABLE_KEY);
+            }
+            executionContext.putInt(RUN_COUNT_KEY, runs);
+            if (done) {
+                executionContext.putString(READ_DONE_KEY, "Y");
+            }
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        merge(contribution, runs);
+        return RepeatStatus.FINISHED;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (ExitStatus.COMPLETED.getExitCode().equals(stepExecution.getExitStatus().getExitCode())) {
+            spillRuns.deleteRuns();
+        }
+        return null;
+    }
+
+    private void spill(int run) throws IOException {
+        try (AggregateRun.Writer runWriter = AggregateRun.writer(spillRuns.runFile(run))) {
+            table.writeSorted(runWriter);
+        }
+        table.clear();
+    }
+
+    private void merge(StepContribution contribution, int runs) throws Exception {
+        List<NumberAggregateVO> batch = new ArrayList<>(writeBatch);
+        spillRuns.merge(runs, aggregate -> {
+            batch.add(aggregate);
+            if (batch.size() >= writeBatch) {
+                flush(contribution, batch);
+            }
+        });
+        if (!batch.isEmpty()) {
+            flush(contribution, batch);
+        }
+    }
+
+    private void flush(StepContribution contribution, List<NumberAggregateVO> batch) throws Exception {
+        writer.write(batch);
+        contribution.incrementWriteCount(batch.size());
+        batch.clear();
+    }
+}
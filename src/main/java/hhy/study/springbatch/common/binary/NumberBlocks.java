@@ -0,0 +1,484 @@
+package hhy.study.springbatch.common.binary;
+
+import hhy.study.springbatch.common.reader.KeyInternCache;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @Purpose         : NumberVO binary columnar 파일 형식 (text key@num 대체)
+ * @Comment         : 파일 = block * N + footer (big endian)
+ *                    block  = header(20) + payload + CRC32(raw, 4)
+ *                             header : MAGIC | flags(bit0 deflate) | count | payloadLength | rawLength  (int 5개)
+ *                             raw    : 사전 크기(int) + [key 길이(short) + key(UTF-8)] * 사전 크기
+ *                                      + keyId 컬럼(count * 1/2/4 byte, 사전 크기로 결정) + num 컬럼(count * int)
+ *                    footer = FOOTER_MAGIC | block 수 | [block offset(long) + count(int)] * block 수 | 전체 건수(long) | footer 길이 | END_MAGIC
+ *                    block 안에서 같은 key 는 사전에 1번만 저장, 읽을 때도 block 당 key String 1번만 생성
+ *                    footer 가 없으면(쓰는 중 중단된 파일) block header 를 따라가며 index 를 다시 만듦 (scan)
+ */
+public final class NumberBlocks {
+
+    public static final int MAGIC = 0x4e424b31;          // "NBK1"
+    private static final int FOOTER_MAGIC = 0x4e424958;  // "NBIX"
+    private static final int END_MAGIC = 0x4e424654;     // "NBFT"
+
+    public static final int HEADER_SIZE = 20;
+    private static final int TRAILER_SIZE = 4;
+    private static final int FLAG_DEFLATE = 1;
+
+    private NumberBlocks() {
+    }
+
+    /**
+     * 파일의 block index. footer 가 있으면 footer 에서, 없으면 처음부터 scan
+     */
+    public static Index readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size >= 8) {
+            ByteBuffer tail = ByteBuffer.allocate(8);
+            readFully(channel, tail, size - 8);
+            int footerLength = tail.getInt(0);
+            if (tail.getInt(4) == END_MAGIC && footerLength >= 24 && footerLength <= size) {
+                ByteBuffer footer = ByteBuffer.allocate(footerLength);
+                long footerOffset = size - footerLength;
+                readFully(channel, footer, footerOffset);
+                ((Buffer) footer).flip();
+                if (footer.getInt() == FOOTER_MAGIC) {
+                    int blocks = footer.getInt();
+                    Index index = new Index(Math.max(16, blocks));
+                    for (int i = 0; i < blocks; i++) {
+                        index.add(footer.getLong(), footer.getInt());
+                    }
+                    index.end = footerOffset;
+                    return index;
+                }
+            }
+        }
+        return scan(channel, size);
+    }
+
+    /**
+     * [0, limit) 안의 완전한 block 들로 index 생성. 중간에 깨진 block / footer 를 만나면 거기서 멈춤 (Index.end())
+     */
+    public static Index scan(FileChannel channel, long limit) throws IOException {
+        Index index = new Index(16);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long offset = 0;
+        while (offset + HEADER_SIZE + TRAILER_SIZE <= limit) {
+            ((Buffer) header).clear();
+            readFully(channel, header, offset);
+            if (header.getInt(0) != MAGIC) {
+                break;
+            }
+            long blockSize = HEADER_SIZE + (header.getInt(12) & 0xffffffffL) + TRAILER_SIZE;
+            if (offset + blockSize > limit) {
+                break;
+            }
+            index.add(offset, header.getInt(8));
+            offset += blockSize;
+        }
+        index.end = offset;
+        return index;
+    }
+
+    /* offset 위치 block 을 block 에 풀어서 채움 (block 재사용). keyCache 가 있으면 사전 key String 을 block 사이에서도 재사용 */
+    public static void readBlock(FileChannel channel, long offset, Block block, KeyInternCache keyCache) throws IOException {
+        ByteBuffer header = block.header;
+        ((Buffer) header).clear();
+        readFully(channel, header, offset);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Invalid number block at offset " + offset);
+        }
+        int payloadLength = header.getInt(12);
+        ByteBuffer payload = block.payload(payloadLength + TRAILER_SIZE);
+        readFully(channel, payload, offset + HEADER_SIZE);
+        ((Buffer) payload).flip();
+        decodeBlock(header, 0, payload, block, keyCache, offset);
+    }
+
+    /**
+     * memory-mapped 등 이미 메모리에 있는 파일 내용에서 position 위치 block 을 복사 없이 풀어서 채움. block 전체 크기를 반환
+     * (무압축 block 은 num/keyId 컬럼을 source 에서 바로 읽음)
+     */
+    public static int readBlock(ByteBuffer source, int position, Block block, KeyInternCache keyCache) throws IOException {
+        if (source.getInt(position) != MAGIC) {
+            throw new IOException("Invalid number block at position " + position);
+        }
+        int payloadLength = source.getInt(position + 12);
+        ByteBuffer payload = source.duplicate();
+        ((Buffer) payload).limit(position + HEADER_SIZE + payloadLength + TRAILER_SIZE);
+        ((Buffer) payload).position(position + HEADER_SIZE);
+        decodeBlock(source, position, payload.slice(), block, keyCache, position);
+        return HEADER_SIZE + payloadLength + TRAILER_SIZE;
+    }
+
+    /* header 는 headerPosition 부터, payload 는 0 부터 (CRC 포함) */
+    private static void decodeBlock(ByteBuffer header, int headerPosition, ByteBuffer payload, Block block,
+                                    KeyInternCache keyCache, long offset) throws IOException {
+        int flags = header.getInt(headerPosition + 4);
+        int count = header.getInt(headerPosition + 8);
+        int payloadLength = header.getInt(headerPosition + 12);
+        int rawLength = header.getInt(headerPosition + 16);
+        int expectedCrc = payload.getInt(payloadLength);
+
+        ByteBuffer raw;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            byte[] input;
+            int inputOffset;
+            if (payload.hasArray()) {
+                input = payload.array();
+                inputOffset = payload.arrayOffset();
+            } else {
+                /* Java 8 Inflater 는 byte[] 입력만 가능 -> 압축된 block 만 복사 */
+                input = block.input(payloadLength);
+                payload.duplicate().get(input, 0, payloadLength);
+                inputOffset = 0;
+            }
+            byte[] inflatedBytes = block.raw(rawLength);
+            Inflater inflater = block.inflater();
+            inflater.reset();
+            inflater.setInput(input, inputOffset, payloadLength);
+            try {
+                int inflated = 0;
+                while (inflated < rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(inflatedBytes, inflated, rawLength - inflated);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    inflated += n;
+                }
+                if (inflated != rawLength) {
+                    throw new IOException("Corrupt number block at offset " + offset);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt number block at offset " + offset, e);
+            }
+            raw = ByteBuffer.wrap(inflatedBytes, 0, rawLength);
+        } else {
+            raw = payload.duplicate();
+            ((Buffer) raw).position(0);
+            ((Buffer) raw).limit(rawLength);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Corrupt number block at offset " + offset + " : CRC mismatch");
+        }
+        block.decode(raw, count, keyCache);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static int keyIdWidth(int dictionarySize) {
+        return dictionarySize <= 0x100 ? 1 : dictionarySize <= 0x10000 ? 2 : 4;
+    }
+
+    /**
+     * block offset / 건수 목록. end() = 마지막 block 의 끝 (footer 시작 위치)
+     */
+    public static final class Index {
+
+        private long[] offsets;
+        private int[] counts;
+        private int size;
+        private long end;
+
+        public Index(int capacity) {
+            this.offsets = new long[capacity];
+            this.counts = new int[capacity];
+        }
+
+        public void add(long offset, int count) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            offsets[size] = offset;
+            counts[size] = count;
+            size++;
+        }
+
+        /* rollback : 앞의 size 개만 남김 */
+        public void truncate(int size) {
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long offset(int block) {
+            return offsets[block];
+        }
+
+        public int count(int block) {
+            return counts[block];
+        }
+
+        public long end() {
+            return end;
+        }
+
+        public long totalCount() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+
+        /* footer 내용 (position 0 ~ limit) */
+        public ByteBuffer footer() {
+            int length = 4 + 4 + size * 12 + 8 + 4 + 4;
+            ByteBuffer footer = ByteBuffer.allocate(length);
+            footer.putInt(FOOTER_MAGIC).putInt(size);
+            for (int i = 0; i < size; i++) {
+                footer.putLong(offsets[i]).putInt(counts[i]);
+            }
+            footer.putLong(totalCount()).putInt(length).putInt(END_MAGIC);
+            ((Buffer) footer).flip();
+            return footer;
+        }
+    }
+
+    /**
+     * item 을 모아서 block 1개로 인코딩 (재사용, 쓰레드 안전하지 않음)
+     */
+    public static final class Encoder {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private byte[][] keys = new byte[16][];
+        private int dictionarySize;
+        private int keyBytes;
+
+        private int[] keyIds = new int[1024];
+        private int[] nums = new int[1024];
+        private int count;
+
+        private ByteBuffer raw = ByteBuffer.allocate(64 * 1024);
+        private byte[] compressed = new byte[0];
+        private final Deflater deflater;
+
+        public Encoder(int level) {
+            this.deflater = new Deflater(level);
+        }
+
+        public void add(String key, int num) {
+            if (key == null) {
+                key = "";
+            }
+            Integer id = ids.get(key);
+            if (id == null) {
+                byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+                if (encoded.length > 0xffff) {
+                    throw new IllegalArgumentException("key is longer than 65535 bytes");
+                }
+                if (dictionarySize == keys.length) {
+                    keys = Arrays.copyOf(keys, dictionarySize * 2);
+                }
+                id = dictionarySize;
+                keys[dictionarySize++] = encoded;
+                keyBytes += 2 + encoded.length;
+                ids.put(key, id);
+            }
+            if (count == nums.length) {
+                keyIds = Arrays.copyOf(keyIds, count * 2);
+                nums = Arrays.copyOf(nums, count * 2);
+            }
+            keyIds[count] = id;
+            nums[count] = num;
+            count++;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * 지금까지 add 한 item 을 block 1개(header 포함)로 만들고 비움. compress 면 deflate (더 커지면 원본 저장)
+         */
+        public ByteBuffer encode(boolean compress) {
+            int width = keyIdWidth(dictionarySize);
+            int rawLength = 4 + keyBytes + count * width + count * 4;
+            if (raw.capacity() < rawLength) {
+                raw = ByteBuffer.allocate(Math.max(rawLength, raw.capacity() * 2));
+            }
+            ((Buffer) raw).clear();
+            raw.putInt(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                raw.putShort((short) keys[i].length).put(keys[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                if (width == 1) {
+                    raw.put((byte) keyIds[i]);
+                } else if (width == 2) {
+                    raw.putShort((short) keyIds[i]);
+                } else {
+                    raw.putInt(keyIds[i]);
+                }
+            }
+            raw.asIntBuffer().put(nums, 0, count);
+            ((Buffer) raw).position(raw.position() + count * 4);
+
+            CRC32 crc = new CRC32();
+            crc.update(raw.array(), 0, rawLength);
+
+            int flags = 0;
+            byte[] payload = raw.array();
+            int payloadLength = rawLength;
+            if (compress) {
+                if (compressed.length < rawLength) {
+                    compressed = new byte[rawLength];
+                }
+                deflater.reset();
+                deflater.setInput(raw.array(), 0, rawLength);
+                deflater.finish();
+                int length = deflater.deflate(compressed, 0, rawLength);
+                if (deflater.finished() && length < rawLength) {
+                    flags = FLAG_DEFLATE;
+                    payload = compressed;
+                    payloadLength = length;
+                }
+            }
+
+            ByteBuffer block = ByteBuffer.allocate(HEADER_SIZE + payloadLength + TRAILER_SIZE);
+            block.putInt(MAGIC).putInt(flags).putInt(count).putInt(payloadLength).putInt(rawLength)
+                    .put(payload, 0, payloadLength)
+                    .putInt((int) crc.getValue());
+            ((Buffer) block).flip();
+
+            clear();
+            return block;
+        }
+
+        public void clear() {
+            ids.clear();
+            Arrays.fill(keys, 0, dictionarySize, null);
+            dictionarySize = 0;
+            keyBytes = 0;
+            count = 0;
+        }
+
+        public void end() {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 풀린 block 1개. key 는 block 사전의 String 을 공유 (item 마다 String 생성 없음)
+     */
+    public static final class Block {
+
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        private ByteBuffer payload = ByteBuffer.allocate(64 * 1024);
+        private byte[] raw = new byte[0];
+        private byte[] input = new byte[0];
+        private byte[] keyBytes = new byte[64];
+        private Inflater inflater;
+
+        private String[] dictionary = new String[16];
+        private int[] keyIds = new int[1024];
+        private int[] nums = new int[1024];
+        private int count;
+
+        public int count() {
+            return count;
+        }
+
+        public String key(int index) {
+            return dictionary[keyIds[index]];
+        }
+
+        public int num(int index) {
+            return nums[index];
+        }
+
+        public void end() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+
+        private ByteBuffer payload(int length) {
+            if (payload.capacity() < length) {
+                payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+            }
+            ((Buffer) payload).clear();
+            ((Buffer) payload).limit(length);
+            return payload;
+        }
+
+        private byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[Math.max(length, raw.length * 2)];
+            }
+            return raw;
+        }
+
+        private byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            return input;
+        }
+
+        private Inflater inflater() {
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            return inflater;
+        }
+
+        private void decode(ByteBuffer buffer, int count, KeyInternCache keyCache) {
+            int dictionarySize = buffer.getInt();
+            if (dictionary.length < dictionarySize) {
+                dictionary = new String[dictionarySize];
+            }
+            for (int i = 0; i < dictionarySize; i++) {
+                int length = buffer.getShort() & 0xffff;
+                int from = buffer.position();
+                if (keyCache != null) {
+                    dictionary[i] = keyCache.intern(buffer, from, from + length, StandardCharsets.UTF_8);
+                } else if (buffer.hasArray()) {
+                    dictionary[i] = new String(buffer.array(), buffer.arrayOffset() + from, length, StandardCharsets.UTF_8);
+                } else {
+                    if (keyBytes.length < length) {
+                        keyBytes = new byte[Math.max(length, keyBytes.length * 2)];
+                    }
+                    buffer.get(keyBytes, 0, length);
+                    dictionary[i] = new String(keyBytes, 0, length, StandardCharsets.UTF_8);
+                }
+                ((Buffer) buffer).position(from + length);
+            }
+
+            if (nums.length < count) {
+                keyIds = new int[count];
+                nums = new int[count];
+            }
+            int width = keyIdWidth(dictionarySize);
+            for (int i = 0; i < count; i++) {
+                keyIds[i] = width == 1 ? buffer.get() & 0xff : width == 2 ? buffer.getShort() & 0xffff : buffer.getInt();
+            }
+            buffer.asIntBuffer().get(nums, 0, count);
+            this.count = count;
+        }
+    }
+}
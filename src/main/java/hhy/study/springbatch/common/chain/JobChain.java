@@ -0,0 +1,207 @@
+package hhy.study.springbatch.common.chain;
+
+import org.springframework.batch.core.JobParameter;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Purpose         : job 실행 순서를 DAG 로 정의 (2020.03 이관 -> 정제 -> 적재 -> 엑셀 순서보장 건)
+ * @Comment         : node = job bean 이름 + node 전용 parameter + 선행 node(after) + 선행 node 에서 넘겨받을 값(pass)
+ *                    선행 node 가 없는 node 끼리는 JobChainLauncher 에서 동시에 실행된다.
+ *                    build() 에서 없는 node 참조 / 순환 참조를 검사
+ *                    ex) JobChain.builder("nightly")
+ *                            .node("migrate", "taskletJob")
+ *                            .node("refine", "simpleJob").after("migrate")
+ *                            .node("load", "flowJob").after("migrate")
+ *                            .node("excel", "decideJob").after("refine", "load").pass("refine", "requiredVal", "requiredVal")
+ *                            .build();
+ */
+public class JobChain {
+
+    private final String name;
+    private final Map<String, Node> nodes;
+
+    private JobChain(String name, Map<String, Node> nodes) {
+        this.name = name;
+        this.nodes = Collections.unmodifiableMap(nodes);
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Collection<Node> getNodes() {
+        return nodes.values();
+    }
+
+    public Node getNode(String nodeName) {
+        return nodes.get(nodeName);
+    }
+
+    /* nodeName 을 선행 node 로 가지는 node 들 */
+    public List<Node> getDependents(String nodeName) {
+        List<Node> dependents = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (node.dependsOn.contains(nodeName)) {
+                dependents.add(node);
+            }
+        }
+        return dependents;
+    }
+
+    public static class Node {
+        private final String name;
+        private final String jobName;
+        private final Map<String, JobParameter> parameters = new LinkedHashMap<>();
+        private final Set<String> dependsOn = new LinkedHashSet<>();
+        private final List<Edge> edges = new ArrayList<>();
+
+        private Node(String name, String jobName) {
+            this.name = name;
+            this.jobName = jobName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getJobName() {
+            return jobName;
+        }
+
+        public Map<String, JobParameter> getParameters() {
+            return Collections.unmodifiableMap(parameters);
+        }
+
+        public Set<String> getDependsOn() {
+            return Collections.unmodifiableSet(dependsOn);
+        }
+
+        public List<Edge> getEdges() {
+            return Collections.unmodifiableList(edges);
+        }
+    }
+
+    /**
+     * 선행 node 의 값(job ExecutionContext -> 없으면 job parameter) fromKey 를 이 node 의 job parameter toKey 로 전달
+     */
+    public static class Edge {
+        private final String fromNode;
+        private final String fromKey;
+        private final String toKey;
+
+        private Edge(String fromNode, String fromKey, String toKey) {
+            this.fromNode = fromNode;
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+        }
+
+        public String getFromNode() {
+            return fromNode;
+        }
+
+        public String getFromKey() {
+            return fromKey;
+        }
+
+        public String getToKey() {
+            return toKey;
+        }
+    }
+
+    public static class Builder {
+        private final String name;
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+        private Node current;
+
+        private Builder(String name) {
+            Assert.hasText(name, "chain name must not be empty");
+            this.name = name;
+        }
+
+        public Builder node(String nodeName, String jobName) {
+            Assert.hasText(nodeName, "node name must not be empty");
+            Assert.hasText(jobName, "job name must not be empty");
+            Assert.isTrue(!nodes.containsKey(nodeName), "Duplicate node : " + nodeName);
+            current = new Node(nodeName, jobName);
+            nodes.put(nodeName, current);
+            return this;
+        }
+
+        public Builder after(String... nodeNames) {
+            Assert.state(current != null, "node() must be called first");
+            Collections.addAll(current.dependsOn, nodeNames);
+            return this;
+        }
+
+        public Builder parameter(String key, JobParameter value) {
+            Assert.state(current != null, "node() must be called first");
+            current.parameters.put(key, value);
+            return this;
+        }
+
+        public Builder parameter(String key, String value) {
+            return parameter(key, new JobParameter(value));
+        }
+
+        public Builder parameter(String key, Long value) {
+            return parameter(key, new JobParameter(value));
+        }
+
+        /* pass 하는 node 는 선행 node 로 같이 등록됨 */
+        public Builder pass(String fromNode, String fromKey, String toKey) {
+            after(fromNode);
+            current.edges.add(new Edge(fromNode, fromKey, toKey));
+            return this;
+        }
+
+        public JobChain build() {
+            for (Node node : nodes.values()) {
+                for (String dependency : node.dependsOn) {
+                    Assert.isTrue(nodes.containsKey(dependency), "Unknown node '" + dependency + "' in " + node.name);
+                    Assert.isTrue(!dependency.equals(node.name), "Node depends on itself : " + node.name);
+                }
+            }
+            checkAcyclic();
+            return new JobChain(name, new LinkedHashMap<>(nodes));
+        }
+
+        /* Kahn : 위상정렬이 끝까지 안되면 순환 */
+        private void checkAcyclic() {
+            Map<String, Integer> inDegree = new HashMap<>();
+            Deque<String> ready = new ArrayDeque<>();
+            for (Node node : nodes.values()) {
+                inDegree.put(node.name, node.dependsOn.size());
+                if (node.dependsOn.isEmpty()) {
+                    ready.add(node.name);
+                }
+            }
+            int visited = 0;
+            while (!ready.isEmpty()) {
+                String nodeName = ready.poll();
+                visited++;
+                for (Node node : nodes.values()) {
+                    if (node.dependsOn.contains(nodeName) && inDegree.merge(node.name, -1, Integer::sum) == 0) {
+                        ready.add(node.name);
+                    }
+                }
+            }
+            Assert.isTrue(visited == nodes.size(), "Job chain '" + name + "' has a cycle");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package hhy.study.springbatch.common.chain;
+
+import org.springframework.batch.core.JobExecution;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Purpose         : JobChainLauncher 실행 결과 (node 별 상태 + JobExecution)
+ */
+public class JobChainExecution {
+
+    public enum Status {
+        /* 이번에 실행해서 완료 */
+        COMPLETED,
+        /* 같은 parameter 로 이미 완료된 job 이라 실행하지 않음 (재실행시) */
+        SKIPPED,
+        /* 실행했지만 COMPLETED 가 아님 / launch 실패 */
+        FAILED,
+        /* 선행 node 실패로 실행하지 않음 */
+        NOT_RUN
+    }
+
+    public static class NodeResult {
+        private final Status status;
+        private final JobExecution jobExecution;
+        private final Throwable failure;
+
+        NodeResult(Status status, JobExecution jobExecution, Throwable failure) {
+            this.status = status;
+            this.jobExecution = jobExecution;
+            this.failure = failure;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public JobExecution getJobExecution() {
+            return jobExecution;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public boolean isSuccessful() {
+            return status == Status.COMPLETED || status == Status.SKIPPED;
+        }
+    }
+
+    private final String chainName;
+    private final Map<String, NodeResult> results;
+
+    JobChainExecution(String chainName, Map<String, NodeResult> results) {
+        this.chainName = chainName;
+        this.results = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+    }
+
+    public String getChainName() {
+        return chainName;
+    }
+
+    public Map<String, NodeResult> getResults() {
+        return results;
+    }
+
+    public NodeResult getResult(String nodeName) {
+        return results.get(nodeName);
+    }
+
+    public boolean isSuccessful() {
+        for (NodeResult result : results.values()) {
+            if (!result.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,215 @@
+package hhy.study.springbatch.common.chain;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.util.Assert;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Purpose         : JobChain(DAG) 실행기 - 선행 node 가 끝난 job 부터 최대 maxParallel 개까지 동시에 실행
+ * @Comment         : node 의 job parameter = chain 공통 parameter + node parameter + 선행 node 에서 pass 받은 값 (뒤에 있는게 우선)
+ *                    실행 전에 같은 job/parameter 로 COMPLETED 된 실행이 있으면 건너뜀(SKIPPED) -> 실패 후 같은 parameter 로
+ *                    다시 돌리면 완료된 node 는 건너뛰고 실패한 node 부터 재시작(job restart)된다.
+ *                    node 가 실패하면 그 뒤 node 들만 NOT_RUN, 상관없는 branch 는 계속 실행
+ *                    job 은 bean 이름으로 찾음 (Map<String, Job>)
+ * @Disadvantages   : job 끼리 같은 파일에 쓰면 동시에 실행되지 않도록 after 로 순서를 지정해야 함
+ */
+public class JobChainLauncher {
+
+    private static final Logger LOG = LogManager.getLogger(JobChainLauncher.class);
+
+    private final JobLauncher jobLauncher;
+    private final JobRepository jobRepository;
+    private final Map<String, Job> jobs;
+    private final int maxParallel;
+
+    public JobChainLauncher(JobLauncher jobLauncher, JobRepository jobRepository, Map<String, Job> jobs, int maxParallel) {
+        Assert.notNull(jobLauncher, "jobLauncher must not be null");
+        Assert.notNull(jobRepository, "jobRepository must not be null");
+        Assert.isTrue(maxParallel > 0, "maxParallel must be greater than zero");
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+        this.jobs = jobs;
+        this.maxParallel = maxParallel;
+    }
+
+    public JobChainExecution run(JobChain chain, JobParameters chainParameters) throws InterruptedException {
+        for (JobChain.Node node : chain.getNodes()) {
+            Assert.isTrue(jobs.containsKey(node.getJobName()), "Unknown job '" + node.getJobName() + "' in node " + node.getName());
+        }
+
+        Map<String, JobChainExecution.NodeResult> results = new LinkedHashMap<>();
+        Map<String, Integer> waiting = new HashMap<>();
+        for (JobChain.Node node : chain.getNodes()) {
+            waiting.put(node.getName(), node.getDependsOn().size());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxParallel, Math.max(1, chain.getNodes().size())),
+                new ChainThreadFactory(chain.getName()));
+        CompletionService<NodeRun> completionService = new ExecutorCompletionService<>(executor);
+        try {
+            int running = 0;
+            for (JobChain.Node node : chain.getNodes()) {
+                if (node.getDependsOn().isEmpty()) {
+                    submit(completionService, node, chainParameters, results);
+                    running++;
+                }
+            }
+
+            /* 결과(results) 는 이 쓰레드에서만 갱신 */
+            while (running > 0) {
+                NodeRun run = take(completionService);
+                running--;
+                results.put(run.node.getName(), run.result);
+                LOG.info("[{}] {} -> {}", chain.getName(), run.node.getName(), run.result.getStatus());
+
+                for (JobChain.Node dependent : chain.getDependents(run.node.getName())) {
+                    if (results.containsKey(dependent.getName())) {
+                        continue;
+                    }
+                    if (!run.result.isSuccessful()) {
+                        markNotRun(chain, dependent, results);
+                        continue;
+                    }
+                    if (waiting.merge(dependent.getName(), -1, Integer::sum) == 0) {
+                        submit(completionService, dependent, chainParameters, results);
+                        running++;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        /* 정의 순서대로 정렬 */
+        Map<String, JobChainExecution.NodeResult> ordered = new LinkedHashMap<>();
+        for (JobChain.Node node : chain.getNodes()) {
+            ordered.put(node.getName(), results.get(node.getName()));
+        }
+        return new JobChainExecution(chain.getName(), ordered);
+    }
+
+    private void submit(CompletionService<NodeRun> completionService, JobChain.Node node, JobParameters chainParameters,
+                        Map<String, JobChainExecution.NodeResult> results) {
+        /* pass 값은 제출 시점(선행 node 완료 후)에 이 쓰레드에서 계산 */
+        JobParameters parameters;
+        try {
+            parameters = parametersFor(node, chainParameters, results);
+        } catch (IllegalStateException e) {
+            completionService.submit(() -> new NodeRun(node, new JobChainExecution.NodeResult(JobChainExecution.Status.FAILED, null, e)));
+            return;
+        }
+        completionService.submit(() -> new NodeRun(node, launch(node, parameters)));
+    }
+
+    private JobChainExecution.NodeResult launch(JobChain.Node node, JobParameters parameters) {
+        Job job = jobs.get(node.getJobName());
+        try {
+            JobExecution last = jobRepository.getLastJobExecution(job.getName(), parameters);
+            if (last != null && last.getStatus() == BatchStatus.COMPLETED) {
+                return new JobChainExecution.NodeResult(JobChainExecution.Status.SKIPPED, last, null);
+            }
+
+            JobExecution jobExecution = jobLauncher.run(job, parameters);
+            JobChainExecution.Status status = jobExecution.getStatus() == BatchStatus.COMPLETED
+                    ? JobChainExecution.Status.COMPLETED : JobChainExecution.Status.FAILED;
+            return new JobChainExecution.NodeResult(status, jobExecution, null);
+        } catch (Exception e) {
+            return new JobChainExecution.NodeResult(JobChainExecution.Status.FAILED, null, e);
+        }
+    }
+
+    private JobParameters parametersFor(JobChain.Node node, JobParameters chainParameters,
+                                        Map<String, JobChainExecution.NodeResult> results) {
+        Map<String, JobParameter> parameters = new LinkedHashMap<>(chainParameters.getParameters());
+        parameters.putAll(node.getParameters());
+
+        for (JobChain.Edge edge : node.getEdges()) {
+            JobExecution upstream = results.get(edge.getFromNode()).getJobExecution();
+            JobParameter value = upstream == null ? null : valueOf(upstream, edge.getFromKey());
+            Assert.state(value != null, "Node " + edge.getFromNode() + " has no value '" + edge.getFromKey() + "' for " + node.getName());
+            parameters.put(edge.getToKey(), value);
+        }
+        return new JobParameters(parameters);
+    }
+
+    /* job ExecutionContext 우선, 없으면 job parameter */
+    private JobParameter valueOf(JobExecution jobExecution, String key) {
+        Object value = jobExecution.getExecutionContext().get(key);
+        if (value == null) {
+            return jobExecution.getJobParameters().getParameters().get(key);
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return new JobParameter(((Number) value).longValue());
+        }
+        if (value instanceof Double) {
+            return new JobParameter((Double) value);
+        }
+        if (value instanceof Date) {
+            return new JobParameter((Date) value);
+        }
+        return new JobParameter(value.toString());
+    }
+
+    private void markNotRun(JobChain chain, JobChain.Node node, Map<String, JobChainExecution.NodeResult> results) {
+        if (results.containsKey(node.getName())) {
+            return;
+        }
+        results.put(node.getName(), new JobChainExecution.NodeResult(JobChainExecution.Status.NOT_RUN, null, null));
+        LOG.info("[{}] {} -> {}", chain.getName(), node.getName(), JobChainExecution.Status.NOT_RUN);
+        for (JobChain.Node dependent : chain.getDependents(node.getName())) {
+            markNotRun(chain, dependent, results);
+        }
+    }
+
+    private NodeRun take(CompletionService<NodeRun> completionService) throws InterruptedException {
+        try {
+            return completionService.take().get();
+        } catch (ExecutionException e) {
+            /* launch() 는 예외를 결과로 바꾸므로 여기까지 오지 않음 */
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class NodeRun {
+        private final JobChain.Node node;
+        private final JobChainExecution.NodeResult result;
+
+        private NodeRun(JobChain.Node node, JobChainExecution.NodeResult result) {
+            this.node = node;
+            this.result = result;
+        }
+    }
+
+    private static class ChainThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private ChainThreadFactory(String chainName) {
+            this.prefix = chainName + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, prefix + count.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package hhy.study.springbatch.common.compress;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @Purpose         : gzip 파일을 압축 해제된 block 단위로 순서대로 돌려주는 입력
+ * @Comment         : BGZF(block gzip) 면 block 경계를 header 로 찾아서 worker 쓰레드들이 병렬로 해제 (순서는 유지, threads * 2 개 미리 해제)
+ *                    일반 gzip 이면 GZIPInputStream 으로 순차 해제 (block 경계를 알 수 없어서 병렬 불가)
+ *                    Block.offset / Block.base : 재시작 위치. BGZF 는 (block 파일 offset, 0), 일반 gzip 은 (0, 앞에서 해제한 byte 수)
+ *                    -> block 안 위치 p 는 open(offset) 후 base + p byte 를 건너뛰면 같은 위치
+ */
+public class GzipBlockInput implements Closeable {
+
+    private static final int STREAM_BLOCK_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final boolean blocked;
+
+    /* BGZF */
+    private ExecutorService executor;
+    private final ArrayDeque<Future<Block>> readAhead = new ArrayDeque<>();
+    private int maxReadAhead;
+    private long nextOffset;
+
+    /* 일반 gzip */
+    private InputStream stream;
+    private long streamBase;
+
+    public GzipBlockInput(FileChannel channel, long offset, int threads) throws IOException {
+        this.channel = channel;
+        this.blocked = GzipBlocks.blockSize(channel, 0) > 0;
+        if (blocked) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "gzip-inflate-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.maxReadAhead = threads * 2;
+            this.nextOffset = offset;
+        } else {
+            /* 일반 gzip 은 처음부터만 읽을 수 있음 (offset 은 항상 0) */
+            this.stream = new GZIPInputStream(Channels.newInputStream(channel.position(0)), STREAM_BLOCK_SIZE);
+        }
+    }
+
+    /* 병렬 해제 가능 여부 */
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    /* 다음 block, 끝이면 null */
+    public Block next() throws IOException {
+        return blocked ? nextBlock() : nextStreamBlock();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (executor != null) {
+            for (Future<Block> future : readAhead) {
+                future.cancel(true);
+            }
+            readAhead.clear();
+            executor.shutdownNow();
+        }
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private Block nextBlock() throws IOException {
+        long size = channel.size();
+        while (readAhead.size() < maxReadAhead && nextOffset < size) {
+            long offset = nextOffset;
+            int blockSize = GzipBlocks.blockSize(channel, offset);
+            if (blockSize < 0 || offset + blockSize > size) {
+                throw new IOException("Invalid gzip block at offset " + offset);
+            }
+            byte[] compressed = new byte[blockSize];
+            GzipBlocks.readFully(channel, ByteBuffer.wrap(compressed), offset);
+            readAhead.add(executor.submit(() -> {
+                byte[] data = GzipBlocks.decompress(compressed, blockSize);
+                return new Block(offset, 0, data, data.length);
+            }));
+            nextOffset = offset + blockSize;
+        }
+        Future<Block> future = readAhead.poll();
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while inflating gzip block", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private Block nextStreamBlock() throws IOException {
+        byte[] data = new byte[STREAM_BLOCK_SIZE];
+        int length = 0;
+        while (length < data.length) {
+            int n = stream.read(data, length, data.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+        }
+        if (length == 0) {
+            return null;
+        }
+        Block block = new Block(0, streamBase, data, length);
+        streamBase += length;
+        return block;
+    }
+
+    public static final class Block {
+
+        private final long offset;
+        private final long base;
+        private final byte[] data;
+        private final int length;
+
+        private Block(long offset, long base, byte[] data, int length) {
+            this.offset = offset;
+            this.base = base;
+            this.data = data;
+            this.length = length;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        public long base() {
+            return base;
+        }
+
+        public byte[] data() {
+            return data;
+        }
+
+        public int length() {
+            return length;
+        }
+    }
+}
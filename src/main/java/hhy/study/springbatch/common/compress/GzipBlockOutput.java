@@ -0,0 +1,141 @@
+package hhy.study.springbatch.common.compress;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @Purpose         : 원본 byte 를 BGZF block 으로 압축해서 파일에 쓰는 출력 (압축/쓰기는 background 쓰레드)
+ * @Comment         : write() 는 원본을 block(최대 MAX_BLOCK_INPUT) 으로 잘라서 압축 worker 에 넘기고 바로 반환
+ *                    압축된 block 은 쓰기 전용 쓰레드 1개가 넘긴 순서대로 파일에 씀
+ *                    미처리 block 이 threads * 4 개를 넘으면 write() 가 기다림 (메모리 제한)
+ *                    flush() : 넘긴 block 이 모두 파일에 써질 때까지 대기 (sync / rollback / close 시점)
+ *                    write() 한번의 끝은 항상 block 경계 -> 원본 위치(uncompressed)로 truncate 위치를 찾을 수 있음 (GzipBlocks.seek)
+ */
+public class GzipBlockOutput implements Closeable {
+
+    private final FileChannel channel;
+    private final int level;
+    private final ExecutorService compressors;
+    private final ExecutorService writer;
+    private final Semaphore inFlight;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /* 원본 기준 넘긴 byte 수, 압축 파일 기준 다음 쓰기 위치(쓰기 쓰레드만 변경) */
+    private long uncompressed;
+    private volatile long compressedPosition;
+
+    public GzipBlockOutput(FileChannel channel, long compressedPosition, long uncompressed, int level, int threads) {
+        this.channel = channel;
+        this.compressedPosition = compressedPosition;
+        this.uncompressed = uncompressed;
+        this.level = level;
+        this.inFlight = new Semaphore(threads * 4);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.compressors = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "gzip-deflate-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gzip-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /* buffer 의 position ~ limit 를 압축 대상으로 넘김 (buffer 는 비워진 상태로 반환) */
+    public void write(ByteBuffer buffer) throws IOException {
+        checkFailure();
+        while (buffer.hasRemaining()) {
+            int length = Math.min(buffer.remaining(), GzipBlocks.MAX_BLOCK_INPUT);
+            byte[] data = new byte[length];
+            buffer.get(data);
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for gzip compression", e);
+            }
+
+            Future<byte[]> compressed = compressors.submit(() -> GzipBlocks.compress(data, 0, length, level));
+            writer.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        writeBlock(compressed.get());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e instanceof ExecutionException ? e.getCause() : e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+            uncompressed += length;
+        }
+    }
+
+    public long uncompressedPosition() {
+        return uncompressed;
+    }
+
+    /* flush() 후에만 정확 */
+    public long compressedPosition() {
+        return compressedPosition;
+    }
+
+    public void flush() throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing gzip blocks", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        checkFailure();
+    }
+
+    /* 넘긴 block 을 다 쓴 뒤 쓰기 위치를 되돌림 (rollback). truncate 는 호출하는 쪽에서 */
+    public void reset(long compressedPosition, long uncompressed) throws IOException {
+        flush();
+        this.compressedPosition = compressedPosition;
+        this.uncompressed = uncompressed;
+    }
+
+    /* 남은 block 을 쓰고 EOF block 추가 (channel 은 닫지 않음) */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            writeBlock(GzipBlocks.EOF_BLOCK);
+        } finally {
+            compressors.shutdownNow();
+            writer.shutdownNow();
+        }
+    }
+
+    private void writeBlock(byte[] block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        long position = compressedPosition;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        compressedPosition = position;
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable e = failure.get();
+        if (e != null) {
+            throw e instanceof IOException ? (IOException) e : new IOException("gzip compression failed", e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package hhy.study.springbatch.common.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @Purpose         : block 단위 gzip (BGZF 형식) 공통 처리
+ * @Comment         : block 1개 = 독립된 gzip member (최대 64KB). header 의 extra field 'BC' 에 block 크기가 있어서
+ *                    압축을 풀지 않고도 block 경계를 알 수 있음 -> block 별로 병렬 압축/해제 가능
+ *                    member 를 이어붙인 형식이라 일반 gzip / gunzip / zcat, bgzip(htslib) 으로도 읽힘
+ *                    block 내용 : header(18) + raw deflate + CRC32(4) + ISIZE(4), little endian
+ */
+public final class GzipBlocks {
+
+    /* block 1개에 넣는 원본 최대 크기 (압축이 안되는 데이터도 64KB 안에 들어가도록 bgzip 과 같은 값) */
+    public static final int MAX_BLOCK_INPUT = 0xff00;
+    public static final int MAX_BLOCK_SIZE = 0x10000;
+
+    static final int HEADER_SIZE = 18;
+    static final int TRAILER_SIZE = 8;
+
+    /* 빈 block : 파일 끝 표시 (bgzip 과 동일) */
+    static final byte[] EOF_BLOCK = {
+            0x1f, (byte) 0x8b, 0x08, 0x04, 0, 0, 0, 0, 0, (byte) 0xff, 0x06, 0, 0x42, 0x43, 0x02, 0, 0x1b, 0,
+            0x03, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private GzipBlocks() {
+    }
+
+    /* 파일 시작이 gzip magic(1f 8b) 인지 */
+    public static boolean isGzip(FileChannel channel) throws IOException {
+        if (channel.size() < 2) {
+            return false;
+        }
+        ByteBuffer magic = ByteBuffer.allocate(2);
+        readFully(channel, magic, 0);
+        return (magic.get(0) & 0xff) == 0x1f && (magic.get(1) & 0xff) == 0x8b;
+    }
+
+    /**
+     * offset 위치 block 의 전체 크기. BGZF block 이 아니면(일반 gzip member) -1
+     */
+    public static int blockSize(FileChannel channel, long offset) throws IOException {
+        if (channel.size() - offset < HEADER_SIZE) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, offset);
+        return blockSize(header);
+    }
+
+    static int blockSize(ByteBuffer header) {
+        if ((header.get(0) & 0xff) != 0x1f || (header.get(1) & 0xff) != 0x8b || header.get(2) != 8 || header.get(3) != 4
+                || header.getShort(10) != 6 || header.get(12) != 'B' || header.get(13) != 'C' || header.getShort(14) != 2) {
+            return -1;
+        }
+        return (header.getShort(16) & 0xffff) + 1;
+    }
+
+    /* 원본 [from, from + length) 를 block 1개로 압축 */
+    static byte[] compress(byte[] data, int from, int length, int level) {
+        Deflater deflater = DEFLATER.get();
+        byte[] block = new byte[MAX_BLOCK_SIZE];
+        int limit = MAX_BLOCK_SIZE - HEADER_SIZE - TRAILER_SIZE;
+
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(data, from, length);
+        deflater.finish();
+        int compressed = deflater.deflate(block, HEADER_SIZE, limit);
+        if (!deflater.finished()) {
+            /* 압축이 안되는 데이터 : 무압축(stored) 으로 다시 (MAX_BLOCK_INPUT 이하면 항상 들어감) */
+            deflater.reset();
+            deflater.setLevel(Deflater.NO_COMPRESSION);
+            deflater.setInput(data, from, length);
+            deflater.finish();
+            compressed = deflater.deflate(block, HEADER_SIZE, limit);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, from, length);
+
+        int size = HEADER_SIZE + compressed + TRAILER_SIZE;
+        ByteBuffer buffer = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(0, (byte) 0x1f).put(1, (byte) 0x8b).put(2, (byte) 8).put(3, (byte) 4)
+                .putInt(4, 0).put(8, (byte) 0).put(9, (byte) 0xff)
+                .putShort(10, (short) 6).put(12, (byte) 'B').put(13, (byte) 'C').putShort(14, (short) 2)
+                .putShort(16, (short) (size - 1));
+        buffer.putInt(HEADER_SIZE + compressed, (int) crc.getValue());
+        buffer.putInt(HEADER_SIZE + compressed + 4, length);
+
+        byte[] result = new byte[size];
+        System.arraycopy(block, 0, result, 0, size);
+        return result;
+    }
+
+    /* block 1개(header 포함)를 풀어서 원본 반환 */
+    static byte[] decompress(byte[] block, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(block, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        int expectedCrc = buffer.getInt(size - 8);
+        int length = buffer.getInt(size - 4);
+        byte[] data = new byte[length];
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(block, HEADER_SIZE, size - HEADER_SIZE - TRAILER_SIZE);
+        try {
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                int n = inflater.inflate(data, inflated, length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != length) {
+                throw new IOException("Corrupt gzip block : expected " + length + " bytes, got " + inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt gzip block", e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Corrupt gzip block : CRC mismatch");
+        }
+        return data;
+    }
+
+    /**
+     * 원본 기준 uncompressed 위치가 끝나는 block 경계의 파일 offset (재시작/rollback 시 truncate 위치)
+     * uncompressed 가 block 경계가 아니거나 파일이 짧으면 -1
+     */
+    public static long seek(FileChannel channel, long uncompressed) throws IOException {
+        long offset = 0;
+        long total = 0;
+        long size = channel.size();
+        ByteBuffer isize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (total < uncompressed) {
+            if (offset >= size) {
+                return -1;
+            }
+            int blockSize = blockSize(channel, offset);
+            if (blockSize < 0 || offset + blockSize > size) {
+                return -1;
+            }
+            isize.clear();
+            readFully(channel, isize, offset + blockSize - 4);
+            total += isize.getInt(0) & 0xffffffffL;
+            offset += blockSize;
+        }
+        return total == uncompressed ? offset : -1;
+    }
+
+    /* 완전한 block 들의 원본 크기 합 (append 용) */
+    public static long uncompressedSize(FileChannel channel) throws IOException {
+        long offset = 0;
+        long total = 0;
+        long size = channel.size();
+        ByteBuffer isize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (offset < size) {
+            int blockSize = blockSize(channel, offset);
+            if (blockSize < 0 || offset + blockSize > size) {
+                break;
+            }
+            isize.clear();
+            readFully(channel, isize, offset + blockSize - 4);
+            total += isize.getInt(0) & 0xffffffffL;
+            offset += blockSize;
+        }
+        return total;
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package hhy.study.springbatch.common.handoff;
+
+import hhy.study.springbatch.common.reader.BinaryNumberItemReader;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.writer.BinaryNumberItemWriter;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.Assert;
+
+import java.io.File;
+
+/**
+ * @Purpose         : 앞 step 이 파싱한 NumberVO 를 다음 step 으로 넘기는 통로 (다음 step 이 같은 입력 파일을 다시 읽고 파싱하지 않도록)
+ * @Comment         : 앞 step : writer() 를 원래 writer 와 같이 CompositeItemWriter 로 등록 -> chunk commit 과 같은 transaction 으로 binary block 파일에 기록
+ *                    다음 step : reader() = memory-mapped BinaryNumberItemReader (page cache 에서 바로 block 을 풂)
+ *                    파일은 job instance 별 {directory}/{name}-{jobInstanceId}.nbf
+ *                    -> job 이 FAILED/STOPPED 면 남아있으므로 다음 step 부터 재시작해도 그대로 이어서 읽음 (앞 step 은 COMPLETED 라 다시 실행 안됨)
+ *                    job 이 COMPLETED 로 끝나면 삭제 (job listener 로 등록할 것)
+ * @Disadvantages   : writer 에 들어온 item 을 넘기므로 앞 step 에 processor(필터/변환)가 있으면 변환된 item 이 넘어감
+ */
+public class StepHandoff implements JobExecutionListener {
+
+    private static final Logger LOG = LogManager.getLogger(StepHandoff.class);
+
+    private final File directory;
+    private final String name;
+
+    public StepHandoff(File directory, String name) {
+        Assert.notNull(directory, "directory must be set");
+        Assert.hasText(name, "name must be set");
+        this.directory = directory;
+        this.name = name;
+    }
+
+    public File file(Long jobInstanceId) {
+        Assert.notNull(jobInstanceId, "jobInstanceId must be set");
+        return new File(directory, name + "-" + jobInstanceId + ".nbf");
+    }
+
+    /* 앞 step 용. 재시작시 마지막 commit 위치로 truncate 후 이어서 씀 */
+    public BinaryNumberItemWriter writer(Long jobInstanceId, ChannelNumberItemWriter.SyncPolicy syncPolicy) {
+        BinaryNumberItemWriter itemWriter = new BinaryNumberItemWriter();
+        itemWriter.setName(name + "Handoff");
+        itemWriter.setResource(new FileSystemResource(file(jobInstanceId)));
+        itemWriter.setSyncPolicy(syncPolicy);
+        return itemWriter;
+    }
+
+    /* 다음 step 용 */
+    public BinaryNumberItemReader reader(Long jobInstanceId, KeyInternCache keyCache) {
+        BinaryNumberItemReader itemReader = new BinaryNumberItemReader();
+        itemReader.setName(name + "Handoff");
+        itemReader.setResource(new FileSystemResource(file(jobInstanceId)));
+        itemReader.setMemoryMapped(true);
+        itemReader.setKeyCache(keyCache);
+        return itemReader;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+            return;
+        }
+        File file = file(jobExecution.getJobInstance().getInstanceId());
+        if (file.exists() && !file.delete()) {
+            LOG.warn("[{}] failed to delete handoff file : {}", jobExecution.getJobInstance().getJobName(), file);
+        }
+    }
+}
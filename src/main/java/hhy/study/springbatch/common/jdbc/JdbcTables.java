@@ -0,0 +1,43 @@
+package hhy.study.springbatch.common.jdbc;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * @Purpose         : table / index 존재 확인 (DatabaseMetaData)
+ * @Comment         : 이름은 DB 가 저장하는 대소문자로 맞춰서 조회 (H2 는 대문자)
+ */
+public final class JdbcTables {
+
+    private JdbcTables() {
+    }
+
+    public static boolean exists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(null, null, identifier(metaData, table), null)) {
+            return tables.next();
+        }
+    }
+
+    /* column 이 첫번째 column 인 index 가 있는지 */
+    public static boolean hasIndexOn(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(null, null, identifier(metaData, table), false, true)) {
+            while (indexes.next()) {
+                if (indexes.getShort("ORDINAL_POSITION") == 1 && column.equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        return metaData.storesLowerCaseIdentifiers() ? name.toLowerCase() : name;
+    }
+}
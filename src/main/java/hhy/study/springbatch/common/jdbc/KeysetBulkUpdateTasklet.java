@@ -0,0 +1,219 @@
+package hhy.study.springbatch.common.jdbc;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Purpose         : 큰 UPDATE 1개(table lock 수 분) / 1건씩 update(느림) 대신 key 구간(keyset) 단위로 나눠서 update 하는 Tasklet
+ * @Comment         : tasklet 1회 실행(= step transaction 1개)마다
+ *                    1) 경계 : cursor 이후 batchSize 번째 key 를 찾는 것을 parallelism 번 -> 구간 (cursor, k1], (k1, k2] ...
+ *                       SELECT key FROM t WHERE key > ? AND (where) ORDER BY key LIMIT 1 OFFSET batchSize-1
+ *                       key 컬럼 index 필수 (beforeStep 에서 확인, 없으면 실패) : index 순서로 cursor 다음 batchSize 건만 읽음
+ *                       index 가 없으면 구간마다 cursor 뒤 전체를 읽고 정렬 -> 전체 O(N^2 / batchSize)
+ *                       batchSize 번째 key 가 없으면 마지막 구간 = (cursor, 끝)
+ *                    2) 구간마다 UPDATE t SET .. WHERE key > ? AND key <= ? AND (where) 를 connection 하나씩 병렬로 실행 + 구간별 commit
+ *                    3) 앞에서부터 이어서 끝난 구간의 마지막 key 를 cursor 로 StepExecutionContext 에 저장 -> 재시작시 cursor 다음 구간부터
+ *                    key 는 숫자 컬럼 (중복 key 는 구간이 batchSize 보다 커질 뿐 빠지거나 겹치지 않음, NULL key 는 대상 아님)
+ *                    tasklet 은 step 에 listener 로도 등록해야 함 (TaskletJobConfig 참고)
+ * @Disadvantages   : 구간 commit 후 cursor 저장(step commit) 전에 죽으면 재시작시 그 구간을 다시 update -> SET 은 다시 실행해도 같은 결과여야 함
+ *                    where 에 SET 으로 바뀌는 조건을 넣어두면(NUM_KEY <> UPPER(NUM_KEY) 등) 다시 실행되는 구간도 빨리 끝남
+ */
+public class KeysetBulkUpdateTasklet implements Tasklet, StepExecutionListener {
+
+    private static final Logger LOG = LogManager.getLogger(KeysetBulkUpdateTasklet.class);
+
+    public static final String CURSOR_KEY = "KeysetBulkUpdateTasklet.cursor";
+
+    private final DataSource dataSource;
+    private final String table;
+    private final String keyColumn;
+    private final String setClause;
+
+    private String where;
+    private int batchSize = 10_000;
+    private int parallelism = 1;
+
+    private ExecutorService executor;
+
+    public KeysetBulkUpdateTasklet(DataSource dataSource, String table, String keyColumn, String setClause) {
+        Assert.notNull(dataSource, "dataSource must not be null");
+        Assert.hasText(table, "table must not be empty");
+        Assert.hasText(keyColumn, "keyColumn must not be empty");
+        Assert.hasText(setClause, "setClause must not be empty");
+        this.dataSource = dataSource;
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.setClause = setClause;
+    }
+
+    /* update 대상 조건 (없으면 전체) */
+    public void setWhere(String where) {
+        this.where = where;
+    }
+
+    /* 구간 1개의 row 수 = transaction 1개 크기 */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero");
+        this.batchSize = batchSize;
+    }
+
+    /* 동시에 update 하는 구간 수 (DataSource pool 크기 이하) */
+    public void setParallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "parallelism must be greater than zero");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        try (Connection connection = dataSource.getConnection()) {
+            Assert.state(JdbcTables.hasIndexOn(connection, table, keyColumn),
+                    () -> "No index on " + table + "." + keyColumn + " : CREATE INDEX ON " + table + " (" + keyColumn + ")");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read index info of " + table, e);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-update-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        Assert.state(executor != null, "Tasklet must be registered as a step listener");
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        Long cursor = executionContext.containsKey(CURSOR_KEY) ? executionContext.getLong(CURSOR_KEY) : null;
+
+        /* 1) 경계 : null upper = 끝까지 */
+        List<Long> uppers = new ArrayList<>(parallelism);
+        Long lower = cursor;
+        for (int i = 0; i < parallelism; i++) {
+            Long upper = boundary(lower);
+            uppers.add(upper);
+            if (upper == null) {
+                break;
+            }
+            lower = upper;
+        }
+
+        /* 2) 구간별 update + commit */
+        List<Future<Integer>> updates = new ArrayList<>(uppers.size());
+        Long from = cursor;
+        for (Long upper : uppers) {
+            Long rangeFrom = from;
+            updates.add(executor.submit(() -> update(rangeFrom, upper)));
+            from = upper;
+        }
+
+        /* 3) 앞에서부터 이어서 끝난 구간까지만 cursor 이동 (실패한 구간 뒤는 재시작시 다시) */
+        Exception failure = null;
+        int updated = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            try {
+                updated += updates.get(i).get();
+                if (failure == null && uppers.get(i) != null) {
+                    executionContext.putLong(CURSOR_KEY, uppers.get(i));
+                }
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        contribution.incrementWriteCount(updated);
+        if (failure != null) {
+            throw failure;
+        }
+
+        LOG.info("[{}] {} rows updated up to {} = {}", table, Unbox.box(updated), keyColumn,
+                executionContext.containsKey(CURSOR_KEY) ? Unbox.box(executionContext.getLong(CURSOR_KEY)) : "-");
+        return uppers.get(uppers.size() - 1) == null ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        return null;
+    }
+
+    private Long boundary(Long lower) throws SQLException {
+        String sql = "SELECT " + keyColumn + " FROM " + table + " WHERE " + range(lower, null)
+                + " ORDER BY " + keyColumn + " LIMIT 1 OFFSET " + (batchSize - 1);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (lower != null) {
+                statement.setLong(1, lower);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : null;
+            }
+        }
+    }
+
+    private int update(Long lower, Long upper) throws SQLException {
+        String sql = "UPDATE " + table + " SET " + setClause + " WHERE " + range(lower, upper);
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                if (lower != null) {
+                    statement.setLong(index++, lower);
+                }
+                if (upper != null) {
+                    statement.setLong(index, upper);
+                }
+                int updated = statement.executeUpdate();
+                connection.commit();
+                return updated;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private String range(Long lower, Long upper) {
+        StringBuilder sql = new StringBuilder(keyColumn).append(" IS NOT NULL");
+        if (lower != null) {
+            sql.append(" AND ").append(keyColumn).append(" > ?");
+        }
+        if (upper != null) {
+            sql.append(" AND ").append(keyColumn).append(" <= ?");
+        }
+        if (StringUtils.hasText(where)) {
+            sql.append(" AND (").append(where).append(")");
+        }
+        return sql.toString();
+    }
+}
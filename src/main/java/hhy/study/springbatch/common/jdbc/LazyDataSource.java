@@ -0,0 +1,71 @@
+package hhy.study.springbatch.common.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.util.Assert;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * @Purpose         : job 이 직접 쓰는 업무 DB 의 connection pool 을 처음 쓸 때 생성
+ * @Comment         : DataSource 를 bean 으로 등록하면 @EnableBatchProcessing 이 JobRepository 의 DataSource 로 잡아버려서
+ *                    job 설정 class 의 field 로 들고 있다가 @PreDestroy 에서 close (LoadJobConfig, TaskletJobConfig, ScheduleConfig 의 Quartz DataSource 도 같은 이유)
+ *                    initSql : pool 생성 직후 initTable 이 없을 때만 1번 실행 (CREATE TABLE .., CREATE INDEX ..)
+ */
+public class LazyDataSource implements AutoCloseable {
+
+    private final String poolName;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int poolSize;
+    private final String initTable;
+    private final String[] initSql;
+
+    private HikariDataSource dataSource;
+
+    public LazyDataSource(String poolName, String url, String username, String password, int poolSize, String initTable, String... initSql) {
+        Assert.hasText(url, "url must not be empty");
+        Assert.isTrue(poolSize > 0, "poolSize must be greater than zero");
+        this.poolName = poolName;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.poolSize = poolSize;
+        this.initTable = initTable;
+        this.initSql = initSql;
+    }
+
+    public synchronized HikariDataSource get() {
+        if (dataSource == null) {
+            HikariDataSource created = new HikariDataSource();
+            created.setPoolName(poolName);
+            created.setJdbcUrl(url);
+            created.setUsername(username);
+            created.setPassword(password);
+            created.setMaximumPoolSize(poolSize);
+            try (Connection connection = created.getConnection();
+                 Statement statement = connection.createStatement()) {
+                if (initTable == null || !JdbcTables.exists(connection, initTable)) {
+                    for (String sql : initSql) {
+                        statement.execute(sql);
+                    }
+                }
+            } catch (SQLException e) {
+                created.close();
+                throw new IllegalStateException("Failed to initialize " + poolName + " : " + url, e);
+            }
+            dataSource = created;
+        }
+        return dataSource;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+}
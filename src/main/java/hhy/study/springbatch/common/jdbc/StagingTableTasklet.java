@@ -0,0 +1,144 @@
+package hhy.study.springbatch.common.jdbc;
+
+import hhy.study.springbatch.common.repository.BufferedJobRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Function;
+
+/**
+ * @Purpose         : staging table 에 적재 후 대상 table 과 교체 (적재 중에도 대상 table 조회는 이전 데이터 그대로)
+ * @Comment         : prepare : staging table 을 지우고 대상 table 과 같은 DDL(ddl 함수, index 포함) 로 새로 생성 (적재 step 앞)
+ *                              이전 job 의 교체가 중간에 멈춰서 대상 table 이 없으면 _PREVIOUS 를 대상으로 되돌림
+ *                    swap    : 대상 -> _PREVIOUS, staging -> 대상, _PREVIOUS -> staging 순서로 이름 교체 (적재 step 뒤)
+ *                              rename 1번 = tasklet 1회 실행(CONTINUABLE), 진행 단계를 StepExecutionContext 에 저장
+ *                              각 단계는 table 존재 여부를 보고 이미 된 rename 은 건너뜀 -> 어느 rename 뒤에 실패해도 재시작하면 이어서 교체
+ *                              rename 은 되돌릴 수 없으므로 첫 단계 전에 FLUSH_EVERY_CHUNK_KEY 를 commit (BufferedJobRepository 가 단계마다 저장)
+ *                              _PREVIOUS 정리는 대상/staging 이 둘 다 있을 때만 -> 이미 대상 -> _PREVIOUS 가 된 뒤 다시 실행돼도 지우지 않음
+ *                    적재 step 이 실패해서 재시작하면 prepare step 은 COMPLETED 라 다시 실행되지 않음 -> staging 에 commit 된 chunk 부터 이어서 적재
+ *                    SQL 은 H2 문법 (ALTER TABLE .. RENAME TO), DDL 은 rename 마다 바로 commit 됨
+ * @Disadvantages   : 교체는 rename 3번이라 그 사이 아주 짧게 대상 table 이 없는 순간이 있음
+ */
+public class StagingTableTasklet implements Tasklet {
+
+    private static final Logger LOG = LogManager.getLogger(StagingTableTasklet.class);
+
+    public static final String SWAP_PHASE_KEY = "StagingTableTasklet.swapPhase";
+
+    public enum Mode {
+        PREPARE, SWAP
+    }
+
+    private final DataSource dataSource;
+    private final String table;
+    private final String stagingTable;
+    private final String previousTable;
+    private final Function<String, String[]> ddl;
+    private final Mode mode;
+
+    /**
+     * @param ddl table 이름 -> 생성 DDL (CREATE TABLE, CREATE INDEX ..), PREPARE 에서 staging table 생성에 사용
+     */
+    public StagingTableTasklet(DataSource dataSource, String table, String stagingTable, Function<String, String[]> ddl, Mode mode) {
+        Assert.notNull(dataSource, "dataSource must not be null");
+        Assert.hasText(table, "table must not be empty");
+        Assert.hasText(stagingTable, "stagingTable must not be empty");
+        Assert.notNull(ddl, "ddl must not be null");
+        Assert.notNull(mode, "mode must not be null");
+        this.dataSource = dataSource;
+        this.table = table;
+        this.stagingTable = stagingTable;
+        this.previousTable = table + "_PREVIOUS";
+        this.ddl = ddl;
+        this.mode = mode;
+    }
+
+    public static String stagingTableOf(String table) {
+        return table + "_STAGING";
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (mode == Mode.PREPARE) {
+                prepare(connection, statement);
+                return RepeatStatus.FINISHED;
+            }
+
+            ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+            if (!executionContext.containsKey(SWAP_PHASE_KEY)) {
+                /* 처음 실행 : rename 전에 단계마다 저장하도록 표시만 commit */
+                executionContext.putInt(SWAP_PHASE_KEY, 0);
+                executionContext.put(BufferedJobRepository.FLUSH_EVERY_CHUNK_KEY, true);
+                return RepeatStatus.CONTINUABLE;
+            }
+            int phase = executionContext.getInt(SWAP_PHASE_KEY, 0);
+            swap(connection, statement, phase);
+            executionContext.putInt(SWAP_PHASE_KEY, phase + 1);
+            if (phase + 1 < 4) {
+                return RepeatStatus.CONTINUABLE;
+            }
+            LOG.info("[{}] swapped with {}", table, stagingTable);
+            return RepeatStatus.FINISHED;
+        }
+    }
+
+    private void prepare(Connection connection, Statement statement) throws SQLException {
+        if (!JdbcTables.exists(connection, table) && JdbcTables.exists(connection, previousTable)) {
+            LOG.warn("[{}] restoring from {} (previous swap did not finish)", table, previousTable);
+            statement.execute("ALTER TABLE " + previousTable + " RENAME TO " + table);
+        }
+        statement.execute("DROP TABLE IF EXISTS " + stagingTable);
+        for (String sql : ddl.apply(stagingTable)) {
+            statement.execute(sql);
+        }
+        commit(connection);
+        LOG.info("[{}] staging table ready : {}", table, stagingTable);
+    }
+
+    /* 0 : 이전 _PREVIOUS 정리, 1 : 대상 -> _PREVIOUS, 2 : staging -> 대상, 3 : _PREVIOUS -> staging */
+    private void swap(Connection connection, Statement statement, int phase) throws SQLException {
+        switch (phase) {
+            case 0:
+                if (JdbcTables.exists(connection, table) && JdbcTables.exists(connection, stagingTable)) {
+                    statement.execute("DROP TABLE IF EXISTS " + previousTable);
+                }
+                break;
+            case 1:
+                if (!JdbcTables.exists(connection, previousTable)) {
+                    statement.execute("ALTER TABLE " + table + " RENAME TO " + previousTable);
+                }
+                break;
+            case 2:
+                if (!JdbcTables.exists(connection, table)) {
+                    statement.execute("ALTER TABLE " + stagingTable + " RENAME TO " + table);
+                }
+                break;
+            case 3:
+                if (!JdbcTables.exists(connection, stagingTable)) {
+                    statement.execute("ALTER TABLE " + previousTable + " RENAME TO " + stagingTable);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown swap phase " + phase);
+        }
+        commit(connection);
+    }
+
+    private void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package hhy.study.springbatch.common.launch;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+
+/**
+ * @Purpose         : 기동시 job 자동 실행(JobLauncherApplicationRunner) 을 상주 / jdbc 모드에서만 끔
+ * @Comment         : 기본(map) 모드는 기존처럼 java -jar .. --spring.batch.job.names=SimpleJob requiredVal=.. 로 실행
+ *                    - springbatch.launch.port (daemon) / springbatch.schedule.enabled=true : job 은 요청 / schedule 로만 실행
+ *                    - springbatch.repository.type=jdbc : job 이름을 주지 않으면 모든 job 이 영구 저장소에 실행되므로 끔 (이름을 주면 그 job 만 실행)
+ *                    property source 를 맨 뒤에 추가 -> spring.batch.job.enabled 를 직접 주면 그 값이 우선
+ *                    등록 : META-INF/spring.factories
+ */
+public class JobAutoLaunchEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String PROPERTY_SOURCE_NAME = "springbatchJobAutoLaunch";
+    private static final String ENABLED = "spring.batch.job.enabled";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (disableAutoLaunch(environment)) {
+            environment.getPropertySources().addLast(
+                    new MapPropertySource(PROPERTY_SOURCE_NAME, Collections.singletonMap(ENABLED, "false")));
+        }
+    }
+
+    static boolean disableAutoLaunch(ConfigurableEnvironment environment) {
+        boolean daemon = environment.containsProperty("springbatch.launch.port")
+                || "true".equalsIgnoreCase(environment.getProperty("springbatch.schedule.enabled"));
+        boolean jdbc = "jdbc".equalsIgnoreCase(environment.getProperty("springbatch.repository.type"))
+                && !StringUtils.hasText(environment.getProperty("spring.batch.job.names"));
+        return daemon || jdbc;
+    }
+}
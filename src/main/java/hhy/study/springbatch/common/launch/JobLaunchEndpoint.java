@@ -0,0 +1,180 @@
+package hhy.study.springbatch.common.launch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Purpose         : JobLaunchService 를 로컬 http 로 노출 (job 실행 요청 / 실행 상태 조회)
+ * @Comment         : web 의존성 없이 JDK HttpServer 사용 (PrometheusEndpoint 와 같은 방식), 기본 localhost 에만 bind
+ *                    POST /jobs/{job bean 이름}?requiredVal=/input.txt&executeTime=1 -> 202 {"executionId":1,"jobName":"SimpleJob","status":"STARTING",...}
+ *                      requiredVal 은 String, executeTime 은 Long (없으면 요청 시각 ms), 그 외 parameter 는 숫자면 Long 아니면 String
+ *                      429 : 대기열 가득 참, 404 : 없는 job, 400 : parameter 오류, 409 : 이미 완료/실행중인 job instance
+ *                    GET  /executions/{executionId} -> 200 {"executionId":1,"jobName":"SimpleJob","status":"COMPLETED","exitCode":"COMPLETED"}
+ *                    요청은 쓰레드 1개로 처리 (job 실행은 JobLaunchService 의 worker 쓰레드에서 하므로 요청 처리는 JobExecution 생성까지만)
+ */
+public class JobLaunchEndpoint {
+
+    private static final Logger LOG = LogManager.getLogger(JobLaunchEndpoint.class);
+
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String JOBS_PATH = "/jobs/";
+    private static final String EXECUTIONS_PATH = "/executions/";
+    private static final String REQUIRED_VAL = "requiredVal";
+    private static final String EXECUTE_TIME = "executeTime";
+
+    private final JobLaunchService jobLaunchService;
+    private final HttpServer server;
+
+    public JobLaunchEndpoint(JobLaunchService jobLaunchService, String host, int port) throws IOException {
+        this.jobLaunchService = jobLaunchService;
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext(JOBS_PATH, this::launch);
+        server.createContext(EXECUTIONS_PATH, this::status);
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("launch endpoint : http://{}:{}{}", server.getAddress().getHostString(), Unbox.box(server.getAddress().getPort()), JOBS_PATH);
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /* port 0 으로 띄웠을 때 실제 port */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void launch(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("POST only"));
+            return;
+        }
+        String jobName = exchange.getRequestURI().getPath().substring(JOBS_PATH.length());
+        if (!jobLaunchService.hasJob(jobName)) {
+            respond(exchange, 404, error("Unknown job " + jobName));
+            return;
+        }
+
+        try {
+            JobExecution jobExecution = jobLaunchService.launch(jobName, parameters(exchange.getRequestURI().getRawQuery()));
+            respond(exchange, 202, json(jobExecution));
+        } catch (JobLaunchService.QueueFullException e) {
+            respond(exchange, 429, error(e.getMessage()));
+        } catch (JobParametersInvalidException | IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (JobExecutionAlreadyRunningException | JobInstanceAlreadyCompleteException | JobRestartException e) {
+            respond(exchange, 409, error(e.getMessage()));
+        } catch (Exception e) {
+            LOG.error("[{}] launch failed", jobName, e);
+            respond(exchange, 500, error(e.getMessage()));
+        }
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("GET only"));
+            return;
+        }
+        JobExecution jobExecution;
+        try {
+            jobExecution = jobLaunchService.getJobExecution(Long.parseLong(exchange.getRequestURI().getPath().substring(EXECUTIONS_PATH.length())));
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, error("Invalid execution id"));
+            return;
+        }
+        if (jobExecution == null) {
+            respond(exchange, 404, error("Unknown execution"));
+            return;
+        }
+        respond(exchange, 200, json(jobExecution));
+    }
+
+    private JobParameters parameters(String query) throws UnsupportedEncodingException {
+        Map<String, JobParameter> parameters = new LinkedHashMap<>();
+        if (query != null && !query.isEmpty()) {
+            for (String pair : query.split("&")) {
+                int split = pair.indexOf('=');
+                String key = URLDecoder.decode(split < 0 ? pair : pair.substring(0, split), StandardCharsets.UTF_8.name());
+                String value = split < 0 ? "" : URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8.name());
+                parameters.put(key, parameter(key, value));
+            }
+        }
+        /* executeTime 이 없으면 요청마다 새 job instance */
+        parameters.putIfAbsent(EXECUTE_TIME, new JobParameter(System.currentTimeMillis()));
+        return new JobParameters(parameters);
+    }
+
+    private JobParameter parameter(String key, String value) {
+        if (REQUIRED_VAL.equals(key)) {
+            return new JobParameter(value);
+        }
+        try {
+            return new JobParameter(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            if (EXECUTE_TIME.equals(key)) {
+                throw new IllegalArgumentException(EXECUTE_TIME + " must be a number : " + value);
+            }
+            return new JobParameter(value);
+        }
+    }
+
+    private String json(JobExecution jobExecution) {
+        return "{\"executionId\":" + jobExecution.getId()
+                + ",\"jobName\":" + quote(jobExecution.getJobInstance().getJobName())
+                + ",\"instanceId\":" + jobExecution.getJobInstance().getInstanceId()
+                + ",\"status\":" + quote(jobExecution.getStatus().name())
+                + ",\"exitCode\":" + quote(jobExecution.getExitStatus().getExitCode()) + "}";
+    }
+
+    private String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package hhy.study.springbatch.common.launch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @Purpose         : 띄워둔 context 에서 job 을 비동기로 실행하는 launcher (요청마다 JVM/Spring context 를 새로 띄우지 않음)
+ * @Comment         : SimpleJobLauncher + ThreadPoolTaskExecutor(workers 개) -> launch() 는 JobExecution 을 만든 직후 반환 (STARTING)
+ *                    실행중 + 대기중 job 이 workers + queueCapacity 개를 넘으면 JobExecution 을 만들기 전에 거절(QueueFullException)
+ *                    -> 거절된 요청은 job repository 에 흔적(FAILED execution)이 남지 않음
+ *                    job 은 bean 이름으로 찾음 (Map<String, Job>), 상태는 JobExplorer 로 조회
+ *                    기존 JobLauncher bean(동기) 은 그대로 두고 이 launcher 는 bean 으로 노출하지 않음 (JobLauncher 주입이 모호해지지 않도록)
+ * @Disadvantages   : 종료시 대기중인 job 까지 모두 실행한 뒤 종료됨
+ */
+public class JobLaunchService {
+
+    private static final Logger LOG = LogManager.getLogger(JobLaunchService.class);
+
+    private final Map<String, Job> jobs;
+    private final JobExplorer jobExplorer;
+    private final ThreadPoolTaskExecutor taskExecutor;
+    private final SimpleJobLauncher jobLauncher;
+    private final Semaphore slots;
+
+    public JobLaunchService(JobRepository jobRepository, JobExplorer jobExplorer, Map<String, Job> jobs,
+                            int workers, int queueCapacity) throws Exception {
+        Assert.notNull(jobRepository, "jobRepository must not be null");
+        Assert.notNull(jobExplorer, "jobExplorer must not be null");
+        Assert.isTrue(workers > 0, "workers must be greater than zero");
+        Assert.isTrue(queueCapacity >= 0, "queueCapacity must not be negative");
+        this.jobs = jobs;
+        this.jobExplorer = jobExplorer;
+        this.slots = new Semaphore(workers + queueCapacity);
+
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setThreadNamePrefix("launch-");
+        taskExecutor.setCorePoolSize(workers);
+        taskExecutor.setMaxPoolSize(workers);
+        taskExecutor.setQueueCapacity(Math.max(queueCapacity, 1));
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        /* job 이 끝나면(실패 포함) 자리 반환 */
+        taskExecutor.setTaskDecorator(task -> () -> {
+            try {
+                task.run();
+            } finally {
+                slots.release();
+            }
+        });
+        taskExecutor.initialize();
+
+        jobLauncher = new SimpleJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(taskExecutor);
+        jobLauncher.afterPropertiesSet();
+    }
+
+    public boolean hasJob(String jobName) {
+        return jobs.containsKey(jobName);
+    }
+
+    /**
+     * job 을 실행 대기열에 넣고 바로 반환
+     * @throws QueueFullException 실행중 + 대기중 job 이 가득 찬 경우
+     * @throws IllegalArgumentException 없는 job
+     * 그 외 JobLauncher 예외 (parameter 검증 실패, 이미 완료/실행중인 instance ...)
+     */
+    public JobExecution launch(String jobName, JobParameters parameters) throws Exception {
+        Job job = jobs.get(jobName);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown job " + jobName);
+        }
+        if (!slots.tryAcquire()) {
+            throw new QueueFullException("Launch queue is full (" + taskExecutor.getMaxPoolSize() + " running + "
+                    + taskExecutor.getThreadPoolExecutor().getQueue().size() + " queued)");
+        }
+        /* run() 이 정상 반환하면 task 가 제출된 것 -> 자리는 task 가 끝날 때 반환 */
+        boolean submitted = false;
+        try {
+            JobExecution jobExecution = jobLauncher.run(job, parameters);
+            submitted = true;
+            LOG.info("[{}] launched : executionId={} {}", jobName, jobExecution.getId(), parameters);
+            return jobExecution;
+        } finally {
+            if (!submitted) {
+                slots.release();
+            }
+        }
+    }
+
+    /* 없으면 null */
+    public JobExecution getJobExecution(long executionId) {
+        return jobExplorer.getJobExecution(executionId);
+    }
+
+    public void shutdown() {
+        taskExecutor.shutdown();
+    }
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+}
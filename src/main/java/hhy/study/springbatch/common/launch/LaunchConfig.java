@@ -0,0 +1,40 @@
+package hhy.study.springbatch.common.launch;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * @Purpose         : daemon 모드 - context 를 띄워둔 채로 로컬 http 요청으로 job 실행
+ * @Comment         : springbatch.launch.port 가 있을 때만 동작 (0 이면 빈 port), HttpServer 쓰레드 때문에 프로세스가 종료되지 않고 상주함
+ *                    실행마다 JVM/Spring 기동 비용이 없고, 앞 실행에서 JIT 된 코드(reader 파싱, writer 인코딩 ...)를 그대로 사용
+ *                    springbatch.launch.workers : 동시 실행 job 수 (기본 2), springbatch.launch.queue-capacity : 대기 job 수 (기본 16)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springbatch.launch", name = "port")
+public class LaunchConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public JobLaunchService jobLaunchService(JobRepository jobRepository,
+                                             JobExplorer jobExplorer,
+                                             Map<String, Job> jobs,
+                                             @Value("${springbatch.launch.workers:2}") int workers,
+                                             @Value("${springbatch.launch.queue-capacity:16}") int queueCapacity) throws Exception {
+        return new JobLaunchService(jobRepository, jobExplorer, jobs, workers, queueCapacity);
+    }
+
+    /* endpoint 를 먼저 멈춘 뒤 jobLaunchService 종료 (의존 관계 역순) */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public JobLaunchEndpoint jobLaunchEndpoint(JobLaunchService jobLaunchService,
+                                               @Value("${springbatch.launch.host:localhost}") String host,
+                                               @Value("${springbatch.launch.port}") int port) throws IOException {
+        return new JobLaunchEndpoint(jobLaunchService, host, port);
+    }
+}
@@ -1,17 +1,98 @@
 package hhy.study.springbatch.common.listener;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Purpose         : job 종료시 step 별 계측 요약을 JSON 으로 저장
+ * @Comment         : data/metrics/{jobName}-{jobExecutionId}.json
+ *                    step 별 read/write/skip/rollback/commit 수, 소요시간, items/sec + StepListener 가 남긴 metrics.* 합계
+ *                    저장 실패는 job 결과에 영향 주지 않도록 로그만 남김
+ */
 public class JobListener implements JobExecutionListener {
 
+    private static final Logger LOG = LogManager.getLogger(JobListener.class);
+
+    public static final String SUMMARY_DIRECTORY = "data/metrics";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
     @Override
     public void beforeJob(JobExecution jobExecution) {
-
+        LOG.info("[{}] start {}", jobExecution.getJobInstance().getJobName(), jobExecution.getJobParameters());
     }
 
     @Override
     public void afterJob(JobExecution jobExecution) {
+        String jobName = jobExecution.getJobInstance().getJobName();
+        Path path = Paths.get(SUMMARY_DIRECTORY, jobName + "-" + jobExecution.getId() + ".json");
+        try {
+            Files.createDirectories(path.getParent());
+            OBJECT_MAPPER.writeValue(path.toFile(), summary(jobExecution));
+            LOG.info("[{}] {} summary : {}", jobName, jobExecution.getStatus(), path);
+        } catch (IOException e) {
+            LOG.warn("[{}] failed to write summary", jobName, e);
+        }
+    }
+
+    static Map<String, Object> summary(JobExecution jobExecution) {
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("job", jobExecution.getJobInstance().getJobName());
+        job.put("jobExecutionId", jobExecution.getId());
+        job.put("status", jobExecution.getStatus().toString());
+        job.put("exitCode", jobExecution.getExitStatus().getExitCode());
+        job.put("durationMillis", durationMillis(jobExecution.getStartTime(), jobExecution.getEndTime()));
+
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            steps.add(summary(stepExecution));
+        }
+        job.put("steps", steps);
+        return job;
+    }
+
+    private static Map<String, Object> summary(StepExecution stepExecution) {
+        long durationMillis = durationMillis(stepExecution.getStartTime(), stepExecution.getEndTime());
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("step", stepExecution.getStepName());
+        step.put("status", stepExecution.getStatus().toString());
+        step.put("readCount", stepExecution.getReadCount());
+        step.put("writeCount", stepExecution.getWriteCount());
+        step.put("filterCount", stepExecution.getFilterCount());
+        step.put("skipCount", stepExecution.getSkipCount());
+        step.put("rollbackCount", stepExecution.getRollbackCount());
+        step.put("commitCount", stepExecution.getCommitCount());
+        step.put("durationMillis", durationMillis);
+        step.put("itemsPerSec", durationMillis == 0 ? 0 : stepExecution.getWriteCount() * 1000L / durationMillis);
+        for (Map.Entry<String, Object> entry : stepExecution.getExecutionContext().entrySet()) {
+            if (entry.getKey().startsWith(StepListener.METRICS_PREFIX)) {
+                step.put(entry.getKey().substring(StepListener.METRICS_PREFIX.length()), entry.getValue());
+            }
+        }
+        return step;
+    }
 
+    /* afterJob 시점에는 job endTime 이 아직 없으므로 현재 시각 기준 */
+    private static long durationMillis(Date start, Date end) {
+        if (start == null) {
+            return 0;
+        }
+        return (end == null ? System.currentTimeMillis() : end.getTime()) - start.getTime();
     }
 }
@@ -0,0 +1,314 @@
+package hhy.study.springbatch.common.listener;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @Purpose         : chunk 처리 hot path 샘플링 tracer - 어느 단계(read/process/write)의 어떤 record 가 느린지 확인
+ * @Comment         : job parameter traceSample=N 이면 쓰레드별로 N 개 item 중 1개의 read/process 시간을 기록 (write 는 chunk 단위라 매번 기록)
+ *                    없거나 0 이면 꺼짐 -> item 마다 ThreadLocal 조회 1번만 하고 바로 return
+ *                    sample 은 lock-free ring buffer(최근 RING_SIZE 개) + 단계별 HdrHistogram(ConcurrentHistogram) 에 기록
+ *                    step 종료시 data/trace/{job}-{step}-{stepExecutionId}.*
+ *                      .hgrm      : 단계별 HdrHistogram percentile 분포 (usec)
+ *                      .collapsed : flame graph(flamegraph.pl / speedscope) 용 collapsed stack "job;step;stage;itemType usec"
+ *                    느린 record 상위 TOP 개는 로그 출력
+ *                    실행 중 켜고 끄기 : JMX MXBean hhy.study.springbatch:type=SamplingTrace 의 Sample 속성 (jconsole 등)
+ *                      -1(기본) = job parameter 대로, 0 = 끔, N = 1/N 로 sampling -> chunk 시작(beforeChunk) 마다 다시 읽음
+ *                      기동시 초기값 : -Dspringbatch.trace.sample=N
+ *                    중간에 켜면 켠 뒤의 chunk 부터 기록, 끄면 그때까지 기록한 것은 step 종료시 그대로 출력
+ *                    등록 : builder.listener((StepExecutionListener) new SamplingTraceListener())
+ */
+public class SamplingTraceListener implements StepExecutionListener, ChunkListener,
+        ItemReadListener<Object>, ItemProcessListener<Object, Object>, ItemWriteListener<Object> {
+
+    private static final Logger LOG = LogManager.getLogger(SamplingTraceListener.class);
+
+    public static final String SAMPLE_KEY = "traceSample";
+    public static final String TRACE_DIRECTORY = "data/trace";
+    public static final String OBJECT_NAME = "hhy.study.springbatch:type=SamplingTrace";
+    public static final String SAMPLE_PROPERTY = "springbatch.trace.sample";
+
+    private static final int RING_SIZE = 1 << 16;
+    private static final int TOP = 10;
+
+    private static final int READ = 0;
+    private static final int PROCESS = 1;
+    private static final int WRITE = 2;
+    private static final String[] STAGES = {"read", "process", "write"};
+
+    private static final Control CONTROL = Control.register();
+
+    private final Map<StepExecution, Trace> traces = new ConcurrentHashMap<>();
+    private final ThreadLocal<Cursor> cursor = ThreadLocal.withInitial(Cursor::new);
+
+    /* JMX 로 바꾸는 값 (-1 = job parameter 대로) */
+    public static SamplingTraceMXBean control() {
+        return CONTROL;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        Trace trace = traces.remove(stepExecution);
+        if (trace != null) {
+            dump(stepExecution, trace);
+        }
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        long override = CONTROL.getSample();
+        Long parameter = stepExecution.getJobParameters().getLong(SAMPLE_KEY);
+        long sample = override >= 0 ? override : parameter == null ? 0L : parameter;
+        if (sample <= 0) {
+            cursor.get().trace = null;
+            return;
+        }
+        Trace trace = traces.computeIfAbsent(stepExecution, key -> {
+            LOG.info("[{}] trace on : 1/{}", key.getStepName(), Unbox.box(sample));
+            return new Trace(sample);
+        });
+        trace.sample = sample;
+        cursor.get().trace = trace;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        cursor.get().trace = null;
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        cursor.get().trace = null;
+    }
+
+    @Override
+    public void beforeRead() {
+        Cursor c = cursor.get();
+        if (c.trace != null) {
+            c.readStart = ++c.readCount % c.trace.sample == 0 ? System.nanoTime() : 0;
+        }
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        Cursor c = cursor.get();
+        if (c.trace != null && c.readStart != 0) {
+            c.trace.record(READ, System.nanoTime() - c.readStart, item);
+            c.readStart = 0;
+        }
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        afterRead(null);
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        Cursor c = cursor.get();
+        if (c.trace != null) {
+            c.processStart = ++c.processCount % c.trace.sample == 0 ? System.nanoTime() : 0;
+        }
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        Cursor c = cursor.get();
+        if (c.trace != null && c.processStart != 0) {
+            c.trace.record(PROCESS, System.nanoTime() - c.processStart, item);
+            c.processStart = 0;
+        }
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        afterProcess(item, null);
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        Cursor c = cursor.get();
+        if (c.trace != null) {
+            c.writeStart = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        Cursor c = cursor.get();
+        if (c.trace != null && c.writeStart != 0) {
+            c.trace.record(WRITE, System.nanoTime() - c.writeStart, items.isEmpty() ? null : items.get(0));
+            c.writeStart = 0;
+        }
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        afterWrite(items);
+    }
+
+    private void dump(StepExecution stepExecution, Trace trace) {
+        String jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
+        String stepName = stepExecution.getStepName();
+        String prefix = jobName + "-" + stepName + "-" + stepExecution.getId();
+
+        List<Sample> samples = trace.samples();
+        samples.sort(Comparator.comparingLong((Sample sample) -> sample.nanos).reversed());
+        for (int i = 0; i < Math.min(TOP, samples.size()); i++) {
+            Sample sample = samples.get(i);
+            LOG.info("[{}] slow {} {}us : {}", stepName, STAGES[sample.stage], Unbox.box(TimeUnit.NANOSECONDS.toMicros(sample.nanos)), sample.item);
+        }
+
+        try {
+            Path directory = Paths.get(TRACE_DIRECTORY);
+            Files.createDirectories(directory);
+
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(prefix + ".hgrm")), false, "UTF-8")) {
+                for (int stage = 0; stage < STAGES.length; stage++) {
+                    Histogram histogram = trace.histograms[stage];
+                    out.println("# " + jobName + " " + stepName + " " + STAGES[stage] + " samples=" + histogram.getTotalCount() + " (usec)");
+                    if (histogram.getTotalCount() > 0) {
+                        histogram.outputPercentileDistribution(out, 1000.0);
+                    }
+                }
+            }
+
+            /* 단계 + item 타입별 sample 시간 합계 */
+            Map<String, Long> stacks = new LinkedHashMap<>();
+            for (Sample sample : samples) {
+                String itemType = sample.item == null ? "none" : sample.item.getClass().getSimpleName();
+                stacks.merge(jobName + ";" + stepName + ";" + STAGES[sample.stage] + ";" + itemType,
+                        TimeUnit.NANOSECONDS.toMicros(sample.nanos), Long::sum);
+            }
+            List<String> lines = new ArrayList<>();
+            for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+                lines.add(stack.getKey() + " " + stack.getValue());
+            }
+            Files.write(directory.resolve(prefix + ".collapsed"), lines);
+
+            LOG.info("[{}] trace : {}.{hgrm,collapsed}", stepName, directory.resolve(prefix));
+        } catch (IOException e) {
+            LOG.warn("[{}] failed to write trace", stepName, e);
+        }
+    }
+
+    public interface SamplingTraceMXBean {
+        long getSample();
+
+        void setSample(long sample);
+    }
+
+    /* JVM 에 1개, platform MBeanServer 에 등록 (등록 실패해도 job parameter 로는 동작) */
+    private static class Control implements SamplingTraceMXBean {
+        private volatile long sample = Long.getLong(SAMPLE_PROPERTY, -1L);
+
+        private static Control register() {
+            Control control = new Control();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(control, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                LOG.warn("failed to register {}", OBJECT_NAME, e);
+            }
+            return control;
+        }
+
+        @Override
+        public long getSample() {
+            return sample;
+        }
+
+        @Override
+        public void setSample(long sample) {
+            this.sample = sample;
+            LOG.info("trace sample set to {}", Unbox.box(sample));
+        }
+    }
+
+    /* 쓰레드별 sampling 상태 */
+    private static class Cursor {
+        private Trace trace;
+        private long readCount;
+        private long processCount;
+        private long readStart;
+        private long processStart;
+        private long writeStart;
+    }
+
+    private static class Sample {
+        private final int stage;
+        private final long nanos;
+        private final Object item;
+
+        private Sample(int stage, long nanos, Object item) {
+            this.stage = stage;
+            this.nanos = nanos;
+            this.item = item;
+        }
+    }
+
+    /* step execution 별 sample 저장소 : slot 은 getAndIncrement 로 할당, 한바퀴 돌면 오래된 sample 을 덮어씀 */
+    private static class Trace {
+        private volatile long sample;
+        private final AtomicReferenceArray<Sample> ring = new AtomicReferenceArray<>(RING_SIZE);
+        private final AtomicLong next = new AtomicLong();
+        private final Histogram[] histograms = new Histogram[STAGES.length];
+
+        private Trace(long sample) {
+            this.sample = sample;
+            for (int stage = 0; stage < STAGES.length; stage++) {
+                histograms[stage] = new ConcurrentHistogram(3);
+            }
+        }
+
+        private void record(int stage, long nanos, Object item) {
+            histograms[stage].recordValue(nanos);
+            ring.lazySet((int) (next.getAndIncrement() & (RING_SIZE - 1)), new Sample(stage, nanos, item));
+        }
+
+        private List<Sample> samples() {
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < RING_SIZE; i++) {
+                Sample sample = ring.get(i);
+                if (sample != null) {
+                    samples.add(sample);
+                }
+            }
+            return samples;
+        }
+    }
+}
@@ -1,18 +1,233 @@
 package hhy.study.springbatch.common.listener;
 
+import hhy.study.springbatch.common.metrics.BatchMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
 
-public class StepListener implements StepExecutionListener {
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Purpose         : step / chunk 단위 계측 (Micrometer)
+ * @Comment         : chunk 마다 read / process / write 시간 합계와 commit 시간(write 끝 ~ afterChunk)을 timer(histogram) 로 기록,
+ *                    write 된 item 수 counter (items/sec 는 rate 로 계산), step 종료시 skip / rollback 수 counter
+ *                    item 마다는 System.nanoTime + 덧셈만 하고 meter 기록은 chunk 끝에 한번 -> hot loop 부담 최소화
+ *                    chunk 상태는 쓰레드별(ThreadLocal) 이라 multi-thread / partition step 에서도 섞이지 않음
+ *                    step 종료시 합계를 ExecutionContext(metrics.*) 에 남김 -> JobListener 가 job 종료시 JSON 요약으로 출력
+ *                    등록 : builder.listener((StepExecutionListener) new StepListener())
+ *                    meter 는 BatchMetrics.registry()(전역) 에 등록, new StepListener(registry) 면 그 registry 에 등록
+ *                    -> chunk / item listener 로는 builder 가 build 시점에 자동 등록 (여러 listener 를 구현해서 overload 가 모호하므로 cast)
+ *                    retry 수는 faultTolerant() step 에 RetryListener 로도 등록했을 때만 집계
+ */
+public class StepListener implements StepExecutionListener, ChunkListener,
+        ItemReadListener<Object>, ItemProcessListener<Object, Object>, ItemWriteListener<Object>, RetryListener {
+
+    public static final String METRICS_PREFIX = "metrics.";
+
+    private final MeterRegistry registry;
+    private final Map<StepExecution, StepMeters> meters = new ConcurrentHashMap<>();
+    private final ThreadLocal<ChunkTimer> chunkTimer = ThreadLocal.withInitial(ChunkTimer::new);
+
+    public StepListener() {
+        this(BatchMetrics.registry());
+    }
+
+    public StepListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
 
     @Override
     public void beforeStep(StepExecution stepExecution) {
-
+        meters.put(stepExecution, new StepMeters(registry, stepExecution));
     }
 
     @Override
     public ExitStatus afterStep(StepExecution stepExecution) {
+        StepMeters stepMeters = meters.remove(stepExecution);
+        if (stepMeters == null) {
+            return null;
+        }
+        stepMeters.skips.increment(stepExecution.getSkipCount());
+        stepMeters.rollbacks.increment(stepExecution.getRollbackCount());
+
+        ExecutionContext context = stepExecution.getExecutionContext();
+        context.putLong(METRICS_PREFIX + "chunks", stepMeters.chunks.sum());
+        context.putLong(METRICS_PREFIX + "readMillis", TimeUnit.NANOSECONDS.toMillis(stepMeters.readNanos.sum()));
+        context.putLong(METRICS_PREFIX + "processMillis", TimeUnit.NANOSECONDS.toMillis(stepMeters.processNanos.sum()));
+        context.putLong(METRICS_PREFIX + "writeMillis", TimeUnit.NANOSECONDS.toMillis(stepMeters.writeNanos.sum()));
+        context.putLong(METRICS_PREFIX + "commitMillis", TimeUnit.NANOSECONDS.toMillis(stepMeters.commitNanos.sum()));
+        context.putLong(METRICS_PREFIX + "retries", stepMeters.retryCount.sum());
         return null;
     }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkTimer.get().start(meters.get(context.getStepContext().getStepExecution()));
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkTimer timer = chunkTimer.get();
+        if (timer.meters == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        timer.meters.record(timer, timer.writeEnd == 0 ? 0 : now - timer.writeEnd);
+        timer.meters = null;
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        /* rollback 된 chunk 는 기록하지 않음 (rollback 수는 step 종료시 집계) */
+        chunkTimer.get().meters = null;
+    }
+
+    @Override
+    public void beforeRead() {
+        chunkTimer.get().mark = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        ChunkTimer timer = chunkTimer.get();
+        timer.readNanos += System.nanoTime() - timer.mark;
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        afterRead(null);
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        chunkTimer.get().mark = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        ChunkTimer timer = chunkTimer.get();
+        timer.processNanos += System.nanoTime() - timer.mark;
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        afterProcess(item, null);
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        chunkTimer.get().mark = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        ChunkTimer timer = chunkTimer.get();
+        timer.writeEnd = System.nanoTime();
+        timer.writeNanos += timer.writeEnd - timer.mark;
+        timer.written += items.size();
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        ChunkTimer timer = chunkTimer.get();
+        timer.writeNanos += System.nanoTime() - timer.mark;
+    }
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        StepMeters stepMeters = chunkTimer.get().meters;
+        if (stepMeters != null) {
+            stepMeters.retries.increment();
+            stepMeters.retryCount.increment();
+        }
+    }
+
+    /* 쓰레드별 현재 chunk 의 누적 시간 */
+    private static class ChunkTimer {
+        private StepMeters meters;
+        private long mark;
+        private long readNanos;
+        private long processNanos;
+        private long writeNanos;
+        private long writeEnd;
+        private long written;
+
+        private void start(StepMeters meters) {
+            this.meters = meters;
+            readNanos = 0;
+            processNanos = 0;
+            writeNanos = 0;
+            writeEnd = 0;
+            written = 0;
+        }
+    }
+
+    /* step execution 별 meter + JSON 요약용 합계 */
+    private static class StepMeters {
+        private final Timer read;
+        private final Timer process;
+        private final Timer write;
+        private final Timer commit;
+        private final Counter itemsWritten;
+        private final Counter skips;
+        private final Counter rollbacks;
+        private final Counter retries;
+
+        private final LongAdder chunks = new LongAdder();
+        private final LongAdder readNanos = new LongAdder();
+        private final LongAdder processNanos = new LongAdder();
+        private final LongAdder writeNanos = new LongAdder();
+        private final LongAdder commitNanos = new LongAdder();
+        private final LongAdder retryCount = new LongAdder();
+
+        private StepMeters(MeterRegistry registry, StepExecution stepExecution) {
+            read = BatchMetrics.chunkTimer(registry, BatchMetrics.CHUNK_READ, stepExecution);
+            process = BatchMetrics.chunkTimer(registry, BatchMetrics.CHUNK_PROCESS, stepExecution);
+            write = BatchMetrics.chunkTimer(registry, BatchMetrics.CHUNK_WRITE, stepExecution);
+            commit = BatchMetrics.chunkTimer(registry, BatchMetrics.CHUNK_COMMIT, stepExecution);
+            itemsWritten = BatchMetrics.counter(registry, BatchMetrics.ITEMS_WRITTEN, stepExecution);
+            skips = BatchMetrics.counter(registry, BatchMetrics.SKIPS, stepExecution);
+            rollbacks = BatchMetrics.counter(registry, BatchMetrics.ROLLBACKS, stepExecution);
+            retries = BatchMetrics.counter(registry, BatchMetrics.RETRIES, stepExecution);
+        }
+
+        private void record(ChunkTimer timer, long commitNanos) {
+            read.record(timer.readNanos, TimeUnit.NANOSECONDS);
+            process.record(timer.processNanos, TimeUnit.NANOSECONDS);
+            write.record(timer.writeNanos, TimeUnit.NANOSECONDS);
+            commit.record(commitNanos, TimeUnit.NANOSECONDS);
+            itemsWritten.increment(timer.written);
+
+            chunks.increment();
+            readNanos.add(timer.readNanos);
+            processNanos.add(timer.processNanos);
+            writeNanos.add(timer.writeNanos);
+            this.commitNanos.add(commitNanos);
+        }
+    }
 }
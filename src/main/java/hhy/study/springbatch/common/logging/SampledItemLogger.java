@@ -0,0 +1,44 @@
+package hhy.study.springbatch.common.logging;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+
+/**
+ * @Purpose         : item 마다 찍던 로그를 1/N sampling 해서 남기는 logger (processor/reader 의 System.out.println 대체)
+ * @Comment         : logger 이름은 hhy.study.springbatch.item -> log4j2.xml 에서 AsyncLogger + BurstFilter(초당 건수 제한) 적용
+ *                    sampling 카운터는 쓰레드별(ThreadLocal) 이라 multi-thread step 에서도 쓰레드끼리 경쟁 없음
+ *                    step scope bean(processor 등) 안에서 만들면 step 실행마다 카운터가 새로 시작됨
+ *                    int/long 값은 Unbox 로 넘겨서 boxing 없이(garbage-free) 기록
+ */
+public class SampledItemLogger {
+
+    public static final String LOGGER_NAME = "hhy.study.springbatch.item";
+
+    private static final Logger LOG = LogManager.getLogger(LOGGER_NAME);
+
+    private final long sample;
+    private final ThreadLocal<long[]> count = ThreadLocal.withInitial(() -> new long[1]);
+
+    /* sample : N 개 중 1개만 기록 (1 이면 전부) */
+    public SampledItemLogger(long sample) {
+        this.sample = Math.max(1, sample);
+    }
+
+    public void info(String message, String key, int value) {
+        if (LOG.isInfoEnabled() && sampled()) {
+            LOG.info(message, key, Unbox.box(value));
+        }
+    }
+
+    public void info(String message, int value) {
+        if (LOG.isInfoEnabled() && sampled()) {
+            LOG.info(message, Unbox.box(value));
+        }
+    }
+
+    private boolean sampled() {
+        long[] counter = count.get();
+        return counter[0]++ % sample == 0;
+    }
+}
@@ -0,0 +1,73 @@
+package hhy.study.springbatch.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.StepExecution;
+
+/**
+ * @Purpose         : batch 계측 meter 이름/tag 모음 (StepListener, JobListener, PipelinedItemReader, KeyCacheConfig 에서 사용)
+ * @Comment         : 기본은 Metrics.globalRegistry 에 등록 -> registry 가 없으면(MetricsConfig 미등록) noop
+ *                    MeterRegistry 를 받는 overload 는 테스트 등에서 전역 상태 대신 직접 만든 registry 에 등록할 때 사용
+ *                    spring batch 기본 meter(spring.batch.job / spring.batch.step / spring.batch.item.read ...) 도 같은 registry 로 나감
+ *                    tag : job, step
+ */
+public final class BatchMetrics {
+
+    public static final String CHUNK_READ = "batch.chunk.read";
+    public static final String CHUNK_PROCESS = "batch.chunk.process";
+    public static final String CHUNK_WRITE = "batch.chunk.write";
+    public static final String CHUNK_COMMIT = "batch.chunk.commit";
+    public static final String ITEMS_WRITTEN = "batch.items.written";
+    public static final String SKIPS = "batch.skips";
+    public static final String ROLLBACKS = "batch.rollbacks";
+    public static final String RETRIES = "batch.retries";
+    public static final String QUEUE_DEPTH = "batch.queue.depth";
+    public static final String KEY_CACHE_HIT_RATIO = "batch.key.cache.hit.ratio";
+    public static final String KEY_CACHE_MISSES = "batch.key.cache.misses";
+    public static final String KEY_CACHE_EVICTIONS = "batch.key.cache.evictions";
+
+    private BatchMetrics() {
+    }
+
+    public static MeterRegistry registry() {
+        return Metrics.globalRegistry;
+    }
+
+    public static Tags tags(StepExecution stepExecution) {
+        return Tags.of("job", stepExecution.getJobExecution().getJobInstance().getJobName(),
+                "step", stepExecution.getStepName());
+    }
+
+    /* chunk 단위 소요시간 (chunk 안의 item 시간 합계) */
+    public static Timer chunkTimer(String name, StepExecution stepExecution) {
+        return chunkTimer(registry(), name, stepExecution);
+    }
+
+    public static Timer chunkTimer(MeterRegistry registry, String name, StepExecution stepExecution) {
+        return Timer.builder(name)
+                .tags(tags(stepExecution))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public static Counter counter(String name, StepExecution stepExecution) {
+        return counter(registry(), name, stepExecution);
+    }
+
+    public static Counter counter(MeterRegistry registry, String name, StepExecution stepExecution) {
+        return Counter.builder(name)
+                .tags(tags(stepExecution))
+                .register(registry);
+    }
+
+    /* pipeline 단계 사이 queue 에 쌓인 batch 수 (chunk 마다 기록) */
+    public static DistributionSummary queueDepth(StepExecution stepExecution) {
+        return DistributionSummary.builder(QUEUE_DEPTH)
+                .tags(tags(stepExecution))
+                .register(registry());
+    }
+}
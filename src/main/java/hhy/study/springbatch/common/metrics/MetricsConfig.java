@@ -0,0 +1,41 @@
+package hhy.study.springbatch.common.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * @Purpose         : batch meter 를 Prometheus registry 로 수집하고 로컬 endpoint 로 노출
+ * @Comment         : PrometheusMeterRegistry 를 Metrics.globalRegistry 에 추가 -> StepListener / spring batch 기본 meter 가 여기로 모임
+ *                    springbatch.metrics.port 가 있을 때만 http endpoint 기동 (GET http://{host}:{port}/metrics)
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean(destroyMethod = "close")
+    public PrometheusMeterRegistry prometheusMeterRegistry() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT) {
+            @Override
+            public void close() {
+                Metrics.removeRegistry(this);
+                super.close();
+            }
+        };
+        Metrics.addRegistry(registry);
+        return registry;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "springbatch.metrics", name = "port")
+    public PrometheusEndpoint prometheusEndpoint(PrometheusMeterRegistry prometheusMeterRegistry,
+                                                 @Value("${springbatch.metrics.host:localhost}") String host,
+                                                 @Value("${springbatch.metrics.port}") int port) throws IOException {
+        return new PrometheusEndpoint(prometheusMeterRegistry, host, port);
+    }
+}
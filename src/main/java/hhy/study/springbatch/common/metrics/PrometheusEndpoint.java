@@ -0,0 +1,46 @@
+package hhy.study.springbatch.common.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Purpose         : PrometheusMeterRegistry 를 Prometheus text 형식으로 노출하는 로컬 http endpoint (GET /metrics)
+ * @Comment         : web/actuator 의존성 없이 JDK HttpServer 사용, 요청은 쓰레드 1개로 처리 (scrape 용도로 충분)
+ */
+public class PrometheusEndpoint {
+
+    private static final Logger LOG = LogManager.getLogger(PrometheusEndpoint.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    public PrometheusEndpoint(PrometheusMeterRegistry registry, String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+        LOG.info("metrics endpoint : http://{}:{}/metrics", server.getAddress().getHostString(), Unbox.box(server.getAddress().getPort()));
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
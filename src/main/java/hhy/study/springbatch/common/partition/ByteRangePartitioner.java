@@ -0,0 +1,93 @@
+package hhy.study.springbatch.common.partition;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Purpose         : 하나의 파일을 개행 기준으로 정렬된 N 개의 byte 범위로 분할하는 Partitioner
+ * @Comment         : 각 partition 의 ExecutionContext 에 startOffset/endOffset/partitionIndex 를 넣어준다.
+ *                    worker step 은 #{stepExecutionContext['startOffset']} 등으로 받아서 MappedNumberItemReader 에 설정.
+ *                    파일이 작으면 빈 범위의 partition 이 생길 수 있음 (항상 gridSize 개를 만들어서 segment 번호를 고정시킴)
+ */
+public class ByteRangePartitioner implements Partitioner {
+
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+    public static final String PARTITION_INDEX_KEY = "partitionIndex";
+
+    private static final String PARTITION_PREFIX = "partition";
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private Resource resource;
+
+    public ByteRangePartitioner() {
+    }
+
+    public ByteRangePartitioner(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Assert.notNull(resource, "resource must be set");
+        Assert.isTrue(gridSize > 0, "gridSize must be greater than zero");
+
+        Map<String, ExecutionContext> partitions = new HashMap<>(gridSize);
+        try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+            long start = 0;
+            for (int i = 0; i < gridSize; i++) {
+                long end = i == gridSize - 1 ? fileSize : alignToLineStart(channel, buffer, Math.max(start, fileSize * (i + 1) / gridSize), fileSize);
+
+                ExecutionContext context = new ExecutionContext();
+                context.putLong(START_OFFSET_KEY, start);
+                context.putLong(END_OFFSET_KEY, end);
+                context.putInt(PARTITION_INDEX_KEY, i);
+                partitions.put(PARTITION_PREFIX + i, context);
+
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to partition resource: " + resource, e);
+        }
+        return partitions;
+    }
+
+    /* offset 이 line 중간이면 다음 line 의 시작 위치로 이동 (MultiSourcePartitioner 에서도 사용) */
+    static long alignToLineStart(FileChannel channel, ByteBuffer buffer, long offset, long fileSize) throws IOException {
+        if (offset <= 0 || offset >= fileSize) {
+            return Math.min(Math.max(offset, 0), fileSize);
+        }
+        long position = offset - 1; // 바로 앞 byte 가 '\n' 이면 이미 line 시작
+        while (position < fileSize) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return fileSize;
+    }
+}
@@ -0,0 +1,114 @@
+package hhy.study.springbatch.common.partition;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Purpose         : 여러 파일(glob / directory)을 파일 1개당 partition 1개, 큰 파일은 block 단위 partition 으로 만드는 Partitioner
+ * @Comment         : 2020.10 emart 건처럼 source 가 여러 파일로 흩어져 있을 때 step 하나 안에서 tasklet 을 source 수 만큼 순서대로 돌리던 방식 대체.
+ *                    partition 수는 source 에 따라 정해지고 (gridSize 는 무시), 동시에 도는 수는 partition step 의 TaskExecutor 로 제한한다.
+ *                    각 partition 의 ExecutionContext : resource(절대경로) / sourceName / startOffset / endOffset / partitionIndex
+ *                    파일은 경로 순으로 정렬하고 blockSize 로 개행 정렬 분할 -> 같은 입력이면 partition 이름이 항상 같아서 재시작시
+ *                    완료된 source 는 건너뛰고 실패한 source 만 마지막 offset 부터 이어서 처리됨
+ * @Disadvantages   : 파일시스템 Resource 만 가능 (MappedNumberItemReader 가 mmap 사용)
+ */
+public class MultiSourcePartitioner implements Partitioner {
+
+    public static final String RESOURCE_KEY = "resource";
+    public static final String SOURCE_NAME_KEY = "sourceName";
+
+    private static final String PARTITION_PREFIX = "source";
+    private static final long DEFAULT_BLOCK_SIZE = 64L * 1024 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 8 * 1024;
+
+    private final Resource[] resources;
+    private long blockSize = DEFAULT_BLOCK_SIZE;
+
+    public MultiSourcePartitioner(Resource[] resources) {
+        Assert.notNull(resources, "resources must not be null");
+        this.resources = resources;
+    }
+
+    /**
+     * location 형식 : "file:data/emart/*.txt", "classpath:input*.txt", 디렉토리("file:data/emart/") 면 안의 모든 파일
+     */
+    public static MultiSourcePartitioner of(String location) {
+        Assert.hasText(location, "location must not be empty");
+        try {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            Resource resource = resolver.getResource(location);
+            if (resource.exists() && resource.getFile().isDirectory()) {
+                location = location.endsWith("/") ? location + "*" : location + "/*";
+            }
+            return new MultiSourcePartitioner(resolver.getResources(location));
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to resolve sources: " + location, e);
+        }
+    }
+
+    /* 이 크기보다 큰 파일은 개행 기준 block 으로 나눔 */
+    public void setBlockSize(long blockSize) {
+        Assert.isTrue(blockSize > 0, "blockSize must be greater than zero");
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        List<File> files = new ArrayList<>(resources.length);
+        for (Resource resource : resources) {
+            try {
+                File file = resource.getFile();
+                if (file.isFile()) {
+                    files.add(file.getAbsoluteFile());
+                }
+            } catch (IOException e) {
+                throw new ItemStreamException("Source is not a file system resource: " + resource, e);
+            }
+        }
+        files.sort(Comparator.comparing(File::getPath));
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        for (File file : files) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long fileSize = channel.size();
+                long blocks = Math.max(1, (fileSize + blockSize - 1) / blockSize);
+
+                long start = 0;
+                for (long block = 0; block < blocks && (block == 0 || start < fileSize); block++) {
+                    long end = block == blocks - 1 ? fileSize
+                            : ByteRangePartitioner.alignToLineStart(channel, buffer, Math.max(start, (block + 1) * blockSize), fileSize);
+
+                    int index = partitions.size();
+                    ExecutionContext context = new ExecutionContext();
+                    context.putString(RESOURCE_KEY, file.getPath());
+                    context.putString(SOURCE_NAME_KEY, blocks == 1 ? file.getName() : file.getName() + "#" + block);
+                    context.putLong(ByteRangePartitioner.START_OFFSET_KEY, start);
+                    context.putLong(ByteRangePartitioner.END_OFFSET_KEY, end);
+                    context.putInt(ByteRangePartitioner.PARTITION_INDEX_KEY, index);
+                    partitions.put(PARTITION_PREFIX + index, context);
+
+                    start = end;
+                }
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to partition source: " + file, e);
+            }
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,118 @@
+package hhy.study.springbatch.common.partition;
+
+import hhy.study.springbatch.common.repository.BufferedJobRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * @Purpose         : partition worker 들이 만든 segment 파일을 순서대로 하나의 output 에 이어붙이는 Tasklet
+ * @Comment         : 첫 실행은 병합 전 output 크기만 StepExecutionContext 에 남기고 commit (segment 를 붙이기 전에 기준 크기가 저장됨)
+ *                    이후 segment 1개 = tasklet 1회 실행(CONTINUABLE). 실행마다 병합한 segment 수와 output 크기를
+ *                    StepExecutionContext 에 남기므로 재시작시 마지막 commit 크기로 truncate 후 이어서 병합한다.
+ *                    FileChannel.transferTo 사용 (user space 복사 없음)
+ *                    appendAllowed(기본 true) : 처음 실행이면 기존 output 뒤에 이어붙임, false 면 기존 output 을 비우고 시작
+ *                    step 이 COMPLETED 면 segment 파일 삭제 -> tasklet 을 step 의 listener 로 등록해야 함 (PartitionJobConfig 참고)
+ * @Disadvantages   : BufferedJobRepository 를 쓰면 chunk 마다 metadata 를 쓰도록 표시함 (commit 안된 기준 크기로는 재시작시 truncate 할 수 없음)
+ */
+public class SegmentMergeTasklet implements Tasklet, StepExecutionListener {
+
+    private static final Logger LOG = LogManager.getLogger(SegmentMergeTasklet.class);
+
+    private static final String MERGED_COUNT_KEY = "SegmentMergeTasklet.merged";
+    private static final String OUTPUT_SIZE_KEY = "SegmentMergeTasklet.outputSize";
+
+    private final List<Resource> segments;
+    private final Resource output;
+    private boolean appendAllowed = true;
+
+    public SegmentMergeTasklet(List<Resource> segments, Resource output) {
+        Assert.notNull(segments, "segments must be set");
+        Assert.notNull(output, "output must be set");
+        this.segments = segments;
+        this.output = output;
+    }
+
+    public void setAppendAllowed(boolean appendAllowed) {
+        this.appendAllowed = appendAllowed;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        int merged = executionContext.getInt(MERGED_COUNT_KEY, 0);
+        if (merged >= segments.size()) {
+            return RepeatStatus.FINISHED;
+        }
+
+        File outputFile = output.getFile();
+        if (!executionContext.containsKey(OUTPUT_SIZE_KEY)) {
+            /* 처음 실행 : 병합 전 크기만 commit (segment 0 을 붙이다 실패해도 재시작시 이 크기로 되돌림) */
+            executionContext.putLong(OUTPUT_SIZE_KEY, appendAllowed && outputFile.exists() ? outputFile.length() : 0L);
+            executionContext.put(BufferedJobRepository.FLUSH_EVERY_CHUNK_KEY, true);
+            return RepeatStatus.CONTINUABLE;
+        }
+        if (outputFile.getParentFile() != null) {
+            outputFile.getParentFile().mkdirs();
+        }
+
+        try (FileChannel out = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            /* 재시작 : 마지막 commit 이후에 붙은 내용은 버림 */
+            long committedSize = executionContext.getLong(OUTPUT_SIZE_KEY);
+            out.truncate(committedSize);
+
+            Resource segment = segments.get(merged);
+            if (segment.exists()) {
+                try (FileChannel in = FileChannel.open(segment.getFile().toPath(), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long transferred = 0;
+                    while (transferred < size) {
+                        transferred += in.transferTo(transferred, size - transferred, out.position(committedSize + transferred));
+                    }
+                }
+            }
+            out.force(false);
+
+            executionContext.putInt(MERGED_COUNT_KEY, merged + 1);
+            executionContext.putLong(OUTPUT_SIZE_KEY, out.size());
+        }
+
+        contribution.incrementWriteCount(1);
+        return merged + 1 < segments.size() ? RepeatStatus.CONTINUABLE : RepeatStatus.FINISHED;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (ExitStatus.COMPLETED.getExitCode().equals(stepExecution.getExitStatus().getExitCode())) {
+            for (Resource segment : segments) {
+                try {
+                    if (segment.exists()) {
+                        segment.getFile().delete();
+                    }
+                } catch (IOException e) {
+                    LOG.warn("failed to delete segment {} : {}", segment, e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+}
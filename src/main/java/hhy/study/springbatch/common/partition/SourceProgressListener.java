@@ -0,0 +1,77 @@
+package hhy.study.springbatch.common.partition;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * @Purpose         : MultiSourcePartitioner 로 만든 worker step 의 source 별 진행률 출력
+ * @Comment         : commit 된 reader offset(ExecutionContext) 이 [startOffset, endOffset) 중 어디인지로 진행률을 계산 -> 재시작 위치와 같은 값
+ *                    10% 단위로 넘어갈 때와 step 종료시에만 출력. 진행률은 PROGRESS_KEY 로 ExecutionContext 에도 남김
+ *                    worker step 은 partition 마다 쓰레드가 다르므로 상태는 ExecutionContext 에만 둔다
+ */
+public class SourceProgressListener implements ChunkListener, StepExecutionListener {
+
+    private static final Logger LOG = LogManager.getLogger(SourceProgressListener.class);
+
+    public static final String PROGRESS_KEY = "sourceProgress";
+
+    private final String offsetKey;
+
+    /* offsetKey : reader 가 ExecutionContext 에 저장하는 byte offset key (ex. MappedNumberItemReader.offset) */
+    public SourceProgressListener(String offsetKey) {
+        this.offsetKey = offsetKey;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        if (context.containsKey(PROGRESS_KEY)) {
+            LOG.info("[{}] restart from {}%", sourceName(context), Unbox.box(context.getInt(PROGRESS_KEY)));
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        LOG.info("[{}] {} read={} write={}", sourceName(context), stepExecution.getStatus(),
+                Unbox.box(stepExecution.getReadCount()), Unbox.box(stepExecution.getWriteCount()));
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ExecutionContext executionContext = context.getStepContext().getStepExecution().getExecutionContext();
+        if (!executionContext.containsKey(offsetKey)) {
+            return;
+        }
+        long start = executionContext.getLong(ByteRangePartitioner.START_OFFSET_KEY, 0);
+        long end = executionContext.getLong(ByteRangePartitioner.END_OFFSET_KEY, 0);
+        long offset = executionContext.getLong(offsetKey);
+        int progress = end <= start ? 100 : (int) ((offset - start) * 100 / (end - start));
+
+        int previous = executionContext.getInt(PROGRESS_KEY, 0);
+        executionContext.putInt(PROGRESS_KEY, progress);
+        if (progress / 10 > previous / 10) {
+            LOG.info("[{}] {}%", sourceName(executionContext), Unbox.box(progress));
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+    }
+
+    private String sourceName(ExecutionContext context) {
+        return context.getString(MultiSourcePartitioner.SOURCE_NAME_KEY, "?");
+    }
+}
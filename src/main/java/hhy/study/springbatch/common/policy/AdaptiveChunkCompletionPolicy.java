@@ -0,0 +1,174 @@
+package hhy.study.springbatch.common.policy;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.util.Assert;
+
+/**
+ * @Purpose         : 실행중에 commit interval 을 조절하는 CompletionPolicy (chunk(5) 고정값 대체)
+ * @Comment         : chunk 마다 처리시간(read~commit)과 item 수를 측정해서 WINDOW 개 chunk 단위로 처리량(items/sec)을 비교한다.
+ *                    처리량이 좋아지면 같은 방향(2배/절반)으로 계속, 나빠지면 방향을 반대로, 비슷하면 유지 (hill climbing)
+ *                    chunk 1개가 targetMillis 를 넘으면 트랜잭션이 너무 길어지므로 바로 절반으로 줄임
+ *                    크기는 항상 [minChunkSize, maxChunkSize] 범위. 변경 이력은 StepExecution ExecutionContext 에 기록
+ *                    -> adaptiveChunk.size / adaptiveChunk.changes / adaptiveChunk.history
+ *                    ChunkListener, StepExecutionListener 로 step 에 같이 등록해야 측정이 됨
+ * @Disadvantages   : 단일 쓰레드 step 전용 (multi-thread step 은 batch 크기를 고정해야 하므로 사용하지 않음)
+ */
+public class AdaptiveChunkCompletionPolicy extends SimpleCompletionPolicy implements ChunkListener, StepExecutionListener {
+
+    public static final String SIZE_KEY = "adaptiveChunk.size";
+    public static final String CHANGES_KEY = "adaptiveChunk.changes";
+    public static final String HISTORY_KEY = "adaptiveChunk.history";
+
+    private static final int WINDOW = 3;
+    private static final double TOLERANCE = 0.05;
+    private static final int MAX_HISTORY = 20;
+    private static final long DEFAULT_TARGET_MILLIS = 1000;
+
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private long targetNanos = DEFAULT_TARGET_MILLIS * 1_000_000L;
+
+    private StepExecution stepExecution;
+    private int direction = 1;
+    private double lastThroughput = -1;
+    private long chunkStart;
+    private int readCountBefore;
+    private long windowItems;
+    private long windowNanos;
+    private int windowChunks;
+
+    public AdaptiveChunkCompletionPolicy(int minChunkSize, int maxChunkSize) {
+        super(minChunkSize);
+        Assert.isTrue(minChunkSize > 0, "minChunkSize must be greater than zero");
+        Assert.isTrue(maxChunkSize >= minChunkSize, "maxChunkSize must not be less than minChunkSize");
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /* chunk 1개(트랜잭션 1개)가 넘지 않아야 할 시간 */
+    public void setTargetMillis(long targetMillis) {
+        Assert.isTrue(targetMillis > 0, "targetMillis must be greater than zero");
+        this.targetNanos = targetMillis * 1_000_000L;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+        direction = 1;
+        lastThroughput = -1;
+        resetWindow();
+
+        /* 재시작이면 마지막으로 수렴한 크기부터 시작 */
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        int size = executionContext.containsKey(SIZE_KEY) ? clamp(executionContext.getInt(SIZE_KEY)) : minChunkSize;
+        setChunkSize(size);
+        executionContext.putInt(SIZE_KEY, size);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStart = nanoTime();
+        readCountBefore = stepExecution == null ? 0 : stepExecution.getReadCount();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        if (stepExecution == null) {
+            return;
+        }
+        long nanos = nanoTime() - chunkStart;
+        int items = stepExecution.getReadCount() - readCountBefore;
+        int size = getChunkSize();
+
+        if (nanos > targetNanos && size > minChunkSize) {
+            /* 트랜잭션이 너무 길다 -> 즉시 축소 */
+            direction = -1;
+            lastThroughput = -1;
+            resetWindow();
+            resize(size, clamp(size / 2), "latency " + nanos / 1_000_000L + "ms");
+            return;
+        }
+
+        windowItems += items;
+        windowNanos += nanos;
+        windowChunks++;
+        if (windowChunks < WINDOW || items < size) {
+            return; // 마지막 chunk(덜 찬 chunk) 는 판단에서 제외
+        }
+
+        double throughput = windowNanos == 0 ? 0 : windowItems * 1_000_000_000d / windowNanos;
+        long averageNanos = windowNanos / windowChunks;
+        resetWindow();
+
+        boolean move;
+        if (lastThroughput < 0 || throughput > lastThroughput * (1 + TOLERANCE)) {
+            move = true; // 첫 측정이거나 좋아짐 -> 같은 방향
+        } else if (throughput < lastThroughput * (1 - TOLERANCE)) {
+            direction = -direction; // 나빠짐 -> 반대 방향
+            move = true;
+        } else {
+            move = false; // 비슷함 -> 유지
+        }
+        lastThroughput = throughput;
+
+        /* 2배로 늘렸을 때 targetMillis 를 넘을 것 같으면 늘리지 않음 */
+        if (move && direction > 0 && averageNanos * 2 > targetNanos) {
+            move = false;
+        }
+        if (move) {
+            int next = clamp(direction > 0 ? size * 2 : size / 2);
+            resize(size, next, String.format("%.0f items/s", throughput));
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        resetWindow();
+    }
+
+    private void resize(int from, int to, String reason) {
+        if (from == to) {
+            return;
+        }
+        setChunkSize(to);
+
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        executionContext.putInt(SIZE_KEY, to);
+        executionContext.putInt(CHANGES_KEY, executionContext.getInt(CHANGES_KEY, 0) + 1);
+
+        String entry = from + "->" + to + " (" + reason + ")";
+        String history = executionContext.getString(HISTORY_KEY, "");
+        String[] entries = history.isEmpty() ? new String[0] : history.split(", ");
+        StringBuilder builder = new StringBuilder();
+        for (int i = Math.max(0, entries.length - (MAX_HISTORY - 1)); i < entries.length; i++) {
+            builder.append(entries[i]).append(", ");
+        }
+        executionContext.putString(HISTORY_KEY, builder.append(entry).toString());
+    }
+
+    private void resetWindow() {
+        windowItems = 0;
+        windowNanos = 0;
+        windowChunks = 0;
+    }
+
+    /* 테스트에서 chunk 소요시간을 지정할 수 있도록 분리 */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private int clamp(int size) {
+        return Math.max(minChunkSize, Math.min(maxChunkSize, size));
+    }
+}
@@ -0,0 +1,170 @@
+package hhy.study.springbatch.common.reader;
+
+import hhy.study.springbatch.common.binary.NumberBlocks;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @Purpose         : BinaryNumberItemWriter 가 쓴 binary columnar block 파일을 읽는 Reader
+ * @Comment         : block 단위로 읽어서 풀고 num 은 int 컬럼 그대로, key 는 block 사전의 String 을 공유 -> line/숫자 파싱 없음
+ *                    footer 의 block index 로 읽을 범위를 정함 (footer 가 없으면 block header scan)
+ *                    ExecutionContext 에 (block 번호, block 안 item 위치) 를 저장하므로 재시작시 해당 block 만 다시 풀고 이어서 읽는다.
+ *                    memoryMapped : block 경계 기준 window 를 mmap 해서 page cache 에서 바로 풀기 (무압축 block 은 heap 복사 없음)
+ * @Disadvantages   : 파일시스템 Resource 만 가능
+ */
+public class BinaryNumberItemReader extends AbstractItemStreamItemReader<NumberVO> {
+
+    private static final String BLOCK_KEY = "block";
+    private static final String ITEM_KEY = "item";
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private Resource resource;
+    private boolean saveState = true;
+    private boolean strict = true;
+    private KeyInternCache keyCache;
+    private boolean memoryMapped = false;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    private FileChannel channel;
+    private ByteBuffer window;
+    private long windowStart;
+    private NumberBlocks.Index index;
+    private NumberBlocks.Block block;
+    private boolean blockLoaded;
+    private int blockIndex;
+    private int itemIndex;
+
+    public BinaryNumberItemReader() {
+        setName(ClassUtils.getShortName(BinaryNumberItemReader.class));
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /* false 이면 파일이 없을 때 예외 대신 읽을 item 이 없는 것으로 처리 */
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
+    /* 설정하면 block 사전의 key String 을 block 사이에서도 재사용 (KeyCacheConfig 참고) */
+    public void setKeyCache(KeyInternCache keyCache) {
+        this.keyCache = keyCache;
+    }
+
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /* memoryMapped 일 때 한번에 mapping 하는 최대 크기 (block 1개가 더 크면 block 크기) */
+    public void setWindowSize(int windowSize) {
+        Assert.isTrue(windowSize > 0, "windowSize must be greater than zero");
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(resource, "resource must be set");
+        super.open(executionContext);
+
+        blockIndex = executionContext.getInt(getExecutionContextKey(BLOCK_KEY), 0);
+        itemIndex = executionContext.getInt(getExecutionContextKey(ITEM_KEY), 0);
+        blockLoaded = false;
+        block = new NumberBlocks.Block();
+        window = null;
+
+        if (!resource.exists()) {
+            if (strict) {
+                throw new ItemStreamException("Input resource must exist (reader is in 'strict' mode): " + resource);
+            }
+            index = new NumberBlocks.Index(1);
+            return;
+        }
+
+        try {
+            channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            index = NumberBlocks.readIndex(channel);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open resource: " + resource, e);
+        }
+    }
+
+    @Override
+    public NumberVO read() throws Exception {
+        while (!blockLoaded || itemIndex >= block.count()) {
+            if (blockLoaded) {
+                blockIndex++;
+                itemIndex = 0;
+                blockLoaded = false;
+            }
+            if (blockIndex >= index.size()) {
+                return null;
+            }
+            loadBlock();
+            blockLoaded = true;
+        }
+
+        NumberVO numberVO = new NumberVO();
+        numberVO.setKey(block.key(itemIndex));
+        numberVO.setNum(block.num(itemIndex));
+        itemIndex++;
+        return numberVO;
+    }
+
+    private void loadBlock() throws IOException {
+        long from = index.offset(blockIndex);
+        if (!memoryMapped) {
+            NumberBlocks.readBlock(channel, from, block, keyCache);
+            return;
+        }
+        long to = blockIndex + 1 < index.size() ? index.offset(blockIndex + 1) : index.end();
+        if (window == null || from < windowStart || to > windowStart + window.limit()) {
+            long length = Math.max(to - from, Math.min(windowSize, index.end() - from));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            windowStart = from;
+        }
+        NumberBlocks.readBlock(window, (int) (from - windowStart), block, keyCache);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (saveState) {
+            executionContext.putInt(getExecutionContextKey(BLOCK_KEY), blockIndex);
+            executionContext.putInt(getExecutionContextKey(ITEM_KEY), itemIndex);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        window = null;
+        if (block != null) {
+            block.end();
+            block = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close resource: " + resource, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+}
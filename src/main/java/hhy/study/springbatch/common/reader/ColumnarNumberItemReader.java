@@ -0,0 +1,74 @@
+package hhy.study.springbatch.common.reader;
+
+import hhy.study.springbatch.job.NumberChunk;
+import hhy.study.springbatch.job.NumberKeyDictionary;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.util.Assert;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Purpose         : MappedNumberItemReader 를 batchSize line 단위 NumberChunk(columnar) 로 읽는 Reader
+ * @Comment         : read() 1번 = NumberChunk 1개 (최대 batchSize line). key 사전은 open 할 때 새로 만들고 chunk 들이 공유
+ *                    사전의 key 가 maxKeys 개 이상이면 다음 chunk 부터 새 사전 사용 (이전 chunk 는 자기 사전을 들고 있음) -> 메모리는 maxKeys 로 제한
+ *                    사전 miss 는 delegate 의 KeyInternCache 를 거침 (SimpleJobConfig 의 numberKeyCache)
+ *                    offset 저장/재시작은 delegate 그대로 -> chunk(commit) 경계와 batch 경계가 같으면 기존과 동일하게 재시작
+ */
+public class ColumnarNumberItemReader implements ItemStreamReader<NumberChunk> {
+
+    public static final int DEFAULT_MAX_KEYS = 4096;
+
+    private final MappedNumberItemReader delegate;
+    private final int batchSize;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int maxKeys = DEFAULT_MAX_KEYS;
+
+    private NumberKeyDictionary dictionary;
+
+    public ColumnarNumberItemReader(MappedNumberItemReader delegate, int batchSize) {
+        Assert.notNull(delegate, "delegate must be set");
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero");
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+    }
+
+    /* delegate 의 charset 과 같게 설정 */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /* 사전 1개의 최대 key 수 */
+    public void setMaxKeys(int maxKeys) {
+        Assert.isTrue(maxKeys > 0, "maxKeys must be greater than zero");
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        dictionary = new NumberKeyDictionary(charset, delegate.getKeyCache());
+    }
+
+    @Override
+    public NumberChunk read() throws Exception {
+        if (dictionary.size() >= maxKeys) {
+            dictionary = new NumberKeyDictionary(charset, delegate.getKeyCache());
+        }
+        NumberChunk chunk = new NumberChunk(dictionary, batchSize);
+        return delegate.read(chunk) == 0 ? null : chunk;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        delegate.close();
+        dictionary = null;
+    }
+}
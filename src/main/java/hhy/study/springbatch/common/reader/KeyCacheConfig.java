@@ -0,0 +1,44 @@
+package hhy.study.springbatch.common.reader;
+
+import hhy.study.springbatch.common.metrics.BatchMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * @Purpose         : reader 가 같이 쓰는 KeyInternCache 등록
+ * @Comment         : simple / flow / decide job reader 가 같은 cache 를 공유 (job 이 달라도 key 종류는 같은 입력이라 hit 이 누적됨)
+ *                    springbatch.key-cache.capacity 로 slot 수 조정 (기본 1024)
+ *                    hit ratio 는 batch.key.cache.* meter 로 노출, 종료시 log 로 한번 더 출력
+ */
+@Configuration
+public class KeyCacheConfig {
+    private static final Logger LOG = LogManager.getLogger(KeyCacheConfig.class);
+
+    private KeyInternCache keyCache;
+
+    @Bean
+    public KeyInternCache numberKeyCache(@Value("${springbatch.key-cache.capacity:1024}") int capacity) {
+        keyCache = new KeyInternCache(capacity);
+        Gauge.builder(BatchMetrics.KEY_CACHE_HIT_RATIO, keyCache, KeyInternCache::hitRatio)
+                .register(BatchMetrics.registry());
+        FunctionCounter.builder(BatchMetrics.KEY_CACHE_MISSES, keyCache, KeyInternCache::misses)
+                .register(BatchMetrics.registry());
+        FunctionCounter.builder(BatchMetrics.KEY_CACHE_EVICTIONS, keyCache, KeyInternCache::evictions)
+                .register(BatchMetrics.registry());
+        return keyCache;
+    }
+
+    @PreDestroy
+    public void report() {
+        if (keyCache != null) {
+            LOG.info("{}", keyCache);
+        }
+    }
+}
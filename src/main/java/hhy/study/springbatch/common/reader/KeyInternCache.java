@@ -0,0 +1,121 @@
+package hhy.study.springbatch.common.reader;
+
+import org.springframework.util.Assert;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Purpose         : key byte -> String intern cache (MappedNumberItemReader 용)
+ * @Comment         : key 종류가 적은 입력(input.txt 는 전부 "no")에서 line 마다 key String 을 새로 만들지 않고 같은 String 을 재사용.
+ *                    원본 byte 로 hash/비교하므로 hit 이면 할당 없음. miss 일 때만 byte[] / String 생성.
+ *                    capacity 개 slot 의 direct-mapped 구조 (slot 충돌시 새 key 로 교체) -> key 종류가 많아져도 메모리는 capacity 로 고정.
+ *                    entry 는 불변 객체 + AtomicReferenceArray 라 lock 없이 여러 reader / worker 쓰레드에서 같이 사용 가능.
+ * @Disadvantages   : 같은 slot 에 걸리는 key 가 번갈아 나오면 계속 miss (hitRatio 로 확인 후 capacity 조정)
+ */
+public class KeyInternCache {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /* capacity 는 2의 제곱수로 올림 */
+    public KeyInternCache(int capacity) {
+        Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "capacity must be between 1 and 2^30");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /* buffer 의 [from, to) byte 를 charset 으로 decode 한 String (cache 에 있으면 그 String 을 반환) */
+    public String intern(ByteBuffer buffer, int from, int to, Charset charset) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+
+        Entry entry = slots.get(slot);
+        if (entry != null && entry.hash == hash && entry.matches(buffer, from, to, charset)) {
+            hits.increment();
+            return entry.key;
+        }
+
+        misses.increment();
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        Entry created = new Entry(hash, bytes, new String(bytes, charset), charset);
+        if (entry != null) {
+            evictions.increment();
+        }
+        slots.set(slot, created);
+        return created.key;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /* 조회가 없으면 0 */
+    public double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KeyInternCache[capacity=%d, hits=%d, misses=%d, evictions=%d, hitRatio=%.4f]",
+                capacity(), hits(), misses(), evictions(), hitRatio());
+    }
+
+    private static final class Entry {
+
+        private final int hash;
+        private final byte[] bytes;
+        private final String key;
+        private final Charset charset;
+
+        private Entry(int hash, byte[] bytes, String key, Charset charset) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.key = key;
+            this.charset = charset;
+        }
+
+        /* charset 이 다른 reader 가 같은 byte 를 읽으면 다른 key 로 취급 */
+        private boolean matches(ByteBuffer buffer, int from, int to, Charset charset) {
+            if (bytes.length != to - from || !this.charset.equals(charset)) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
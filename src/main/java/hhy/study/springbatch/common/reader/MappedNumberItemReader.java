@@ -0,0 +1,467 @@
+package hhy.study.springbatch.common.reader;
+
+import hhy.study.springbatch.common.compress.GzipBlockInput;
+import hhy.study.springbatch.common.compress.GzipBlocks;
+import hhy.study.springbatch.job.NumberChunk;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @Purpose         : key|num 형태 파일을 memory-mapped 으로 읽는 Reader
+ * @Comment         : FlatFileItemReader + DelimitedLineTokenizer + BeanWrapperFieldSetMapper 조합 대체용.
+ *                    line String / token String[] / FieldSet / reflection 없이 byte 를 직접 스캔해서 '|', '\n' 을 찾고
+ *                    num 은 byte 에서 바로 int 로 파싱한다. (key 는 NumberVO 가 String 이라 1회 생성, KeyInternCache 설정시 재사용)
+ *                    ExecutionContext 에 byte offset 을 저장하므로 재시작시 정확히 이어서 읽는다.
+ *                    gzip 파일(magic 1f 8b)이면 mmap 대신 압축 해제된 block 을 window 로 사용 (GzipBlockInput).
+ *                    block gzip(BGZF) 은 block 단위 병렬 해제, 재시작 위치는 (block offset, block 안 위치)
+ * @Disadvantages   : 파일시스템 Resource 만 가능 (jar 내부 classpath 자원은 mmap 불가)
+ *                    gzip 은 startOffset/endOffset(partition) 불가, 일반 gzip 은 재시작시 처음부터 해제하면서 건너뜀
+ */
+public class MappedNumberItemReader extends AbstractItemStreamItemReader<NumberVO> {
+
+    public static final String OFFSET_KEY = "offset";
+    private static final String LINE_KEY = "line";
+    private static final String BLOCK_SKIP_KEY = "blockSkip";
+
+    /* 2GB 이상 파일도 읽을 수 있도록 window 단위로 mapping */
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private Resource resource;
+    private Charset charset = StandardCharsets.UTF_8;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private boolean saveState = true;
+    private boolean strict = true;
+    private KeyInternCache keyCache;
+    private byte delimiter = '|';
+    private int decompressThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /* 읽을 byte 범위 [startOffset, endOffset) - 파티션 단위 처리시 사용, 기본은 파일 전체 */
+    private long startOffset = 0;
+    private long endOffset = -1;
+
+    private FileChannel channel;
+    private ByteBuffer window;
+    private long windowStart;
+    private int windowLength;
+    private long limit;
+
+    private long position;
+    private long lineCount;
+    private int lineFrom;
+    private int lineTo;
+    private byte[] keyBuffer = new byte[64];
+
+    /* gzip 입력 : 현재 block 과 block 안 위치, block 경계에 걸친 line 은 carry 에 모아서 window 로 사용 */
+    private GzipBlockInput gzipInput;
+    private ByteBuffer blockBuffer;
+    private long blockOffset;
+    private long blockBase;
+    private int blockLength;
+    private int blockPos;
+    private byte[] carry = new byte[256];
+    private int carryLength;
+
+    public MappedNumberItemReader() {
+        setName(ClassUtils.getShortName(MappedNumberItemReader.class));
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setWindowSize(int windowSize) {
+        Assert.isTrue(windowSize > 0, "windowSize must be greater than zero");
+        this.windowSize = windowSize;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    /* false 이면 파일이 없을 때 예외 대신 읽을 item 이 없는 것으로 처리 (FlatFileItemReader 와 동일한 의미) */
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
+    /* key 와 num 사이 구분자 (1 byte, 기본 '|'). ChannelNumberItemWriter 출력(기본 '@')을 다시 읽을 때 사용 */
+    public void setDelimiter(String delimiter) {
+        byte[] bytes = delimiter.getBytes(charset);
+        Assert.isTrue(bytes.length == 1, "delimiter must be a single byte");
+        this.delimiter = bytes[0];
+    }
+
+    /* 설정하면 key String 을 cache 에서 재사용 (key 종류가 적은 입력에서 line 당 String 생성 제거) */
+    public void setKeyCache(KeyInternCache keyCache) {
+        this.keyCache = keyCache;
+    }
+
+    KeyInternCache getKeyCache() {
+        return keyCache;
+    }
+
+    /* block gzip 해제 worker 수 */
+    public void setDecompressThreads(int decompressThreads) {
+        Assert.isTrue(decompressThreads > 0, "decompressThreads must be greater than zero");
+        this.decompressThreads = decompressThreads;
+    }
+
+    /* startOffset 은 line 시작 위치여야 함 (ByteRangePartitioner 가 개행 기준으로 정렬해서 전달) */
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    public void setEndOffset(long endOffset) {
+        this.endOffset = endOffset;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(resource, "resource must be set");
+        super.open(executionContext);
+
+        if (!resource.exists()) {
+            if (strict) {
+                throw new ItemStreamException("Input resource must exist (reader is in 'strict' mode): " + resource);
+            }
+            limit = 0;
+            position = 0;
+            return;
+        }
+
+        try {
+            channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            if (GzipBlocks.isGzip(channel)) {
+                openCompressed(executionContext);
+                return;
+            }
+            long fileSize = channel.size();
+            limit = endOffset < 0 ? fileSize : Math.min(endOffset, fileSize);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open resource for memory-mapped read: " + resource, e);
+        }
+
+        position = startOffset;
+        lineCount = 0;
+        if (executionContext.containsKey(getExecutionContextKey(OFFSET_KEY))) {
+            position = executionContext.getLong(getExecutionContextKey(OFFSET_KEY));
+            lineCount = executionContext.getLong(getExecutionContextKey(LINE_KEY), 0L);
+        }
+        window = null;
+    }
+
+    private void openCompressed(ExecutionContext executionContext) throws IOException {
+        Assert.state(startOffset == 0 && endOffset < 0, "startOffset/endOffset is not supported for gzip input: " + resource);
+        long offset = executionContext.getLong(getExecutionContextKey(OFFSET_KEY), 0L);
+        long skip = executionContext.getLong(getExecutionContextKey(BLOCK_SKIP_KEY), 0L);
+        lineCount = executionContext.getLong(getExecutionContextKey(LINE_KEY), 0L);
+
+        gzipInput = new GzipBlockInput(channel, offset, decompressThreads);
+        blockOffset = offset;
+        blockBase = 0;
+        blockLength = 0;
+        blockPos = 0;
+        /* 재시작 : block 안 위치(일반 gzip 은 처음부터의 위치)까지 건너뜀 */
+        while (nextBlock()) {
+            if (skip < blockLength) {
+                blockPos = (int) skip;
+                break;
+            }
+            skip -= blockLength;
+        }
+        blockPos = Math.min(blockPos, blockLength);
+    }
+
+    @Override
+    public NumberVO read() throws Exception {
+        return nextLine() ? parse(lineFrom, lineTo) : null;
+    }
+
+    /**
+     * columnar 모드 : chunk 가 찰 때까지 line 을 읽어서 key(id)/num 컬럼에 바로 채움 (NumberVO / key String 생성 없음)
+     * 읽은 line 수를 반환, 0 이면 끝. offset 저장/재시작은 read() 와 동일
+     */
+    public int read(NumberChunk chunk) throws Exception {
+        int count = 0;
+        while (!chunk.isFull() && nextLine()) {
+            int delimiter = findDelimiter(lineFrom, lineTo);
+            chunk.add(chunk.dictionary().id(window, lineFrom, delimiter), parseInt(delimiter + 1, lineTo, lineFrom));
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (saveState && gzipInput != null) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), blockOffset);
+            executionContext.putLong(getExecutionContextKey(BLOCK_SKIP_KEY), blockBase + blockPos);
+            executionContext.putLong(getExecutionContextKey(LINE_KEY), lineCount);
+        } else if (saveState) {
+            executionContext.putLong(getExecutionContextKey(OFFSET_KEY), position);
+            executionContext.putLong(getExecutionContextKey(LINE_KEY), lineCount);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        window = null;
+        blockBuffer = null;
+        if (channel != null) {
+            try {
+                if (gzipInput != null) {
+                    gzipInput.close();
+                }
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close resource: " + resource, e);
+            } finally {
+                channel = null;
+                gzipInput = null;
+            }
+        }
+    }
+
+    /**
+     * lineStart 부터 '\n' 위치를 window 기준 index 로 반환.
+     * 개행 없이 읽기 범위가 끝나면 windowLength 를 반환한다.
+     */
+    private int findLineEnd(long lineStart) throws IOException {
+        int mapSize = windowSize;
+        ensureWindow(lineStart, mapSize);
+        while (true) {
+            for (int i = (int) (lineStart - windowStart); i < windowLength; i++) {
+                if (window.get(i) == '\n') {
+                    return i;
+                }
+            }
+            if (windowStart + windowLength >= limit) {
+                return windowLength;
+            }
+            /* line 이 window 경계에 걸침 -> line 시작점부터 다시 mapping (line 이 window 보다 길면 확장) */
+            if (lineStart == windowStart) {
+                mapSize = mapSize >= Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : mapSize * 2;
+            }
+            remap(lineStart, mapSize);
+        }
+    }
+
+    private void ensureWindow(long offset, int mapSize) throws IOException {
+        if (window == null || offset < windowStart || offset >= windowStart + windowLength) {
+            remap(offset, mapSize);
+        }
+    }
+
+    private void remap(long offset, int mapSize) throws IOException {
+        windowStart = offset;
+        windowLength = (int) Math.min(mapSize, limit - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+    }
+
+    /**
+     * 다음 빈 줄이 아닌 line 의 window 기준 [lineFrom, lineTo) 를 잡고 position 을 다음 line 으로 옮김. 없으면 false
+     */
+    private boolean nextLine() throws IOException {
+        if (gzipInput != null) {
+            return nextCompressedLine();
+        }
+        while (position < limit) {
+            long lineStart = position;
+            int lineEnd = findLineEnd(lineStart);
+            int from = (int) (lineStart - windowStart);
+
+            /* 다음 line 시작 위치 : '\n' 다음 byte, 마지막 line 은 파일 끝 */
+            position = windowStart + lineEnd + (lineEnd < windowLength ? 1 : 0);
+            lineCount++;
+
+            int to = lineEnd;
+            if (to > from && window.get(to - 1) == '\r') {
+                to--;
+            }
+            if (to == from) {
+                continue; // 빈 줄은 건너뜀
+            }
+            lineFrom = from;
+            lineTo = to;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * nextLine() 의 gzip 버전. line 이 block 안에 있으면 block 을 그대로 window 로, block 경계에 걸치면 carry 에 이어붙여서 window 로 사용
+     */
+    private boolean nextCompressedLine() throws IOException {
+        while (true) {
+            if (blockPos >= blockLength) {
+                if (!nextBlock()) {
+                    return false;
+                }
+                continue;
+            }
+
+            int from;
+            int to;
+            int end = indexOfNewLine(blockBuffer, blockPos, blockLength);
+            if (end >= 0) {
+                window = blockBuffer;
+                from = blockPos;
+                to = end;
+                blockPos = end + 1;
+            } else {
+                carryLength = 0;
+                appendCarry(blockBuffer, blockPos, blockLength);
+                blockPos = blockLength;
+                while (nextBlock()) {
+                    end = indexOfNewLine(blockBuffer, 0, blockLength);
+                    if (end < 0) {
+                        appendCarry(blockBuffer, 0, blockLength);
+                        blockPos = blockLength;
+                        continue;
+                    }
+                    appendCarry(blockBuffer, 0, end);
+                    blockPos = end + 1;
+                    break;
+                }
+                window = ByteBuffer.wrap(carry, 0, carryLength);
+                from = 0;
+                to = carryLength;
+            }
+            lineCount++;
+
+            if (to > from && window.get(to - 1) == '\r') {
+                to--;
+            }
+            if (to == from) {
+                continue; // 빈 줄은 건너뜀
+            }
+            lineFrom = from;
+            lineTo = to;
+            return true;
+        }
+    }
+
+    /* 다음 block 으로 이동, 끝이면 false (위치는 마지막 block 의 끝으로 유지) */
+    private boolean nextBlock() throws IOException {
+        GzipBlockInput.Block block = gzipInput.next();
+        if (block == null) {
+            blockPos = blockLength;
+            return false;
+        }
+        blockBuffer = ByteBuffer.wrap(block.data(), 0, block.length());
+        blockOffset = block.offset();
+        blockBase = block.base();
+        blockLength = block.length();
+        blockPos = 0;
+        return true;
+    }
+
+    private static int indexOfNewLine(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendCarry(ByteBuffer buffer, int from, int to) {
+        int length = to - from;
+        if (carry.length < carryLength + length) {
+            carry = Arrays.copyOf(carry, Math.max(carryLength + length, carry.length * 2));
+        }
+        for (int i = 0; i < length; i++) {
+            carry[carryLength + i] = buffer.get(from + i);
+        }
+        carryLength += length;
+    }
+
+    private int findDelimiter(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (window.get(i) == delimiter) {
+                return i;
+            }
+        }
+        throw new FlatFileParseException("Delimiter '" + (char) delimiter + "' not found", lineAsString(from, to), (int) lineCount);
+    }
+
+    private NumberVO parse(int from, int to) {
+        int delimiter = findDelimiter(from, to);
+
+        NumberVO numberVO = new NumberVO();
+        numberVO.setKey(decodeKey(from, delimiter));
+        numberVO.setNum(parseInt(delimiter + 1, to, from));
+        return numberVO;
+    }
+
+    private String decodeKey(int from, int to) {
+        if (keyCache != null) {
+            return keyCache.intern(window, from, to, charset);
+        }
+        int length = to - from;
+        if (keyBuffer.length < length) {
+            keyBuffer = new byte[Math.max(length, keyBuffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            keyBuffer[i] = window.get(from + i);
+        }
+        return new String(keyBuffer, 0, length, charset);
+    }
+
+    private int parseInt(int from, int to, int lineFrom) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+        if (i == to) {
+            throw new FlatFileParseException("Field 'num' is empty", lineAsString(lineFrom, to), (int) lineCount);
+        }
+
+        /* 음수 누적으로 Integer.MIN_VALUE 까지 표현 (Integer.parseInt 와 동일한 방식) */
+        int limitValue = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multiLimit = limitValue / 10;
+        int result = 0;
+        for (; i < to; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiLimit) {
+                throw new FlatFileParseException("Field 'num' is not an int", lineAsString(lineFrom, to), (int) lineCount);
+            }
+            result *= 10;
+            if (result < limitValue + digit) {
+                throw new FlatFileParseException("Field 'num' is not an int", lineAsString(lineFrom, to), (int) lineCount);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /* 오류 메시지 용도로만 line String 생성 */
+    private String lineAsString(int from, int to) {
+        byte[] line = new byte[to - from];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = window.get(from + i);
+        }
+        return new String(line, charset);
+    }
+}
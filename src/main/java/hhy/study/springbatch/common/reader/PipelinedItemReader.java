@@ -0,0 +1,279 @@
+package hhy.study.springbatch.common.reader;
+
+import hhy.study.springbatch.common.metrics.BatchMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : read -> process -> write 를 단계별 쓰레드로 겹쳐서 실행하는 pipeline Reader
+ * @Comment         : read 쓰레드가 chunk N+1 을 읽는 동안 process 쓰레드가 chunk N 을 처리하고,
+ *                    step 쓰레드는 이 Reader 에서 처리가 끝난 chunk N-1 을 받아서 write/commit 한다.
+ *                    단계 사이는 크기 제한(depth) 이 있는 queue 라서 앞 단계가 너무 앞서나가면 put 에서 대기 (backpressure).
+ *                    batch 마다 delegate 상태를 snapshot 해두고, ExecutionContext 에는 commit 까지 끝난 batch 의 snapshot 만 저장
+ *                    -> 재시작 보장은 기존 chunk 와 동일. completionPolicy() 를 step 에 등록해야 chunk = batch 로 맞춰짐
+ *                    processor 가 filter 한 item 수는 batch 를 꺼낼 때 step 쓰레드에서 StepExecution 의 filterCount 에 더함
+ * @Disadvantages   : processor 가 step 트랜잭션 밖(process 쓰레드)에서 실행되므로 DB 갱신 같은 트랜잭션 작업은 넣지 말 것
+ *                    step 입장에서는 processor 가 없는 chunk 라서 ItemProcessListener(beforeProcess/afterProcess/onProcessError) 는 호출되지 않음
+ *                    filterCount 는 commit 전에 더해지므로 rollback 된 chunk 의 filter 수도 남음
+ */
+public class PipelinedItemReader<I, O> implements ItemStreamReader<O> {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final ItemStreamReader<I> delegate;
+    private final ItemProcessor<? super I, ? extends O> processor;
+    private final int batchSize;
+    private final int depth;
+
+    private BlockingQueue<Batch<I>> readQueue;
+    private BlockingQueue<Batch<O>> processedQueue;
+    private Thread readThread;
+    private Thread processThread;
+    private StepExecution stepExecution;
+    private DistributionSummary queueDepth;
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+
+    /* 아래는 step 쓰레드에서만 사용 */
+    private Batch<O> current;
+    private ExecutionContext consumedSnapshot;
+    private boolean finished;
+
+    public PipelinedItemReader(ItemStreamReader<I> delegate, ItemProcessor<? super I, ? extends O> processor, int batchSize, int depth) {
+        Assert.notNull(delegate, "delegate must be set");
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero");
+        Assert.isTrue(depth > 0, "depth must be greater than zero");
+        this.delegate = delegate;
+        this.processor = processor;
+        this.batchSize = batchSize;
+        this.depth = depth;
+    }
+
+    /**
+     * 현재 batch 를 다 읽으면 chunk 를 완료시키는 정책. step 의 chunk(CompletionPolicy) 에 등록할 것
+     */
+    public CompletionPolicy completionPolicy() {
+        return new CompletionPolicySupport() {
+            @Override
+            public boolean isComplete(RepeatContext context, RepeatStatus result) {
+                return result == null || !result.isContinuable() || (current != null && current.isExhausted());
+            }
+
+            @Override
+            public boolean isComplete(RepeatContext context) {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+
+        readQueue = new ArrayBlockingQueue<>(depth);
+        processedQueue = new ArrayBlockingQueue<>(depth);
+        current = null;
+        consumedSnapshot = null;
+        finished = false;
+        stopped = false;
+        failure = null;
+
+        /* step scope bean(reader/processor proxy) 을 다른 쓰레드에서도 쓸 수 있도록 StepExecution 을 넘겨줌 */
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        stepExecution = stepContext == null ? null : stepContext.getStepExecution();
+        queueDepth = stepExecution == null ? null : BatchMetrics.queueDepth(stepExecution);
+
+        readThread = new Thread(() -> runInStep(stepExecution, this::readLoop), "pipeline-read");
+        processThread = new Thread(() -> runInStep(stepExecution, this::processLoop), "pipeline-process");
+        readThread.setDaemon(true);
+        processThread.setDaemon(true);
+        readThread.start();
+        processThread.start();
+    }
+
+    @Override
+    public O read() throws Exception {
+        while (current == null || current.isExhausted()) {
+            if (finished) {
+                return null;
+            }
+            if (current != null) {
+                consumedSnapshot = current.snapshot;
+            }
+            if (queueDepth != null) {
+                /* 다음 batch 를 꺼내기 전 단계 사이에 쌓여있는 batch 수 (depth 에 붙어있으면 write 가 병목) */
+                queueDepth.record(readQueue.size() + processedQueue.size());
+            }
+
+            Batch<O> next;
+            while ((next = processedQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (failure != null) {
+                    finished = true;
+                    throw failure instanceof Exception ? (Exception) failure : new IllegalStateException(failure);
+                }
+            }
+            if (next.isEnd()) {
+                finished = true;
+                return null;
+            }
+            if (stepExecution != null && next.filtered > 0) {
+                stepExecution.setFilterCount(stepExecution.getFilterCount() + next.filtered);
+            }
+            current = next;
+        }
+        return current.next();
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        ExecutionContext snapshot = current != null && current.isExhausted() ? current.snapshot : consumedSnapshot;
+        if (snapshot != null) {
+            for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                executionContext.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        stopped = true;
+        try {
+            stop(readThread);
+            stop(processThread);
+        } finally {
+            readThread = null;
+            processThread = null;
+            delegate.close();
+        }
+    }
+
+    private void readLoop() throws Exception {
+        while (!stopped) {
+            List<I> items = new ArrayList<>(batchSize);
+            I item = null;
+            for (int i = 0; i < batchSize; i++) {
+                item = delegate.read();
+                if (item == null) {
+                    break;
+                }
+                items.add(item);
+            }
+
+            ExecutionContext snapshot = new ExecutionContext();
+            delegate.update(snapshot);
+            if (!items.isEmpty()) {
+                readQueue.put(new Batch<>(items, snapshot, 0));
+            }
+            if (item == null) {
+                readQueue.put(Batch.<I>end());
+                return;
+            }
+        }
+    }
+
+    private void processLoop() throws Exception {
+        while (!stopped) {
+            Batch<I> batch = readQueue.take();
+            if (batch.isEnd()) {
+                processedQueue.put(Batch.<O>end());
+                return;
+            }
+
+            List<O> outputs = new ArrayList<>(batch.items.size());
+            for (I item : batch.items) {
+                O output = processor == null ? cast(item) : processor.process(item);
+                if (output != null) {
+                    outputs.add(output); // null 은 filter 된 item
+                }
+            }
+            processedQueue.put(new Batch<>(outputs, batch.snapshot, batch.items.size() - outputs.size()));
+        }
+    }
+
+    private void runInStep(StepExecution stepExecution, PipelineStage stage) {
+        if (stepExecution != null) {
+            StepSynchronizationManager.register(stepExecution);
+        }
+        try {
+            stage.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            /* 오류는 step 쓰레드의 read() 에서 던짐 */
+            failure = e;
+        } finally {
+            if (stepExecution != null) {
+                /* release() 는 step scope bean 을 destroy 시키므로 close() 로 등록만 해제 */
+                StepSynchronizationManager.close();
+            }
+        }
+    }
+
+    private void stop(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private O cast(I item) {
+        return (O) item;
+    }
+
+    private interface PipelineStage {
+        void run() throws Exception;
+    }
+
+    private static class Batch<T> {
+        private final List<T> items;
+        private final ExecutionContext snapshot;
+        private final int filtered;
+        private int index;
+
+        Batch(List<T> items, ExecutionContext snapshot, int filtered) {
+            this.items = items;
+            this.snapshot = snapshot;
+            this.filtered = filtered;
+        }
+
+        static <T> Batch<T> end() {
+            return new Batch<>(null, null, 0);
+        }
+
+        boolean isEnd() {
+            return items == null;
+        }
+
+        T next() {
+            return items.get(index++);
+        }
+
+        boolean isExhausted() {
+            return items == null || index >= items.size();
+        }
+    }
+}
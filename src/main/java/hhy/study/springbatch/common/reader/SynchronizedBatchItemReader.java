@@ -0,0 +1,220 @@
+package hhy.study.springbatch.common.reader;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * @Purpose         : multi-thread step 용 Reader wrapper (batch 단위 handoff + 재시작 offset 보정)
+ * @Comment         : 2020.04 Reader 쓰레드 꼬임 이슈 정리본.
+ *                    - delegate 는 lock 안에서만 읽고, chunk 크기 만큼의 batch 를 한번에 쓰레드에 넘겨준다. (item 마다 lock 경합 X)
+ *                    - batch 를 넘길 때 delegate.update() 로 그 시점의 상태(offset)를 snapshot 해둔다.
+ *                    - chunk 들이 순서 없이 commit 되므로, ExecutionContext 에는 "앞 batch 가 모두 commit 된" 위치의 snapshot 만 저장.
+ *                      -> 재시작시 commit 안된 item 은 다시 읽고, commit 된 item 은 건너뜀
+ *                    - OrderedItemWriter 가 awaitTurn() 으로 batch 순서대로 write 하도록 순번을 제공
+ *                    ChunkListener 로 step 에 같이 등록해야 commit/rollback 을 알 수 있음
+ * @Disadvantages   : batchSize 와 commit interval 이 같아야 chunk 1개 = batch 1개로 정확히 맞음.
+ *                    skip/retry (faultTolerant) 는 지원하지 않음
+ */
+public class SynchronizedBatchItemReader<T> implements ItemStreamReader<T>, ChunkListener {
+
+    private final ItemStreamReader<T> delegate;
+    private final int batchSize;
+
+    /* 아래 상태는 모두 this 로 동기화 */
+    private long nextSequence;
+    private long committedSequence = -1;
+    private final Set<Long> committedOutOfOrder = new HashSet<>();
+    private final Map<Long, ExecutionContext> snapshots = new TreeMap<>();
+    private boolean exhausted;
+    private boolean failed;
+
+    /* 쓰레드별 현재 chunk 에서 읽고 있는 batch 들 */
+    private final ThreadLocal<List<Batch<T>>> pendingBatches = new ThreadLocal<List<Batch<T>>>() {
+        @Override
+        protected List<Batch<T>> initialValue() {
+            return new ArrayList<>();
+        }
+    };
+
+    public SynchronizedBatchItemReader(ItemStreamReader<T> delegate, int batchSize) {
+        Assert.notNull(delegate, "delegate must be set");
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than zero");
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public T read() throws Exception {
+        List<Batch<T>> pending = pendingBatches.get();
+        Batch<T> batch = pending.isEmpty() ? null : pending.get(pending.size() - 1);
+        if (batch == null || batch.isExhausted()) {
+            batch = nextBatch();
+            if (batch == null) {
+                return null;
+            }
+            pending.add(batch);
+        }
+        return batch.next();
+    }
+
+    private synchronized Batch<T> nextBatch() throws Exception {
+        if (failed) {
+            throw new IllegalStateException("Another chunk failed, stop handing out batches");
+        }
+        if (exhausted) {
+            return null;
+        }
+
+        List<T> items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            T item = delegate.read();
+            if (item == null) {
+                exhausted = true;
+                break;
+            }
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            return null;
+        }
+
+        /* 이 batch 까지 읽은 시점의 delegate 상태 */
+        ExecutionContext snapshot = new ExecutionContext();
+        delegate.update(snapshot);
+
+        long sequence = nextSequence++;
+        snapshots.put(sequence, snapshot);
+        return new Batch<>(sequence, items);
+    }
+
+    /**
+     * OrderedItemWriter 에서 호출. 현재 쓰레드 chunk 의 앞 batch 들이 모두 commit 될 때까지 대기한다.
+     */
+    public synchronized void awaitTurn() throws InterruptedException {
+        List<Batch<T>> pending = pendingBatches.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        long first = pending.get(0).sequence;
+        while (committedSequence < first - 1) {
+            if (failed) {
+                throw new IllegalStateException("Another chunk failed while waiting to write batch " + first);
+            }
+            wait();
+        }
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        synchronized (this) {
+            nextSequence = 0;
+            committedSequence = -1;
+            committedOutOfOrder.clear();
+            snapshots.clear();
+            exhausted = false;
+            failed = false;
+        }
+    }
+
+    /**
+     * chunk commit 직전에 해당 chunk 의 쓰레드에서 호출됨 (TaskletStep 이 update 를 직렬화).
+     * 이미 commit 된 batch + 지금 commit 하려는 현재 쓰레드의 batch 까지 연속된 위치의 snapshot 을 저장한다.
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        Set<Long> own = exhaustedSequences(pendingBatches.get());
+        synchronized (this) {
+            long watermark = committedSequence;
+            while (committedOutOfOrder.contains(watermark + 1) || own.contains(watermark + 1)) {
+                watermark++;
+            }
+            ExecutionContext snapshot = snapshots.get(watermark);
+            if (snapshot != null) {
+                for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+                    executionContext.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        pendingBatches.remove();
+        delegate.close();
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+    }
+
+    /* commit 완료 후 호출 - 다 읽은 batch 를 commit 처리하고 대기중인 writer 를 깨움 */
+    @Override
+    public void afterChunk(ChunkContext context) {
+        List<Batch<T>> pending = pendingBatches.get();
+        Set<Long> own = exhaustedSequences(pending);
+        pending.removeIf(Batch::isExhausted);
+        if (own.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            committedOutOfOrder.addAll(own);
+            while (committedOutOfOrder.remove(committedSequence + 1)) {
+                committedSequence++;
+            }
+            /* 가장 최근 watermark snapshot 만 남기고 정리 */
+            snapshots.keySet().removeIf(sequence -> sequence < committedSequence);
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        pendingBatches.remove();
+        synchronized (this) {
+            failed = true;
+            notifyAll();
+        }
+    }
+
+    private Set<Long> exhaustedSequences(List<Batch<T>> pending) {
+        Set<Long> sequences = new HashSet<>();
+        for (Batch<T> batch : pending) {
+            if (batch.isExhausted()) {
+                sequences.add(batch.sequence);
+            }
+        }
+        return sequences;
+    }
+
+    private static class Batch<T> {
+        private final long sequence;
+        private final List<T> items;
+        private int index;
+
+        Batch(long sequence, List<T> items) {
+            this.sequence = sequence;
+            this.items = items;
+        }
+
+        T next() {
+            return items.get(index++);
+        }
+
+        boolean isExhausted() {
+            return index >= items.size();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package hhy.study.springbatch.common.repository;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Purpose         : chunk 마다 발생하는 step metadata 갱신을 N chunk / T ms 단위로 묶어서 쓰는 JobRepository
+ * @Comment         : TaskletStep 은 chunk commit 마다 updateExecutionContext + update(StepExecution) 를 호출한다 (BATCH_STEP_EXECUTION update 2번)
+ *                    STARTED 상태인 동안은 최신 StepExecution 만 기억해두고 flushChunks 번째 chunk 또는 flushMillis 가 지난 chunk 에서
+ *                    그 chunk 의 트랜잭션 안에서 한번에 씀 -> DB 에는 항상 어떤 chunk 시점의 reader/writer 상태가 같이 저장됨
+ *                    처음 update, 종료(COMPLETED/FAILED/STOPPED..) update 와 job 단위 호출은 그대로 위임
+ *                    같은 job instance 를 여러 프로세스가 동시에 생성하다 unique key 충돌이 나면 한번 다시 시도
+ *                    (두번째는 이미 있는 instance 를 보고 JobExecutionAlreadyRunningException 등으로 정상 판정됨)
+ *                    step ExecutionContext 에 FLUSH_EVERY_CHUNK_KEY 가 있으면 그 step 은 chunk 마다 씀 (다시 쓰면 중복되는 writer 용)
+ * @Disadvantages   : 프로세스가 죽으면 마지막 flush 이후 chunk 는 재시작시 다시 처리 (최대 flushChunks 개)
+ *                    -> writer 가 재시작 위치로 truncate 하는 파일 writer 는 문제 없음
+ *                    -> DB insert 처럼 chunk 마다 commit 되고 되돌릴 수 없는 writer 는 그만큼 중복 insert 되므로 FLUSH_EVERY_CHUNK_KEY 를 넣어야 함 (JdbcNumberItemWriter)
+ *                    stop 요청(STOPPING) 확인도 flush 할 때만 일어남
+ */
+public class BufferedJobRepository implements JobRepository {
+
+    public static final String FLUSH_EVERY_CHUNK_KEY = "bufferedJobRepository.flushEveryChunk";
+
+    private final JobRepository delegate;
+    private final int flushChunks;
+    private final long flushMillis;
+
+    /* StepExecution id -> 마지막 flush 이후 상태 */
+    private final Map<Long, Pending> pendings = new ConcurrentHashMap<>();
+
+    public BufferedJobRepository(JobRepository delegate, int flushChunks, long flushMillis) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.isTrue(flushChunks > 0, "flushChunks must be greater than zero");
+        this.delegate = delegate;
+        this.flushChunks = flushChunks;
+        this.flushMillis = flushMillis;
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        if (!isBuffered(stepExecution)) {
+            Pending pending = pendings.remove(stepExecution.getId());
+            if (pending != null && pending.context) {
+                delegate.updateExecutionContext(stepExecution);
+            }
+            delegate.update(stepExecution);
+            return;
+        }
+
+        Pending pending = pendings.get(stepExecution.getId());
+        if (pending == null) {
+            /* step 시작 : 바로 씀 */
+            pendings.put(stepExecution.getId(), new Pending());
+            delegate.update(stepExecution);
+            return;
+        }
+
+        synchronized (pending) {
+            pending.chunks++;
+            if (pending.chunks < flushChunks && System.currentTimeMillis() - pending.lastFlush < flushMillis
+                    && !stepExecution.getExecutionContext().containsKey(FLUSH_EVERY_CHUNK_KEY)) {
+                return;
+            }
+            if (pending.context) {
+                delegate.updateExecutionContext(stepExecution);
+            }
+            delegate.update(stepExecution);
+            pending.reset();
+        }
+    }
+
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        Pending pending = stepExecution.getId() == null ? null : pendings.get(stepExecution.getId());
+        if (pending == null) {
+            delegate.updateExecutionContext(stepExecution);
+            return;
+        }
+        synchronized (pending) {
+            if (isBuffered(stepExecution)) {
+                pending.context = true;
+            } else {
+                delegate.updateExecutionContext(stepExecution);
+                pending.context = false;
+            }
+        }
+    }
+
+    private boolean isBuffered(StepExecution stepExecution) {
+        return stepExecution.getId() != null
+                && stepExecution.getStatus() == BatchStatus.STARTED
+                && !stepExecution.isTerminateOnly();
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        try {
+            return delegate.createJobExecution(jobName, jobParameters);
+        } catch (DuplicateKeyException e) {
+            /* 다른 프로세스가 같은 instance 를 먼저 만듦 (READ_COMMITTED) */
+            return delegate.createJobExecution(jobName, jobParameters);
+        }
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(JobInstance jobInstance, JobParameters jobParameters, String jobConfigurationLocation) {
+        return delegate.createJobExecution(jobInstance, jobParameters, jobConfigurationLocation);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public int getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    private static class Pending {
+        private int chunks;
+        private long lastFlush = System.currentTimeMillis();
+        private boolean context;
+
+        private void reset() {
+            chunks = 0;
+            lastFlush = System.currentTimeMillis();
+            context = false;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package hhy.study.springbatch.common.repository;
+
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+import org.springframework.util.Assert;
+import org.springframework.util.SerializationUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Purpose         : ExecutionContext 를 짧은 text 로 저장하는 serializer (Jackson2ExecutionContextStringSerializer 대체)
+ * @Comment         : 기본 serializer 는 값마다 "@class"/["java.lang.Long",123] 형태의 type 정보를 붙여서 길고 느리다.
+ *                    한 줄에 entry 1개 -> <type 1글자><key>\t<value>\n  (S String, I Integer, L Long, D Double, Z Boolean, T Date)
+ *                    그 외 Serializable 은 J + Java 직렬화 Base64. key/value 안의 \ \t \n \r 는 escape
+ *                    SHORT_CONTEXT(2500자) 안에 들어가는 경우가 많아져서 CLOB 을 거의 쓰지 않음
+ *                    header 가 없는 값(기존 JSON)은 Jackson serializer 로 읽음
+ */
+public class CompactExecutionContextSerializer implements ExecutionContextSerializer {
+
+    private static final String HEADER = "#c1\n";
+
+    private final Jackson2ExecutionContextStringSerializer legacySerializer = new Jackson2ExecutionContextStringSerializer();
+
+    @Override
+    public void serialize(Map<String, Object> context, OutputStream out) throws IOException {
+        Assert.notNull(context, "A context is required");
+        Assert.notNull(out, "An OutputStream is required");
+
+        StringBuilder builder = new StringBuilder(HEADER);
+        for (Map.Entry<String, Object> entry : context.entrySet()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            builder.append(typeOf(value));
+            escape(entry.getKey(), builder);
+            builder.append('\t');
+            escape(format(value), builder);
+            builder.append('\n');
+        }
+        out.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Map<String, Object> deserialize(InputStream in) throws IOException {
+        byte[] bytes = StreamUtils.copyToByteArray(in);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (!text.startsWith(HEADER)) {
+            return legacySerializer.deserialize(new ByteArrayInputStream(bytes));
+        }
+
+        Map<String, Object> context = new HashMap<>();
+        int start = HEADER.length();
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int tab = text.indexOf('\t', start);
+            if (tab < 0 || tab > end) {
+                throw new IOException("Malformed execution context entry: " + text.substring(start, end));
+            }
+            char type = text.charAt(start);
+            String key = unescape(text, start + 1, tab);
+            context.put(key, parse(type, unescape(text, tab + 1, end)));
+            start = end + 1;
+        }
+        return context;
+    }
+
+    private char typeOf(Object value) {
+        if (value instanceof String) {
+            return 'S';
+        }
+        if (value instanceof Integer) {
+            return 'I';
+        }
+        if (value instanceof Long) {
+            return 'L';
+        }
+        if (value instanceof Double) {
+            return 'D';
+        }
+        if (value instanceof Boolean) {
+            return 'Z';
+        }
+        if (value instanceof Date) {
+            return 'T';
+        }
+        if (value instanceof Serializable) {
+            return 'J';
+        }
+        throw new IllegalArgumentException("ExecutionContext value is not serializable: " + value.getClass().getName());
+    }
+
+    private String format(Object value) {
+        if (value instanceof Date) {
+            return Long.toString(((Date) value).getTime());
+        }
+        if (typeOf(value) == 'J') {
+            return Base64.getEncoder().encodeToString(SerializationUtils.serialize(value));
+        }
+        return value.toString();
+    }
+
+    private Object parse(char type, String value) throws IOException {
+        switch (type) {
+            case 'S':
+                return value;
+            case 'I':
+                return Integer.valueOf(value);
+            case 'L':
+                return Long.valueOf(value);
+            case 'D':
+                return Double.valueOf(value);
+            case 'Z':
+                return Boolean.valueOf(value);
+            case 'T':
+                return new Date(Long.parseLong(value));
+            case 'J':
+                return SerializationUtils.deserialize(Base64.getDecoder().decode(value));
+            default:
+                throw new IOException("Unknown execution context type: " + type);
+        }
+    }
+
+    private void escape(String value, StringBuilder builder) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
+    private String unescape(String text, int start, int end) {
+        if (text.indexOf('\\', start) < 0 || text.indexOf('\\', start) >= end) {
+            return text.substring(start, end);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < end) {
+                char next = text.charAt(++i);
+                builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
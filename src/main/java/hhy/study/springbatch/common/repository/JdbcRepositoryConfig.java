@@ -0,0 +1,108 @@
+package hhy.study.springbatch.common.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.configuration.annotation.DefaultBatchConfigurer;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.JobExplorerFactoryBean;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * @Purpose         : JobRepository 를 H2(file/mem) DB 에 저장하는 모드 (기본 Map 저장소 대체)
+ * @Comment         : springbatch.repository.type=jdbc 일때만 동작, 없으면 기존처럼 Map 저장소 (프로세스 종료시 재시작 정보 사라짐)
+ *                    - url 기본값은 data/batch/repository 의 H2 file DB, AUTO_SERVER 로 여러 프로세스가 같은 저장소 사용 가능
+ *                    - schema(BATCH_*) 가 없으면 spring-batch 의 schema-h2.sql 로 생성
+ *                    - job instance 생성 isolation : SERIALIZABLE(기본) -> READ_COMMITTED (동시 실행시 lock 대기 감소)
+ *                    - ExecutionContext : CompactExecutionContextSerializer
+ *                    - step metadata 갱신 : BufferedJobRepository 로 flushChunks / flushMillis 단위로 묶음
+ *                    step 트랜잭션도 같은 DataSource 의 DataSourceTransactionManager 를 사용하므로 chunk commit 과 metadata 가 같이 commit 됨
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springbatch.repository", name = "type", havingValue = "jdbc")
+public class JdbcRepositoryConfig {
+
+    private static final String DEFAULT_URL = "jdbc:h2:file:./data/batch/repository;AUTO_SERVER=TRUE";
+    private static final String SCHEMA = "org/springframework/batch/core/schema-h2.sql";
+    private static final String ISOLATION_FOR_CREATE = "ISOLATION_READ_COMMITTED";
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource batchDataSource(@Value("${springbatch.repository.url:" + DEFAULT_URL + "}") String url,
+                                            @Value("${springbatch.repository.username:sa}") String username,
+                                            @Value("${springbatch.repository.password:}") String password) throws SQLException {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("batch-repository");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+
+        initializeSchema(dataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public BatchConfigurer batchConfigurer(DataSource batchDataSource,
+                                           @Value("${springbatch.repository.flush-chunks:10}") int flushChunks,
+                                           @Value("${springbatch.repository.flush-millis:1000}") long flushMillis) {
+        return new JdbcBatchConfigurer(batchDataSource, flushChunks, flushMillis);
+    }
+
+    private void initializeSchema(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet tables = connection.getMetaData().getTables(null, null, "BATCH_JOB_INSTANCE", null)) {
+            if (tables.next()) {
+                return;
+            }
+        }
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)), dataSource);
+    }
+
+    static class JdbcBatchConfigurer extends DefaultBatchConfigurer {
+
+        private final DataSource dataSource;
+        private final int flushChunks;
+        private final long flushMillis;
+        private final ExecutionContextSerializer serializer = new CompactExecutionContextSerializer();
+
+        JdbcBatchConfigurer(DataSource dataSource, int flushChunks, long flushMillis) {
+            super(dataSource);
+            this.dataSource = dataSource;
+            this.flushChunks = flushChunks;
+            this.flushMillis = flushMillis;
+        }
+
+        @Override
+        protected JobRepository createJobRepository() throws Exception {
+            JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setTransactionManager(getTransactionManager());
+            factory.setIsolationLevelForCreate(ISOLATION_FOR_CREATE);
+            factory.setSerializer(serializer);
+            factory.afterPropertiesSet();
+
+            return new BufferedJobRepository(factory.getObject(), flushChunks, flushMillis);
+        }
+
+        @Override
+        protected JobExplorer createJobExplorer() throws Exception {
+            JobExplorerFactoryBean factory = new JobExplorerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setSerializer(serializer);
+            factory.afterPropertiesSet();
+            return factory.getObject();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package hhy.study.springbatch.common.schedule;
+
+import org.quartz.CronExpression;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * @Purpose         : Quartz 로 주기 실행할 job 1개의 schedule 정의 (job bean 이름 + cron + job parameter + 동시 실행 제한)
+ * @Comment         : 외부 cron + java -jar 로 매번 JVM/Spring 을 띄우던 실행을 상주 프로세스 안의 Quartz trigger 로 대체
+ *                    cron 이 "-" 이면 등록하지 않음 (springbatch.schedule.{job}.cron=- 로 job 별로 끌 수 있게)
+ *                    maxConcurrent : 같은 job 의 동시 실행 수 (기본 1), 같은 job 을 쓰는 schedule 이 여러개면 가장 작은 값 사용
+ *                    ex) BatchSchedule.builder("simpleJob")
+ *                            .cron("0 0/10 * * * ?")
+ *                            .param("requiredVal", "/input.txt")
+ *                            .maxConcurrent(1)
+ *                            .build();
+ */
+public class BatchSchedule {
+
+    public static final String DISABLED = "-";
+
+    private final String name;
+    private final String jobName;
+    private final String cron;
+    private final TimeZone timeZone;
+    private final Map<String, JobParameter> parameters;
+    private final int maxConcurrent;
+
+    private BatchSchedule(Builder builder) {
+        this.name = builder.name;
+        this.jobName = builder.jobName;
+        this.cron = builder.cron;
+        this.timeZone = builder.timeZone;
+        this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.parameters));
+        this.maxConcurrent = builder.maxConcurrent;
+    }
+
+    /* schedule 이름 = job bean 이름 */
+    public static Builder builder(String jobName) {
+        return new Builder(jobName, jobName);
+    }
+
+    /* 같은 job 을 parameter 만 바꿔서 여러 schedule 로 돌릴 때 */
+    public static Builder builder(String name, String jobName) {
+        return new Builder(name, jobName);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    public Map<String, JobParameter> getParameters() {
+        return parameters;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public boolean isEnabled() {
+        return !DISABLED.equals(cron);
+    }
+
+    @Override
+    public String toString() {
+        return name + "[" + jobName + ", " + cron + "]";
+    }
+
+    public static class Builder {
+        private final String name;
+        private final String jobName;
+        private String cron;
+        private TimeZone timeZone = TimeZone.getDefault();
+        private final Map<String, JobParameter> parameters = new LinkedHashMap<>();
+        private int maxConcurrent = 1;
+
+        private Builder(String name, String jobName) {
+            Assert.hasText(name, "name must not be empty");
+            Assert.hasText(jobName, "jobName must not be empty");
+            this.name = name;
+            this.jobName = jobName;
+        }
+
+        /* Quartz cron 형식 (초 분 시 일 월 요일 [년]) */
+        public Builder cron(String cron) {
+            this.cron = cron;
+            return this;
+        }
+
+        public Builder timeZone(TimeZone timeZone) {
+            Assert.notNull(timeZone, "timeZone must not be null");
+            this.timeZone = timeZone;
+            return this;
+        }
+
+        public Builder param(String key, String value) {
+            parameters.put(key, new JobParameter(value));
+            return this;
+        }
+
+        public Builder param(String key, Long value) {
+            parameters.put(key, new JobParameter(value));
+            return this;
+        }
+
+        public Builder maxConcurrent(int maxConcurrent) {
+            Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be greater than zero");
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        public BatchSchedule build() {
+            Assert.hasText(cron, "cron must be set in schedule " + name);
+            Assert.isTrue(DISABLED.equals(cron) || CronExpression.isValidExpression(cron), "Invalid cron '" + cron + "' in schedule " + name);
+            Assert.isTrue(!parameters.containsKey(BatchScheduleRunner.FIRE_TIME_KEY), BatchScheduleRunner.FIRE_TIME_KEY + " is set by the scheduler in schedule " + name);
+            return new BatchSchedule(this);
+        }
+    }
+}
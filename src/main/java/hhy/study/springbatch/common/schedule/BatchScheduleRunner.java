@@ -0,0 +1,199 @@
+package hhy.study.springbatch.common.schedule;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.CronExpression;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.util.Assert;
+
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @Purpose         : Quartz trigger 가 발생했을 때 BatchSchedule 의 job 을 동시 실행 제한 안에서 실행
+ * @Comment         : 동시 실행 제한 (자리가 없으면 기다리지 않고 이번 fire 는 건너뜀 -> 다음 fire 가 밀린 처리를 같이 함)
+ *                    - 전체 : maxConcurrent 개 (Quartz threadCount 와 같게 설정)
+ *                    - job 별 : 이 프로세스 안은 Semaphore 로 정확히, 다른 node 는 JobExplorer 의 실행중(STARTED) execution 수로 확인
+ *                      staleMillis 동안 job/step 어느 쪽도 갱신되지 않은 STARTED execution 은 죽은 node 가 남긴 것으로 보고 세지 않음
+ *                    job parameter = schedule parameter + executeTime(예정 fire 시각 ms) -> fire 마다 job instance 1개
+ *                    밀린 fire 는 Quartz misfire(FIRE_ONCE_NOW) 로 한번만 실행되고, 몇 번이 합쳐졌는지는 coveredFires() 로 계산해서 log
+ *                    JobLauncher 는 동기(기본 SimpleJobLauncher)여야 job 이 끝날 때까지 자리를 잡고 있음
+ * @Disadvantages   : 다른 node 확인은 조회 후 실행이라 두 node 가 동시에 확인하면 잠깐 제한을 넘을 수 있음 (maxConcurrent 1 은 Quartz 가 막아줌)
+ *                    JobRepository 가 map 이면 다른 node 의 실행은 보이지 않음 (springbatch.repository.type=jdbc 로 같은 저장소를 써야 함)
+ *                    chunk 1개가 staleMillis 보다 오래 걸리는 job 은 실행중이어도 제외됨 -> staleMillis 는 가장 긴 chunk(+ metadata flush 간격) 보다 크게
+ *                    제외된 execution 은 저장소에 STARTED 로 남음 (fire 마다 새 instance 라 schedule 에는 지장 없음, 정리는 FAILED 로 직접 갱신)
+ */
+public class BatchScheduleRunner {
+
+    private static final Logger LOG = LogManager.getLogger(BatchScheduleRunner.class);
+
+    public static final String FIRE_TIME_KEY = "executeTime";
+    /* coveredFires 계산 상한 (오래 멈춰있던 경우 cron 을 끝없이 따라가지 않도록) */
+    private static final int MAX_COUNTED_FIRES = 10_000;
+
+    private final JobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    private final Map<String, Job> jobs;
+    private final Map<String, BatchSchedule> schedules = new LinkedHashMap<>();
+    private final Map<String, Integer> jobLimits = new HashMap<>();
+    private final Map<String, Semaphore> jobPermits = new HashMap<>();
+    private final Semaphore globalPermits;
+    private final int maxConcurrent;
+    private long staleMillis;
+
+    public BatchScheduleRunner(JobLauncher jobLauncher, JobExplorer jobExplorer, Map<String, Job> jobs,
+                               Collection<BatchSchedule> schedules, int maxConcurrent) {
+        Assert.notNull(jobLauncher, "jobLauncher must not be null");
+        Assert.notNull(jobExplorer, "jobExplorer must not be null");
+        Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be greater than zero");
+        this.jobLauncher = jobLauncher;
+        this.jobExplorer = jobExplorer;
+        this.jobs = jobs;
+        this.maxConcurrent = maxConcurrent;
+        this.globalPermits = new Semaphore(maxConcurrent);
+
+        for (BatchSchedule schedule : schedules) {
+            if (!schedule.isEnabled()) {
+                continue;
+            }
+            Assert.isTrue(jobs.containsKey(schedule.getJobName()), "Unknown job '" + schedule.getJobName() + "' in schedule " + schedule.getName());
+            Assert.isTrue(this.schedules.put(schedule.getName(), schedule) == null, "Duplicate schedule " + schedule.getName());
+            jobLimits.merge(schedule.getJobName(), schedule.getMaxConcurrent(), Math::min);
+        }
+        jobLimits.forEach((jobName, limit) -> jobPermits.put(jobName, new Semaphore(limit)));
+    }
+
+    /* 등록할 (enabled) schedule 들 */
+    public Collection<BatchSchedule> getSchedules() {
+        return Collections.unmodifiableCollection(schedules.values());
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /* 이 시간 동안 갱신이 없는 STARTED execution 은 실행중으로 세지 않음 (0 이면 모두 셈) */
+    public void setStaleMillis(long staleMillis) {
+        Assert.isTrue(staleMillis >= 0, "staleMillis must not be negative");
+        this.staleMillis = staleMillis;
+    }
+
+    /**
+     * trigger 1번 실행
+     * @param scheduledFireTime 이번 fire 의 예정 시각 (misfire 로 늦게 실행되면 실제 실행 시각)
+     * @param previousFireTime  직전 fire 시각, 처음이면 null
+     * @return 실행한 JobExecution, 제한에 걸리거나 이미 완료된 instance 면 null
+     */
+    public JobExecution run(String scheduleName, Date scheduledFireTime, Date previousFireTime) throws Exception {
+        BatchSchedule schedule = schedules.get(scheduleName);
+        Assert.notNull(schedule, "Unknown schedule " + scheduleName);
+        Assert.notNull(scheduledFireTime, "scheduledFireTime must not be null");
+
+        Job job = jobs.get(schedule.getJobName());
+        Semaphore permits = jobPermits.get(schedule.getJobName());
+
+        if (!globalPermits.tryAcquire()) {
+            LOG.warn("[{}] skipped at {} : {} schedules already running", scheduleName, scheduledFireTime, maxConcurrent);
+            return null;
+        }
+        try {
+            if (!permits.tryAcquire()) {
+                LOG.warn("[{}] skipped at {} : {} already running in this node", scheduleName, scheduledFireTime, job.getName());
+                return null;
+            }
+            try {
+                int running = countRunning(job.getName());
+                if (running >= jobLimits.get(schedule.getJobName())) {
+                    LOG.warn("[{}] skipped at {} : {} executions of {} already running", scheduleName, scheduledFireTime, running, job.getName());
+                    return null;
+                }
+
+                int covered = coveredFires(schedule.getCron(), schedule.getTimeZone(), previousFireTime, scheduledFireTime);
+                if (covered > 1) {
+                    LOG.info("[{}] {} missed fires since {} merged into one run", scheduleName, covered, previousFireTime);
+                }
+                return jobLauncher.run(job, parameters(schedule, scheduledFireTime));
+            } finally {
+                permits.release();
+            }
+        } catch (JobInstanceAlreadyCompleteException | JobExecutionAlreadyRunningException e) {
+            LOG.warn("[{}] skipped at {} : {}", scheduleName, scheduledFireTime, e.getMessage());
+            return null;
+        } finally {
+            globalPermits.release();
+        }
+    }
+
+    private int countRunning(String jobName) {
+        long now = System.currentTimeMillis();
+        int running = 0;
+        for (JobExecution jobExecution : jobExplorer.findRunningJobExecutions(jobName)) {
+            long lastUpdated = lastUpdated(jobExecution);
+            if (staleMillis > 0 && now - lastUpdated > staleMillis) {
+                LOG.warn("{} execution {} not updated since {} : ignored as stale", jobName, jobExecution.getId(), new Date(lastUpdated));
+                continue;
+            }
+            running++;
+        }
+        return running;
+    }
+
+    /* job 과 step 중 가장 최근 갱신 시각 (step 은 chunk commit 마다 갱신) */
+    private static long lastUpdated(JobExecution jobExecution) {
+        Date jobUpdated = jobExecution.getLastUpdated() != null ? jobExecution.getLastUpdated()
+                : jobExecution.getStartTime() != null ? jobExecution.getStartTime() : jobExecution.getCreateTime();
+        long lastUpdated = jobUpdated == null ? 0 : jobUpdated.getTime();
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (stepExecution.getLastUpdated() != null) {
+                lastUpdated = Math.max(lastUpdated, stepExecution.getLastUpdated().getTime());
+            }
+        }
+        return lastUpdated;
+    }
+
+    private JobParameters parameters(BatchSchedule schedule, Date scheduledFireTime) {
+        Map<String, JobParameter> parameters = new LinkedHashMap<>(schedule.getParameters());
+        parameters.put(FIRE_TIME_KEY, new JobParameter(scheduledFireTime.getTime()));
+        return new JobParameters(parameters);
+    }
+
+    /**
+     * (previousFireTime, scheduledFireTime] 사이의 cron 시각 수 = 이번 실행이 대신하는 fire 수
+     * 제때 실행되면 1, misfire 로 밀렸다가 한번에 실행되면 밀린 횟수
+     */
+    public static int coveredFires(String cron, TimeZone timeZone, Date previousFireTime, Date scheduledFireTime) {
+        if (previousFireTime == null || !scheduledFireTime.after(previousFireTime)) {
+            return 1;
+        }
+        CronExpression expression;
+        try {
+            expression = new CronExpression(cron);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid cron '" + cron + "'", e);
+        }
+        expression.setTimeZone(timeZone);
+
+        int count = 0;
+        Date next = expression.getTimeAfter(previousFireTime);
+        while (next != null && !next.after(scheduledFireTime) && count < MAX_COUNTED_FIRES) {
+            count++;
+            next = expression.getTimeAfter(next);
+        }
+        return Math.max(count, 1);
+    }
+}
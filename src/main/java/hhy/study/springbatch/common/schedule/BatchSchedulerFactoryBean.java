@@ -0,0 +1,106 @@
+package hhy.study.springbatch.common.schedule;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.util.Assert;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @Purpose         : BatchScheduleRunner 의 schedule 들을 Quartz JobDetail / CronTrigger 로 등록하는 SchedulerFactoryBean
+ * @Comment         : JDBC job store 에 이미 있는 trigger 는 cron/timezone 이 같으면 그대로 둠 -> 꺼져있던 동안 밀린 fire 가
+ *                    기동 후 misfire 로 한번만 실행됨 (setTriggers + overwriteExistingJobs 는 trigger 를 새로 만들어서 밀린 fire 가 사라짐)
+ *                    cron 이 바뀌었으면 reschedule, 설정에서 빠진 schedule 은 job store 에서 삭제
+ *                    여러 node 가 동시에 기동해서 먼저 등록된 경우(ObjectAlreadyExistsException)는 그대로 사용
+ *                    trigger misfire 처리 : FIRE_ONCE_NOW (몇 번을 놓쳤든 지금 한번 실행 후 원래 cron 대로)
+ */
+public class BatchSchedulerFactoryBean extends SchedulerFactoryBean {
+
+    private static final Logger LOG = LogManager.getLogger(BatchSchedulerFactoryBean.class);
+
+    public static final String GROUP = "springbatch";
+
+    private final BatchScheduleRunner batchScheduleRunner;
+
+    public BatchSchedulerFactoryBean(BatchScheduleRunner batchScheduleRunner) {
+        Assert.notNull(batchScheduleRunner, "batchScheduleRunner must not be null");
+        this.batchScheduleRunner = batchScheduleRunner;
+    }
+
+    @Override
+    protected void registerJobsAndTriggers() throws SchedulerException {
+        super.registerJobsAndTriggers();
+
+        Scheduler scheduler = getScheduler();
+        Set<TriggerKey> registered = new HashSet<>();
+        for (BatchSchedule schedule : batchScheduleRunner.getSchedules()) {
+            JobDetail jobDetail = jobDetail(schedule);
+            CronTrigger trigger = trigger(schedule, jobDetail);
+            registered.add(trigger.getKey());
+
+            scheduler.addJob(jobDetail, true);
+            Trigger existing = scheduler.getTrigger(trigger.getKey());
+            if (existing == null) {
+                try {
+                    scheduler.scheduleJob(trigger);
+                    LOG.info("[{}] scheduled : {}", schedule.getName(), schedule);
+                } catch (ObjectAlreadyExistsException e) {
+                    LOG.info("[{}] already scheduled by another node", schedule.getName());
+                }
+            } else if (!sameSchedule(existing, trigger)) {
+                scheduler.rescheduleJob(trigger.getKey(), trigger);
+                LOG.info("[{}] rescheduled : {}", schedule.getName(), schedule);
+            }
+        }
+
+        for (TriggerKey key : scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP))) {
+            if (!registered.contains(key)) {
+                scheduler.deleteJob(JobKey.jobKey(key.getName(), GROUP));
+                LOG.info("[{}] removed from schedule", key.getName());
+            }
+        }
+    }
+
+    private JobDetail jobDetail(BatchSchedule schedule) {
+        Class<? extends QuartzBatchJob> jobClass = schedule.getMaxConcurrent() == 1 ? QuartzBatchJob.Serial.class : QuartzBatchJob.class;
+        return JobBuilder.newJob(jobClass)
+                .withIdentity(schedule.getName(), GROUP)
+                .usingJobData(QuartzBatchJob.SCHEDULE_KEY, schedule.getName())
+                .storeDurably()
+                .build();
+    }
+
+    private CronTrigger trigger(BatchSchedule schedule, JobDetail jobDetail) {
+        return TriggerBuilder.newTrigger()
+                .withIdentity(schedule.getName(), GROUP)
+                .forJob(jobDetail)
+                .withSchedule(CronScheduleBuilder.cronSchedule(schedule.getCron())
+                        .inTimeZone(schedule.getTimeZone())
+                        .withMisfireHandlingInstructionFireAndProceed())
+                .build();
+    }
+
+    private boolean sameSchedule(Trigger existing, CronTrigger trigger) {
+        if (!(existing instanceof CronTrigger)) {
+            return false;
+        }
+        CronTrigger cronTrigger = (CronTrigger) existing;
+        return cronTrigger.getCronExpression().equals(trigger.getCronExpression())
+                && cronTrigger.getTimeZone().getID().equals(trigger.getTimeZone().getID())
+                && cronTrigger.getMisfireInstruction() == trigger.getMisfireInstruction();
+    }
+}
@@ -0,0 +1,47 @@
+package hhy.study.springbatch.common.schedule;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.batch.core.JobExecution;
+
+/**
+ * @Purpose         : Quartz Job -> BatchScheduleRunner 연결
+ * @Comment         : trigger 마다 Quartz 가 새로 생성, SpringBeanJobFactory 가 setter 로 값을 넣어줌
+ *                    - batchScheduleRunner : SchedulerFactoryBean 의 scheduler context
+ *                    - schedule : JobDetail 의 JobDataMap (BatchSchedule 이름)
+ *                    maxConcurrent 가 1 인 schedule 은 Serial 로 등록 -> JDBC job store 가 cluster 전체에서 동시 실행을 막고,
+ *                    막힌 동안의 fire 는 misfire 로 처리되어 끝난 뒤 한번만 실행됨
+ */
+public class QuartzBatchJob implements Job {
+
+    public static final String RUNNER_KEY = "batchScheduleRunner";
+    public static final String SCHEDULE_KEY = "schedule";
+
+    private BatchScheduleRunner batchScheduleRunner;
+    private String schedule;
+
+    public void setBatchScheduleRunner(BatchScheduleRunner batchScheduleRunner) {
+        this.batchScheduleRunner = batchScheduleRunner;
+    }
+
+    public void setSchedule(String schedule) {
+        this.schedule = schedule;
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            JobExecution jobExecution = batchScheduleRunner.run(schedule, context.getScheduledFireTime(), context.getPreviousFireTime());
+            context.setResult(jobExecution);
+        } catch (Exception e) {
+            /* 재실행(refire) 하지 않음 : 실패한 job instance 는 다음 fire 가 아니라 같은 executeTime 으로 재시작해야 함 */
+            throw new JobExecutionException(e, false);
+        }
+    }
+
+    @DisallowConcurrentExecution
+    public static class Serial extends QuartzBatchJob {
+    }
+}
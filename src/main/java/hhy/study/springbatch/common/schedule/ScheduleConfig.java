@@ -0,0 +1,121 @@
+package hhy.study.springbatch.common.schedule;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.scheduling.quartz.SpringBeanJobFactory;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * @Purpose         : 상주 프로세스 안에서 BatchSchedule 들을 Quartz 로 실행 (JDBC job store, cluster)
+ * @Comment         : springbatch.schedule.enabled=true 일때만 동작
+ *                    - job store : H2(file/mem) DB 의 QRTZ_* table, 없으면 quartz 의 tables_h2.sql 로 생성
+ *                      같은 DB 를 보는 node 들이 하나의 schedule 을 공유 (fire 마다 한 node 만 실행, 죽은 node 의 trigger 는 다른 node 가 인수)
+ *                    - 동시 실행 : springbatch.schedule.max-concurrent (기본 2) = Quartz thread 수 = BatchScheduleRunner 전체 제한
+ *                    - misfire : 예정 시각보다 misfire-threshold(기본 60s) 이상 늦으면 밀린 fire 를 합쳐서 한번 실행
+ *                    - stale-millis : 이 시간(기본 30분) 동안 갱신 없는 STARTED execution 은 죽은 node 의 것으로 보고 job 별 제한에서 제외
+ *                    Quartz DataSource 는 field 로 들고 있다가 @PreDestroy 에서 close (bean 이 아닌 이유는 LazyDataSource 참고)
+ * @Disadvantages   : 종료시 실행중인 job 이 끝날 때까지 기다림 (waitForJobsToCompleteOnShutdown)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "springbatch.schedule", name = "enabled", havingValue = "true")
+public class ScheduleConfig {
+
+    private static final String DEFAULT_URL = "jdbc:h2:file:./data/batch/schedule;AUTO_SERVER=TRUE";
+    private static final String SCHEMA = "org/quartz/impl/jdbcjobstore/tables_h2.sql";
+    private static final String SCHEDULER_NAME = "springbatch";
+
+    private HikariDataSource scheduleDataSource;
+
+    @Bean
+    public BatchScheduleRunner batchScheduleRunner(JobLauncher jobLauncher,
+                                                   JobExplorer jobExplorer,
+                                                   Map<String, Job> jobs,
+                                                   ObjectProvider<BatchSchedule> schedules,
+                                                   @Value("${springbatch.schedule.max-concurrent:2}") int maxConcurrent,
+                                                   @Value("${springbatch.schedule.stale-millis:1800000}") long staleMillis) {
+        /* @EnableBatchProcessing 의 JobRepository / JobLauncher 는 처음 호출될 때 생성되고 동시 호출에 안전하지 않음
+         * -> Quartz thread 들이 동시에 처음 호출하면 launcher 와 job 이 서로 다른 저장소를 잡으므로 scheduler 시작 전에 여기서 생성 */
+        jobExplorer.getJobNames();
+        BatchScheduleRunner runner = new BatchScheduleRunner(jobLauncher, jobExplorer, jobs, schedules.orderedStream().collect(Collectors.toList()), maxConcurrent);
+        runner.setStaleMillis(staleMillis);
+        return runner;
+    }
+
+    @Bean
+    public SchedulerFactoryBean batchScheduler(BatchScheduleRunner batchScheduleRunner,
+                                               @Value("${springbatch.schedule.url:" + DEFAULT_URL + "}") String url,
+                                               @Value("${springbatch.schedule.username:sa}") String username,
+                                               @Value("${springbatch.schedule.password:}") String password,
+                                               @Value("${springbatch.schedule.misfire-threshold:60000}") long misfireThreshold,
+                                               @Value("${springbatch.schedule.checkin-interval:15000}") long checkinInterval) throws SQLException {
+        scheduleDataSource = new HikariDataSource();
+        scheduleDataSource.setPoolName("batch-schedule");
+        scheduleDataSource.setJdbcUrl(keepOpenOnExit(url));
+        scheduleDataSource.setUsername(username);
+        scheduleDataSource.setPassword(password);
+        initializeSchema(scheduleDataSource);
+
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceId", "AUTO");
+        properties.setProperty("org.quartz.jobStore.isClustered", "true");
+        properties.setProperty("org.quartz.jobStore.clusterCheckinInterval", String.valueOf(checkinInterval));
+        properties.setProperty("org.quartz.jobStore.misfireThreshold", String.valueOf(misfireThreshold));
+        properties.setProperty("org.quartz.threadPool.threadCount", String.valueOf(batchScheduleRunner.getMaxConcurrent()));
+
+        BatchSchedulerFactoryBean factory = new BatchSchedulerFactoryBean(batchScheduleRunner);
+        factory.setSchedulerName(SCHEDULER_NAME);
+        factory.setDataSource(scheduleDataSource);
+        factory.setQuartzProperties(properties);
+        factory.setJobFactory(new SpringBeanJobFactory());
+        factory.setSchedulerContextAsMap(Collections.singletonMap(QuartzBatchJob.RUNNER_KEY, batchScheduleRunner));
+        factory.setWaitForJobsToCompleteOnShutdown(true);
+        return factory;
+    }
+
+    /* batchScheduler(Quartz 종료) 가 먼저 destroy 된 뒤에 호출됨 */
+    @PreDestroy
+    public void close() {
+        if (scheduleDataSource != null) {
+            scheduleDataSource.close();
+        }
+    }
+
+    /* H2 는 JVM 종료 hook 에서 DB 를 바로 닫음 -> Quartz 가 실행중 job 을 기다리는 동안 QRTZ_* 를 못 찾고 재시도하면서 종료되지 않음
+     * DB 는 Quartz 종료 후 close() 에서 닫히게 둠 */
+    static String keepOpenOnExit(String url) {
+        if (url.startsWith("jdbc:h2:") && !url.toUpperCase().contains("DB_CLOSE_ON_EXIT")) {
+            return url + ";DB_CLOSE_ON_EXIT=FALSE";
+        }
+        return url;
+    }
+
+    private void initializeSchema(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             ResultSet tables = connection.getMetaData().getTables(null, null, "QRTZ_JOB_DETAILS", null)) {
+            if (tables.next()) {
+                return;
+            }
+        }
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCHEMA)), dataSource);
+    }
+}
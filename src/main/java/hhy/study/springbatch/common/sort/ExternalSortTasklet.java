@@ -0,0 +1,178 @@
+package hhy.study.springbatch.common.sort;
+
+import hhy.study.springbatch.common.spill.SpillRuns;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Purpose         : NumberVO 를 key 또는 num 순으로 정렬하는 external merge sort Tasklet
+ * @Comment         : 1) run 생성 : tasklet 1회 실행(= transaction 1개)마다 buffer parallelism 개를 runItems 건씩 채움.
+ *                       buffer 가 차면 바로 worker 쓰레드에서 정렬 + 압축 run 쓰기 -> 다음 buffer 채우기와 겹쳐서 실행 (core 수 만큼 병렬)
+ *                       모든 run 이 끝나면 run 수를 StepExecutionContext 에, reader offset 을 stream 으로 같은 commit 에 저장
+ *                       -> 재시작시 완료된 run 은 그대로 두고 다음 run 부터 이어서 생성
+ *                    2) 병합 : run 을 SpillRuns 로 병합해서 writer 로 writeBatch 건씩 출력 (중간 병합은 worker 쓰레드에서 병렬)
+ *                    3) step 이 COMPLETED 면 run 파일 삭제
+ *                    메모리 = parallelism * runItems * (int 2개 + long 1개)
+ *                    reader / writer 가 ItemStream 이면 step 에 stream 으로, tasklet 은 listener 로 등록해야 함 (SortJobConfig 참고)
+ * @Disadvantages   : 병합 단계는 transaction 1개 (중간에 실패하면 병합을 처음부터 다시 함)
+ */
+public class ExternalSortTasklet implements Tasklet, StepExecutionListener {
+
+    public static final String RUN_COUNT_KEY = "ExternalSortTasklet.runs";
+    public static final String READ_DONE_KEY = "ExternalSortTasklet.readDone";
+
+    private final ItemReader<? extends NumberVO> reader;
+    private final ItemWriter<? super NumberVO> writer;
+    private final SpillRuns<NumberVO> spillRuns;
+
+    private SortOrder order = SortOrder.KEY;
+    private int runItems = 1_000_000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int writeBatch = 1000;
+
+    private SortRunBuffer[] buffers;
+    private ExecutorService executor;
+
+    public ExternalSortTasklet(ItemReader<? extends NumberVO> reader, ItemWriter<? super NumberVO> writer, File spillDirectory) {
+        Assert.notNull(reader, "reader must be set");
+        Assert.notNull(writer, "writer must be set");
+        Assert.notNull(spillDirectory, "spillDirectory must be set");
+        this.reader = reader;
+        this.writer = writer;
+        this.spillRuns = new SpillRuns<>(spillDirectory, SortRun::reader, SortRun::writer,
+                (a, b) -> order.compare(a.getKey(), a.getNum(), b.getKey(), b.getNum()));
+    }
+
+    public void setOrder(SortOrder order) {
+        Assert.notNull(order, "order must be set");
+        this.order = order;
+    }
+
+    /* run 1개 = buffer 1개의 item 수 */
+    public void setRunItems(int runItems) {
+        Assert.isTrue(runItems > 0, "runItems must be greater than zero");
+        this.runItems = runItems;
+    }
+
+    public void setParallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "parallelism must be greater than zero");
+        this.parallelism = parallelism;
+    }
+
+    public void setMergeFanIn(int mergeFanIn) {
+        spillRuns.setMergeFanIn(mergeFanIn);
+    }
+
+    public void setWriteBatch(int writeBatch) {
+        Assert.isTrue(writeBatch > 0, "writeBatch must be greater than zero");
+        this.writeBatch = writeBatch;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        spillRuns.open(stepExecution);
+        buffers = new SortRunBuffer[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            buffers[i] = new SortRunBuffer(runItems);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "sort-run-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        int runs = executionContext.getInt(RUN_COUNT_KEY, 0);
+
+        if (!executionContext.containsKey(READ_DONE_KEY)) {
+            List<Future<?>> sorting = new ArrayList<>(parallelism);
+            boolean done = false;
+            try {
+                for (int i = 0; i < parallelism && !done; i++) {
+                    SortRunBuffer buffer = buffers[i];
+                    while (!buffer.isFull()) {
+                        NumberVO item = reader.read();
+                        if (item == null) {
+                            done = true;
+                            break;
+                        }
+                        contribution.incrementReadCount();
+                        buffer.add(item.getKey(), item.getNum());
+                    }
+                    if (buffer.size() > 0) {
+                        File file = spillRuns.runFile(runs++);
+                        sorting.add(executor.submit(() -> {
+                            buffer.writeRun(file, order);
+                            return null;
+                        }));
+                    }
+                }
+            } finally {
+                /* 실패해도 worker 가 buffer 를 다 쓸 때까지 기다림 (재시작시 buffer 재사용) */
+                SpillRuns.awaitAll(sorting);
+            }
+            executionContext.putInt(RUN_COUNT_KEY, runs);
+            if (done) {
+                executionContext.putString(READ_DONE_KEY, "Y");
+            }
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        merge(contribution, runs);
+        return RepeatStatus.FINISHED;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        buffers = null;
+        if (ExitStatus.COMPLETED.getExitCode().equals(stepExecution.getExitStatus().getExitCode())) {
+            spillRuns.deleteRuns();
+        }
+        return null;
+    }
+
+    private void merge(StepContribution contribution, int runs) throws Exception {
+        List<NumberVO> batch = new ArrayList<>(writeBatch);
+        spillRuns.merge(runs, executor, numberVO -> {
+            batch.add(numberVO);
+            if (batch.size() >= writeBatch) {
+                flush(contribution, batch);
+            }
+        });
+        if (!batch.isEmpty()) {
+            flush(contribution, batch);
+        }
+    }
+
+    private void flush(StepContribution contribution, List<NumberVO> batch) throws Exception {
+        writer.write(batch);
+        contribution.incrementWriteCount(batch.size());
+        batch.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package hhy.study.springbatch.common.sort;
+
+/**
+ * @Purpose         : ExternalSortTasklet 정렬 기준
+ * @Comment         : KEY : key 오름차순, 같은 key 는 num 오름차순 / NUM : num 오름차순, 같은 num 은 key 오름차순
+ */
+public enum SortOrder {
+    KEY,
+    NUM;
+
+    /* job parameter 값 (대소문자 무시, 없으면 KEY) */
+    public static SortOrder parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return KEY;
+        }
+        return valueOf(value.toUpperCase());
+    }
+
+    public int compare(String key1, int num1, String key2, int num2) {
+        if (this == KEY) {
+            int result = key1.compareTo(key2);
+            return result != 0 ? result : Integer.compare(num1, num2);
+        }
+        int result = Integer.compare(num1, num2);
+        return result != 0 ? result : key1.compareTo(key2);
+    }
+}
@@ -0,0 +1,104 @@
+package hhy.study.springbatch.common.sort;
+
+import hhy.study.springbatch.common.spill.SpillRuns;
+import hhy.study.springbatch.job.NumberVO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @Purpose         : 정렬된 run 파일 읽기/쓰기 (deflate 압축)
+ * @Comment         : record = key(UTF) | num(int). 정렬된 입력이라 같은 key 가 연달아 나와서 압축이 잘 됨
+ *                    압축 레벨은 BEST_SPEED (run 쓰기가 정렬보다 느려지지 않도록)
+ */
+public final class SortRun {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private SortRun() {
+    }
+
+    public static Writer writer(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        return new Writer(file);
+    }
+
+    public static Reader reader(File file) throws IOException {
+        return new Reader(file);
+    }
+
+    public static final class Writer implements SpillRuns.Writer<NumberVO> {
+
+        private final FileOutputStream file;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream deflate;
+        private final DataOutputStream out;
+
+        private Writer(File file) throws IOException {
+            this.file = new FileOutputStream(file);
+            this.deflate = new DeflaterOutputStream(this.file, deflater, BUFFER_SIZE);
+            this.out = new DataOutputStream(new BufferedOutputStream(deflate, BUFFER_SIZE));
+        }
+
+        public void write(String key, int num) throws IOException {
+            out.writeUTF(key);
+            out.writeInt(num);
+        }
+
+        @Override
+        public void write(NumberVO numberVO) throws IOException {
+            write(numberVO.getKey(), numberVO.getNum());
+        }
+
+        /* checkpoint 에 기록되는 run 이므로 close 전에 disk 까지 내림 */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                deflate.finish();
+                file.getFD().sync();
+            } finally {
+                out.close();
+                deflater.end();
+            }
+        }
+    }
+
+    public static final class Reader implements SpillRuns.Reader<NumberVO> {
+
+        private final DataInputStream in;
+
+        private Reader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(file)), BUFFER_SIZE));
+        }
+
+        @Override
+        public NumberVO read() throws IOException {
+            NumberVO numberVO = new NumberVO();
+            try {
+                numberVO.setKey(in.readUTF());
+            } catch (EOFException e) {
+                return null;
+            }
+            numberVO.setNum(in.readInt());
+            return numberVO;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package hhy.study.springbatch.common.sort;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @Purpose         : 정렬 run 1개 분량의 key|num 을 담는 고정 크기 buffer
+ * @Comment         : item 은 int[] keyIds / int[] nums 컬럼으로 보관 (NumberVO 를 들고 있지 않음), 메모리는 capacity 로 고정
+ *                    정렬은 (정렬기준, 나머지) 를 long 1개로 묶어서 Arrays.sort(long[]) -> Comparator / 객체 비교 없음
+ *                    key 는 buffer 안에서 id 로 바꾸고, 정렬 직전에 key 순 rank 로 변환 (key 종류가 적은 입력 기준)
+ *                    채우기는 reader 쓰레드, 정렬/쓰기는 worker 쓰레드 -> 둘이 동시에 쓰지 않도록 ExternalSortTasklet 이 순서 보장
+ */
+public class SortRunBuffer {
+
+    private final int[] keyIds;
+    private final int[] nums;
+    private final long[] packed;
+    private int size;
+
+    /* key -> id (open addressing), 값 = id + 1 */
+    private String[] keys = new String[16];
+    private int[] table = new int[32];
+    private int keyCount;
+
+    public SortRunBuffer(int capacity) {
+        this.keyIds = new int[capacity];
+        this.nums = new int[capacity];
+        this.packed = new long[capacity];
+    }
+
+    public void add(String key, int num) {
+        keyIds[size] = keyId(key);
+        nums[size] = num;
+        size++;
+    }
+
+    public boolean isFull() {
+        return size == keyIds.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* 정렬해서 run 파일로 쓰고 비움 */
+    public void writeRun(File file, SortOrder order) throws IOException {
+        String[] sortedKeys = Arrays.copyOf(keys, keyCount);
+        Arrays.sort(sortedKeys);
+        int[] rank = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            rank[keyId(sortedKeys[i])] = i;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int keyRank = rank[keyIds[i]];
+            packed[i] = order == SortOrder.KEY ? pack(keyRank, nums[i]) : pack(nums[i], keyRank);
+        }
+        Arrays.sort(packed, 0, size);
+
+        try (SortRun.Writer writer = SortRun.writer(file)) {
+            for (int i = 0; i < size; i++) {
+                long value = packed[i];
+                if (order == SortOrder.KEY) {
+                    writer.write(sortedKeys[high(value)], low(value));
+                } else {
+                    writer.write(sortedKeys[low(value)], high(value));
+                }
+            }
+        }
+        clear();
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(keys, 0, keyCount, null);
+        Arrays.fill(table, 0);
+        keyCount = 0;
+    }
+
+    private int keyId(String key) {
+        int mask = table.length - 1;
+        int hash = key.hashCode();
+        for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                if (keyCount == keys.length) {
+                    keys = Arrays.copyOf(keys, keyCount * 2);
+                }
+                keys[keyCount] = key;
+                table[slot] = ++keyCount;
+                if (keyCount * 2 > table.length) {
+                    rehash();
+                }
+                return keyCount - 1;
+            }
+            String current = keys[entry - 1];
+            if (current == key || current.equals(key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < keyCount; id++) {
+            int hash = keys[id].hashCode();
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    /* 상위 32bit 는 부호 그대로, 하위 32bit 는 부호 비트를 뒤집어서 long 비교 = (high, low) 순 비교 */
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | ((low ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    private static int high(long value) {
+        return (int) (value >> 32);
+    }
+
+    private static int low(long value) {
+        return ((int) value) ^ Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,205 @@
+package hhy.study.springbatch.common.spill;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * @Purpose         : spill 한 정렬 run 파일의 이름 관리 / k-way merge / 삭제 (KeyedAggregateTasklet, ExternalSortTasklet 공용)
+ * @Comment         : run 파일 이름 = {jobName}-{jobInstanceId}-{stepName}-{run}.run
+ *                    -> 재시작해도 같은 job instance 면 같은 이름이라 이전 실행의 run 을 그대로 사용
+ *                    merge : run 이 mergeFanIn 보다 많으면 mergeFanIn 개씩 중간 병합 run 을 만들어서 열린 파일 수 제한
+ *                            (중간 병합 결과는 별도 이름이라 실패해도 checkpoint 의 run 은 그대로, executor 가 있으면 그룹끼리 병렬)
+ *                            combiner 가 있으면 comparator 로 같은 item 을 하나로 합쳐서 넘김 (없으면 모두 넘김)
+ *                    deleteRuns : step 의 run 파일(중간 병합 포함) 삭제 -> step 이 COMPLETED 일 때 호출
+ * @Disadvantages   : Reader 는 read 마다 새 객체를 돌려줘야 함 (다음 item 을 읽은 뒤에 이전 item 을 consumer 로 넘김)
+ */
+public final class SpillRuns<T> {
+
+    public interface Reader<T> extends Closeable {
+        /* 끝이면 null */
+        T read() throws IOException;
+    }
+
+    public interface Writer<T> extends Closeable {
+        void write(T item) throws IOException;
+    }
+
+    public interface Opener<R> {
+        R open(File file) throws IOException;
+    }
+
+    public interface Consumer<T> {
+        void accept(T item) throws Exception;
+    }
+
+    private final File spillDirectory;
+    private final Opener<? extends Reader<T>> readers;
+    private final Opener<? extends Writer<T>> writers;
+    private final Comparator<? super T> comparator;
+
+    private BiConsumer<T, T> combiner;
+    private int mergeFanIn = 64;
+    private String runPrefix;
+
+    public SpillRuns(File spillDirectory, Opener<? extends Reader<T>> readers, Opener<? extends Writer<T>> writers, Comparator<? super T> comparator) {
+        Assert.notNull(spillDirectory, "spillDirectory must be set");
+        Assert.notNull(readers, "readers must be set");
+        Assert.notNull(writers, "writers must be set");
+        Assert.notNull(comparator, "comparator must be set");
+        this.spillDirectory = spillDirectory;
+        this.readers = readers;
+        this.writers = writers;
+        this.comparator = comparator;
+    }
+
+    /* comparator 로 같은 item 을 (앞의 item, 뒤의 item) 으로 받아서 앞의 item 에 합침 */
+    public void setCombiner(BiConsumer<T, T> combiner) {
+        this.combiner = combiner;
+    }
+
+    public void setMergeFanIn(int mergeFanIn) {
+        Assert.isTrue(mergeFanIn > 1, "mergeFanIn must be greater than one");
+        this.mergeFanIn = mergeFanIn;
+    }
+
+    /* beforeStep 에서 호출 */
+    public void open(StepExecution stepExecution) {
+        runPrefix = stepExecution.getJobExecution().getJobInstance().getJobName() + "-"
+                + stepExecution.getJobExecution().getJobInstance().getInstanceId() + "-" + stepExecution.getStepName();
+    }
+
+    public File runFile(int run) {
+        return new File(spillDirectory, runPrefix + "-" + run + ".run");
+    }
+
+    public void merge(int runs, Consumer<? super T> consumer) throws Exception {
+        merge(runs, null, consumer);
+    }
+
+    public void merge(int runs, ExecutorService executor, Consumer<? super T> consumer) throws Exception {
+        List<File> files = new ArrayList<>(runs);
+        for (int run = 0; run < runs; run++) {
+            files.add(runFile(run));
+        }
+
+        int pass = 0;
+        while (files.size() > mergeFanIn) {
+            List<File> merged = new ArrayList<>();
+            List<Future<?>> merging = new ArrayList<>();
+            for (int from = 0; from < files.size(); from += mergeFanIn) {
+                List<File> group = files.subList(from, Math.min(from + mergeFanIn, files.size()));
+                File target = new File(spillDirectory, runPrefix + "-m" + pass + "-" + merged.size() + ".run");
+                merged.add(target);
+                if (executor == null) {
+                    mergeInto(group, target);
+                } else {
+                    merging.add(executor.submit(() -> {
+                        mergeInto(group, target);
+                        return null;
+                    }));
+                }
+            }
+            awaitAll(merging);
+            files = merged;
+            pass++;
+        }
+
+        mergeRuns(files, consumer);
+    }
+
+    public void deleteRuns() {
+        if (runPrefix == null) {
+            return;
+        }
+        File[] files = spillDirectory.listFiles((dir, name) -> name.startsWith(runPrefix + "-"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /* 실패한 작업이 있어도 모두 끝날 때까지 기다린 뒤 첫 실패를 던짐 */
+    public static void awaitAll(List<Future<?>> futures) throws Exception {
+        Exception failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void mergeInto(List<File> group, File target) throws Exception {
+        try (Writer<T> runWriter = writers.open(target)) {
+            mergeRuns(group, runWriter::write);
+        }
+    }
+
+    private void mergeRuns(List<File> files, Consumer<? super T> consumer) throws Exception {
+        PriorityQueue<RunHead<T>> heads = new PriorityQueue<>(Math.max(1, files.size()), (a, b) -> comparator.compare(a.current, b.current));
+        try {
+            for (File file : files) {
+                requeue(heads, new RunHead<T>(readers.open(file)));
+            }
+            while (!heads.isEmpty()) {
+                RunHead<T> head = heads.poll();
+                T item = head.current;
+                requeue(heads, head);
+                if (combiner != null) {
+                    while (!heads.isEmpty() && comparator.compare(heads.peek().current, item) == 0) {
+                        RunHead<T> same = heads.poll();
+                        combiner.accept(item, same.current);
+                        requeue(heads, same);
+                    }
+                }
+                consumer.accept(item);
+            }
+        } finally {
+            for (RunHead<T> head : heads) {
+                head.reader.close();
+            }
+        }
+    }
+
+    private void requeue(PriorityQueue<RunHead<T>> heads, RunHead<T> head) throws IOException {
+        if (head.advance()) {
+            heads.add(head);
+        } else {
+            head.reader.close();
+        }
+    }
+
+    private static final class RunHead<T> {
+
+        private final Reader<T> reader;
+        private T current;
+
+        private RunHead(Reader<T> reader) {
+            this.reader = reader;
+        }
+
+        private boolean advance() throws IOException {
+            current = reader.read();
+            return current != null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package hhy.study.springbatch.common.startup;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.configuration.JobFactory;
+import org.springframework.batch.core.configuration.support.ApplicationContextFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Purpose         : job 을 처음 요청할 때 해당 job 의 설정 class 만 child context 로 띄우는 JobFactory
+ * @Comment         : spring batch 의 ApplicationContextJobFactory 는 생성자에서 context 를 바로 띄우므로(AutomaticJobRegistrar 와 동일) 대신 사용
+ *                    createJob() 첫 호출에만 context 생성, 이후는 같은 Job 재사용 (JobRegistry.getJob 마다 호출됨)
+ *                    job 이름 = job bean 이름 (Job.getName() 은 context 를 띄워야 알 수 있으므로)
+ */
+public class LazyJobFactory implements JobFactory {
+
+    private static final Logger LOG = LogManager.getLogger(LazyJobFactory.class);
+
+    private final String jobName;
+    private final ApplicationContextFactory applicationContextFactory;
+
+    private ConfigurableApplicationContext context;
+    private volatile Job job;
+
+    public LazyJobFactory(String jobName, ApplicationContextFactory applicationContextFactory) {
+        Assert.hasText(jobName, "jobName must not be empty");
+        Assert.notNull(applicationContextFactory, "applicationContextFactory must not be null");
+        this.jobName = jobName;
+        this.applicationContextFactory = applicationContextFactory;
+    }
+
+    @Override
+    public Job createJob() {
+        Job loaded = job;
+        if (loaded != null) {
+            return loaded;
+        }
+        synchronized (this) {
+            if (job == null) {
+                long start = System.nanoTime();
+                context = applicationContextFactory.createApplicationContext();
+                job = context.getBean(jobName, Job.class);
+                LOG.info("[{}] context loaded in {} ms", jobName, Unbox.box(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+            }
+            return job;
+        }
+    }
+
+    @Override
+    public String getJobName() {
+        return jobName;
+    }
+
+    public boolean isLoaded() {
+        return job != null;
+    }
+
+    public synchronized void close() {
+        if (context != null) {
+            context.close();
+            context = null;
+            job = null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package hhy.study.springbatch.common.startup;
+
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.configuration.support.GenericApplicationContextFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Purpose         : job bean 이름 -> job 설정 class 를 JobRegistry 에 이름만 등록 (context 는 요청시 LazyJobFactory 가 생성)
+ * @Comment         : 기동시에는 JobRepository/JobLauncher/JobRegistry 만 있는 parent context 만 띄움
+ *                    JobRegistry.getJob(이름) 을 처음 호출할 때 그 job 의 설정 class 만 child context 로 생성
+ *                    -> 다른 job 의 step/reader/writer bean 은 만들지 않음
+ *                    child 의 @EnableBatchProcessing 은 parent 의 BatchConfigurer 를 찾아 쓰므로 JobRepository 는 parent 와 공유
+ *                    preload : 기동 직후 바로 요청될 job 을 미리 띄워둠 (daemon/schedule 처럼 첫 실행 지연을 피하고 싶을 때)
+ */
+public class LazyJobRegistrar implements ApplicationContextAware, InitializingBean, DisposableBean {
+
+    private final JobRegistry jobRegistry;
+    private final Map<String, Class<?>> jobConfigs;
+    private final Map<String, LazyJobFactory> factories = new LinkedHashMap<>();
+    private Collection<String> preload = Collections.emptyList();
+    private ApplicationContext applicationContext;
+
+    public LazyJobRegistrar(JobRegistry jobRegistry, Map<String, Class<?>> jobConfigs) {
+        Assert.notNull(jobRegistry, "jobRegistry must not be null");
+        Assert.notEmpty(jobConfigs, "jobConfigs must not be empty");
+        this.jobRegistry = jobRegistry;
+        this.jobConfigs = new LinkedHashMap<>(jobConfigs);
+    }
+
+    public void setPreload(String... preload) {
+        this.preload = Arrays.asList(preload);
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        for (String jobName : preload) {
+            Assert.isTrue(jobConfigs.containsKey(jobName), "Unknown job '" + jobName + "' in preload");
+        }
+        for (Map.Entry<String, Class<?>> entry : jobConfigs.entrySet()) {
+            GenericApplicationContextFactory contextFactory = new GenericApplicationContextFactory(entry.getValue());
+            contextFactory.setApplicationContext(applicationContext);
+            LazyJobFactory factory = new LazyJobFactory(entry.getKey(), contextFactory);
+            jobRegistry.register(factory);
+            factories.put(entry.getKey(), factory);
+        }
+        for (String jobName : preload) {
+            factories.get(jobName).createJob();
+        }
+    }
+
+    public boolean isLoaded(String jobName) {
+        LazyJobFactory factory = factories.get(jobName);
+        return factory != null && factory.isLoaded();
+    }
+
+    @Override
+    public void destroy() {
+        for (LazyJobFactory factory : factories.values()) {
+            jobRegistry.unregister(factory.getJobName());
+            factory.close();
+        }
+        factories.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package hhy.study.springbatch.common.step;
+
+import hhy.study.springbatch.common.reader.ColumnarNumberItemReader;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.common.writer.ColumnarNumberItemWriter;
+import hhy.study.springbatch.job.NumberChunk;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * @Purpose         : key|num 을 NumberChunk(columnar) 단위로 처리하는 chunk step 구성
+ * @Comment         : reader 가 columnBatch line 을 NumberChunk 1개로 읽고, processor 는 NumberChunk 단위(컬럼 loop)로 작성
+ *                    commit interval 은 NumberChunk 1개 -> 트랜잭션 1번 = columnBatch line
+ *                    step 의 read/write count 는 line 수가 아니라 NumberChunk 수
+ * @Disadvantages   : 단일 쓰레드 전용 (key 사전을 쓰레드끼리 공유하지 않음), item 단위 skip/retry 불가 (NumberChunk 단위)
+ */
+public final class ColumnarStepSupport {
+
+    public static final String COLUMN_BATCH_KEY = "columnBatch";
+
+    private ColumnarStepSupport() {
+    }
+
+    public static SimpleStepBuilder<NumberChunk, NumberChunk> columnar(StepBuilder stepBuilder,
+                                                                       MappedNumberItemReader reader,
+                                                                       ItemProcessor<NumberChunk, NumberChunk> processor,
+                                                                       ChannelNumberItemWriter writer,
+                                                                       int columnBatch) {
+        return stepBuilder
+                .<NumberChunk, NumberChunk>chunk(1)
+                .reader(new ColumnarNumberItemReader(reader, columnBatch))
+                .processor(processor)
+                .writer(new ColumnarNumberItemWriter(writer));
+    }
+}
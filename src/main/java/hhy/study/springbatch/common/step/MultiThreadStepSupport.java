@@ -0,0 +1,74 @@
+package hhy.study.springbatch.common.step;
+
+import hhy.study.springbatch.common.policy.AdaptiveChunkCompletionPolicy;
+import hhy.study.springbatch.common.reader.SynchronizedBatchItemReader;
+import hhy.study.springbatch.common.writer.OrderedItemWriter;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * @Purpose         : chunk step 에 reader/writer 를 등록하면서 workerCount 에 따라 multi-thread 모드를 구성
+ * @Comment         : workerCount 가 없거나 1 이하면 기존과 동일한 단일 쓰레드 step.
+ *                    2 이상이면 SynchronizedBatchItemReader + OrderedItemWriter 로 감싸고 workerCount 만큼 쓰레드로 chunk 를 돌린다.
+ *                    batch 크기는 반드시 chunk 크기(commit interval)와 같게 넘겨줄 것
+ *                    chunk() : 단일 쓰레드면 AdaptiveChunkCompletionPolicy 로 commit interval 자동 조절,
+ *                    multi-thread 면 batch 와 맞춰야 하므로 고정 크기
+ */
+public final class MultiThreadStepSupport {
+
+    public static final String WORKER_COUNT_KEY = "workerCount";
+    public static final String CHUNK_MIN_KEY = "chunkMin";
+    public static final String CHUNK_MAX_KEY = "chunkMax";
+
+    private static final int DEFAULT_MAX_CHUNK_SIZE = 10000;
+
+    private MultiThreadStepSupport() {
+    }
+
+    public static <I, O> SimpleStepBuilder<I, O> chunk(StepBuilder stepBuilder,
+                                                       int chunkSize,
+                                                       Long workerCount,
+                                                       Long chunkMin,
+                                                       Long chunkMax) {
+        if (workerCount != null && workerCount > 1) {
+            return stepBuilder.chunk(chunkSize);
+        }
+
+        int min = chunkMin == null ? chunkSize : chunkMin.intValue();
+        int max = chunkMax == null ? Math.max(min, DEFAULT_MAX_CHUNK_SIZE) : chunkMax.intValue();
+        AdaptiveChunkCompletionPolicy completionPolicy = new AdaptiveChunkCompletionPolicy(min, max);
+
+        SimpleStepBuilder<I, O> builder = stepBuilder.chunk(completionPolicy);
+        builder.listener((ChunkListener) completionPolicy);
+        builder.listener((StepExecutionListener) completionPolicy);
+        return builder;
+    }
+
+    public static <I, O> SimpleStepBuilder<I, O> readAndWrite(SimpleStepBuilder<I, O> builder,
+                                                              ItemStreamReader<I> reader,
+                                                              ItemWriter<O> writer,
+                                                              int chunkSize,
+                                                              Long workerCount) {
+        if (workerCount == null || workerCount <= 1) {
+            return builder.reader(reader).writer(writer);
+        }
+
+        int workers = workerCount.intValue();
+        SynchronizedBatchItemReader<I> batchReader = new SynchronizedBatchItemReader<>(reader, chunkSize);
+
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("chunk-worker-");
+        taskExecutor.setConcurrencyLimit(workers);
+
+        builder.reader(batchReader)
+                .writer(new OrderedItemWriter<>(writer, batchReader))
+                .listener(batchReader)
+                .taskExecutor(taskExecutor)
+                .throttleLimit(workers);
+        return builder;
+    }
+}
@@ -0,0 +1,37 @@
+package hhy.study.springbatch.common.step;
+
+import hhy.study.springbatch.common.reader.PipelinedItemReader;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+
+/**
+ * @Purpose         : read/process/write 가 겹쳐서 실행되는 pipeline chunk step 구성
+ * @Comment         : processor 는 PipelinedItemReader 안(process 쓰레드)에서 실행되므로 step 에는 reader/writer 만 등록된다.
+ *                    chunk 경계는 PipelinedItemReader 의 batch 경계와 일치 (completionPolicy), writer 와 commit 은 기존처럼 step 쓰레드.
+ *                    pipelineDepth : 단계 사이 queue 에 쌓아둘 수 있는 chunk 수
+ * @Disadvantages   : step 의 process 단계를 거치지 않으므로 ItemProcessListener 는 호출되지 않음 (filterCount 는 PipelinedItemReader 가 채움)
+ */
+public final class PipelineStepSupport {
+
+    public static final String PIPELINE_DEPTH_KEY = "pipelineDepth";
+
+    private PipelineStepSupport() {
+    }
+
+    public static <I, O> SimpleStepBuilder<O, O> pipelined(StepBuilder stepBuilder,
+                                                           ItemStreamReader<I> reader,
+                                                           ItemProcessor<? super I, ? extends O> processor,
+                                                           ItemWriter<O> writer,
+                                                           int chunkSize,
+                                                           int pipelineDepth) {
+        PipelinedItemReader<I, O> pipelinedReader = new PipelinedItemReader<>(reader, processor, chunkSize, pipelineDepth);
+
+        return stepBuilder
+                .<O, O>chunk(pipelinedReader.completionPolicy())
+                .reader(pipelinedReader)
+                .writer(writer);
+    }
+}
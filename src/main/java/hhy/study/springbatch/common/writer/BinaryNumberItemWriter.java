@@ -0,0 +1,264 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.common.binary.NumberBlocks;
+import hhy.study.springbatch.job.NumberChunk;
+import hhy.study.springbatch.job.NumberKeyDictionary;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemWriter;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * @Purpose         : NumberVO 를 binary columnar block 파일로 쓰는 Writer (ChannelNumberItemWriter 의 text 출력 대체)
+ * @Comment         : write() 1번(= chunk 1개)이 block 1개 (blockItems 보다 많으면 나눔). 형식은 NumberBlocks 참고
+ *                    숫자 -> 문자열 변환 / 구분자 / 개행이 없고, 다음 step 은 BinaryNumberItemReader 로 파싱 없이 읽음
+ *                    close() 시 block index 를 footer 로 추가
+ *                    트랜잭션/재시작은 ChannelNumberItemWriter 와 동일 : commit 되면 committed 위치 갱신, rollback 되면 committed 위치로 truncate,
+ *                    재시작시 ExecutionContext 의 마지막 commit 위치로 truncate(footer 포함) 후 block index 를 다시 scan 해서 이어서 씀
+ *                    compressed : block 별 deflate (압축 후 더 커지면 원본 저장)
+ * @Disadvantages   : 사람이 읽을 수 없음. 다른 도구로 읽으려면 NumberBlocks 형식을 구현해야 함
+ */
+public class BinaryNumberItemWriter extends AbstractItemStreamItemWriter<NumberVO> {
+
+    private static final String POSITION_KEY = "position";
+    private static final int DEFAULT_BLOCK_ITEMS = 64 * 1024;
+
+    private Resource resource;
+    private int blockItems = DEFAULT_BLOCK_ITEMS;
+    private boolean appendAllowed = false;
+    private boolean saveState = true;
+    private boolean compressed = false;
+    private int compressionLevel = Deflater.BEST_SPEED;
+    private ChannelNumberItemWriter.SyncPolicy syncPolicy = ChannelNumberItemWriter.SyncPolicy.stepEnd();
+
+    private FileChannel channel;
+    private NumberBlocks.Encoder encoder;
+    private NumberBlocks.Index index;
+    private long committedPosition;
+    private int committedBlocks;
+    private int chunksSinceSync;
+    private long lastSyncTime;
+
+    /* 현재 쓰레드의 트랜잭션에서 write 했지만 아직 commit 안된 (끝 위치, block 수) */
+    private final ThreadLocal<long[]> pending = new ThreadLocal<>();
+
+    public BinaryNumberItemWriter() {
+        setName(ClassUtils.getShortName(BinaryNumberItemWriter.class));
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    /* block 1개의 최대 item 수 */
+    public void setBlockItems(int blockItems) {
+        Assert.isTrue(blockItems > 0, "blockItems must be greater than zero");
+        this.blockItems = blockItems;
+    }
+
+    public void setAppendAllowed(boolean appendAllowed) {
+        this.appendAllowed = appendAllowed;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public void setSyncPolicy(ChannelNumberItemWriter.SyncPolicy syncPolicy) {
+        Assert.notNull(syncPolicy, "syncPolicy must not be null");
+        this.syncPolicy = syncPolicy;
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(resource, "resource must be set");
+        super.open(executionContext);
+
+        try {
+            File file = resource.getFile();
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+                /* 재시작 : 마지막 commit 이후 내용(footer 포함)은 버림 */
+                long restartPosition = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+                index = NumberBlocks.scan(channel, restartPosition);
+                if (index.end() != restartPosition) {
+                    throw new ItemStreamException("File does not contain complete blocks up to the position of last commit: " + resource);
+                }
+            } else if (appendAllowed) {
+                index = NumberBlocks.readIndex(channel);
+            } else {
+                index = new NumberBlocks.Index(16);
+            }
+            committedPosition = index.end();
+            committedBlocks = index.size();
+            channel.truncate(committedPosition);
+            channel.position(committedPosition);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open resource for write: " + resource, e);
+        }
+
+        encoder = new NumberBlocks.Encoder(compressionLevel);
+        chunksSinceSync = 0;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized void write(List<? extends NumberVO> items) throws Exception {
+        Assert.state(channel != null, "Writer must be open before it can be written to");
+
+        for (NumberVO item : items) {
+            encoder.add(item.getKey(), item.getNum());
+            if (encoder.size() >= blockItems) {
+                writeBlock();
+            }
+        }
+        written();
+    }
+
+    /**
+     * columnar 모드 (NumberChunk) : commit/rollback 처리는 write() 와 동일
+     */
+    public synchronized void writeChunks(List<? extends NumberChunk> chunks) throws Exception {
+        Assert.state(channel != null, "Writer must be open before it can be written to");
+
+        for (NumberChunk chunk : chunks) {
+            NumberKeyDictionary dictionary = chunk.dictionary();
+            int[] keyIds = chunk.keyIds();
+            int[] nums = chunk.nums();
+            for (int i = 0; i < chunk.size(); i++) {
+                encoder.add(dictionary.key(keyIds[i]), nums[i]);
+                if (encoder.size() >= blockItems) {
+                    writeBlock();
+                }
+            }
+        }
+        written();
+    }
+
+    private void written() throws IOException {
+        writeBlock();
+
+        long end = channel.position();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (pending.get() == null) {
+                TransactionSynchronizationManager.registerSynchronization(new CommitSynchronization());
+            }
+            pending.set(new long[]{end, index.size()});
+        } else {
+            committed(end, index.size());
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (encoder.size() == 0) {
+            return;
+        }
+        int count = encoder.size();
+        long offset = channel.position();
+        ByteBuffer block = encoder.encode(compressed);
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        index.add(offset, count);
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (saveState && channel != null) {
+            long[] position = pending.get();
+            executionContext.putLong(getExecutionContextKey(POSITION_KEY), position != null ? position[0] : committedPosition);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws ItemStreamException {
+        super.close();
+        if (channel == null) {
+            return;
+        }
+        try {
+            /* footer 는 재시작시 truncate 되므로 commit 위치에 포함하지 않음 */
+            ByteBuffer footer = index.footer();
+            while (footer.hasRemaining()) {
+                channel.write(footer);
+            }
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close resource: " + resource, e);
+        } finally {
+            channel = null;
+            encoder.end();
+            encoder = null;
+            index = null;
+        }
+    }
+
+    private synchronized void committed(long position, int blocks) {
+        committedPosition = position;
+        committedBlocks = blocks;
+        chunksSinceSync++;
+        if (syncPolicy.shouldSync(chunksSinceSync, System.currentTimeMillis() - lastSyncTime)) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to sync resource: " + resource, e);
+            }
+            chunksSinceSync = 0;
+            lastSyncTime = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized void rolledBack() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            encoder.clear();
+            index.truncate(committedBlocks);
+            channel.truncate(committedPosition);
+            channel.position(committedPosition);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to roll back resource: " + resource, e);
+        }
+    }
+
+    private class CommitSynchronization implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            long[] position = pending.get();
+            pending.remove();
+            if (status == TransactionSynchronization.STATUS_COMMITTED && position != null) {
+                committed(position[0], (int) position[1]);
+            } else {
+                rolledBack();
+            }
+        }
+    }
+}
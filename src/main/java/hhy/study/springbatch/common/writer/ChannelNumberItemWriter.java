@@ -0,0 +1,421 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.common.compress.GzipBlockOutput;
+import hhy.study.springbatch.common.compress.GzipBlocks;
+import hhy.study.springbatch.job.NumberChunk;
+import hhy.study.springbatch.job.NumberKeyDictionary;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemWriter;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * @Purpose         : NumberVO 전용 고속 파일 Writer (FlatFileItemWriter + DelimitedLineAggregator 대체)
+ * @Comment         : reflection(BeanWrapperFieldExtractor) / line String 없이 key, 구분자, num 을 재사용하는 direct ByteBuffer 에
+ *                    바로 인코딩하고 chunk 단위로 FileChannel 에 write 한다.
+ *                    fsync 시점은 SyncPolicy 로 선택 (N chunk 마다 / T ms 마다 / step 종료시)
+ *                    트랜잭션 : commit 되면 committed 위치 갱신, rollback 되면 committed 위치로 truncate.
+ *                    재시작 : ExecutionContext 의 마지막 commit 위치로 truncate 후 이어서 씀
+ *                    compressed : block gzip(BGZF) 으로 출력. chunk 쓰레드는 원본만 넘기고 압축/파일 쓰기는 background 쓰레드
+ *                    (GzipBlockOutput). 위치는 원본 기준으로 저장하고 chunk 끝이 항상 block 경계라 같은 방식으로 truncate/재시작
+ * @Disadvantages   : compressed 는 chunk 마다 block 이 끊기므로 chunk 가 작으면 압축률이 떨어짐.
+ *                    background 쓰기라 commit 된 내용이 파일에 써지는 시점은 SyncPolicy 의 sync 시점 (그 전에 죽으면 재시작 불가)
+ */
+public class ChannelNumberItemWriter extends AbstractItemStreamItemWriter<NumberVO> {
+
+    private static final String POSITION_KEY = "position";
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_INT_LENGTH = 11;
+    private static final byte[] MIN_VALUE_BYTES = String.valueOf(Integer.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private Resource resource;
+    private Charset charset = StandardCharsets.UTF_8;
+    private byte[] delimiter = "@".getBytes(StandardCharsets.UTF_8);
+    private byte[] lineSeparator = System.getProperty("line.separator").getBytes(StandardCharsets.UTF_8);
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean appendAllowed = false;
+    private boolean saveState = true;
+    private SyncPolicy syncPolicy = SyncPolicy.stepEnd();
+    private boolean compressed = false;
+    private int compressionLevel = Deflater.BEST_SPEED;
+    private int compressionThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private GzipBlockOutput gzip;
+    private long committedPosition;
+    private int chunksSinceSync;
+    private long lastSyncTime;
+
+    /* 현재 쓰레드의 트랜잭션에서 write 했지만 아직 commit 안된 끝 위치 */
+    private final ThreadLocal<Long> pendingPosition = new ThreadLocal<>();
+
+    public ChannelNumberItemWriter() {
+        setName(ClassUtils.getShortName(ChannelNumberItemWriter.class));
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setDelimiter(String delimiter) {
+        this.delimiter = delimiter.getBytes(charset);
+    }
+
+    public void setLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator.getBytes(charset);
+    }
+
+    public void setBufferSize(int bufferSize) {
+        Assert.isTrue(bufferSize >= 1024, "bufferSize must be at least 1024");
+        this.bufferSize = bufferSize;
+    }
+
+    public void setAppendAllowed(boolean appendAllowed) {
+        this.appendAllowed = appendAllowed;
+    }
+
+    public void setSaveState(boolean saveState) {
+        this.saveState = saveState;
+    }
+
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        Assert.notNull(syncPolicy, "syncPolicy must not be null");
+        this.syncPolicy = syncPolicy;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public void setCompressionThreads(int compressionThreads) {
+        Assert.isTrue(compressionThreads > 0, "compressionThreads must be greater than zero");
+        this.compressionThreads = compressionThreads;
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(resource, "resource must be set");
+        super.open(executionContext);
+
+        try {
+            File file = resource.getFile();
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            if (compressed) {
+                openCompressed(executionContext);
+            } else {
+                if (executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+                    /* 재시작 : 마지막 commit 이후 내용은 버림 */
+                    long restartPosition = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+                    if (channel.size() < restartPosition) {
+                        throw new ItemStreamException("Current file size is smaller than size at last commit: " + resource);
+                    }
+                    committedPosition = restartPosition;
+                } else {
+                    committedPosition = appendAllowed ? channel.size() : 0;
+                }
+                channel.truncate(committedPosition);
+                channel.position(committedPosition);
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open resource for write: " + resource, e);
+        }
+
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        chunksSinceSync = 0;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    /* 위치는 원본 기준, 파일은 해당 원본 위치가 끝나는 block 경계로 truncate */
+    private void openCompressed(ExecutionContext executionContext) throws IOException {
+        long restartPosition;
+        if (executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+            restartPosition = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+        } else {
+            restartPosition = appendAllowed ? GzipBlocks.uncompressedSize(channel) : 0;
+        }
+        long offset = GzipBlocks.seek(channel, restartPosition);
+        if (offset < 0) {
+            throw new ItemStreamException("Compressed file does not end at the position of last commit: " + resource);
+        }
+        committedPosition = restartPosition;
+        channel.truncate(offset);
+        gzip = new GzipBlockOutput(channel, offset, restartPosition, compressionLevel, compressionThreads);
+    }
+
+    @Override
+    public synchronized void write(List<? extends NumberVO> items) throws Exception {
+        Assert.state(channel != null, "Writer must be open before it can be written to");
+
+        for (NumberVO item : items) {
+            encode(item.getKey(), item.getNum());
+        }
+        written();
+    }
+
+    /**
+     * columnar 모드 : NumberChunk 의 key(사전)/num 컬럼을 그대로 인코딩. commit/rollback 처리는 write() 와 동일
+     */
+    public synchronized void writeChunks(List<? extends NumberChunk> chunks) throws Exception {
+        Assert.state(channel != null, "Writer must be open before it can be written to");
+
+        for (NumberChunk chunk : chunks) {
+            NumberKeyDictionary dictionary = chunk.dictionary();
+            int[] keyIds = chunk.keyIds();
+            int[] nums = chunk.nums();
+            for (int i = 0; i < chunk.size(); i++) {
+                encode(dictionary.key(keyIds[i]), nums[i]);
+            }
+        }
+        written();
+    }
+
+    private void written() throws IOException {
+        drain();
+
+        long end = gzip != null ? gzip.uncompressedPosition() : channel.position();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (pendingPosition.get() == null) {
+                TransactionSynchronizationManager.registerSynchronization(new CommitSynchronization());
+            }
+            pendingPosition.set(end);
+        } else {
+            committed(end);
+        }
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (saveState && channel != null) {
+            Long pending = pendingPosition.get();
+            executionContext.putLong(getExecutionContextKey(POSITION_KEY), pending != null ? pending : committedPosition);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws ItemStreamException {
+        super.close();
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (gzip != null) {
+                gzip.close();
+            }
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close resource: " + resource, e);
+        } finally {
+            channel = null;
+            buffer = null;
+            gzip = null;
+        }
+    }
+
+    private void encode(String key, int num) throws IOException {
+        if (key == null) {
+            key = "";
+        }
+        int maxLength = key.length() * 3 + delimiter.length + MAX_INT_LENGTH + lineSeparator.length;
+        if (buffer.remaining() < maxLength) {
+            drain();
+            if (buffer.remaining() < maxLength) {
+                /* buffer 보다 큰 key 는 그대로 channel 에 씀 (드문 경우) */
+                writeFully(ByteBuffer.wrap(key.getBytes(charset)));
+                key = "";
+            }
+        }
+
+        putKey(key);
+        buffer.put(delimiter);
+        putInt(num);
+        buffer.put(lineSeparator);
+    }
+
+    private void putKey(String key) {
+        int length = key.length();
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                /* ASCII 가 아니면 charset 으로 인코딩 (이 경우만 할당 발생) */
+                buffer.put(key.substring(i).getBytes(charset));
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private void putInt(int value) {
+        if (value == Integer.MIN_VALUE) {
+            for (int i = 0; i < MIN_VALUE_BYTES.length; i++) {
+                buffer.put(MIN_VALUE_BYTES[i]);
+            }
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int start = buffer.position();
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer.put(start + i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        ((Buffer) buffer).position(start + digits);
+    }
+
+    private void drain() throws IOException {
+        /* Buffer 로 cast : JDK9+ 에서 컴파일해도 Java 8 에서 동작하도록 */
+        ((Buffer) buffer).flip();
+        writeFully(buffer);
+        ((Buffer) buffer).clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        if (gzip != null) {
+            gzip.write(source);
+            return;
+        }
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private synchronized void committed(long position) {
+        committedPosition = position;
+        chunksSinceSync++;
+        if (syncPolicy.shouldSync(chunksSinceSync, System.currentTimeMillis() - lastSyncTime)) {
+            try {
+                if (gzip != null) {
+                    gzip.flush();
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to sync resource: " + resource, e);
+            }
+            chunksSinceSync = 0;
+            lastSyncTime = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized void rolledBack() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ((Buffer) buffer).clear();
+            if (gzip != null) {
+                gzip.flush();
+                long offset = GzipBlocks.seek(channel, committedPosition);
+                channel.truncate(offset);
+                gzip.reset(offset, committedPosition);
+                return;
+            }
+            channel.truncate(committedPosition);
+            channel.position(committedPosition);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to roll back resource: " + resource, e);
+        }
+    }
+
+    private class CommitSynchronization implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            Long pending = pendingPosition.get();
+            pendingPosition.remove();
+            if (status == TransactionSynchronization.STATUS_COMMITTED && pending != null) {
+                committed(pending);
+            } else {
+                rolledBack();
+            }
+        }
+    }
+
+    /**
+     * fsync(FileChannel.force) 시점 정책
+     */
+    public static final class SyncPolicy {
+
+        private final long chunks;
+        private final long millis;
+
+        private SyncPolicy(long chunks, long millis) {
+            this.chunks = chunks;
+            this.millis = millis;
+        }
+
+        /* N chunk commit 마다 */
+        public static SyncPolicy everyChunks(long chunks) {
+            Assert.isTrue(chunks > 0, "chunks must be greater than zero");
+            return new SyncPolicy(chunks, -1);
+        }
+
+        /* 마지막 sync 후 T ms 가 지난 commit 마다 */
+        public static SyncPolicy everyMillis(long millis) {
+            Assert.isTrue(millis >= 0, "millis must not be negative");
+            return new SyncPolicy(-1, millis);
+        }
+
+        /* step 종료(close) 시에만 */
+        public static SyncPolicy stepEnd() {
+            return new SyncPolicy(-1, -1);
+        }
+
+        /**
+         * job parameter 형식 : "chunks:10", "millis:1000", "step" (null/빈값은 step)
+         */
+        public static SyncPolicy parse(String value) {
+            if (value == null || value.trim().isEmpty() || "step".equalsIgnoreCase(value.trim())) {
+                return stepEnd();
+            }
+            String[] tokens = value.trim().split(":");
+            Assert.isTrue(tokens.length == 2, "syncPolicy must be 'chunks:<n>', 'millis:<t>' or 'step' : " + value);
+            long amount = Long.parseLong(tokens[1].trim());
+            if ("chunks".equalsIgnoreCase(tokens[0].trim())) {
+                return everyChunks(amount);
+            }
+            if ("millis".equalsIgnoreCase(tokens[0].trim())) {
+                return everyMillis(amount);
+            }
+            throw new IllegalArgumentException("Unknown syncPolicy : " + value);
+        }
+
+        boolean shouldSync(int chunksSinceSync, long millisSinceSync) {
+            return (chunks > 0 && chunksSinceSync >= chunks) || (millis >= 0 && millisSinceSync >= millis);
+        }
+    }
+}
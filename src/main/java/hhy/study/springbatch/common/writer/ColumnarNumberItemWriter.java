@@ -0,0 +1,43 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.job.NumberChunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * @Purpose         : NumberChunk(columnar) 를 ChannelNumberItemWriter 로 쓰는 Writer
+ * @Comment         : 인코딩/fsync/commit/재시작 처리는 모두 delegate(ChannelNumberItemWriter.writeChunks) 에 맡김
+ */
+public class ColumnarNumberItemWriter implements ItemStreamWriter<NumberChunk> {
+
+    private final ChannelNumberItemWriter delegate;
+
+    public ColumnarNumberItemWriter(ChannelNumberItemWriter delegate) {
+        Assert.notNull(delegate, "delegate must be set");
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public void write(List<? extends NumberChunk> items) throws Exception {
+        delegate.writeChunks(items);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        delegate.close();
+    }
+}
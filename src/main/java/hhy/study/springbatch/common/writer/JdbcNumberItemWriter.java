@@ -0,0 +1,271 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.common.repository.BufferedJobRepository;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemStreamItemWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Purpose         : NumberVO 를 DB table 에 insert 하는 Writer (txt -> DB 적재, 2020.10 emart 건)
+ * @Comment         : insert 1건씩 대신
+ *                    - multi-row VALUES : INSERT INTO t (NUM_KEY, NUM) VALUES (?,?),(?,?)... 로 rowsPerStatement 건을 statement 1개로
+ *                    - JDBC batch : 같은 PreparedStatement 에 addBatch -> executeBatch 1번 (chunk 안에서 statement 재사용, 나머지는 1건짜리 statement)
+ *                    - parallelism 2 이상이면 chunk 를 나눠서 pool 의 connection parallelism 개로 동시에 insert
+ *                    connection 은 autoCommit 끄고 chunk transaction 에 맞춰서 commit/rollback (beforeCommit 에 commit, rollback 되면 rollback)
+ *                    -> step 의 transactionManager 가 다른 DataSource(또는 Resourceless) 여도 chunk 단위로 같이 commit 됨
+ *                    transaction 밖에서 write 하면 바로 commit
+ *                    staging table 에 쓰고 끝나면 교체하려면 StagingTableTasklet 참고 (LoadJobConfig)
+ *                    insert 는 되돌릴 수 없으므로 BufferedJobRepository 에 chunk 마다 step metadata 를 쓰도록 표시 (FLUSH_EVERY_CHUNK_KEY)
+ * @Disadvantages   : chunk 의 DB commit 후 JobRepository commit 이 실패하면 재시작시 그 chunk 가 다시 insert 됨 (staging 모드도 staging 에 중복된 채로 교체됨)
+ *                    parallel connection 중 일부만 commit 에 실패하면 나머지는 이미 commit 되어 있음
+ */
+public class JdbcNumberItemWriter extends AbstractItemStreamItemWriter<NumberVO> {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private DataSource dataSource;
+    private String table = "NUMBER_ITEM";
+    private int rowsPerStatement = 100;
+    private int parallelism = 1;
+
+    private String multiRowSql;
+    private String singleRowSql;
+    private ExecutorService executor;
+
+    public JdbcNumberItemWriter() {
+        setName(ClassUtils.getShortName(JdbcNumberItemWriter.class));
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /* 대상 table, 컬럼은 NUM_KEY(VARCHAR), NUM(INT) */
+    public void setTable(String table) {
+        Assert.hasText(table, "table must not be empty");
+        this.table = table;
+    }
+
+    /* statement 1개의 VALUES row 수 (1 이면 일반 JDBC batch) */
+    public void setRowsPerStatement(int rowsPerStatement) {
+        Assert.isTrue(rowsPerStatement > 0 && rowsPerStatement <= MAX_ROWS_PER_STATEMENT,
+                "rowsPerStatement must be between 1 and " + MAX_ROWS_PER_STATEMENT);
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    /* chunk 1개를 동시에 insert 하는 connection 수 (pool 크기 이하) */
+    public void setParallelism(int parallelism) {
+        Assert.isTrue(parallelism > 0, "parallelism must be greater than zero");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(dataSource, "dataSource must be set");
+        super.open(executionContext);
+        executionContext.put(BufferedJobRepository.FLUSH_EVERY_CHUNK_KEY, true);
+        multiRowSql = insertSql(rowsPerStatement);
+        singleRowSql = insertSql(1);
+        if (parallelism > 1) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, getExecutionContextKey("writer-") + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public void write(List<? extends NumberVO> items) throws Exception {
+        Assert.state(multiRowSql != null, "Writer must be open before it can be written to");
+        if (items.isEmpty()) {
+            return;
+        }
+
+        int slices = Math.min(parallelism, (items.size() + rowsPerStatement - 1) / rowsPerStatement);
+        List<Connection> connections = new ArrayList<>(slices);
+        try {
+            if (slices <= 1) {
+                connections.add(insert(items));
+            } else {
+                int sliceSize = (items.size() + slices - 1) / slices;
+                List<Future<Connection>> futures = new ArrayList<>(slices);
+                for (int from = 0; from < items.size(); from += sliceSize) {
+                    List<? extends NumberVO> slice = items.subList(from, Math.min(from + sliceSize, items.size()));
+                    futures.add(executor.submit(() -> insert(slice)));
+                }
+                Exception failure = null;
+                for (Future<Connection> future : futures) {
+                    try {
+                        connections.add(future.get());
+                    } catch (ExecutionException e) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        } catch (Exception e) {
+            rollback(connections);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new CommitSynchronization(connections));
+        } else {
+            commit(connections);
+        }
+    }
+
+    /* 실패하면 connection 을 닫고 예외, 성공하면 commit 전 connection 반환 */
+    private Connection insert(List<? extends NumberVO> items) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            int full = items.size() / rowsPerStatement * rowsPerStatement;
+            if (full > 0) {
+                try (PreparedStatement statement = connection.prepareStatement(multiRowSql)) {
+                    for (int i = 0; i < full; i += rowsPerStatement) {
+                        for (int row = 0; row < rowsPerStatement; row++) {
+                            NumberVO item = items.get(i + row);
+                            statement.setString(row * 2 + 1, item.getKey());
+                            statement.setInt(row * 2 + 2, item.getNum());
+                        }
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            if (full < items.size()) {
+                try (PreparedStatement statement = connection.prepareStatement(singleRowSql)) {
+                    for (int i = full; i < items.size(); i++) {
+                        NumberVO item = items.get(i);
+                        statement.setString(1, item.getKey());
+                        statement.setInt(2, item.getNum());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            rollback(connection);
+            throw e;
+        }
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (NUM_KEY, NUM) VALUES ");
+        for (int row = 0; row < rows; row++) {
+            sql.append(row == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private void commit(List<Connection> connections) throws SQLException {
+        SQLException failure = null;
+        for (Connection connection : connections) {
+            try {
+                if (failure == null) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                failure = e;
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void rollback(List<Connection> connections) {
+        for (Connection connection : connections) {
+            rollback(connection);
+        }
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            /* 닫으면 pool 이 정리함 */
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            /* ignore */
+        }
+    }
+
+    private class CommitSynchronization implements TransactionSynchronization {
+
+        private final List<Connection> connections;
+        private boolean completed;
+
+        private CommitSynchronization(List<Connection> connections) {
+            this.connections = connections;
+        }
+
+        /* 실패하면 예외가 chunk transaction 까지 올라가서 chunk 가 rollback 됨 */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            completed = true;
+            try {
+                commit(connections);
+            } catch (SQLException e) {
+                throw new ItemStreamException("Failed to commit " + table, e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!completed && status != TransactionSynchronization.STATUS_COMMITTED) {
+                rollback(connections);
+            } else if (!completed) {
+                /* beforeCommit 없이 commit 되는 경우는 없지만 connection 은 반환 */
+                try {
+                    commit(connections);
+                } catch (SQLException e) {
+                    throw new ItemStreamException("Failed to commit " + table, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.common.reader.SynchronizedBatchItemReader;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * @Purpose         : multi-thread step 에서 chunk 를 읽은 순서대로 write/commit 하는 Writer wrapper
+ * @Comment         : SynchronizedBatchItemReader 의 batch 순번으로 앞 chunk 가 commit 될 때까지 기다렸다가 delegate 에 쓴다.
+ *                    한번에 한 쓰레드만 delegate 를 사용하므로 FlatFileItemWriter 처럼 thread-safe 하지 않은 writer 도 사용 가능하고,
+ *                    delegate 의 재시작 위치(update) 도 commit 된 순서와 일치한다.
+ */
+public class OrderedItemWriter<T> implements ItemStreamWriter<T> {
+
+    private final ItemWriter<T> delegate;
+    private final SynchronizedBatchItemReader<?> sequencer;
+
+    public OrderedItemWriter(ItemWriter<T> delegate, SynchronizedBatchItemReader<?> sequencer) {
+        Assert.notNull(delegate, "delegate must be set");
+        Assert.notNull(sequencer, "sequencer must be set");
+        this.delegate = delegate;
+        this.sequencer = sequencer;
+    }
+
+    @Override
+    public void write(List<? extends T> items) throws Exception {
+        sequencer.awaitTurn();
+        delegate.write(items);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+}
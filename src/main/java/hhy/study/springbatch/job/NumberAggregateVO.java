@@ -0,0 +1,62 @@
+package hhy.study.springbatch.job;
+
+public class NumberAggregateVO {
+    private String key;
+    private long sum;
+    private long count;
+    private int min;
+    private int max;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    /* 같은 key 의 집계를 합침 (spill run 병합용) */
+    public void merge(NumberAggregateVO other) {
+        sum += other.sum;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    @Override
+    public String toString() {
+        return key + "|" + sum + "|" + count + "|" + min + "|" + max;
+    }
+}
@@ -0,0 +1,100 @@
+package hhy.study.springbatch.job;
+
+import org.springframework.util.Assert;
+
+/**
+ * @Purpose         : key|num chunk 의 columnar 표현 (NumberVO List 대체)
+ * @Comment         : num 은 int[] 컬럼, key 는 NumberKeyDictionary id 의 int[] 컬럼 -> item 마다 객체/String/boxing 없음
+ *                    집계성 processor 는 nums() 배열을 0 ~ size() 까지 단순 loop 로 돌면 JIT 가 vectorize 할 수 있음 (sum/min/max 참고)
+ *                    spring batch 입장에서는 NumberChunk 1개가 item 1개 (ColumnarStepSupport 참고)
+ */
+public class NumberChunk {
+
+    private final NumberKeyDictionary dictionary;
+    private final int[] keyIds;
+    private final int[] nums;
+    private int size;
+
+    public NumberChunk(NumberKeyDictionary dictionary, int capacity) {
+        Assert.notNull(dictionary, "dictionary must not be null");
+        Assert.isTrue(capacity > 0, "capacity must be greater than zero");
+        this.dictionary = dictionary;
+        this.keyIds = new int[capacity];
+        this.nums = new int[capacity];
+    }
+
+    public void add(int keyId, int num) {
+        keyIds[size] = keyId;
+        nums[size] = num;
+        size++;
+    }
+
+    public void add(String key, int num) {
+        add(dictionary.id(key), num);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return nums.length;
+    }
+
+    public boolean isFull() {
+        return size == nums.length;
+    }
+
+    public NumberKeyDictionary dictionary() {
+        return dictionary;
+    }
+
+    public int num(int index) {
+        return nums[index];
+    }
+
+    public void setNum(int index, int num) {
+        nums[index] = num;
+    }
+
+    public int keyId(int index) {
+        return keyIds[index];
+    }
+
+    public String key(int index) {
+        return dictionary.key(keyIds[index]);
+    }
+
+    /* 원본 컬럼 배열 (유효 범위는 0 ~ size()-1) */
+    public int[] nums() {
+        return nums;
+    }
+
+    public int[] keyIds() {
+        return keyIds;
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += nums[i];
+        }
+        return sum;
+    }
+
+    public int min() {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, nums[i]);
+        }
+        return min;
+    }
+
+    public int max() {
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, nums[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,120 @@
+package hhy.study.springbatch.job;
+
+import hhy.study.springbatch.common.reader.KeyInternCache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @Purpose         : NumberChunk 의 key 컬럼용 사전 (key -> int id)
+ * @Comment         : 같은 key 는 String 을 한번만 만들고 이후에는 id 만 저장 (key 종류가 적은 입력에서 item 당 String 생성 제거)
+ *                    reader 가 byte 범위로 바로 조회할 수 있도록 원본 byte 로 hash/비교 (open addressing)
+ *                    사전에 없는 key 의 String 은 KeyInternCache 를 거쳐서 생성 (설정시) -> miss 도 공유 cache 에서 재사용, hit ratio 는 batch.key.cache.* 로 같이 집계
+ *                    크기 제한 없음 -> 사용하는 쪽에서 size() 를 보고 새 사전으로 교체 (ColumnarNumberItemReader 의 maxKeys)
+ *                    id 는 그 사전 안에서만 유효 (NumberChunk 가 자기 사전을 들고 있음). 쓰레드 안전하지 않음 -> 단일 쓰레드 step 에서 사용
+ */
+public class NumberKeyDictionary {
+
+    private final Charset charset;
+    private final KeyInternCache keyCache;
+
+    private byte[][] bytes = new byte[16][];
+    private String[] keys = new String[16];
+    private int size;
+
+    /* 값 = id + 1, 0 이면 빈 slot */
+    private int[] table = new int[32];
+
+    public NumberKeyDictionary() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public NumberKeyDictionary(Charset charset) {
+        this(charset, null);
+    }
+
+    public NumberKeyDictionary(Charset charset, KeyInternCache keyCache) {
+        this.charset = charset;
+        this.keyCache = keyCache;
+    }
+
+    /* buffer 의 [from, to) byte 를 key 로 하는 id (없으면 등록) */
+    public int id(ByteBuffer buffer, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                byte[] key = new byte[to - from];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = buffer.get(from + i);
+                }
+                return add(slot, key);
+            }
+            if (matches(bytes[entry - 1], buffer, from, to)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public int id(String key) {
+        byte[] encoded = key.getBytes(charset);
+        return id(ByteBuffer.wrap(encoded), 0, encoded.length);
+    }
+
+    public String key(int id) {
+        return keys[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(int slot, byte[] key) {
+        if (size == keys.length) {
+            bytes = Arrays.copyOf(bytes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int id = size++;
+        bytes[id] = key;
+        keys[id] = keyCache != null ? keyCache.intern(ByteBuffer.wrap(key), 0, key.length, charset) : new String(key, charset);
+        table[slot] = id + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(Arrays.hashCode(bytes[id])) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int from, int to) {
+        if (key.length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -19,4 +19,9 @@ public class NumberVO {
     public void setNum(int num) {
         this.num = num;
     }
+
+    @Override
+    public String toString() {
+        return key + "|" + num;
+    }
 }
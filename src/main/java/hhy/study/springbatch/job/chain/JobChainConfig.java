@@ -0,0 +1,42 @@
+package hhy.study.springbatch.job.chain;
+
+import hhy.study.springbatch.common.chain.JobChain;
+import hhy.study.springbatch.common.chain.JobChainLauncher;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * @Purpose         : SimpleJob / FlowJob / DecideJob / TaskletJob 을 순서(DAG)대로 실행하는 job chain 구성
+ * @Comment         : 2020.03 epopcon 이관 ~ 정제 ~ 적재 ~ 엑셀생성 건 : job 끼리 순서보장을 위해 직접 짰던 순차 실행 코드 대체
+ *                    migrate(TaskletJob) -> refine(SimpleJob), load(FlowJob) 동시 실행 -> excel(DecideJob)
+ *                    chain parameter(requiredVal, executeTime) 는 모든 job 에 전달, 같은 executeTime 으로 다시 실행하면 완료된 job 은 건너뜀
+ *                    동시 실행 job 수 : springbatch.chain.max-parallel (기본 2)
+ */
+
+@Configuration
+public class JobChainConfig {
+
+    @Bean
+    public JobChainLauncher jobChainLauncher(JobLauncher jobLauncher,
+                                             JobRepository jobRepository,
+                                             Map<String, Job> jobs,
+                                             @Value("${springbatch.chain.max-parallel:2}") int maxParallel) {
+        return new JobChainLauncher(jobLauncher, jobRepository, jobs, maxParallel);
+    }
+
+    @Bean
+    public JobChain nightlyJobChain() {
+        return JobChain.builder("nightly")
+                .node("migrate", "taskletJob")
+                .node("refine", "simpleJob").after("migrate")
+                .node("load", "flowJob").after("migrate")
+                .node("excel", "decideJob").after("refine", "load").pass("refine", "requiredVal", "requiredVal")
+                .build();
+    }
+}
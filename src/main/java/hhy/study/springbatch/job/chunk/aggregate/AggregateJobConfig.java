@@ -0,0 +1,132 @@
+package hhy.study.springbatch.job.chunk.aggregate;
+
+import hhy.study.springbatch.common.aggregate.KeyedAggregateTasklet;
+import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.reader.KeyCacheConfig;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.job.NumberAggregateVO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.*;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.item.file.FlatFileItemWriter;
+import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+
+/**
+ * @Purpose         : key|num 파일을 key 별 sum/count/min/max 로 집계하는 형태 (외부 DB 없는 group by)
+ * @Comment         : aggregateJobStep -> KeyedAggregateTasklet 이 reader 로 읽어서 primitive hash table 에 누적,
+ *                    maxEntries(key 수) 를 넘으면 정렬된 run 으로 spill, 끝나면 run 을 병합해서
+ *                    data/aggregate/output.csv 에 key|sum|count|min|max 로 출력
+ *                    checkpointItems 단위로 재시작 가능 (run 목록 + 작은 table snapshot + reader offset 을 ExecutionContext 에 저장)
+ */
+
+@Configuration
+@EnableBatchProcessing
+@Import(KeyCacheConfig.class)
+public class AggregateJobConfig {
+    private static final Logger LOG = LogManager.getLogger(AggregateJobConfig.class);
+
+    public final String JOB_NAME = "AggregateJob";
+
+    private static final String OUTPUT_PATH = "data/aggregate/output.csv";
+    private static final String SPILL_PATH = "data/aggregate/spill";
+
+    JobBuilderFactory jobBuilderFactory;
+    StepBuilderFactory stepBuilderFactory;
+    KeyInternCache numberKeyCache;
+
+    @Autowired
+    public AggregateJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, KeyInternCache numberKeyCache) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.numberKeyCache = numberKeyCache;
+    }
+
+    /**
+     * 1. validator
+     * 2. step(read -> aggregate/spill -> merge -> write)
+     */
+
+    @Bean
+    public JobParametersValidator aggregateJobValidator() {
+        String[] requiredKeys = new String[]{"requiredVal"};
+        String[] optionalKeys = new String[]{"executeTime", "maxEntries", "checkpointItems"};
+        return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
+    }
+
+    @Bean
+    public Job aggregateJob() throws Exception {
+        return jobBuilderFactory.get(JOB_NAME)
+                .validator(aggregateJobValidator())
+                .start(aggregateJobStep(null, null))
+                .listener(new JobListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step aggregateJobStep(@Value("#{jobParameters['maxEntries']}") Long maxEntries,
+                                 @Value("#{jobParameters['checkpointItems']}") Long checkpointItems) {
+        MappedNumberItemReader itemReader = aggregateItemReader(null);
+        FlatFileItemWriter<NumberAggregateVO> itemWriter = aggregateItemWriter();
+
+        KeyedAggregateTasklet tasklet = new KeyedAggregateTasklet(itemReader, itemWriter, new File(SPILL_PATH));
+        if (maxEntries != null) {
+            tasklet.setMaxEntries(maxEntries.intValue());
+        }
+        if (checkpointItems != null) {
+            tasklet.setCheckpointItems(checkpointItems.intValue());
+        }
+
+        /* reader offset / writer 위치는 stream 으로, run 목록은 tasklet 이 같은 commit 에 저장 */
+        return stepBuilderFactory.get("aggregateJobStep")
+                .tasklet(tasklet)
+                .stream(itemReader)
+                .stream(itemWriter)
+                .listener((StepExecutionListener) tasklet)
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public MappedNumberItemReader aggregateItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        Resource resource = new ClassPathResource(requiredVal);
+        LOG.info("{} : {}", resource, resource.exists() ? "file exist." : "file not exist.");
+
+        itemReader.setResource(resource);
+        itemReader.setKeyCache(numberKeyCache);
+
+        return itemReader;
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemWriter<NumberAggregateVO> aggregateItemWriter() {
+        /* 집계 결과는 key 수 만큼이라 기본 FlatFileItemWriter 사용 */
+        return new FlatFileItemWriterBuilder<NumberAggregateVO>()
+                .name("aggregateItemWriter")
+                .resource(new FileSystemResource(OUTPUT_PATH))
+                .delimited()
+                .delimiter("|")
+                .names(new String[]{"key", "sum", "count", "min", "max"})
+                .build();
+    }
+}
@@ -1,28 +1,37 @@
 package hhy.study.springbatch.job.chunk.flow;
 
+import hhy.study.springbatch.common.handoff.StepHandoff;
 import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.SamplingTraceListener;
 import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.reader.KeyCacheConfig;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.step.MultiThreadStepSupport;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
 import hhy.study.springbatch.job.NumberVO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.batch.core.*;
 import org.springframework.batch.core.configuration.annotation.*;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
 import org.springframework.batch.core.job.flow.FlowExecutionStatus;
 import org.springframework.batch.core.job.flow.JobExecutionDecider;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.support.CompositeItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -30,20 +39,30 @@ import java.util.Random;
  * @Date            : 2020.03
  * @Author          : 한혜연
  * @Comment         : success/fail 에 따른 분기가 가능, 조건에 따라서 분기 가능
+ *                    decidedJobStep 은 입력 파일을 다시 읽지 않고 decideJobStep 이 넘긴 handoff 파일을 읽음 (StepHandoff 참고)
  */
 
 @Configuration
 @EnableBatchProcessing
+@Import(KeyCacheConfig.class)
 public class DecideJobConfig {
+    private static final Logger LOG = LogManager.getLogger(DecideJobConfig.class);
+
+    private static final int CHUNK_SIZE = 5;
+
     public final String JOB_NAME = "DecideJob";
 
+    private static final String HANDOFF_PATH = "data/handoff";
+
     JobBuilderFactory jobBuilderFactory;
     StepBuilderFactory stepBuilderFactory;
+    KeyInternCache numberKeyCache;
 
     @Autowired
-    public DecideJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory) {
+    public DecideJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, KeyInternCache numberKeyCache) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
+        this.numberKeyCache = numberKeyCache;
     }
 
     /**
@@ -54,7 +73,7 @@ public class DecideJobConfig {
     @Bean
     public JobParametersValidator decideJobParamsValidator() {
         String[] requiredKeys = new String[]{"requiredVal"};
-        String[] optionalKeys = new String[]{"executeTime"};
+        String[] optionalKeys = new String[]{"executeTime", "workerCount", "chunkMin", "chunkMax", "traceSample", "syncPolicy", "outputCompression"};
         return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
     }
 
@@ -83,154 +102,112 @@ public class DecideJobConfig {
     public Job decideJob() throws Exception {
         return jobBuilderFactory.get(JOB_NAME)
                 .validator(decideJobParamsValidator())
-                .start(decideJobStep())
+                .start(decideJobStep(null, null, null))
                 .next(decider())
                 .from(decider())
                     .on("FAIL")
                     .end()
                 .from(decider())
                 .on("SUCCESS")
-                .to(decidedJobStep())
+                .to(decidedJobStep(null, null, null))
                 .end()
                 .listener(new JobListener())
+                .listener(decideStep1Handoff())
                 .build();
     }
 
+    /* decideJobStep -> decidedJobStep 전달 통로. FAIL 로 끝나도 job 은 COMPLETED 라 파일 삭제 */
+    @Bean
+    public StepHandoff decideStep1Handoff() {
+        return new StepHandoff(new File(HANDOFF_PATH), "DecideJob-step1");
+    }
+
     @Bean
     @JobScope
-    public Step decideJobStep () {
-        return stepBuilderFactory.get("decideJobStep")
-                .<NumberVO, NumberVO>chunk(5)
-                .reader(decideItemReader(null))
-                .writer(decideItemWriter())
-                .listener(new StepListener())
+    public Step decideJobStep (@Value("#{jobParameters['workerCount']}") Long workerCount,
+                               @Value("#{jobParameters['chunkMin']}") Long chunkMin,
+                               @Value("#{jobParameters['chunkMax']}") Long chunkMax) {
+        SimpleStepBuilder<NumberVO, NumberVO> builder = MultiThreadStepSupport
+                .<NumberVO, NumberVO>chunk(stepBuilderFactory.get("decideJobStep"), CHUNK_SIZE, workerCount, chunkMin, chunkMax);
+        builder.listener((StepExecutionListener) new StepListener());
+        builder.listener((StepExecutionListener) new SamplingTraceListener());
+
+        return MultiThreadStepSupport.readAndWrite(builder, decideItemReader(null), decideItemWriter(null, null, null), CHUNK_SIZE, workerCount)
                 .build();
 
     }
 
     @Bean
     @StepScope
-    public FlatFileItemReader<NumberVO> decideItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
-
-        FlatFileItemReader<NumberVO> fileItemReader = new FlatFileItemReader<>();
+    public MappedNumberItemReader decideItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
         Resource resource = new ClassPathResource(requiredVal);
-        if (resource.exists()) {
-            System.out.println("file exist.");
-        } else {
-            System.out.println("file not exist.");
-        }
+        LOG.info("{} : {}", resource, resource.exists() ? "file exist." : "file not exist.");
 
-        fileItemReader.setResource(resource);
+        itemReader.setResource(resource);
+        itemReader.setKeyCache(numberKeyCache);
 
-        DefaultLineMapper<NumberVO> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter("|");
-        lineTokenizer.setNames(new String[] {"key","num"});
-
-        lineMapper.setLineTokenizer(lineTokenizer);
-
-        BeanWrapperFieldSetMapper<NumberVO> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(NumberVO.class);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-
-        fileItemReader.setLineMapper(lineMapper);
-        fileItemReader.setLinesToSkip(0);
-
-        return fileItemReader;
+        return itemReader;
     }
 
     @Bean
     @StepScope
-    public FlatFileItemWriter<NumberVO> decideItemWriter() {
-        Resource outputResource = new FileSystemResource("data/dflow-step1/output.csv");
-
-        FlatFileItemWriter<NumberVO> fileItemWriter = new FlatFileItemWriter<>();
-        fileItemWriter.setResource(outputResource);
-
-        fileItemWriter.setAppendAllowed(true);
-
-        fileItemWriter.setLineAggregator(new DelimitedLineAggregator<NumberVO>(){
-            {
-                setDelimiter("@@");
-                setFieldExtractor(new BeanWrapperFieldExtractor<NumberVO>(){
-                    {
-                        setNames(new String[]{"key", "num"});
-                    }
-                });
-            }
-
-        });
-
-        return fileItemWriter;
+    public ItemStreamWriter<NumberVO> decideItemWriter(@Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                       @Value("#{jobParameters['outputCompression']}") String outputCompression,
+                                                       @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        boolean gzip = "gzip".equalsIgnoreCase(outputCompression);
+        Resource outputResource = new FileSystemResource("data/dflow-step1/output.csv" + (gzip ? ".gz" : ""));
+
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(outputResource);
+        itemWriter.setDelimiter("@@");
+        itemWriter.setAppendAllowed(true);
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+        itemWriter.setCompressed(gzip);
+
+        /* 같은 chunk 를 handoff 파일에도 기록 -> decidedJobStep 이 입력 파일을 다시 읽고 파싱하지 않음 */
+        CompositeItemWriter<NumberVO> compositeWriter = new CompositeItemWriter<>();
+        compositeWriter.setDelegates(Arrays.asList(itemWriter,
+                decideStep1Handoff().writer(jobInstanceId, ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy))));
+
+        return compositeWriter;
     }
 
     @Bean
     @JobScope
-    public Step decidedJobStep () {
-        return stepBuilderFactory.get("successJobStep")
-                .<NumberVO, NumberVO>chunk(5)
-                .reader(decidedItemReader(null))
-                .writer(decidedItemWriter())
-                .listener(new StepListener())
+    public Step decidedJobStep (@Value("#{jobParameters['workerCount']}") Long workerCount,
+                               @Value("#{jobParameters['chunkMin']}") Long chunkMin,
+                               @Value("#{jobParameters['chunkMax']}") Long chunkMax) {
+        SimpleStepBuilder<NumberVO, NumberVO> builder = MultiThreadStepSupport
+                .<NumberVO, NumberVO>chunk(stepBuilderFactory.get("successJobStep"), CHUNK_SIZE, workerCount, chunkMin, chunkMax);
+        builder.listener((StepExecutionListener) new StepListener());
+
+        return MultiThreadStepSupport.readAndWrite(builder, decidedItemReader(null), decidedItemWriter(null, null), CHUNK_SIZE, workerCount)
                 .build();
 
     }
 
     @Bean
     @StepScope
-    public FlatFileItemReader<NumberVO> decidedItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
-
-        FlatFileItemReader<NumberVO> fileItemReader = new FlatFileItemReader<>();
-        Resource resource = new ClassPathResource(requiredVal);
-        if (resource.exists()) {
-            System.out.println("file exist.");
-        } else {
-            System.out.println("file not exist.");
-        }
-
-        fileItemReader.setResource(resource);
-
-        DefaultLineMapper<NumberVO> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter("|");
-        lineTokenizer.setNames(new String[] {"key","num"});
-
-        lineMapper.setLineTokenizer(lineTokenizer);
-
-        BeanWrapperFieldSetMapper<NumberVO> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(NumberVO.class);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-
-        fileItemReader.setLineMapper(lineMapper);
-        fileItemReader.setLinesToSkip(0);
-
-        return fileItemReader;
+    public ItemStreamReader<NumberVO> decidedItemReader(@Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        /* requiredVal 을 다시 읽는 대신 decideJobStep 이 넘긴 NumberVO 를 읽음 (재시작시에도 handoff 파일이 남아있음) */
+        return decideStep1Handoff().reader(jobInstanceId, numberKeyCache);
     }
 
     @Bean
     @StepScope
-    public FlatFileItemWriter<NumberVO> decidedItemWriter() {
-        Resource outputResource = new FileSystemResource("data/dflow-success/output.csv");
-
-        FlatFileItemWriter<NumberVO> fileItemWriter = new FlatFileItemWriter<>();
-        fileItemWriter.setResource(outputResource);
-
-        fileItemWriter.setAppendAllowed(true);
-
-        fileItemWriter.setLineAggregator(new DelimitedLineAggregator<NumberVO>(){
-            {
-                setDelimiter("**");
-                setFieldExtractor(new BeanWrapperFieldExtractor<NumberVO>(){
-                    {
-                        setNames(new String[]{"key", "num"});
-                    }
-                });
-            }
-
-        });
-
-        return fileItemWriter;
+    public ChannelNumberItemWriter decidedItemWriter(@Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                     @Value("#{jobParameters['outputCompression']}") String outputCompression) {
+        boolean gzip = "gzip".equalsIgnoreCase(outputCompression);
+        Resource outputResource = new FileSystemResource("data/dflow-success/output.csv" + (gzip ? ".gz" : ""));
+
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(outputResource);
+        itemWriter.setDelimiter("**");
+        itemWriter.setAppendAllowed(true);
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+        itemWriter.setCompressed(gzip);
+
+        return itemWriter;
     }
 }
@@ -1,48 +1,75 @@
 package hhy.study.springbatch.job.chunk.flow;
 
+import hhy.study.springbatch.common.handoff.StepHandoff;
 import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.SamplingTraceListener;
 import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.reader.BinaryNumberItemReader;
+import hhy.study.springbatch.common.reader.KeyCacheConfig;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.step.MultiThreadStepSupport;
+import hhy.study.springbatch.common.writer.BinaryNumberItemWriter;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
 import hhy.study.springbatch.job.NumberVO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParametersValidator;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.*;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+import org.springframework.batch.item.support.CompositeItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
+import java.io.File;
+import java.util.Arrays;
+
 /**
  * @Purpose         : 흐름을 가진 Spring Batch 형태
  * @Date            : 2020.03
  * @Author          : 한혜연
  * @Comment         : 복잡도가 중간인 배치 프로그램에서 사용할 것, success/fail 에 따른 분기가 가능,
  *                    fail 상황을 control 할 경우 커스텀해서 사용하자
+ *                    outputFormat=binary 면 flowJobStep 은 binary block 파일로 쓰고 successJobStep 은 그 파일을 이어서 읽음
+ *                    (text 변환/파싱 없이 step 간 전달, BinaryNumberItemWriter / BinaryNumberItemReader 참고)
+ *                    text 출력이어도 successJobStep 은 입력 파일을 다시 읽지 않고 flowJobStep 이 넘긴 handoff 파일을 읽음 (StepHandoff 참고)
  */
 
 @Configuration
 @EnableBatchProcessing
+@Import(KeyCacheConfig.class)
 public class FlowJobConfig {
+    private static final Logger LOG = LogManager.getLogger(FlowJobConfig.class);
+
+    private static final int CHUNK_SIZE = 5;
+
     public final String JOB_NAME = "FlowJob";
 
+    /* job instance 마다 별도 파일 (동시에 도는 다른 instance 와 겹치지 않고, 재시작하면 같은 파일을 이어서 씀) */
+    private static final String BINARY_STEP1_PATH = "data/flow-step1/output-%d.nbf";
+    private static final String HANDOFF_PATH = "data/handoff";
+
     JobBuilderFactory jobBuilderFactory;
     StepBuilderFactory stepBuilderFactory;
+    KeyInternCache numberKeyCache;
 
     @Autowired
-    public FlowJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory) {
+    public FlowJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, KeyInternCache numberKeyCache) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
+        this.numberKeyCache = numberKeyCache;
     }
 
     /**
@@ -53,7 +80,7 @@ public class FlowJobConfig {
     @Bean
     public JobParametersValidator flowJobParamsValidator() {
         String[] requiredKeys = new String[]{"requiredVal"};
-        String[] optionalKeys = new String[]{"executeTime"};
+        String[] optionalKeys = new String[]{"executeTime", "workerCount", "chunkMin", "chunkMax", "traceSample", "syncPolicy", "outputCompression", "outputFormat"};
         return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
     }
 
@@ -61,154 +88,132 @@ public class FlowJobConfig {
     public Job flowJob() throws Exception {
         return jobBuilderFactory.get(JOB_NAME)
                 .validator(flowJobParamsValidator())
-                .start(flowJobStep())
+                .start(flowJobStep(null, null, null))
                     .on("FAILD")
                     .end()
-                .from(flowJobStep())
+                .from(flowJobStep(null, null, null))
                     .on("*")
-                    .to(successJobStep())
+                    .to(successJobStep(null, null, null))
                     .on("*")
                 .end()
                 .end()
                 .listener(new JobListener())
+                .listener(flowStep1Handoff())
                 .build();
     }
 
+    /* flowJobStep -> successJobStep 전달 통로. job 이 COMPLETED 면 파일 삭제 */
+    @Bean
+    public StepHandoff flowStep1Handoff() {
+        return new StepHandoff(new File(HANDOFF_PATH), "FlowJob-step1");
+    }
+
     @Bean
     @JobScope
-    public Step flowJobStep () {
-        return stepBuilderFactory.get("flowJobStep")
-                .<NumberVO, NumberVO>chunk(5)
-                .reader(flowItemReader(null))
-                .writer(flowItemWriter())
-                .listener(new StepListener())
+    public Step flowJobStep (@Value("#{jobParameters['workerCount']}") Long workerCount,
+                               @Value("#{jobParameters['chunkMin']}") Long chunkMin,
+                               @Value("#{jobParameters['chunkMax']}") Long chunkMax) {
+        SimpleStepBuilder<NumberVO, NumberVO> builder = MultiThreadStepSupport
+                .<NumberVO, NumberVO>chunk(stepBuilderFactory.get("flowJobStep"), CHUNK_SIZE, workerCount, chunkMin, chunkMax);
+        builder.listener((StepExecutionListener) new StepListener());
+        builder.listener((StepExecutionListener) new SamplingTraceListener());
+
+        return MultiThreadStepSupport.readAndWrite(builder, flowItemReader(null), flowItemWriter(null, null, null, null), CHUNK_SIZE, workerCount)
                 .build();
 
     }
 
     @Bean
     @StepScope
-    public FlatFileItemReader<NumberVO> flowItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
-
-        FlatFileItemReader<NumberVO> fileItemReader = new FlatFileItemReader<>();
+    public MappedNumberItemReader flowItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
         Resource resource = new ClassPathResource(requiredVal);
-        if (resource.exists()) {
-            System.out.println("file exist.");
-        } else {
-            System.out.println("file not exist.");
-        }
-
-        fileItemReader.setResource(resource);
-
-        DefaultLineMapper<NumberVO> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter("|");
-        lineTokenizer.setNames(new String[] {"key","num"});
+        LOG.info("{} : {}", resource, resource.exists() ? "file exist." : "file not exist.");
 
-        lineMapper.setLineTokenizer(lineTokenizer);
+        itemReader.setResource(resource);
+        itemReader.setKeyCache(numberKeyCache);
 
-        BeanWrapperFieldSetMapper<NumberVO> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(NumberVO.class);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-
-        fileItemReader.setLineMapper(lineMapper);
-        fileItemReader.setLinesToSkip(0);
-
-        return fileItemReader;
+        return itemReader;
     }
 
     @Bean
     @StepScope
-    public FlatFileItemWriter<NumberVO> flowItemWriter() {
-        Resource outputResource = new FileSystemResource("data/flow-step1/output.csv");
-
-        FlatFileItemWriter<NumberVO> fileItemWriter = new FlatFileItemWriter<>();
-        fileItemWriter.setResource(outputResource);
+    public ItemStreamWriter<NumberVO> flowItemWriter(@Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                     @Value("#{jobParameters['outputCompression']}") String outputCompression,
+                                                     @Value("#{jobParameters['outputFormat']}") String outputFormat,
+                                                     @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        boolean gzip = "gzip".equalsIgnoreCase(outputCompression);
+        if ("binary".equalsIgnoreCase(outputFormat)) {
+            /* successJobStep 으로 넘길 파일이라 append 하지 않음. outputCompression=gzip 이면 block 별 deflate */
+            BinaryNumberItemWriter itemWriter = new BinaryNumberItemWriter();
+            itemWriter.setResource(new FileSystemResource(String.format(BINARY_STEP1_PATH, jobInstanceId)));
+            itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+            itemWriter.setCompressed(gzip);
+            return itemWriter;
+        }
 
-        fileItemWriter.setAppendAllowed(true);
+        Resource outputResource = new FileSystemResource("data/flow-step1/output.csv" + (gzip ? ".gz" : ""));
 
-        fileItemWriter.setLineAggregator(new DelimitedLineAggregator<NumberVO>(){
-            {
-                setDelimiter("@@");
-                setFieldExtractor(new BeanWrapperFieldExtractor<NumberVO>(){
-                    {
-                        setNames(new String[]{"key", "num"});
-                    }
-                });
-            }
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(outputResource);
+        itemWriter.setDelimiter("@@");
+        itemWriter.setAppendAllowed(true);
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+        itemWriter.setCompressed(gzip);
 
-        });
+        /* 같은 chunk 를 handoff 파일에도 기록 -> successJobStep 이 입력 파일을 다시 읽고 파싱하지 않음 */
+        CompositeItemWriter<NumberVO> compositeWriter = new CompositeItemWriter<>();
+        compositeWriter.setDelegates(Arrays.asList(itemWriter,
+                flowStep1Handoff().writer(jobInstanceId, ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy))));
 
-        return fileItemWriter;
+        return compositeWriter;
     }
 
     @Bean
     @JobScope
-    public Step successJobStep () {
-        return stepBuilderFactory.get("successJobStep")
-                .<NumberVO, NumberVO>chunk(5)
-                .reader(successItemReader(null))
-                .writer(successItemWriter())
-                .listener(new StepListener())
+    public Step successJobStep (@Value("#{jobParameters['workerCount']}") Long workerCount,
+                               @Value("#{jobParameters['chunkMin']}") Long chunkMin,
+                               @Value("#{jobParameters['chunkMax']}") Long chunkMax) {
+        SimpleStepBuilder<NumberVO, NumberVO> builder = MultiThreadStepSupport
+                .<NumberVO, NumberVO>chunk(stepBuilderFactory.get("successJobStep"), CHUNK_SIZE, workerCount, chunkMin, chunkMax);
+        builder.listener((StepExecutionListener) new StepListener());
+
+        return MultiThreadStepSupport.readAndWrite(builder, successItemReader(null, null), successItemWriter(null, null), CHUNK_SIZE, workerCount)
                 .build();
 
     }
 
     @Bean
     @StepScope
-    public FlatFileItemReader<NumberVO> successItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
-
-        FlatFileItemReader<NumberVO> fileItemReader = new FlatFileItemReader<>();
-        Resource resource = new ClassPathResource(requiredVal);
-        if (resource.exists()) {
-            System.out.println("file exist.");
-        } else {
-            System.out.println("file not exist.");
+    public AbstractItemStreamItemReader<NumberVO> successItemReader(@Value("#{jobParameters['outputFormat']}") String outputFormat,
+                                                                    @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        if ("binary".equalsIgnoreCase(outputFormat)) {
+            /* flowJobStep 의 binary 출력을 그대로 읽음 */
+            BinaryNumberItemReader itemReader = new BinaryNumberItemReader();
+            itemReader.setResource(new FileSystemResource(String.format(BINARY_STEP1_PATH, jobInstanceId)));
+            itemReader.setMemoryMapped(true);
+            itemReader.setKeyCache(numberKeyCache);
+            return itemReader;
         }
 
-        fileItemReader.setResource(resource);
-
-        DefaultLineMapper<NumberVO> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter("|");
-        lineTokenizer.setNames(new String[] {"key","num"});
-
-        lineMapper.setLineTokenizer(lineTokenizer);
-
-        BeanWrapperFieldSetMapper<NumberVO> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(NumberVO.class);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-
-        fileItemReader.setLineMapper(lineMapper);
-        fileItemReader.setLinesToSkip(0);
-
-        return fileItemReader;
+        /* requiredVal 을 다시 읽는 대신 flowJobStep 이 넘긴 NumberVO 를 읽음 (재시작시에도 handoff 파일이 남아있음) */
+        return flowStep1Handoff().reader(jobInstanceId, numberKeyCache);
     }
 
     @Bean
     @StepScope
-    public FlatFileItemWriter<NumberVO> successItemWriter() {
-        Resource outputResource = new FileSystemResource("data/flow-success/output.csv");
-
-        FlatFileItemWriter<NumberVO> fileItemWriter = new FlatFileItemWriter<>();
-        fileItemWriter.setResource(outputResource);
-
-        fileItemWriter.setAppendAllowed(true);
-
-        fileItemWriter.setLineAggregator(new DelimitedLineAggregator<NumberVO>(){
-            {
-                setDelimiter("**");
-                setFieldExtractor(new BeanWrapperFieldExtractor<NumberVO>(){
-                    {
-                        setNames(new String[]{"key", "num"});
-                    }
-                });
-            }
-
-        });
-
-        return fileItemWriter;
+    public ChannelNumberItemWriter successItemWriter(@Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                     @Value("#{jobParameters['outputCompression']}") String outputCompression) {
+        boolean gzip = "gzip".equalsIgnoreCase(outputCompression);
+        Resource outputResource = new FileSystemResource("data/flow-success/output.csv" + (gzip ? ".gz" : ""));
+
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(outputResource);
+        itemWriter.setDelimiter("**");
+        itemWriter.setAppendAllowed(true);
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+        itemWriter.setCompressed(gzip);
+
+        return itemWriter;
     }
 }
@@ -0,0 +1,174 @@
+package hhy.study.springbatch.job.chunk.load;
+
+import hhy.study.springbatch.common.jdbc.LazyDataSource;
+import hhy.study.springbatch.common.jdbc.StagingTableTasklet;
+import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.reader.KeyCacheConfig;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.writer.JdbcNumberItemWriter;
+import hhy.study.springbatch.job.NumberVO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.*;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * @Purpose         : txt -> DB 적재 형태 (2020.10 epopcon emart txt -> db 건)
+ * @Comment         : loadPrepareStep -> loadJobStep(MappedNumberItemReader -> JdbcNumberItemWriter) -> loadSwapStep
+ *                    staging=true : staging table(NUMBER_ITEM_STAGING) 에 적재 후 NUMBER_ITEM 과 교체, 아니면 prepare/swap 은 아무것도 안함
+ *                    writerCount : chunk 를 동시에 insert 하는 connection 수, rowsPerStatement : multi-row VALUES row 수, chunkSize (기본 1000)
+ *                    DB : springbatch.load.url (기본 data/load 의 H2 file DB), pool 크기 springbatch.load.pool-size (writerCount 이상)
+ *                    DataSource 는 처음 쓸 때 생성 (LazyDataSource 참고)
+ */
+
+@Configuration
+@EnableBatchProcessing
+@Import(KeyCacheConfig.class)
+public class LoadJobConfig {
+    private static final Logger LOG = LogManager.getLogger(LoadJobConfig.class);
+
+    public final String JOB_NAME = "LoadJob";
+
+    public static final String TABLE = "NUMBER_ITEM";
+
+    /* 대상 table 과 staging table 을 같은 DDL 로 생성
+     * NUM index : KeysetBulkUpdateTasklet 의 구간 경계 조회용, 이름 없는 index (교체 rename 후에도 이름이 겹치지 않음) */
+    public static String[] createTable(String table) {
+        return new String[]{
+                "CREATE TABLE " + table + " (NUM_KEY VARCHAR(255) NOT NULL, NUM INT NOT NULL)",
+                "CREATE INDEX ON " + table + " (NUM)"
+        };
+    }
+
+    public static final String DEFAULT_URL = "jdbc:h2:file:./data/load/number;AUTO_SERVER=TRUE";
+    private static final int CHUNK_SIZE = 1000;
+
+    JobBuilderFactory jobBuilderFactory;
+    StepBuilderFactory stepBuilderFactory;
+    KeyInternCache numberKeyCache;
+
+    private final LazyDataSource loadDataSource;
+
+    @Autowired
+    public LoadJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, KeyInternCache numberKeyCache,
+                         @Value("${springbatch.load.url:" + DEFAULT_URL + "}") String url,
+                         @Value("${springbatch.load.username:sa}") String username,
+                         @Value("${springbatch.load.password:}") String password,
+                         @Value("${springbatch.load.pool-size:4}") int poolSize) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.numberKeyCache = numberKeyCache;
+        this.loadDataSource = new LazyDataSource("batch-load", url, username, password, poolSize, TABLE, createTable(TABLE));
+    }
+
+    /**
+     * 1. validator
+     * 2. step(prepare staging) -> step(read -> jdbc write) -> step(swap)
+     */
+
+    @Bean
+    public JobParametersValidator loadJobValidator() {
+        String[] requiredKeys = new String[]{"requiredVal"};
+        String[] optionalKeys = new String[]{"executeTime", "staging", "writerCount", "rowsPerStatement", "chunkSize"};
+        return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
+    }
+
+    @Bean
+    public Job loadJob() throws Exception {
+        return jobBuilderFactory.get(JOB_NAME)
+                .validator(loadJobValidator())
+                .start(loadPrepareStep(null))
+                .next(loadJobStep(null))
+                .next(loadSwapStep(null))
+                .listener(new JobListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step loadPrepareStep(@Value("#{jobParameters['staging']}") String staging) {
+        return stepBuilderFactory.get("loadPrepareStep")
+                .tasklet(stagingTasklet(staging, StagingTableTasklet.Mode.PREPARE))
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step loadJobStep(@Value("#{jobParameters['chunkSize']}") Long chunkSize) {
+        return stepBuilderFactory.get("loadJobStep")
+                .<NumberVO, NumberVO>chunk(chunkSize == null ? CHUNK_SIZE : chunkSize.intValue())
+                .reader(loadItemReader(null))
+                .writer(loadItemWriter(null, null, null))
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step loadSwapStep(@Value("#{jobParameters['staging']}") String staging) {
+        return stepBuilderFactory.get("loadSwapStep")
+                .tasklet(stagingTasklet(staging, StagingTableTasklet.Mode.SWAP))
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public MappedNumberItemReader loadItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        Resource resource = new ClassPathResource(requiredVal);
+        LOG.info("{} : {}", resource, resource.exists() ? "file exist." : "file not exist.");
+
+        itemReader.setResource(resource);
+        itemReader.setKeyCache(numberKeyCache);
+
+        return itemReader;
+    }
+
+    @Bean
+    @StepScope
+    public JdbcNumberItemWriter loadItemWriter(@Value("#{jobParameters['staging']}") String staging,
+                                               @Value("#{jobParameters['writerCount']}") Long writerCount,
+                                               @Value("#{jobParameters['rowsPerStatement']}") Long rowsPerStatement) {
+        JdbcNumberItemWriter itemWriter = new JdbcNumberItemWriter();
+        itemWriter.setDataSource(loadDataSource.get());
+        itemWriter.setTable(Boolean.parseBoolean(staging) ? StagingTableTasklet.stagingTableOf(TABLE) : TABLE);
+        if (writerCount != null) {
+            itemWriter.setParallelism(writerCount.intValue());
+        }
+        if (rowsPerStatement != null) {
+            itemWriter.setRowsPerStatement(rowsPerStatement.intValue());
+        }
+
+        return itemWriter;
+    }
+
+    private Tasklet stagingTasklet(String staging, StagingTableTasklet.Mode mode) {
+        if (!Boolean.parseBoolean(staging)) {
+            return (contribution, chunkContext) -> RepeatStatus.FINISHED;
+        }
+        return new StagingTableTasklet(loadDataSource.get(), TABLE, StagingTableTasklet.stagingTableOf(TABLE),
+                LoadJobConfig::createTable, mode);
+    }
+
+    @PreDestroy
+    public void close() {
+        loadDataSource.close();
+    }
+}
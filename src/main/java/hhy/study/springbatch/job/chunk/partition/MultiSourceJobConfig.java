@@ -0,0 +1,182 @@
+package hhy.study.springbatch.job.chunk.partition;
+
+import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.partition.MultiSourcePartitioner;
+import hhy.study.springbatch.common.partition.SegmentMergeTasklet;
+import hhy.study.springbatch.common.partition.SourceProgressListener;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.*;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Purpose         : 여러 key|num 파일(glob / directory)을 source 별 partition 으로 병렬 처리하는 형태
+ * @Comment         : 2020.10 emart (txt -> db) 건 : source 수 만큼 tasklet 을 step 하나 안에서 순서대로 돌리던 방식을 대체
+ *                    multiSourceJobStep(master) -> requiredVal(location) 의 파일마다 partition, blockSize 보다 큰 파일은 block 마다 partition
+ *                    multiSourceWorkerStep      -> gridSize 개 쓰레드로 제한해서 실행, source 별 진행률/재시작 위치는 각 worker StepExecution 에 저장
+ *                    multiSourceMergeStep       -> source 순서대로 data/multi/output.csv 에 병합 (segment 수는 partition 할 때 job ExecutionContext 에 남긴 값), 완료되면 segment 삭제
+ *                    segment 파일은 job instance 별 (다른 instance 의 남은 segment 나 동시에 도는 instance 의 segment 가 섞이지 않음)
+ *                    requiredVal 예) file:data/emart/*.txt, file:data/emart/, classpath:input*.txt
+ */
+
+@Configuration
+@EnableBatchProcessing
+public class MultiSourceJobConfig {
+    public final String JOB_NAME = "MultiSourceJob";
+
+    private static final String SEGMENT_PATH = "data/multi/output-%d-%d.csv";
+    private static final String OUTPUT_PATH = "data/multi/output.csv";
+    private static final String READER_OFFSET_KEY = "MappedNumberItemReader." + MappedNumberItemReader.OFFSET_KEY;
+    private static final String PARTITION_COUNT_KEY = "multiSource.partitionCount";
+
+    JobBuilderFactory jobBuilderFactory;
+    StepBuilderFactory stepBuilderFactory;
+
+    @Autowired
+    public MultiSourceJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+    }
+
+    /**
+     * 1. validator
+     * 2. step(partition -> worker * source 수, 동시 gridSize) -> step(merge)
+     */
+
+    @Bean
+    public JobParametersValidator multiSourceJobValidator() {
+        String[] requiredKeys = new String[]{"requiredVal"};
+        String[] optionalKeys = new String[]{"executeTime", "gridSize", "blockSize", "syncPolicy"};
+        return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
+    }
+
+    @Bean
+    public Job multiSourceJob() throws Exception {
+        return jobBuilderFactory.get(JOB_NAME)
+                .validator(multiSourceJobValidator())
+                .start(multiSourceJobStep(null, null))
+                .next(multiSourceMergeStep(null, null))
+                .listener(new JobListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step multiSourceJobStep(@Value("#{jobParameters['gridSize']}") Long gridSize,
+                                   @Value("#{jobExecution}") JobExecution jobExecution) {
+        /* partition 수와 상관없이 동시에 도는 worker 는 gridSize 개 */
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("source-");
+        taskExecutor.setConcurrencyLimit(resolveGridSize(gridSize));
+
+        MultiSourcePartitioner partitioner = multiSourcePartitioner(null, null);
+        return stepBuilderFactory.get("multiSourceJobStep")
+                .partitioner("multiSourceWorkerStep", size -> {
+                    Map<String, ExecutionContext> partitions = partitioner.partition(size);
+                    /* merge step 에서 source 를 다시 훑지 않도록 segment 수를 남김 (step 이 끝나면 job ExecutionContext 와 같이 저장) */
+                    jobExecution.getExecutionContext().putInt(PARTITION_COUNT_KEY, partitions.size());
+                    return partitions;
+                })
+                .step(multiSourceWorkerStep())
+                .taskExecutor(taskExecutor)
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public MultiSourcePartitioner multiSourcePartitioner(@Value("#{jobParameters['requiredVal']}") String requiredVal,
+                                                         @Value("#{jobParameters['blockSize']}") Long blockSize) {
+        MultiSourcePartitioner partitioner = MultiSourcePartitioner.of(requiredVal);
+        if (blockSize != null && blockSize > 0) {
+            partitioner.setBlockSize(blockSize);
+        }
+        return partitioner;
+    }
+
+    @Bean
+    public Step multiSourceWorkerStep() {
+        SimpleStepBuilder<NumberVO, NumberVO> builder = stepBuilderFactory.get("multiSourceWorkerStep")
+                .<NumberVO, NumberVO>chunk(5)
+                .reader(multiSourceItemReader(null, null, null))
+                .writer(multiSourceItemWriter(null, null, null));
+        builder.listener((StepExecutionListener) new StepListener());
+        SourceProgressListener progressListener = new SourceProgressListener(READER_OFFSET_KEY);
+        builder.listener((ChunkListener) progressListener);
+        builder.listener((StepExecutionListener) progressListener);
+        return builder.build();
+    }
+
+    @Bean
+    @StepScope
+    public MappedNumberItemReader multiSourceItemReader(@Value("#{stepExecutionContext['resource']}") String resource,
+                                                        @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+                                                        @Value("#{stepExecutionContext['endOffset']}") Long endOffset) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        itemReader.setResource(new FileSystemResource(resource));
+        itemReader.setStartOffset(startOffset);
+        itemReader.setEndOffset(endOffset);
+
+        return itemReader;
+    }
+
+    @Bean
+    @StepScope
+    public ChannelNumberItemWriter multiSourceItemWriter(@Value("#{stepExecutionContext['partitionIndex']}") Integer partitionIndex,
+                                                         @Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                         @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(new FileSystemResource(String.format(SEGMENT_PATH, jobInstanceId, partitionIndex)));
+        itemWriter.setDelimiter("@");
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+
+        return itemWriter;
+    }
+
+    @Bean
+    @JobScope
+    public Step multiSourceMergeStep(@Value("#{jobExecutionContext['" + PARTITION_COUNT_KEY + "']}") Integer partitionCount,
+                                     @Value("#{jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        List<Resource> segments = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            segments.add(new FileSystemResource(String.format(SEGMENT_PATH, jobInstanceId, i)));
+        }
+
+        /* job 마다 새 output (이전 job 의 output 뒤에 붙이지 않음) */
+        SegmentMergeTasklet mergeTasklet = new SegmentMergeTasklet(segments, new FileSystemResource(OUTPUT_PATH));
+        mergeTasklet.setAppendAllowed(false);
+
+        return stepBuilderFactory.get("multiSourceMergeStep")
+                .tasklet(mergeTasklet)
+                .listener((StepExecutionListener) mergeTasklet)
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    private int resolveGridSize(Long gridSize) {
+        if (gridSize == null || gridSize <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return gridSize.intValue();
+    }
+}
@@ -0,0 +1,184 @@
+package hhy.study.springbatch.job.chunk.partition;
+
+import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.logging.SampledItemLogger;
+import hhy.study.springbatch.common.partition.ByteRangePartitioner;
+import hhy.study.springbatch.common.partition.SegmentMergeTasklet;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.job.NumberVO;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.*;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Purpose         : SimpleJob 을 byte 범위 partition 으로 나눠서 모든 core 로 병렬 처리하는 형태
+ * @Comment         : partitionJobStep(master) -> 파일을 gridSize 개의 개행 정렬 byte 범위로 분할
+ *                    partitionWorkerStep       -> 범위별로 각자 쓰레드에서 읽고 simpleJobStep 과 같은 처리 후 segment 파일에 씀 (partition 별 재시작 가능)
+ *                    partitionMergeStep        -> segment 를 순서대로 data/simple/output.csv 에 병합, 완료되면 segment 삭제
+ *                    segment 파일은 job instance 별 (동시에 도는 다른 instance 와 겹치지 않고, 재시작하면 같은 segment 를 이어서 씀)
+ *                    gridSize 는 job parameter, 없으면 core 수
+ * @Disadvantages   : segment 파일을 한번 더 복사하므로 output 이 아주 크면 디스크 I/O 가 2배
+ */
+
+@Configuration
+@EnableBatchProcessing
+public class PartitionJobConfig {
+    public final String JOB_NAME = "PartitionJob";
+
+    private static final String SEGMENT_PATH = "data/simple/partition/output-%d-%d.csv";
+    private static final String OUTPUT_PATH = "data/simple/output.csv";
+    private static final long ITEM_LOG_SAMPLE = 1000;
+
+    JobBuilderFactory jobBuilderFactory;
+    StepBuilderFactory stepBuilderFactory;
+
+    @Autowired
+    public PartitionJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+    }
+
+    /**
+     * 1. validator
+     * 2. step(partition -> worker * gridSize) -> step(merge)
+     */
+
+    @Bean
+    public JobParametersValidator partitionJobValidator() {
+        String[] requiredKeys = new String[]{"requiredVal"};
+        String[] optionalKeys = new String[]{"executeTime", "gridSize", "syncPolicy"};
+        return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
+    }
+
+    @Bean
+    public Job partitionJob() throws Exception {
+        return jobBuilderFactory.get(JOB_NAME)
+                .validator(partitionJobValidator())
+                .start(partitionJobStep(null))
+                .next(partitionMergeStep(null, null))
+                .listener(new JobListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step partitionJobStep(@Value("#{jobParameters['gridSize']}") Long gridSize) {
+        int partitionCount = resolveGridSize(gridSize);
+
+        /* 쓰레드는 partition 수 만큼만 사용 */
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("partition-");
+        taskExecutor.setConcurrencyLimit(partitionCount);
+
+        return stepBuilderFactory.get("partitionJobStep")
+                .partitioner("partitionWorkerStep", partitionJobPartitioner(null))
+                .step(partitionWorkerStep())
+                .gridSize(partitionCount)
+                .taskExecutor(taskExecutor)
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public ByteRangePartitioner partitionJobPartitioner(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        return new ByteRangePartitioner(new ClassPathResource(requiredVal));
+    }
+
+    @Bean
+    public Step partitionWorkerStep() {
+        return stepBuilderFactory.get("partitionWorkerStep")
+                .<NumberVO, NumberVO>chunk(5)
+                .reader(partitionItemReader(null, null, null))
+                .processor(partitionItemProcessor())
+                .writer(partitionItemWriter(null, null, null))
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public MappedNumberItemReader partitionItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal,
+                                                      @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+                                                      @Value("#{stepExecutionContext['endOffset']}") Long endOffset) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        itemReader.setResource(new ClassPathResource(requiredVal));
+        itemReader.setStartOffset(startOffset);
+        itemReader.setEndOffset(endOffset);
+
+        return itemReader;
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<NumberVO, NumberVO> partitionItemProcessor() {
+        /* simpleItemProcessor 와 같은 처리 (partition 쓰레드마다 sampling 카운터 따로) */
+        SampledItemLogger itemLogger = new SampledItemLogger(ITEM_LOG_SAMPLE);
+        return new ItemProcessor<NumberVO, NumberVO>() {
+            @Override
+            public NumberVO process(NumberVO numberVO) throws Exception {
+                itemLogger.info("process {}|{}", numberVO.getKey(), numberVO.getNum());
+
+                return numberVO;
+            }
+        };
+    }
+
+    @Bean
+    @StepScope
+    public ChannelNumberItemWriter partitionItemWriter(@Value("#{stepExecutionContext['partitionIndex']}") Integer partitionIndex,
+                                                       @Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                       @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        Resource outputResource = new FileSystemResource(String.format(SEGMENT_PATH, jobInstanceId, partitionIndex));
+
+        /* segment 는 매 실행마다 새로 생성, 재시작시에는 마지막 commit 위치로 truncate */
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(outputResource);
+        itemWriter.setDelimiter("@");
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+
+        return itemWriter;
+    }
+
+    @Bean
+    @JobScope
+    public Step partitionMergeStep(@Value("#{jobParameters['gridSize']}") Long gridSize,
+                                   @Value("#{jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        int partitionCount = resolveGridSize(gridSize);
+
+        List<Resource> segments = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            segments.add(new FileSystemResource(String.format(SEGMENT_PATH, jobInstanceId, i)));
+        }
+        SegmentMergeTasklet mergeTasklet = new SegmentMergeTasklet(segments, new FileSystemResource(OUTPUT_PATH));
+
+        return stepBuilderFactory.get("partitionMergeStep")
+                .tasklet(mergeTasklet)
+                .listener((StepExecutionListener) mergeTasklet)
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    private int resolveGridSize(Long gridSize) {
+        if (gridSize == null || gridSize <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return gridSize.intValue();
+    }
+}
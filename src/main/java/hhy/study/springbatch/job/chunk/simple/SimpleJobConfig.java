@@ -1,27 +1,42 @@
 package hhy.study.springbatch.job.chunk.simple;
 
 import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.SamplingTraceListener;
 import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.logging.SampledItemLogger;
+import hhy.study.springbatch.common.reader.KeyCacheConfig;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.step.ColumnarStepSupport;
+import hhy.study.springbatch.common.step.MultiThreadStepSupport;
+import hhy.study.springbatch.common.step.PipelineStepSupport;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.job.NumberChunk;
 import hhy.study.springbatch.job.NumberVO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersInvalidException;
 import org.springframework.batch.core.JobParametersValidator;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.*;
+import org.springframework.batch.core.job.CompositeJobParametersValidator;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.FlatFileItemWriter;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.BeanWrapperFieldExtractor;
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.*;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * @Purpose         : 가장 기본적인 Spring Batch 형태
  * @Date            : 2020.03
@@ -32,18 +47,26 @@ import org.springframework.core.io.*;
 
 @Configuration
 @EnableBatchProcessing
+@Import(KeyCacheConfig.class)
 public class SimpleJobConfig {
+    private static final Logger LOG = LogManager.getLogger(SimpleJobConfig.class);
+
+    private static final int CHUNK_SIZE = 5;
+    private static final long ITEM_LOG_SAMPLE = 1000;
+
     public final String JOB_NAME = "SimpleJob";
 
     JobBuilderFactory jobBuilderFactory;
     StepBuilderFactory stepBuilderFactory;
+    KeyInternCache numberKeyCache;
 
     @Autowired
-    public SimpleJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory) {
+    public SimpleJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, KeyInternCache numberKeyCache) {
         /* 각각 클래스별 @Autowired를 할수는 있지만 spring 보안문제로 권장방식은 생성자 내 Autowired 방식
         *  2020.04 전부 생성자 @Autowired 방식으로 변경했음. */
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
+        this.numberKeyCache = numberKeyCache;
 
     }
 
@@ -56,8 +79,29 @@ public class SimpleJobConfig {
     public JobParametersValidator simpleJobValidator() {
         /* 배치의 받는 파라미터 유효성검사 */
         String[] requiredKeys = new String[]{"requiredVal"};
-        String[] optionalKeys = new String[]{"executeTime"};
-        return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
+        String[] optionalKeys = new String[]{"executeTime", "workerCount", "chunkMin", "chunkMax", "traceSample", "pipelineDepth", "columnBatch", "syncPolicy", "outputCompression"};
+        CompositeJobParametersValidator validator = new CompositeJobParametersValidator();
+        validator.setValidators(Arrays.asList(new DefaultJobParametersValidator(requiredKeys, optionalKeys), simpleJobModeValidator()));
+        return validator;
+    }
+
+    /* step 실행 방식(columnBatch / pipelineDepth / workerCount·chunkMin·chunkMax) 은 하나만 지정 가능 (simpleJobStep 참고) */
+    private JobParametersValidator simpleJobModeValidator() {
+        return parameters -> {
+            if (parameters == null) {
+                return;
+            }
+            List<String> modes = Stream.of(
+                            new String[]{"columnBatch"},
+                            new String[]{"pipelineDepth"},
+                            new String[]{"workerCount", "chunkMin", "chunkMax"})
+                    .map(keys -> Arrays.stream(keys).filter(parameters.getParameters()::containsKey).collect(Collectors.joining("/")))
+                    .filter(given -> !given.isEmpty())
+                    .collect(Collectors.toList());
+            if (modes.size() > 1) {
+                throw new JobParametersInvalidException("Only one of columnBatch, pipelineDepth, workerCount/chunkMin/chunkMax can be given: " + modes);
+            }
+        };
     }
 
     @Bean
@@ -65,66 +109,74 @@ public class SimpleJobConfig {
         /* 배치의 시작점 */
         return jobBuilderFactory.get(JOB_NAME)
                 .validator(simpleJobValidator())
-                .start(simpleJobStep())
+                .start(simpleJobStep(null, null, null, null, null))
                 .listener(new JobListener())
                 .build();
     }
 
     @Bean
     @JobScope
-    public Step simpleJobStep () {
+    public Step simpleJobStep (@Value("#{jobParameters['workerCount']}") Long workerCount,
+                               @Value("#{jobParameters['chunkMin']}") Long chunkMin,
+                               @Value("#{jobParameters['chunkMax']}") Long chunkMax,
+                               @Value("#{jobParameters['pipelineDepth']}") Long pipelineDepth,
+                               @Value("#{jobParameters['columnBatch']}") Long columnBatch) {
         /* chunk, reader, processor, writer를 등록해준다. 이때 chunk는 나머지 전 단계에 영향을 끼치므로 상황에 따라서 적절하게 설정. */
         /* listener : 작업의 전/후 과정에 실행되는 클래스 */
-        return stepBuilderFactory.get("simpleJobStep")
-                .<NumberVO, NumberVO>chunk(5)
-                .reader(simpleItemReader(null))
-                .processor(simpleItemProcessor())
-                .writer(simpleItemWriter())
-                .listener(new StepListener())
-                .build();
-
-    }
+        if (columnBatch != null && columnBatch > 0) {
+            /* columnBatch 가 있으면 columnBatch line 을 NumberChunk(int[] 컬럼) 1개로 처리 (ColumnarStepSupport 참고) */
+            SimpleStepBuilder<NumberChunk, NumberChunk> builder = ColumnarStepSupport.columnar(stepBuilderFactory.get("simpleJobStep"),
+                    simpleItemReader(null), simpleChunkProcessor(null), simpleItemWriter(null, null), columnBatch.intValue());
+            builder.listener((StepExecutionListener) new StepListener());
+            builder.listener((StepExecutionListener) new SamplingTraceListener());
+
+            return builder.build();
+        }
 
-    @Bean
-    @StepScope
-    public FlatFileItemReader<NumberVO> simpleItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        if (pipelineDepth != null && pipelineDepth > 0) {
+            /* pipelineDepth 가 있으면 read/process/write 를 쓰레드별로 겹쳐서 실행 (PipelineStepSupport 참고) */
+            SimpleStepBuilder<NumberVO, NumberVO> builder = PipelineStepSupport.pipelined(stepBuilderFactory.get("simpleJobStep"),
+                    simpleItemReader(null), simpleItemProcessor(), simpleItemWriter(null, null), CHUNK_SIZE, pipelineDepth.intValue());
+            builder.listener((StepExecutionListener) new StepListener());
+            builder.listener((StepExecutionListener) new SamplingTraceListener());
 
-        FlatFileItemReader<NumberVO> fileItemReader = new FlatFileItemReader<>();
-        Resource resource = new ClassPathResource(requiredVal);
-        if (resource.exists()) {
-            System.out.println("file exist.");
-        } else {
-            System.out.println("file not exist.");
+            return builder.build();
         }
 
-        fileItemReader.setResource(resource);
-
-        DefaultLineMapper<NumberVO> lineMapper = new DefaultLineMapper<>();
+        SimpleStepBuilder<NumberVO, NumberVO> builder = MultiThreadStepSupport
+                .<NumberVO, NumberVO>chunk(stepBuilderFactory.get("simpleJobStep"), CHUNK_SIZE, workerCount, chunkMin, chunkMax)
+                .processor(simpleItemProcessor());
+        builder.listener((StepExecutionListener) new StepListener());
+        builder.listener((StepExecutionListener) new SamplingTraceListener());
 
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter("|");
-        lineTokenizer.setNames(new String[] {"key","num"});
+        return MultiThreadStepSupport.readAndWrite(builder, simpleItemReader(null), simpleItemWriter(null, null), CHUNK_SIZE, workerCount)
+                .build();
 
-        lineMapper.setLineTokenizer(lineTokenizer);
+    }
 
-        BeanWrapperFieldSetMapper<NumberVO> fieldSetMapper = new BeanWrapperFieldSetMapper<>();
-        fieldSetMapper.setTargetType(NumberVO.class);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
+    @Bean
+    @StepScope
+    public MappedNumberItemReader simpleItemReader(@Value("#{jobParameters['requiredVal']}") String requiredVal) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        Resource resource = new ClassPathResource(requiredVal);
+        LOG.info("{} : {}", resource, resource.exists() ? "file exist." : "file not exist.");
 
-        fileItemReader.setLineMapper(lineMapper);
-        fileItemReader.setLinesToSkip(0);
+        itemReader.setResource(resource);
+        itemReader.setKeyCache(numberKeyCache);
 
-        return fileItemReader;
+        return itemReader;
     }
 
     @Bean
     @StepScope
     public ItemProcessor<NumberVO, NumberVO> simpleItemProcessor() { // Generic : input, output 객체
         // processor에 비즈니스 로직이 들어가는 경우는 별도 클래스로 컴포넌트화 해서 관리
+        /* ITEM_LOG_SAMPLE 건 중 1건만 async logger 로 기록 (item 마다 stdout 에 쓰면 stdout lock 으로 worker 쓰레드가 줄섬) */
+        SampledItemLogger itemLogger = new SampledItemLogger(ITEM_LOG_SAMPLE);
         return new ItemProcessor<NumberVO, NumberVO>() {
             @Override
             public NumberVO process(NumberVO numberVO) throws Exception {
-                System.out.println(numberVO.getNum());
+                itemLogger.info("process {}|{}", numberVO.getKey(), numberVO.getNum());
 
                 return numberVO;
             }
@@ -133,26 +185,33 @@ public class SimpleJobConfig {
 
     @Bean
     @StepScope
-    public FlatFileItemWriter<NumberVO> simpleItemWriter() {
-        Resource outputResource = new FileSystemResource("data/simple/output.csv");
-
-        FlatFileItemWriter<NumberVO> fileItemWriter = new FlatFileItemWriter<>();
-        fileItemWriter.setResource(outputResource);
-
-        fileItemWriter.setAppendAllowed(true);
-
-        fileItemWriter.setLineAggregator(new DelimitedLineAggregator<NumberVO>(){
-            {
-                setDelimiter("@");
-                setFieldExtractor(new BeanWrapperFieldExtractor<NumberVO>(){
-                    {
-                        setNames(new String[]{"key", "num"});
-                    }
-                });
-            }
+    public ItemProcessor<NumberChunk, NumberChunk> simpleChunkProcessor(@Value("#{jobParameters['columnBatch']}") Long columnBatch) {
+        /* columnar 모드 processor : item 대신 NumberChunk 의 컬럼 배열을 loop (집계는 NumberChunk.sum/min/max 참고) */
+        SampledItemLogger itemLogger = new SampledItemLogger(columnBatch == null ? ITEM_LOG_SAMPLE : Math.max(1, ITEM_LOG_SAMPLE / Math.max(1, columnBatch)));
+        return new ItemProcessor<NumberChunk, NumberChunk>() {
+            @Override
+            public NumberChunk process(NumberChunk chunk) throws Exception {
+                itemLogger.info("process {}|{}", chunk.key(0), chunk.num(0));
 
-        });
+                return chunk;
+            }
+        };
+    }
 
-        return fileItemWriter;
+    @Bean
+    @StepScope
+    public ChannelNumberItemWriter simpleItemWriter(@Value("#{jobParameters['syncPolicy']}") String syncPolicy,
+                                                    @Value("#{jobParameters['outputCompression']}") String outputCompression) {
+        boolean gzip = "gzip".equalsIgnoreCase(outputCompression);
+        Resource outputResource = new FileSystemResource("data/simple/output.csv" + (gzip ? ".gz" : ""));
+
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(outputResource);
+        itemWriter.setDelimiter("@");
+        itemWriter.setAppendAllowed(true);
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+        itemWriter.setCompressed(gzip);
+
+        return itemWriter;
     }
 }
@@ -0,0 +1,135 @@
+package hhy.study.springbatch.job.chunk.sort;
+
+import hhy.study.springbatch.common.listener.JobListener;
+import hhy.study.springbatch.common.listener.StepListener;
+import hhy.study.springbatch.common.reader.KeyCacheConfig;
+import hhy.study.springbatch.common.reader.KeyInternCache;
+import hhy.study.springbatch.common.reader.MappedNumberItemReader;
+import hhy.study.springbatch.common.sort.ExternalSortTasklet;
+import hhy.study.springbatch.common.sort.SortOrder;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersValidator;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.*;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+
+/**
+ * @Purpose         : key|num 파일(다른 job 의 data/{job}/output.csv 등)을 key 또는 num 순으로 정렬하는 형태
+ * @Comment         : sortJobStep -> ExternalSortTasklet 이 runItems 건씩 정렬된 압축 run 을 core 수 만큼 병렬로 만들고
+ *                    끝나면 k-way merge 해서 data/sort/output.csv 에 출력
+ *                    sortInput : 정렬할 파일 경로 (파일시스템), sortBy : key(기본) / num
+ *                    delimiter : 입력/출력 구분자 (기본 '@' = ChannelNumberItemWriter 기본값, input.txt 는 '|')
+ *                    완료된 run 단위로 재시작 가능
+ */
+
+@Configuration
+@EnableBatchProcessing
+@Import(KeyCacheConfig.class)
+public class SortJobConfig {
+    private static final Logger LOG = LogManager.getLogger(SortJobConfig.class);
+
+    public final String JOB_NAME = "SortJob";
+
+    private static final String OUTPUT_PATH = "data/sort/output.csv";
+    private static final String SPILL_PATH = "data/sort/spill";
+    private static final String DEFAULT_DELIMITER = "@";
+
+    JobBuilderFactory jobBuilderFactory;
+    StepBuilderFactory stepBuilderFactory;
+    KeyInternCache numberKeyCache;
+
+    @Autowired
+    public SortJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory, KeyInternCache numberKeyCache) {
+        this.jobBuilderFactory = jobBuilderFactory;
+        this.stepBuilderFactory = stepBuilderFactory;
+        this.numberKeyCache = numberKeyCache;
+    }
+
+    /**
+     * 1. validator
+     * 2. step(read -> sorted runs (parallel) -> merge -> write)
+     */
+
+    @Bean
+    public JobParametersValidator sortJobValidator() {
+        String[] requiredKeys = new String[]{"sortInput"};
+        String[] optionalKeys = new String[]{"executeTime", "sortBy", "delimiter", "runItems", "parallelism", "syncPolicy"};
+        return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
+    }
+
+    @Bean
+    public Job sortJob() throws Exception {
+        return jobBuilderFactory.get(JOB_NAME)
+                .validator(sortJobValidator())
+                .start(sortJobStep(null, null, null))
+                .listener(new JobListener())
+                .build();
+    }
+
+    @Bean
+    @JobScope
+    public Step sortJobStep(@Value("#{jobParameters['sortBy']}") String sortBy,
+                            @Value("#{jobParameters['runItems']}") Long runItems,
+                            @Value("#{jobParameters['parallelism']}") Long parallelism) {
+        MappedNumberItemReader itemReader = sortItemReader(null, null);
+        ChannelNumberItemWriter itemWriter = sortItemWriter(null, null);
+
+        ExternalSortTasklet tasklet = new ExternalSortTasklet(itemReader, itemWriter, new File(SPILL_PATH));
+        tasklet.setOrder(SortOrder.parse(sortBy));
+        if (runItems != null) {
+            tasklet.setRunItems(runItems.intValue());
+        }
+        if (parallelism != null) {
+            tasklet.setParallelism(parallelism.intValue());
+        }
+
+        /* reader offset / writer 위치는 stream 으로, 완료된 run 수는 tasklet 이 같은 commit 에 저장 */
+        return stepBuilderFactory.get("sortJobStep")
+                .tasklet(tasklet)
+                .stream(itemReader)
+                .stream(itemWriter)
+                .listener((StepExecutionListener) tasklet)
+                .listener((StepExecutionListener) new StepListener())
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public MappedNumberItemReader sortItemReader(@Value("#{jobParameters['sortInput']}") String sortInput,
+                                                 @Value("#{jobParameters['delimiter']}") String delimiter) {
+        MappedNumberItemReader itemReader = new MappedNumberItemReader();
+        Resource resource = new FileSystemResource(sortInput);
+        LOG.info("{} : {}", resource, resource.exists() ? "file exist." : "file not exist.");
+
+        itemReader.setResource(resource);
+        itemReader.setDelimiter(delimiter == null ? DEFAULT_DELIMITER : delimiter);
+        itemReader.setKeyCache(numberKeyCache);
+
+        return itemReader;
+    }
+
+    @Bean
+    @StepScope
+    public ChannelNumberItemWriter sortItemWriter(@Value("#{jobParameters['delimiter']}") String delimiter,
+                                                  @Value("#{jobParameters['syncPolicy']}") String syncPolicy) {
+        ChannelNumberItemWriter itemWriter = new ChannelNumberItemWriter();
+        itemWriter.setResource(new FileSystemResource(OUTPUT_PATH));
+        itemWriter.setDelimiter(delimiter == null ? DEFAULT_DELIMITER : delimiter);
+        itemWriter.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse(syncPolicy));
+
+        return itemWriter;
+    }
+}
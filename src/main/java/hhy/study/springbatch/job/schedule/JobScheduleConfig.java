@@ -0,0 +1,54 @@
+package hhy.study.springbatch.job.schedule;
+
+import hhy.study.springbatch.common.schedule.BatchSchedule;
+import hhy.study.springbatch.common.schedule.ScheduleConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * @Purpose         : SimpleJob / FlowJob / DecideJob / TaskletJob 주기 실행 schedule
+ * @Comment         : 외부 cron 으로 java -jar 를 매번 띄우던 실행 대체 (springbatch.schedule.enabled=true 로 기동하면 상주하면서 실행)
+ *                    cron 은 springbatch.schedule.{job}.cron 으로 변경, "-" 이면 해당 job 은 schedule 하지 않음
+ *                    simple / flow / decide 는 같은 입력을 읽으므로 시각을 엇갈리게 둠, 모두 job 별 동시 실행 1개
+ */
+@Configuration
+@Import(ScheduleConfig.class)
+@ConditionalOnProperty(prefix = "springbatch.schedule", name = "enabled", havingValue = "true")
+public class JobScheduleConfig {
+
+    private static final String INPUT = "/input.txt";
+
+    @Bean
+    public BatchSchedule taskletJobSchedule(@Value("${springbatch.schedule.tasklet-job.cron:0 0 1 * * ?}") String cron) {
+        return BatchSchedule.builder("taskletJob")
+                .cron(cron)
+                .build();
+    }
+
+    @Bean
+    public BatchSchedule simpleJobSchedule(@Value("${springbatch.schedule.simple-job.cron:0 0/10 * * * ?}") String cron) {
+        return BatchSchedule.builder("simpleJob")
+                .cron(cron)
+                .param("requiredVal", INPUT)
+                .build();
+    }
+
+    @Bean
+    public BatchSchedule flowJobSchedule(@Value("${springbatch.schedule.flow-job.cron:0 3/10 * * * ?}") String cron) {
+        return BatchSchedule.builder("flowJob")
+                .cron(cron)
+                .param("requiredVal", INPUT)
+                .build();
+    }
+
+    @Bean
+    public BatchSchedule decideJobSchedule(@Value("${springbatch.schedule.decide-job.cron:0 6/10 * * * ?}") String cron) {
+        return BatchSchedule.builder("decideJob")
+                .cron(cron)
+                .param("requiredVal", INPUT)
+                .build();
+    }
+}
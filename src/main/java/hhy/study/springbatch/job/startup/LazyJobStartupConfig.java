@@ -0,0 +1,66 @@
+package hhy.study.springbatch.job.startup;
+
+import hhy.study.springbatch.common.repository.JdbcRepositoryConfig;
+import hhy.study.springbatch.common.startup.LazyJobRegistrar;
+import hhy.study.springbatch.job.chunk.aggregate.AggregateJobConfig;
+import hhy.study.springbatch.job.chunk.flow.DecideJobConfig;
+import hhy.study.springbatch.job.chunk.flow.FlowJobConfig;
+import hhy.study.springbatch.job.chunk.load.LoadJobConfig;
+import hhy.study.springbatch.job.chunk.partition.MultiSourceJobConfig;
+import hhy.study.springbatch.job.chunk.partition.PartitionJobConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import hhy.study.springbatch.job.chunk.sort.SortJobConfig;
+import hhy.study.springbatch.job.tasklet.TaskletJobConfig;
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.configuration.annotation.DefaultBatchConfigurer;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Purpose         : lazy 기동 모드 parent context - job 설정 class 는 요청된 job 것만 child context 로 띄움
+ * @Comment         : SpringbatchApplication(component scan) 은 모든 *JobConfig 의 job/step/reader bean 을 전부 만들지만
+ *                    LazyJobApplication 은 이 설정만 띄우고 job 은 JobRegistry 에 이름만 등록 (LazyJobRegistrar)
+ *                    springbatch.startup.lazy=true 일때만 동작 (component scan 에 같이 잡혀도 기본 모드에는 영향 없음)
+ *                    BatchConfigurer 를 bean 으로 등록 -> child 의 @EnableBatchProcessing 이 parent 것을 사용 (같은 JobRepository)
+ *                      map : DefaultBatchConfigurer, jdbc : JdbcRepositoryConfig 의 batchConfigurer
+ *                    springbatch.startup.preload : 기동시 미리 띄울 job (쉼표 구분)
+ */
+@Configuration
+@EnableBatchProcessing
+@Import(JdbcRepositoryConfig.class)
+@ConditionalOnProperty(prefix = "springbatch.startup", name = "lazy", havingValue = "true")
+public class LazyJobStartupConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "springbatch.repository", name = "type", havingValue = "map", matchIfMissing = true)
+    public BatchConfigurer mapBatchConfigurer() {
+        return new DefaultBatchConfigurer() { };
+    }
+
+    @Bean
+    public LazyJobRegistrar lazyJobRegistrar(JobRegistry jobRegistry,
+                                             @Value("${springbatch.startup.preload:}") String[] preload) {
+        Map<String, Class<?>> jobConfigs = new LinkedHashMap<>();
+        jobConfigs.put("taskletJob", TaskletJobConfig.class);
+        jobConfigs.put("simpleJob", SimpleJobConfig.class);
+        jobConfigs.put("flowJob", FlowJobConfig.class);
+        jobConfigs.put("decideJob", DecideJobConfig.class);
+        jobConfigs.put("partitionJob", PartitionJobConfig.class);
+        jobConfigs.put("multiSourceJob", MultiSourceJobConfig.class);
+        jobConfigs.put("aggregateJob", AggregateJobConfig.class);
+        jobConfigs.put("sortJob", SortJobConfig.class);
+        jobConfigs.put("loadJob", LoadJobConfig.class);
+
+        LazyJobRegistrar registrar = new LazyJobRegistrar(jobRegistry, jobConfigs);
+        registrar.setPreload(preload);
+        return registrar;
+    }
+}
@@ -1,16 +1,22 @@
 package hhy.study.springbatch.job.tasklet;
 
+import hhy.study.springbatch.common.jdbc.KeysetBulkUpdateTasklet;
+import hhy.study.springbatch.common.jdbc.LazyDataSource;
 import hhy.study.springbatch.common.listener.JobListener;
 import hhy.study.springbatch.common.listener.StepListener;
 import hhy.study.springbatch.job.NumberVO;
+import hhy.study.springbatch.job.chunk.load.LoadJobConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParametersValidator;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.StepContribution;
 import org.springframework.batch.core.configuration.annotation.*;
 import org.springframework.batch.core.job.DefaultJobParametersValidator;
 import org.springframework.batch.core.scope.context.ChunkContext;
-import org.springframework.batch.core.step.tasklet.MethodInvokingTaskletAdapter;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.file.FlatFileItemReader;
@@ -28,27 +34,58 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
 
 /**
  * @Purpose         : 단일 세부 작업 단위 Spring Batch 형태, 거의 사용하지 않는 추세
  * @Date            : 2020.03
  * @Author          : 한혜연
  * @Comment         : 복잡하고/중요할수록/정형화될수록 CHUNK 방식 선택할 것
+ *                    tasklet1 : KeysetBulkUpdateTasklet 로 springbatch.tasklet.update.* 에 설정한 update 를 key 구간 단위로 실행
+ *                            table / key-column / set 이 없으면 update 하지 않고 끝남, where 는 선택
+ *                            DB 는 springbatch.tasklet.* (없으면 springbatch.load.* -> LoadJob 적재 후 update 하는 경우)
+ *                            batchSize : 구간 1개(commit 1번) row 수, parallelism : 동시에 update 하는 구간 수
+ *                    requiredVal 은 쓰지 않음 (job chain / schedule 이 모든 job 에 넘기므로 optional 로만 받음)
  */
 
 @Configuration
 @EnableBatchProcessing
 public class TaskletJobConfig {
+    private static final Logger LOG = LogManager.getLogger(TaskletJobConfig.class);
+
     public final String JOB_NAME = "TaskletJob";
 
+    private static final int BATCH_SIZE = 10_000;
+
     JobBuilderFactory jobBuilderFactory;
     StepBuilderFactory stepBuilderFactory;
 
+    private final LazyDataSource updateDataSource;
+    private final String updateTable;
+    private final String updateKeyColumn;
+    private final String updateSet;
+    private final String updateWhere;
+
     @Autowired
-    public TaskletJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory) {
+    public TaskletJobConfig(JobBuilderFactory jobBuilderFactory, StepBuilderFactory stepBuilderFactory,
+                            @Value("${springbatch.tasklet.url:${springbatch.load.url:" + LoadJobConfig.DEFAULT_URL + "}}") String url,
+                            @Value("${springbatch.tasklet.username:${springbatch.load.username:sa}}") String username,
+                            @Value("${springbatch.tasklet.password:${springbatch.load.password:}}") String password,
+                            @Value("${springbatch.tasklet.pool-size:4}") int poolSize,
+                            @Value("${springbatch.tasklet.update.table:}") String updateTable,
+                            @Value("${springbatch.tasklet.update.key-column:}") String updateKeyColumn,
+                            @Value("${springbatch.tasklet.update.set:}") String updateSet,
+                            @Value("${springbatch.tasklet.update.where:}") String updateWhere) {
         this.jobBuilderFactory = jobBuilderFactory;
         this.stepBuilderFactory = stepBuilderFactory;
-
+        /* LazyDataSource 참고, table 은 만들지 않음 (update 대상은 이미 있어야 함) */
+        this.updateDataSource = new LazyDataSource("batch-update", url, username, password, poolSize, null);
+        this.updateTable = updateTable;
+        this.updateKeyColumn = updateKeyColumn;
+        this.updateSet = updateSet;
+        this.updateWhere = updateWhere;
     }
 
     /**
@@ -58,8 +95,8 @@ public class TaskletJobConfig {
 
     @Bean
     public JobParametersValidator taskletJobValidator() {
-        String[] requiredKeys = new String[]{"requiredVal"};
-        String[] optionalKeys = new String[]{"executeTime"};
+        String[] requiredKeys = new String[]{};
+        String[] optionalKeys = new String[]{"requiredVal", "executeTime", "batchSize", "parallelism"};
         return new DefaultJobParametersValidator(requiredKeys, optionalKeys);
     }
 
@@ -67,36 +104,55 @@ public class TaskletJobConfig {
     public Job taskletJob() throws Exception {
         return jobBuilderFactory.get(JOB_NAME)
                 .validator(taskletJobValidator())
-                .start(taskletJobStep1())
+                .start(taskletJobStep1(null, null))
                 .listener(new JobListener())
                 .build();
     }
 
     @Bean
     @JobScope
-    public Step taskletJobStep1 () {
+    public Step taskletJobStep1 (@Value("#{jobParameters['batchSize']}") Long batchSize,
+                                 @Value("#{jobParameters['parallelism']}") Long parallelism) {
+        if (!StringUtils.hasText(updateTable) || !StringUtils.hasText(updateKeyColumn) || !StringUtils.hasText(updateSet)) {
+            return stepBuilderFactory.get("taskletJobStep1")
+                    .tasklet((contribution, chunkContext) -> {
+                        LOG.warn("springbatch.tasklet.update.table / key-column / set not set : nothing to update");
+                        return RepeatStatus.FINISHED;
+                    })
+                    .listener((StepExecutionListener) new StepListener())
+                    .build();
+        }
+        KeysetBulkUpdateTasklet tasklet = tasklet1(batchSize, parallelism);
+
+        /* 구간 cursor 는 tasklet 이 StepExecutionContext 에 저장, executor 는 listener 로 열고 닫음 */
         return stepBuilderFactory.get("taskletJobStep1")
-                .tasklet(tasklet1())
-                .listener(new StepListener())
+                .tasklet(tasklet)
+                .listener((StepExecutionListener) tasklet)
+                .listener((StepExecutionListener) new StepListener())
                 .build();
 
     }
 
-    @Bean
-    public MethodInvokingTaskletAdapter tasklet1() {
-        MethodInvokingTaskletAdapter adapter = new MethodInvokingTaskletAdapter();
-//        adapter.setTargetObject(); -> Dao 입력
-//        adapter.setTargetMethod(); -> 업데이트 쿼리
-
-        return adapter;
+    /* key 구간(keyset) 단위 update, 구간마다 commit */
+    public KeysetBulkUpdateTasklet tasklet1(Long batchSize, Long parallelism) {
+        KeysetBulkUpdateTasklet tasklet = new KeysetBulkUpdateTasklet(updateDataSource.get(), updateTable, updateKeyColumn, updateSet);
+        if (StringUtils.hasText(updateWhere)) {
+            tasklet.setWhere(updateWhere);
+        }
+        tasklet.setBatchSize(batchSize == null ? BATCH_SIZE : batchSize.intValue());
+        if (parallelism != null) {
+            tasklet.setParallelism(parallelism.intValue());
+        }
+
+        return tasklet;
     }
 
     @Bean
     @JobScope
     public Step taskletJobStep2 () {
         return stepBuilderFactory.get("taskletJobStep2")
-                .tasklet(tasklet1())
-                .listener(new StepListener())
+                .tasklet(tasklet2())
+                .listener((StepExecutionListener) new StepListener())
                 .build();
 
     }
@@ -107,7 +163,7 @@ public class TaskletJobConfig {
             @Override
             public RepeatStatus execute(StepContribution stepContribution, ChunkContext chunkContext) throws Exception {
                 for (int i=0; i<=100; i++) {
-                    System.out.println("i -> " + i);
+                    LOG.info("i -> {}", Unbox.box(i));
                 }
 
                 return RepeatStatus.FINISHED;
@@ -115,4 +171,8 @@ public class TaskletJobConfig {
         };
     }
 
+    @PreDestroy
+    public void close() {
+        updateDataSource.close();
+    }
 }
@@ -0,0 +1,81 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.aggregate.KeyedAggregateTasklet;
+import hhy.study.springbatch.job.chunk.aggregate.AggregateJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {AggregateJobConfig.class})
+@SpringBootTest
+class AggregateJobApplicationTest {
+
+    Job job;
+    JobLauncher jobLauncher;
+    JobRepository jobRepository;
+
+    @Autowired
+    public AggregateJobApplicationTest(@Qualifier("aggregateJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository) {
+        this.job = job;
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+    }
+
+    public JobLauncherTestUtils jobLauncherTestUtils() {
+        JobLauncherTestUtils testUtils = new JobLauncherTestUtils();
+        testUtils.setJob(job);
+        testUtils.setJobLauncher(jobLauncher);
+        testUtils.setJobRepository(jobRepository);
+        return testUtils;
+    }
+
+    @Test
+    void aggregateJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        /* checkpointItems=7 -> checkpoint 5번은 key 1개 table 을 ExecutionContext 에 저장, 끝날 때 run 1개로 spill 후 병합 */
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("checkpointItems", new JobParameter(7L));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+        assertEquals(1, stepExecution.getExecutionContext().getInt(KeyedAggregateTasklet.RUN_COUNT_KEY));
+        assertEquals(Collections.singletonList("no|465|30|1|30"),
+                Files.readAllLines(Paths.get("data/aggregate/output.csv"), StandardCharsets.UTF_8));
+
+        /* 완료되면 spill run 삭제 */
+        String[] runs = new File("data/aggregate/spill").list();
+        assertEquals(0, runs == null ? 0 : runs.length);
+    }
+
+}
@@ -1,11 +1,15 @@
 package hhy.study.springbatch;
 
+import hhy.study.springbatch.common.handoff.StepHandoff;
 import hhy.study.springbatch.job.chunk.flow.FlowJobConfig;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameter;
 import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.test.JobLauncherTestUtils;
@@ -15,10 +19,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = {FlowJobConfig.class})
 @SpringBootTest
@@ -27,12 +34,15 @@ class FlowJobApplicationTest {
     Job job;
     JobLauncher jobLauncher;
     JobRepository jobRepository;
+    StepHandoff handoff;
 
     @Autowired
-    public FlowJobApplicationTest(@Qualifier("flowJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository) {
+    public FlowJobApplicationTest(@Qualifier("flowJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository,
+                                  @Qualifier("flowStep1Handoff") StepHandoff handoff) {
         this.job = job;
         this.jobLauncher = jobLauncher;
         this.jobRepository = jobRepository;
+        this.handoff = handoff;
     }
 
     public JobLauncherTestUtils jobLauncherTestUtils() {
@@ -56,4 +66,52 @@ class FlowJobApplicationTest {
         jobLauncherTestUtils().launchJob(parameters).getStatus();
     }
 
+    @Test
+    void handoffTest() throws Exception {
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        /* successJobStep 은 입력 파일 대신 flowJobStep 의 handoff 파일을 읽음. job 이 끝나면 삭제 */
+        assertEquals(stepExecution(jobExecution, "flowJobStep").getWriteCount(), stepExecution(jobExecution, "successJobStep").getReadCount());
+        assertFalse(handoff.file(jobExecution.getJobInstance().getInstanceId()).exists());
+    }
+
+    @Test
+    void binaryChainTest() throws Exception {
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("outputFormat", new JobParameter("binary"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        /* successJobStep 은 flowJobStep 이 쓴 binary 파일을 읽으므로 건수가 같아야 함 */
+        int written = stepExecution(jobExecution, "flowJobStep").getWriteCount();
+        assertTrue(written > 0);
+        assertEquals(written, stepExecution(jobExecution, "successJobStep").getReadCount());
+        /* job instance 별 파일 */
+        assertTrue(new File("data/flow-step1/output-" + jobExecution.getJobInstance().getInstanceId() + ".nbf").exists());
+    }
+
+    private StepExecution stepExecution(JobExecution jobExecution, String stepName) {
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (stepName.equals(stepExecution.getStepName())) {
+                return stepExecution;
+            }
+        }
+        throw new IllegalStateException("No step execution : " + stepName);
+    }
 }
@@ -0,0 +1,80 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.repository.JdbcRepositoryConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SimpleJobConfig.class, JdbcRepositoryConfig.class})
+@SpringBootTest(properties = {
+        "springbatch.repository.type=jdbc",
+        "springbatch.repository.url=jdbc:h2:mem:repository;DB_CLOSE_DELAY=-1",
+        "springbatch.repository.flush-chunks=3"})
+class JdbcRepositoryApplicationTest {
+
+    Job job;
+    JobLauncher jobLauncher;
+    JobRepository jobRepository;
+    JobExplorer jobExplorer;
+
+    @Autowired
+    public JdbcRepositoryApplicationTest(@Qualifier("simpleJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository, JobExplorer jobExplorer) {
+        this.job = job;
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+        this.jobExplorer = jobExplorer;
+    }
+
+    public JobLauncherTestUtils jobLauncherTestUtils() {
+        JobLauncherTestUtils testUtils = new JobLauncherTestUtils();
+        testUtils.setJob(job);
+        testUtils.setJobLauncher(jobLauncher);
+        testUtils.setJobRepository(jobRepository);
+        return testUtils;
+    }
+
+    @Test
+    void jdbcRepositoryJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        /* DB 에서 다시 읽은 값 : 묶어서 쓴 뒤에도 마지막 상태가 저장되어 있어야 함 */
+        JobExecution saved = jobExplorer.getJobExecution(jobExecution.getId());
+        StepExecution stepExecution = saved.getStepExecutions().iterator().next();
+        assertEquals(BatchStatus.COMPLETED, stepExecution.getStatus());
+        assertEquals(30, stepExecution.getWriteCount());
+        assertTrue(stepExecution.getExecutionContext().containsKey("MappedNumberItemReader.offset"));
+    }
+
+}
@@ -0,0 +1,109 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.chain.JobChain;
+import hhy.study.springbatch.common.chain.JobChainExecution;
+import hhy.study.springbatch.common.chain.JobChainLauncher;
+import hhy.study.springbatch.job.chain.JobChainConfig;
+import hhy.study.springbatch.job.chunk.flow.DecideJobConfig;
+import hhy.study.springbatch.job.chunk.flow.FlowJobConfig;
+import hhy.study.springbatch.job.chunk.load.LoadJobConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import hhy.study.springbatch.job.tasklet.TaskletJobConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TaskletJobConfig.class, SimpleJobConfig.class, FlowJobConfig.class, DecideJobConfig.class, JobChainConfig.class})
+@SpringBootTest(properties = {"springbatch.tasklet.url=" + JobChainApplicationTest.URL,
+        "springbatch.tasklet.update.table=" + LoadJobConfig.TABLE,
+        "springbatch.tasklet.update.key-column=NUM",
+        "springbatch.tasklet.update.set=NUM_KEY = UPPER(NUM_KEY)",
+        "springbatch.tasklet.update.where=NUM_KEY <> UPPER(NUM_KEY)"})
+class JobChainApplicationTest {
+
+    static final String URL = "jdbc:h2:mem:chain;DB_CLOSE_DELAY=-1";
+
+    JobChainLauncher jobChainLauncher;
+    JobChain jobChain;
+
+    @Autowired
+    public JobChainApplicationTest(JobChainLauncher jobChainLauncher, JobChain nightlyJobChain) {
+        this.jobChainLauncher = jobChainLauncher;
+        this.jobChain = nightlyJobChain;
+    }
+
+    /* migrate(TaskletJob) 의 update 대상 */
+    @BeforeAll
+    static void createTable() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sql : LoadJobConfig.createTable(LoadJobConfig.TABLE)) {
+                statement.execute(sql);
+            }
+            statement.execute("INSERT INTO " + LoadJobConfig.TABLE + " VALUES ('no', 1), ('Yes', 2), ('KEY', 3)");
+        }
+    }
+
+    @Test
+    void jobChainTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        JobParameters parameters = new JobParameters(map);
+
+        JobChainExecution execution = jobChainLauncher.run(jobChain, parameters);
+        assertTrue(execution.isSuccessful());
+        for (JobChainExecution.NodeResult result : execution.getResults().values()) {
+            assertEquals(JobChainExecution.Status.COMPLETED, result.getStatus());
+        }
+        /* migrate(TaskletJob) 는 springbatch.tasklet.update.* 의 bulk update 를 메모리 DB 에 실행 */
+        assertTrue(execution.getResult("migrate").getJobExecution().getStepExecutions().stream()
+                .anyMatch(stepExecution -> "taskletJobStep1".equals(stepExecution.getStepName())
+                        && stepExecution.getStatus() == BatchStatus.COMPLETED));
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + LoadJobConfig.TABLE + " WHERE NUM_KEY <> UPPER(NUM_KEY)")) {
+            assertTrue(resultSet.next());
+            assertEquals(0, resultSet.getLong(1));
+        }
+
+        /* 같은 parameter 로 재실행 -> 완료된 job 은 모두 건너뜀 */
+        JobChainExecution rerun = jobChainLauncher.run(jobChain, parameters);
+        assertTrue(rerun.isSuccessful());
+        for (JobChainExecution.NodeResult result : rerun.getResults().values()) {
+            assertEquals(JobChainExecution.Status.SKIPPED, result.getStatus());
+        }
+    }
+
+    @Test
+    void jobChainCycleTest() {
+        assertThrows(IllegalArgumentException.class, () -> JobChain.builder("cycle")
+                .node("a", "simpleJob").after("b")
+                .node("b", "flowJob").after("a")
+                .build());
+    }
+
+}
@@ -0,0 +1,99 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.launch.JobLaunchEndpoint;
+import hhy.study.springbatch.common.launch.LaunchConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SimpleJobConfig.class, LaunchConfig.class})
+@SpringBootTest(properties = {"springbatch.launch.port=0"})
+@DirtiesContext
+class LaunchApplicationTest {
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+    private static final Pattern EXECUTION_ID = Pattern.compile("\"executionId\":(\\d+)");
+
+    JobLaunchEndpoint jobLaunchEndpoint;
+
+    @Autowired
+    public LaunchApplicationTest(JobLaunchEndpoint jobLaunchEndpoint) {
+        this.jobLaunchEndpoint = jobLaunchEndpoint;
+    }
+
+    @Test
+    void launchTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+        String query = "requiredVal=/input.txt&executeTime=" + random.nextLong();
+
+        /* 바로 반환 (실행은 worker 쓰레드) */
+        Response launched = request("POST", "/jobs/simpleJob?" + query);
+        assertEquals(202, launched.status);
+        Matcher matcher = EXECUTION_ID.matcher(launched.body);
+        assertTrue(matcher.find(), launched.body);
+        String executionId = matcher.group(1);
+
+        Response status = request("GET", "/executions/" + executionId);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!status.body.contains("\"status\":\"COMPLETED\"") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            status = request("GET", "/executions/" + executionId);
+        }
+        assertEquals(200, status.status);
+        assertTrue(status.body.contains("\"status\":\"COMPLETED\""), status.body);
+
+        /* 같은 parameter 로 다시 요청 -> 이미 완료된 instance */
+        assertEquals(409, request("POST", "/jobs/simpleJob?" + query).status);
+        assertEquals(404, request("POST", "/jobs/unknownJob?" + query).status);
+        assertEquals(400, request("POST", "/jobs/simpleJob?executeTime=" + random.nextLong()).status);
+        assertEquals(404, request("GET", "/executions/" + Long.MAX_VALUE).status);
+    }
+
+    private Response request(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + jobLaunchEndpoint.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        try {
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                body.write(buffer, 0, read);
+            }
+            in.close();
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
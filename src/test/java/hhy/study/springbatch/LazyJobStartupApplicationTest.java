@@ -0,0 +1,75 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.startup.LazyJobRegistrar;
+import hhy.study.springbatch.job.startup.LazyJobStartupConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.configuration.JobRegistry;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {LazyJobStartupConfig.class})
+@SpringBootTest(properties = {"springbatch.startup.lazy=true"})
+class LazyJobStartupApplicationTest {
+
+    JobRegistry jobRegistry;
+    LazyJobRegistrar lazyJobRegistrar;
+    JobLauncher jobLauncher;
+    JobExplorer jobExplorer;
+
+    @Autowired
+    public LazyJobStartupApplicationTest(JobRegistry jobRegistry, LazyJobRegistrar lazyJobRegistrar, JobLauncher jobLauncher, JobExplorer jobExplorer) {
+        this.jobRegistry = jobRegistry;
+        this.lazyJobRegistrar = lazyJobRegistrar;
+        this.jobLauncher = jobLauncher;
+        this.jobExplorer = jobExplorer;
+    }
+
+    @Test
+    void lazyJobTest() throws Exception{
+        /* 이름만 등록되어 있고 job context 는 아직 없음 */
+        assertTrue(jobRegistry.getJobNames().contains("simpleJob"));
+        assertTrue(jobRegistry.getJobNames().contains("decideJob"));
+        assertFalse(lazyJobRegistrar.isLoaded("flowJob"));
+
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncher.run(jobRegistry.getJob("simpleJob"), parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        /* 요청한 job 만 생성됨 */
+        assertTrue(lazyJobRegistrar.isLoaded("simpleJob"));
+        assertFalse(lazyJobRegistrar.isLoaded("flowJob"));
+        assertFalse(lazyJobRegistrar.isLoaded("decideJob"));
+        assertFalse(lazyJobRegistrar.isLoaded("taskletJob"));
+
+        /* child context 의 job 도 parent 의 JobRepository 에 기록됨 */
+        JobExecution saved = jobExplorer.getJobExecution(jobExecution.getId());
+        assertNotNull(saved);
+        assertEquals(BatchStatus.COMPLETED, saved.getStatus());
+    }
+}
@@ -0,0 +1,87 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.jdbc.JdbcTables;
+import hhy.study.springbatch.job.chunk.load.LoadJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {LoadJobConfig.class})
+@SpringBootTest(properties = {"springbatch.load.url=" + LoadJobApplicationTest.URL})
+class LoadJobApplicationTest {
+
+    static final String URL = "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1";
+
+    Job job;
+    JobLauncher jobLauncher;
+    JobRepository jobRepository;
+
+    @Autowired
+    public LoadJobApplicationTest(@Qualifier("loadJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository) {
+        this.job = job;
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+    }
+
+    public JobLauncherTestUtils jobLauncherTestUtils() {
+        JobLauncherTestUtils testUtils = new JobLauncherTestUtils();
+        testUtils.setJob(job);
+        testUtils.setJobLauncher(jobLauncher);
+        testUtils.setJobRepository(jobRepository);
+        return testUtils;
+    }
+
+    @Test
+    void stagingLoadTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        /* staging 에 적재 후 교체 -> 두 번 적재해도 NUMBER_ITEM 은 마지막 적재분만 */
+        for (int run = 0; run < 2; run++) {
+            Map<String, JobParameter> map = new HashMap<>();
+            map.put("requiredVal", new JobParameter("/input.txt"));
+            map.put("executeTime", new JobParameter(random.nextLong()));
+            map.put("staging", new JobParameter("true"));
+            map.put("writerCount", new JobParameter(2L));
+            map.put("rowsPerStatement", new JobParameter(4L));
+            map.put("chunkSize", new JobParameter(10L));
+            JobParameters parameters = new JobParameters(map);
+
+            JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+            assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        }
+
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + LoadJobConfig.TABLE)) {
+            assertTrue(resultSet.next());
+            assertEquals(30, resultSet.getLong(1));
+            /* staging 도 같은 DDL 로 생성 -> 교체 후에도 NUM index 유지 */
+            assertTrue(JdbcTables.hasIndexOn(connection, LoadJobConfig.TABLE, "NUM"));
+        }
+    }
+}
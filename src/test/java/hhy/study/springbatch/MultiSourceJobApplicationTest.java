@@ -0,0 +1,90 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.job.chunk.partition.MultiSourceJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {MultiSourceJobConfig.class})
+@SpringBootTest
+class MultiSourceJobApplicationTest {
+
+    Job job;
+    JobLauncher jobLauncher;
+    JobRepository jobRepository;
+
+    @Autowired
+    public MultiSourceJobApplicationTest(@Qualifier("multiSourceJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository) {
+        this.job = job;
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+    }
+
+    public JobLauncherTestUtils jobLauncherTestUtils() {
+        JobLauncherTestUtils testUtils = new JobLauncherTestUtils();
+        testUtils.setJob(job);
+        testUtils.setJobLauncher(jobLauncher);
+        testUtils.setJobRepository(jobRepository);
+        return testUtils;
+    }
+
+    @Test
+    void multiSourceJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("classpath:multi/"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("gridSize", new JobParameter(2L));
+        map.put("blockSize", new JobParameter(40L));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        /* a.txt(12줄) + b.txt(25줄, block 여러개) + empty.txt -> 모든 line 이 한번씩 */
+        int writeCount = 0;
+        int workers = 0;
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (stepExecution.getStepName().startsWith("multiSourceWorkerStep")) {
+                writeCount += stepExecution.getWriteCount();
+                workers++;
+            }
+        }
+        assertEquals(37, writeCount);
+        assertTrue(workers > 3);
+        /* merge step 은 partition 할 때 남긴 segment 수 사용 */
+        assertEquals(workers, jobExecution.getExecutionContext().getInt("multiSource.partitionCount"));
+        assertEquals(37, Files.readAllLines(Paths.get("data/multi/output.csv")).size());
+        /* job instance 별 segment 는 병합 후 삭제 */
+        for (int i = 0; i < workers; i++) {
+            assertFalse(Files.exists(Paths.get("data/multi/output-" + jobExecution.getJobInstance().getInstanceId() + "-" + i + ".csv")));
+        }
+    }
+
+}
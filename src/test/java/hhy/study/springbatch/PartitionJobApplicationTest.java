@@ -0,0 +1,99 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.job.chunk.partition.PartitionJobConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {PartitionJobConfig.class, SimpleJobConfig.class})
+@SpringBootTest
+class PartitionJobApplicationTest {
+
+    Job job;
+    Job simpleJob;
+    JobLauncher jobLauncher;
+    JobRepository jobRepository;
+
+    @Autowired
+    public PartitionJobApplicationTest(@Qualifier("partitionJob") Job job, @Qualifier("simpleJob") Job simpleJob,
+                                       JobLauncher jobLauncher, JobRepository jobRepository) {
+        this.job = job;
+        this.simpleJob = simpleJob;
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+    }
+
+    public JobLauncherTestUtils jobLauncherTestUtils(Job job) {
+        JobLauncherTestUtils testUtils = new JobLauncherTestUtils();
+        testUtils.setJob(job);
+        testUtils.setJobLauncher(jobLauncher);
+        testUtils.setJobRepository(jobRepository);
+        return testUtils;
+    }
+
+    @Test
+    void partitionJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        JobParameters simpleParameters = new JobParameters(new HashMap<>(map));
+        map.put("gridSize", new JobParameter(4L));
+        JobParameters parameters = new JobParameters(map);
+
+        /* 두 job 모두 data/simple/output.csv 뒤에 이어씀 -> 실행마다 붙은 부분만 비교 */
+        File output = new File("data/simple/output.csv");
+        long start = output.length();
+        assertEquals(BatchStatus.COMPLETED, jobLauncherTestUtils(simpleJob).launchJob(simpleParameters).getStatus());
+        long middle = output.length();
+        JobExecution jobExecution = jobLauncherTestUtils(job).launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        List<String> expected = lines(output, start, middle);
+        assertEquals(30, expected.size());
+        assertEquals(expected, lines(output, middle, output.length()));
+        /* job instance 별 segment 는 병합 후 삭제 */
+        for (int i = 0; i < 4; i++) {
+            assertFalse(new File("data/simple/partition/output-" + jobExecution.getJobInstance().getInstanceId() + "-" + i + ".csv").exists());
+        }
+    }
+
+    private List<String> lines(File file, long from, long to) throws IOException {
+        byte[] bytes = new byte[(int) (to - from)];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(from);
+            in.readFully(bytes);
+        }
+        return Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split("\n"));
+    }
+
+}
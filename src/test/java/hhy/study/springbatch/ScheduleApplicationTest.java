@@ -0,0 +1,90 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.common.schedule.BatchScheduleRunner;
+import hhy.study.springbatch.job.chunk.flow.DecideJobConfig;
+import hhy.study.springbatch.job.chunk.flow.FlowJobConfig;
+import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
+import hhy.study.springbatch.job.schedule.JobScheduleConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.quartz.Scheduler;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.TimeZone;
+
+import static hhy.study.springbatch.common.schedule.BatchSchedulerFactoryBean.GROUP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SimpleJobConfig.class, FlowJobConfig.class, DecideJobConfig.class, JobScheduleConfig.class})
+@SpringBootTest(properties = {
+        "springbatch.schedule.enabled=true",
+        "springbatch.schedule.url=jdbc:h2:mem:schedule;DB_CLOSE_DELAY=-1",
+        "springbatch.schedule.simple-job.cron=0/1 * * * * ?",
+        "springbatch.schedule.flow-job.cron=0 0 0 1 1 ? 2099",
+        "springbatch.schedule.decide-job.cron=0 0 0 1 1 ? 2099",
+        "springbatch.schedule.tasklet-job.cron=-"})
+@DirtiesContext
+class ScheduleApplicationTest {
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    Scheduler scheduler;
+    JobExplorer jobExplorer;
+
+    @Autowired
+    public ScheduleApplicationTest(Scheduler scheduler, JobExplorer jobExplorer) {
+        this.scheduler = scheduler;
+        this.jobExplorer = jobExplorer;
+    }
+
+    @Test
+    void scheduleTest() throws Exception{
+        /* "-" 인 taskletJob 은 등록되지 않음 (job bean 이 없어도 됨) */
+        Set<TriggerKey> triggers = scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP));
+        assertEquals(3, triggers.size());
+        assertTrue(triggers.contains(TriggerKey.triggerKey("simpleJob", GROUP)));
+
+        /* 매초 fire 되는 simpleJob 이 schedule 로 실행되어 완료될 때까지 대기 */
+        JobExecution completed = null;
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (completed == null && System.currentTimeMillis() < deadline) {
+            for (JobInstance jobInstance : jobExplorer.findJobInstancesByJobName("SimpleJob", 0, 10)) {
+                for (JobExecution jobExecution : jobExplorer.getJobExecutions(jobInstance)) {
+                    if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
+                        completed = jobExecution;
+                    }
+                }
+            }
+            Thread.sleep(200);
+        }
+
+        assertTrue(completed != null, "scheduled simpleJob did not complete");
+        assertEquals("/input.txt", completed.getJobParameters().getString("requiredVal"));
+        assertEquals(0, completed.getJobParameters().getLong(BatchScheduleRunner.FIRE_TIME_KEY) % 1000);
+    }
+
+    @Test
+    void coveredFiresTest() {
+        TimeZone timeZone = TimeZone.getTimeZone("UTC");
+        Date previous = new Date(0);
+
+        /* 제때 실행 : 1, 10분 주기인데 35분 밀림 -> 10/20/30분 3번이 한번으로 합쳐짐 */
+        assertEquals(1, BatchScheduleRunner.coveredFires("0 0/10 * * * ?", timeZone, previous, new Date(10 * 60_000)));
+        assertEquals(3, BatchScheduleRunner.coveredFires("0 0/10 * * * ?", timeZone, previous, new Date(35 * 60_000)));
+        assertEquals(1, BatchScheduleRunner.coveredFires("0 0/10 * * * ?", timeZone, null, new Date(35 * 60_000)));
+    }
+}
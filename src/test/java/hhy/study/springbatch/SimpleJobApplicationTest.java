@@ -1,11 +1,16 @@
 package hhy.study.springbatch;
 
+import hhy.study.springbatch.common.policy.AdaptiveChunkCompletionPolicy;
 import hhy.study.springbatch.job.chunk.simple.SimpleJobConfig;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameter;
 import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.test.JobLauncherTestUtils;
@@ -15,10 +20,20 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = {SimpleJobConfig.class})
 @SpringBootTest
@@ -56,4 +71,107 @@ class SimpleJobApplicationTest {
         jobLauncherTestUtils().launchJob(parameters).getStatus();
     }
 
+    @Test
+    void multiThreadJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("workerCount", new JobParameter(4L));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        assertEquals(30, jobExecution.getStepExecutions().iterator().next().getWriteCount());
+    }
+
+    @Test
+    void pipelineJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("pipelineDepth", new JobParameter(2L));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        assertEquals(30, jobExecution.getStepExecutions().iterator().next().getWriteCount());
+    }
+
+    @Test
+    void adaptiveChunkJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("chunkMin", new JobParameter(2L));
+        map.put("chunkMax", new JobParameter(8L));
+        JobParameters parameters = new JobParameters(map);
+
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(parameters);
+        StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        assertEquals(30, stepExecution.getWriteCount());
+
+        int chunkSize = stepExecution.getExecutionContext().getInt(AdaptiveChunkCompletionPolicy.SIZE_KEY);
+        assertTrue(chunkSize >= 2 && chunkSize <= 8);
+    }
+
+    @Test
+    void columnBatchJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+        File output = new File("data/simple/output.csv");
+
+        /* item 단위 실행 결과를 기준으로 비교 (output.csv 는 job 마다 뒤에 이어서 씀) */
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        long start = output.length();
+        assertEquals(BatchStatus.COMPLETED, jobLauncherTestUtils().launchJob(new JobParameters(map)).getStatus());
+        long middle = output.length();
+
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("columnBatch", new JobParameter(7L));
+        JobExecution jobExecution = jobLauncherTestUtils().launchJob(new JobParameters(map));
+        StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+        /* write count 는 line 수가 아니라 NumberChunk 수 : 30 line / 7 = 5 */
+        assertEquals(5, stepExecution.getWriteCount());
+        List<String> expected = lines(output, start, middle);
+        assertEquals(30, expected.size());
+        assertEquals(expected, lines(output, middle, output.length()));
+    }
+
+    @Test
+    void exclusiveModesRejected() {
+        /* columnBatch, pipelineDepth, workerCount/chunkMin/chunkMax 는 같이 줄 수 없음 */
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("requiredVal", new JobParameter("/input.txt"));
+        map.put("columnBatch", new JobParameter(7L));
+        map.put("pipelineDepth", new JobParameter(2L));
+        assertThrows(JobParametersInvalidException.class, () -> jobLauncherTestUtils().launchJob(new JobParameters(map)));
+
+        map.remove("columnBatch");
+        map.put("chunkMax", new JobParameter(8L));
+        assertThrows(JobParametersInvalidException.class, () -> jobLauncherTestUtils().launchJob(new JobParameters(map)));
+    }
+
+    private List<String> lines(File file, long from, long to) throws IOException {
+        byte[] bytes = new byte[(int) (to - from)];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(from);
+            in.readFully(bytes);
+        }
+        return Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split("\n"));
+    }
+
 }
@@ -0,0 +1,92 @@
+package hhy.study.springbatch;
+
+import hhy.study.springbatch.job.chunk.sort.SortJobConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {SortJobConfig.class})
+@SpringBootTest
+class SortJobApplicationTest {
+
+    Job job;
+    JobLauncher jobLauncher;
+    JobRepository jobRepository;
+
+    @Autowired
+    public SortJobApplicationTest(@Qualifier("sortJob") Job job, JobLauncher jobLauncher, JobRepository jobRepository) {
+        this.job = job;
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+    }
+
+    public JobLauncherTestUtils jobLauncherTestUtils() {
+        JobLauncherTestUtils testUtils = new JobLauncherTestUtils();
+        testUtils.setJob(job);
+        testUtils.setJobLauncher(jobLauncher);
+        testUtils.setJobRepository(jobRepository);
+        return testUtils;
+    }
+
+    @Test
+    void sortJobTest() throws Exception{
+        Random random = new Random();
+        random.setSeed(System.currentTimeMillis());
+
+        /* 섞인 num 100 건 -> runItems=7, parallelism=2 로 run 15개 생성 후 병합 */
+        List<Integer> nums = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            nums.add(i - 50);
+        }
+        Collections.shuffle(nums, random);
+        List<String> lines = new ArrayList<>();
+        for (int num : nums) {
+            lines.add("k" + Math.floorMod(num, 3) + "@" + num);
+        }
+        Path input = Paths.get("data/sort/test-input.csv");
+        Files.createDirectories(input.getParent());
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        Map<String, JobParameter> map = new HashMap<>();
+        map.put("sortInput", new JobParameter(input.toString()));
+        map.put("executeTime", new JobParameter(random.nextLong()));
+        map.put("sortBy", new JobParameter("num"));
+        map.put("runItems", new JobParameter(7L));
+        map.put("parallelism", new JobParameter(2L));
+        JobParameters parameters = new JobParameters(map);
+
+        assertEquals(BatchStatus.COMPLETED, jobLauncherTestUtils().launchJob(parameters).getStatus());
+
+        List<String> expected = new ArrayList<>();
+        for (int num = -50; num < 50; num++) {
+            expected.add("k" + Math.floorMod(num, 3) + "@" + num);
+        }
+        assertEquals(expected, Files.readAllLines(Paths.get("data/sort/output.csv"), StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,83 @@
+package hhy.study.springbatch.common.aggregate;
+
+import hhy.study.springbatch.job.NumberAggregateVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyAggregateTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeSortedInKeyOrder() throws Exception {
+        KeyAggregateTable table = new KeyAggregateTable(16);
+        TreeMap<String, long[]> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(2000);
+            int num = random.nextInt(100) - 50;
+            table.add(key, num);
+            expected.merge(key, new long[]{num, 1}, (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+        }
+
+        List<NumberAggregateVO> written = write(table);
+
+        assertEquals(expected.size(), written.size());
+        int i = 0;
+        for (String key : expected.keySet()) {
+            NumberAggregateVO aggregate = written.get(i++);
+            assertEquals(key, aggregate.getKey());
+            assertEquals(expected.get(key)[0], aggregate.getSum());
+            assertEquals(expected.get(key)[1], aggregate.getCount());
+        }
+    }
+
+    @Test
+    void restoreMergesSnapshot() throws Exception {
+        KeyAggregateTable table = new KeyAggregateTable();
+        table.add("a", 1);
+        table.add("b", -3);
+        table.add("a", 5);
+
+        KeyAggregateTable restored = new KeyAggregateTable();
+        restored.add("a", 10);
+        restored.restore(table.snapshot());
+
+        List<NumberAggregateVO> written = write(restored);
+        assertEquals(2, written.size());
+        assertAggregate(written.get(0), "a", 16, 3, 1, 10);
+        assertAggregate(written.get(1), "b", -3, 1, -3, -3);
+    }
+
+    private List<NumberAggregateVO> write(KeyAggregateTable table) throws Exception {
+        File file = tempDir.resolve("table.run").toFile();
+        try (AggregateRun.Writer writer = AggregateRun.writer(file)) {
+            table.writeSorted(writer);
+        }
+        List<NumberAggregateVO> written = new ArrayList<>();
+        try (AggregateRun.Reader reader = AggregateRun.reader(file)) {
+            for (NumberAggregateVO aggregate = reader.read(); aggregate != null; aggregate = reader.read()) {
+                written.add(aggregate);
+            }
+        }
+        return written;
+    }
+
+    private void assertAggregate(NumberAggregateVO aggregate, String key, long sum, long count, int min, int max) {
+        assertEquals(key, aggregate.getKey());
+        assertEquals(sum, aggregate.getSum());
+        assertEquals(count, aggregate.getCount());
+        assertEquals(min, aggregate.getMin());
+        assertEquals(max, aggregate.getMax());
+    }
+}
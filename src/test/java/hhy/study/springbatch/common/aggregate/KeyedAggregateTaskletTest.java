@@ -0,0 +1,71 @@
+package hhy.study.springbatch.common.aggregate;
+
+import hhy.study.springbatch.job.NumberAggregateVO;
+import hhy.study.springbatch.job.NumberVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static hhy.study.springbatch.job.NumberItems.item;
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedAggregateTaskletTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keepSmallTableInContextAndRestart() throws Exception {
+        List<NumberVO> items = Arrays.asList(item("a", 1), item("b", 2), item("a", 3), item("c", 4), item("b", 5), item("a", 6));
+        List<NumberAggregateVO> written = new ArrayList<>();
+
+        /* checkpoint 2번(4건) 후 죽음 : run 없이 table snapshot 만 commit 됨 */
+        StepExecution first = MetaDataInstanceFactory.createStepExecution();
+        KeyedAggregateTasklet tasklet = newTasklet(new ListItemReader<>(items.subList(0, 4)), written);
+        tasklet.beforeStep(first);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(first));
+        tasklet.execute(first.createStepContribution(), chunkContext);
+        tasklet.execute(first.createStepContribution(), chunkContext);
+        assertEquals(0, first.getExecutionContext().getInt(KeyedAggregateTasklet.RUN_COUNT_KEY));
+        assertTrue(first.getExecutionContext().containsKey(KeyedAggregateTasklet.TABLE_KEY));
+
+        /* 재시작 : 마지막 commit 의 ExecutionContext + reader 위치(4건 뒤)부터 */
+        StepExecution restart = MetaDataInstanceFactory.createStepExecution();
+        restart.setExecutionContext(new ExecutionContext(first.getExecutionContext()));
+        tasklet = newTasklet(new ListItemReader<>(items.subList(4, 6)), written);
+        tasklet.beforeStep(restart);
+        run(tasklet, restart);
+
+        assertEquals(1, restart.getExecutionContext().getInt(KeyedAggregateTasklet.RUN_COUNT_KEY));
+        assertEquals("[a|10|3|1|6, b|7|2|2|5, c|4|1|4|4]", written.toString());
+    }
+
+    private KeyedAggregateTasklet newTasklet(ListItemReader<NumberVO> reader, List<NumberAggregateVO> written) {
+        KeyedAggregateTasklet tasklet = new KeyedAggregateTasklet(reader, written::addAll, tempDir.toFile());
+        tasklet.setCheckpointItems(2);
+        return tasklet;
+    }
+
+    /* TaskletStep 처럼 FINISHED 까지 반복 */
+    private void run(KeyedAggregateTasklet tasklet, StepExecution stepExecution) throws Exception {
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(stepExecution.createStepContribution(), chunkContext);
+        } while (status.isContinuable());
+        stepExecution.setExitStatus(ExitStatus.COMPLETED);
+        tasklet.afterStep(stepExecution);
+    }
+}
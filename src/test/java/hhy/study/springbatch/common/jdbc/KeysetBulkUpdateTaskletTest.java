@@ -0,0 +1,141 @@
+package hhy.study.springbatch.common.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetBulkUpdateTaskletTest {
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bulkUpdate;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(4);
+        execute("CREATE TABLE NUMBER_ITEM (NUM_KEY VARCHAR(255) NOT NULL, NUM INT)");
+        execute("CREATE INDEX ON NUMBER_ITEM (NUM)");
+        /* NUM 1..20 + 중복 key(5, 6 이 2건씩) + NULL key 1건 = 23건 */
+        for (int num = 1; num <= 20; num++) {
+            execute("INSERT INTO NUMBER_ITEM VALUES ('no', " + num + ")");
+        }
+        execute("INSERT INTO NUMBER_ITEM VALUES ('no', 5)");
+        execute("INSERT INTO NUMBER_ITEM VALUES ('no', 6)");
+        execute("INSERT INTO NUMBER_ITEM VALUES ('no', NULL)");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        execute("DROP TABLE NUMBER_ITEM");
+        dataSource.close();
+    }
+
+    @Test
+    void updateAllRangesInParallel() throws Exception {
+        KeysetBulkUpdateTasklet tasklet = newTasklet();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        int rounds = run(tasklet, stepExecution);
+
+        /* 구간 3건 * 2개씩 -> 22건은 4번 실행 */
+        assertEquals(4, rounds);
+        assertEquals(22, stepExecution.getWriteCount());
+        assertEquals(22, count("SELECT COUNT(*) FROM NUMBER_ITEM WHERE NUM_KEY = 'NO'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM NUMBER_ITEM WHERE NUM IS NULL AND NUM_KEY = 'no'"));
+    }
+
+    @Test
+    void restartFromCursor() throws Exception {
+        KeysetBulkUpdateTasklet tasklet = newTasklet();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        /* 이전 실행이 NUM 10 까지 commit 한 상태 */
+        stepExecution.getExecutionContext().putLong(KeysetBulkUpdateTasklet.CURSOR_KEY, 10L);
+
+        run(tasklet, stepExecution);
+
+        assertEquals(10, stepExecution.getWriteCount());
+        assertEquals(0, count("SELECT COUNT(*) FROM NUMBER_ITEM WHERE NUM <= 10 AND NUM_KEY = 'NO'"));
+        assertEquals(10, count("SELECT COUNT(*) FROM NUMBER_ITEM WHERE NUM > 10 AND NUM_KEY = 'NO'"));
+        /* 마지막 구간(19, 끝) 은 upper 가 없어서 cursor 는 19 */
+        assertEquals(19L, stepExecution.getExecutionContext().getLong(KeysetBulkUpdateTasklet.CURSOR_KEY));
+
+        /* where 로 이미 바뀐 row 는 건너뜀 -> 처음부터 다시 돌려도 남은 12건만 */
+        StepExecution rerun = MetaDataInstanceFactory.createStepExecution();
+        run(tasklet, rerun);
+        assertEquals(12, rerun.getWriteCount());
+    }
+
+    @Test
+    void rejectUnindexedKey() throws Exception {
+        execute("DROP INDEX " + indexName());
+        KeysetBulkUpdateTasklet tasklet = newTasklet();
+
+        assertThrows(IllegalStateException.class, () -> tasklet.beforeStep(MetaDataInstanceFactory.createStepExecution()));
+    }
+
+    private String indexName() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'NUMBER_ITEM' AND COLUMN_NAME = 'NUM'")) {
+            assertTrue(resultSet.next());
+            return resultSet.getString(1);
+        }
+    }
+
+    private KeysetBulkUpdateTasklet newTasklet() {
+        KeysetBulkUpdateTasklet tasklet = new KeysetBulkUpdateTasklet(dataSource, "NUMBER_ITEM", "NUM", "NUM_KEY = UPPER(NUM_KEY)");
+        tasklet.setWhere("NUM_KEY <> UPPER(NUM_KEY)");
+        tasklet.setBatchSize(3);
+        tasklet.setParallelism(2);
+        return tasklet;
+    }
+
+    /* TaskletStep 처럼 FINISHED 까지 반복, 실행 횟수 반환 */
+    private int run(KeysetBulkUpdateTasklet tasklet, StepExecution stepExecution) throws Exception {
+        tasklet.beforeStep(stepExecution);
+        int rounds = 0;
+        try {
+            RepeatStatus status;
+            do {
+                StepContribution contribution = stepExecution.createStepContribution();
+                status = tasklet.execute(contribution, new ChunkContext(new StepContext(stepExecution)));
+                stepExecution.apply(contribution);
+                rounds++;
+            } while (status.isContinuable());
+        } finally {
+            tasklet.afterStep(stepExecution);
+        }
+        return rounds;
+    }
+
+    private long count(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
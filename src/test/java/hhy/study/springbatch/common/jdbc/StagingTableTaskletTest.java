@@ -0,0 +1,194 @@
+package hhy.study.springbatch.common.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import hhy.study.springbatch.common.repository.BufferedJobRepository;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagingTableTaskletTest {
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:staging;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        for (String sql : createTable("NUMBER_ITEM")) {
+            execute(sql);
+        }
+        execute("INSERT INTO NUMBER_ITEM VALUES ('old', 1)");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        execute("DROP ALL OBJECTS");
+        dataSource.close();
+    }
+
+    @Test
+    void prepareCreatesStagingFromDdl() throws Exception {
+        execute("CREATE TABLE NUMBER_ITEM_STAGING AS SELECT * FROM NUMBER_ITEM");
+
+        run(newTasklet(StagingTableTasklet.Mode.PREPARE), MetaDataInstanceFactory.createStepExecution());
+
+        assertEquals(0, count("NUMBER_ITEM_STAGING"));
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(JdbcTables.hasIndexOn(connection, "NUMBER_ITEM_STAGING", "NUM"));
+        }
+    }
+
+    @Test
+    void swap() throws Exception {
+        prepareAndLoad();
+
+        run(newTasklet(StagingTableTasklet.Mode.SWAP), MetaDataInstanceFactory.createStepExecution());
+
+        assertEquals("new", numKey("NUMBER_ITEM"));
+        assertEquals("old", numKey("NUMBER_ITEM_STAGING"));
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(JdbcTables.hasIndexOn(connection, "NUMBER_ITEM", "NUM"));
+            assertFalse(JdbcTables.exists(connection, "NUMBER_ITEM_PREVIOUS"));
+        }
+    }
+
+    @Test
+    void swapFlushesEveryPhase() throws Exception {
+        prepareAndLoad();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        RepeatStatus status = newTasklet(StagingTableTasklet.Mode.SWAP)
+                .execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution)));
+
+        /* 첫 실행은 rename 없이 표시만 */
+        assertEquals(RepeatStatus.CONTINUABLE, status);
+        assertTrue(stepExecution.getExecutionContext().containsKey(BufferedJobRepository.FLUSH_EVERY_CHUNK_KEY));
+        assertEquals("old", numKey("NUMBER_ITEM"));
+    }
+
+    /* phase 0..3 의 작업(DDL commit)은 됐지만 phase 저장(step commit) 전에 죽은 경우 : 마지막 commit 된 phase 부터 재시작하면 이어서 교체 */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3})
+    void restartFromPhase(int phase) throws Exception {
+        prepareAndLoad();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ExecutionContext committed = runUntilPhase(stepExecution, phase);
+        executePhase(stepExecution);
+
+        run(newTasklet(StagingTableTasklet.Mode.SWAP), restartOf(committed));
+
+        assertEquals("new", numKey("NUMBER_ITEM"));
+        assertEquals("old", numKey("NUMBER_ITEM_STAGING"));
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(JdbcTables.exists(connection, "NUMBER_ITEM_PREVIOUS"));
+        }
+    }
+
+    /* 대상 -> _PREVIOUS 뒤에 phase 0 부터 다시 실행돼도 _PREVIOUS(이전 데이터)는 지우지 않음 */
+    @Test
+    void replayedPhaseZeroKeepsPreviousTable() throws Exception {
+        prepareAndLoad();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ExecutionContext committed = runUntilPhase(stepExecution, 0);
+        executePhase(stepExecution);
+        executePhase(stepExecution);
+
+        run(newTasklet(StagingTableTasklet.Mode.SWAP), restartOf(committed));
+
+        assertEquals("new", numKey("NUMBER_ITEM"));
+        assertEquals("old", numKey("NUMBER_ITEM_STAGING"));
+    }
+
+    @Test
+    void prepareRestoresTableAfterAbandonedSwap() throws Exception {
+        /* swap 이 대상 -> _PREVIOUS 뒤에 멈추고 다음 job 이 새로 시작한 경우 */
+        execute("ALTER TABLE NUMBER_ITEM RENAME TO NUMBER_ITEM_PREVIOUS");
+
+        run(newTasklet(StagingTableTasklet.Mode.PREPARE), MetaDataInstanceFactory.createStepExecution());
+
+        assertEquals("old", numKey("NUMBER_ITEM"));
+        assertEquals(0, count("NUMBER_ITEM_STAGING"));
+    }
+
+    private void prepareAndLoad() throws Exception {
+        run(newTasklet(StagingTableTasklet.Mode.PREPARE), MetaDataInstanceFactory.createStepExecution());
+        execute("INSERT INTO NUMBER_ITEM_STAGING VALUES ('new', 1)");
+    }
+
+    /* SWAP 을 phase 직전까지 실행하고 그때 commit 된 ExecutionContext 를 돌려줌 */
+    private ExecutionContext runUntilPhase(StepExecution stepExecution, int phase) throws Exception {
+        do {
+            executePhase(stepExecution);
+        } while (stepExecution.getExecutionContext().getInt(StagingTableTasklet.SWAP_PHASE_KEY) < phase);
+        return new ExecutionContext(stepExecution.getExecutionContext());
+    }
+
+    private void executePhase(StepExecution stepExecution) throws Exception {
+        newTasklet(StagingTableTasklet.Mode.SWAP).execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution)));
+    }
+
+    private StepExecution restartOf(ExecutionContext committed) {
+        StepExecution restarted = MetaDataInstanceFactory.createStepExecution();
+        restarted.setExecutionContext(committed);
+        return restarted;
+    }
+
+    private StagingTableTasklet newTasklet(StagingTableTasklet.Mode mode) {
+        return new StagingTableTasklet(dataSource, "NUMBER_ITEM", "NUMBER_ITEM_STAGING", StagingTableTaskletTest::createTable, mode);
+    }
+
+    private static String[] createTable(String table) {
+        return new String[]{
+                "CREATE TABLE " + table + " (NUM_KEY VARCHAR(255) NOT NULL, NUM INT NOT NULL)",
+                "CREATE INDEX ON " + table + " (NUM)"
+        };
+    }
+
+    /* TaskletStep 처럼 FINISHED 까지 반복 */
+    private void run(StagingTableTasklet tasklet, StepExecution stepExecution) throws Exception {
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution)));
+        } while (status.isContinuable());
+    }
+
+    private String numKey(String table) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT NUM_KEY FROM " + table)) {
+            assertTrue(resultSet.next());
+            return resultSet.getString(1);
+        }
+    }
+
+    private long count(String table) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package hhy.study.springbatch.common.launch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobAutoLaunchEnvironmentPostProcessorTest {
+
+    private final JobAutoLaunchEnvironmentPostProcessor postProcessor = new JobAutoLaunchEnvironmentPostProcessor();
+
+    @Test
+    void disablesOnlyInDaemonScheduleAndJdbcModes() {
+        /* 기본(map) 모드 : 기존처럼 자동 실행 */
+        assertNull(enabled(new MockEnvironment().withProperty("springbatch.repository.type", "map")));
+
+        assertEquals("false", enabled(new MockEnvironment().withProperty("springbatch.launch.port", "0")));
+        assertEquals("false", enabled(new MockEnvironment().withProperty("springbatch.schedule.enabled", "true")));
+        assertEquals("false", enabled(new MockEnvironment().withProperty("springbatch.repository.type", "jdbc")));
+
+        /* jdbc 모드라도 job 이름을 주면 그 job 만 실행 */
+        assertNull(enabled(new MockEnvironment()
+                .withProperty("springbatch.repository.type", "jdbc")
+                .withProperty("spring.batch.job.names", "SimpleJob")));
+
+        /* 직접 준 값이 우선 */
+        assertEquals("true", enabled(new MockEnvironment()
+                .withProperty("springbatch.launch.port", "0")
+                .withProperty("spring.batch.job.enabled", "true")));
+    }
+
+    private String enabled(MockEnvironment environment) {
+        postProcessor.postProcessEnvironment(environment, null);
+        return environment.getProperty("spring.batch.job.enabled");
+    }
+}
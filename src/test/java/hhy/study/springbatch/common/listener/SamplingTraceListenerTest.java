@@ -0,0 +1,111 @@
+package hhy.study.springbatch.common.listener;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SamplingTraceListenerTest {
+
+    @Test
+    void samplesOneInNAndDumpsAtStepEnd() throws Exception {
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("traceJob", 1L, 1L,
+                new JobParametersBuilder().addLong(SamplingTraceListener.SAMPLE_KEY, 2L).toJobParameters());
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(jobExecution, "traceStep", 7L);
+        Path prefix = Paths.get(SamplingTraceListener.TRACE_DIRECTORY, "traceJob-traceStep-7");
+        Path hgrm = Paths.get(prefix + ".hgrm");
+        Path collapsed = Paths.get(prefix + ".collapsed");
+        Files.deleteIfExists(hgrm);
+        Files.deleteIfExists(collapsed);
+
+        SamplingTraceListener listener = new SamplingTraceListener();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        List<String> items = Arrays.asList("a", "b", "c", "d");
+
+        listener.beforeStep(stepExecution);
+        listener.beforeChunk(chunkContext);
+        for (String item : items) {
+            listener.beforeRead();
+            listener.afterRead(item);
+        }
+        listener.beforeWrite(items);
+        listener.afterWrite(items);
+        listener.afterChunk(chunkContext);
+        listener.afterStep(stepExecution);
+
+        String histograms = new String(Files.readAllBytes(hgrm), "UTF-8");
+        assertTrue(histograms.contains("read samples=2"));
+        assertTrue(histograms.contains("write samples=1"));
+        List<String> stacks = Files.readAllLines(collapsed);
+        assertTrue(stacks.stream().anyMatch(line -> line.startsWith("traceJob;traceStep;read;String ")));
+    }
+
+    @Test
+    void offWithoutParameter() throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("traceOffStep", 8L);
+        SamplingTraceListener listener = new SamplingTraceListener();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        listener.beforeStep(stepExecution);
+        listener.beforeChunk(chunkContext);
+        listener.beforeRead();
+        listener.afterRead("a");
+        listener.afterChunk(chunkContext);
+        listener.afterStep(stepExecution);
+
+        String jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
+        assertFalse(Files.exists(Paths.get(SamplingTraceListener.TRACE_DIRECTORY, jobName + "-traceOffStep-8.hgrm")));
+    }
+
+    @Test
+    void switchOnAndOffThroughJmxBetweenChunks() throws Exception {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution("traceJmxStep", 9L);
+        String jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
+        Path hgrm = Paths.get(SamplingTraceListener.TRACE_DIRECTORY, jobName + "-traceJmxStep-9.hgrm");
+        Files.deleteIfExists(hgrm);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SamplingTraceListener.OBJECT_NAME);
+
+        SamplingTraceListener listener = new SamplingTraceListener();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        try {
+            listener.beforeStep(stepExecution);
+            /* job parameter 없음 -> 첫 chunk 는 기록 안함 */
+            readChunk(listener, chunkContext, "a", "b");
+            server.setAttribute(name, new Attribute("Sample", 1L));
+            readChunk(listener, chunkContext, "c", "d");
+            server.setAttribute(name, new Attribute("Sample", 0L));
+            readChunk(listener, chunkContext, "e", "f");
+            listener.afterStep(stepExecution);
+        } finally {
+            SamplingTraceListener.control().setSample(-1L);
+        }
+
+        String histograms = new String(Files.readAllBytes(hgrm), "UTF-8");
+        assertTrue(histograms.contains("read samples=2"));
+    }
+
+    private void readChunk(SamplingTraceListener listener, ChunkContext chunkContext, String... items) {
+        listener.beforeChunk(chunkContext);
+        for (String item : items) {
+            listener.beforeRead();
+            listener.afterRead(item);
+        }
+        listener.afterChunk(chunkContext);
+    }
+}
@@ -0,0 +1,65 @@
+package hhy.study.springbatch.common.listener;
+
+import hhy.study.springbatch.common.metrics.BatchMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepListenerTest {
+
+    /* 전역 registry 는 다른 테스트와 meter 가 섞이므로 테스트 전용 registry 사용 */
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void recordsChunkMetricsAndSummary() {
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("metricsJob", 1L, 1L);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(jobExecution, "metricsStep", 1L);
+        StepListener listener = new StepListener(registry);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        List<String> items = Arrays.asList("a", "b", "c");
+
+        listener.beforeStep(stepExecution);
+        for (int chunk = 0; chunk < 2; chunk++) {
+            listener.beforeChunk(chunkContext);
+            for (String item : items) {
+                listener.beforeRead();
+                listener.afterRead(item);
+                listener.beforeProcess(item);
+                listener.afterProcess(item, item);
+            }
+            listener.beforeWrite(items);
+            listener.afterWrite(items);
+            listener.afterChunk(chunkContext);
+        }
+        /* rollback 된 chunk 는 기록되지 않음 */
+        listener.beforeChunk(chunkContext);
+        listener.afterChunkError(chunkContext);
+        listener.afterChunk(chunkContext);
+        listener.afterStep(stepExecution);
+
+        Timer read = registry.get(BatchMetrics.CHUNK_READ).tag("job", "metricsJob").tag("step", "metricsStep").timer();
+        assertEquals(2, read.count());
+        assertEquals(2, registry.get(BatchMetrics.CHUNK_COMMIT).timer().count());
+        assertEquals(6.0, registry.get(BatchMetrics.ITEMS_WRITTEN).counter().count());
+
+        assertEquals(2L, stepExecution.getExecutionContext().getLong(StepListener.METRICS_PREFIX + "chunks"));
+
+        Map<String, Object> summary = JobListener.summary(jobExecution);
+        assertEquals("metricsJob", summary.get("job"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> step = ((List<Map<String, Object>>) summary.get("steps")).get(0);
+        assertEquals("metricsStep", step.get("step"));
+        assertEquals(2L, step.get("chunks"));
+    }
+}
@@ -0,0 +1,101 @@
+package hhy.study.springbatch.common.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentMergeTaskletTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void restartAfterFailureInsideFirstSegment() throws Exception {
+        Path output = write("output.csv", "old@0\n");
+        Path segment0 = write("segment-0.csv", "a@1\nb@2\n");
+        Path segment1 = write("segment-1.csv", "c@3\n");
+
+        /* segment 0 을 절반쯤 붙이다 죽음 (실패한 transaction 의 ExecutionContext 는 commit 안됨) */
+        Resource failingSegment = new FileSystemResource(segment0) {
+            @Override
+            public File getFile() {
+                try {
+                    Files.write(output, "a@1\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                throw new UncheckedIOException(new IOException("disk gone"));
+            }
+        };
+        StepExecution first = MetaDataInstanceFactory.createStepExecution();
+        SegmentMergeTasklet tasklet = new SegmentMergeTasklet(Arrays.asList(failingSegment, new FileSystemResource(segment1)),
+                new FileSystemResource(output));
+        ChunkContext chunkContext = new ChunkContext(new StepContext(first));
+        assertEquals(RepeatStatus.CONTINUABLE, tasklet.execute(first.createStepContribution(), chunkContext));
+        ExecutionContext committed = new ExecutionContext(first.getExecutionContext());
+        assertThrows(UncheckedIOException.class, () -> tasklet.execute(first.createStepContribution(), chunkContext));
+        assertEquals("old@0\na@1\n", read(output));
+
+        /* 재시작 : 마지막 commit 의 ExecutionContext 부터 */
+        StepExecution restart = MetaDataInstanceFactory.createStepExecution();
+        restart.setExecutionContext(committed);
+        SegmentMergeTasklet restarted = new SegmentMergeTasklet(
+                Arrays.asList(new FileSystemResource(segment0), new FileSystemResource(segment1)), new FileSystemResource(output));
+        run(restarted, restart);
+
+        assertEquals("old@0\na@1\nb@2\nc@3\n", read(output));
+        assertFalse(Files.exists(segment0));
+        assertFalse(Files.exists(segment1));
+    }
+
+    @Test
+    void replaceOutputWhenAppendNotAllowed() throws Exception {
+        Path output = write("output.csv", "old@0\n");
+        Path segment0 = write("segment-0.csv", "a@1\n");
+
+        SegmentMergeTasklet tasklet = new SegmentMergeTasklet(Arrays.asList(new FileSystemResource(segment0)), new FileSystemResource(output));
+        tasklet.setAppendAllowed(false);
+        run(tasklet, MetaDataInstanceFactory.createStepExecution());
+
+        assertEquals("a@1\n", read(output));
+    }
+
+    /* TaskletStep 처럼 FINISHED 까지 반복 */
+    private void run(SegmentMergeTasklet tasklet, StepExecution stepExecution) throws Exception {
+        tasklet.beforeStep(stepExecution);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(stepExecution.createStepContribution(), chunkContext);
+        } while (status.isContinuable());
+        stepExecution.setExitStatus(ExitStatus.COMPLETED);
+        tasklet.afterStep(stepExecution);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+package hhy.study.springbatch.common.policy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveChunkCompletionPolicyTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private long now;
+    private StepExecution stepExecution;
+    private AdaptiveChunkCompletionPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        stepExecution = new StepExecution("adaptiveStep", new JobExecution(new JobInstance(1L, "adaptiveJob"), new JobParameters(), null));
+        policy = new AdaptiveChunkCompletionPolicy(5, 40) {
+            @Override
+            long nanoTime() {
+                return now;
+            }
+        };
+        policy.setTargetMillis(1000);
+        policy.beforeStep(stepExecution);
+    }
+
+    @Test
+    void growToMaxWhileThroughputImproves() {
+        /* chunk 마다 고정 비용 10ms -> 클수록 처리량이 좋아짐 */
+        List<Integer> sizes = runChunks(30, size -> 10 * MILLIS);
+
+        assertEquals(5, sizes.get(0));
+        assertEquals(40, sizes.get(sizes.size() - 1));
+        assertTrue(sizes.stream().allMatch(size -> size >= 5 && size <= 40), sizes::toString);
+        assertEquals(40, stepExecution.getExecutionContext().getInt(AdaptiveChunkCompletionPolicy.SIZE_KEY));
+        assertEquals(3, stepExecution.getExecutionContext().getInt(AdaptiveChunkCompletionPolicy.CHANGES_KEY));
+    }
+
+    @Test
+    void shrinkToMinWhenChunkExceedsTarget() {
+        runChunks(30, size -> 10 * MILLIS);
+        assertEquals(40, policy.getChunkSize());
+
+        /* item 당 150ms -> 10개 chunk 도 1.5초로 targetMillis(1초) 초과 -> chunk 마다 절반 */
+        List<Integer> sizes = runChunks(10, size -> size * 150 * MILLIS);
+
+        assertEquals(40, sizes.get(0));
+        assertEquals(20, sizes.get(1));
+        assertEquals(10, sizes.get(2));
+        assertEquals(5, sizes.get(sizes.size() - 1));
+        assertTrue(sizes.stream().allMatch(size -> size >= 5 && size <= 40), sizes::toString);
+    }
+
+    @Test
+    void reverseDirectionWhenThroughputDrops() {
+        /* 10개 까지는 고정 비용, 그 이상은 item 당 비용이 커짐 -> 20 에서 나빠져서 10 근처로 돌아옴 (40 까지는 가지 않음) */
+        List<Integer> sizes = runChunks(60, size -> size <= 10 ? 10 * MILLIS : size * 5 * MILLIS);
+
+        assertTrue(sizes.stream().allMatch(size -> size >= 5 && size <= 20), sizes::toString);
+        assertTrue(sizes.lastIndexOf(10) > sizes.indexOf(20), sizes::toString);
+    }
+
+    /* chunk 마다 현재 chunk 크기만큼 읽었다고 보고 소요시간을 진행시킴. chunk 시작 시 크기를 반환 */
+    private List<Integer> runChunks(int chunks, IntToLongFunction nanosBySize) {
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            int size = policy.getChunkSize();
+            sizes.add(size);
+            policy.beforeChunk(null);
+            stepExecution.setReadCount(stepExecution.getReadCount() + size);
+            now += nanosBySize.applyAsLong(size);
+            policy.afterChunk(null);
+        }
+        return sizes;
+    }
+}
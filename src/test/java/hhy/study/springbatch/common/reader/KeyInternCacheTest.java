@@ -0,0 +1,41 @@
+package hhy.study.springbatch.common.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyInternCacheTest {
+
+    @Test
+    void sameBytesReturnSameString() {
+        ByteBuffer buffer = ByteBuffer.wrap("no|1\nno|2\nyes|3".getBytes(StandardCharsets.UTF_8));
+        KeyInternCache cache = new KeyInternCache(16);
+
+        String first = cache.intern(buffer, 0, 2, StandardCharsets.UTF_8);
+        String second = cache.intern(buffer, 5, 7, StandardCharsets.UTF_8);
+        String other = cache.intern(buffer, 10, 13, StandardCharsets.UTF_8);
+
+        assertEquals("no", first);
+        assertSame(first, second);
+        assertEquals("yes", other);
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1.0 / 3, cache.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void boundedByCapacity() {
+        KeyInternCache cache = new KeyInternCache(3);
+        assertEquals(4, cache.capacity());
+
+        for (int i = 0; i < 100; i++) {
+            byte[] key = ("key" + i).getBytes(StandardCharsets.UTF_8);
+            assertEquals("key" + i, cache.intern(ByteBuffer.wrap(key), 0, key.length, StandardCharsets.UTF_8));
+        }
+        assertEquals(100, cache.misses());
+        assertTrue(cache.evictions() >= 96);
+    }
+}
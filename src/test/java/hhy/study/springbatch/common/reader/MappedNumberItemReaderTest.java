@@ -0,0 +1,176 @@
+package hhy.study.springbatch.common.reader;
+
+import hhy.study.springbatch.common.compress.GzipBlockInput;
+import hhy.study.springbatch.common.writer.ChannelNumberItemWriter;
+import hhy.study.springbatch.job.NumberChunk;
+import hhy.study.springbatch.job.NumberKeyDictionary;
+import hhy.study.springbatch.job.NumberVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static hhy.study.springbatch.job.NumberItems.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedNumberItemReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readAcrossWindowsAndRestartFromOffset() throws Exception {
+        Path input = tempDir.resolve("input.txt");
+        Files.write(input, "no|1\r\nyes|-22\n\nno|333\nkey|2147483647\nlast|-2147483648".getBytes(StandardCharsets.UTF_8));
+
+        MappedNumberItemReader reader = new MappedNumberItemReader();
+        reader.setResource(new FileSystemResource(input.toFile()));
+        reader.setWindowSize(4); // 모든 line 이 window 경계에 걸치도록
+
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        assertItem(reader.read(), "no", 1);
+        assertItem(reader.read(), "yes", -22);
+        reader.update(executionContext);
+        reader.close();
+
+        reader.open(executionContext);
+        assertItem(reader.read(), "no", 333);
+        assertItem(reader.read(), "key", Integer.MAX_VALUE);
+        assertItem(reader.read(), "last", Integer.MIN_VALUE);
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    void readIntoColumnarChunk() throws Exception {
+        Path input = tempDir.resolve("input.txt");
+        Files.write(input, "no|1\nyes|-22\nno|333\n".getBytes(StandardCharsets.UTF_8));
+
+        MappedNumberItemReader reader = new MappedNumberItemReader();
+        reader.setResource(new FileSystemResource(input.toFile()));
+        reader.setWindowSize(4);
+        reader.open(new ExecutionContext());
+
+        NumberChunk chunk = new NumberChunk(new NumberKeyDictionary(StandardCharsets.UTF_8), 2);
+        assertEquals(2, reader.read(chunk));
+        assertTrue(chunk.isFull());
+        assertEquals("yes", chunk.key(1));
+        assertEquals(-21, chunk.sum());
+
+        NumberChunk next = new NumberChunk(chunk.dictionary(), 2);
+        assertEquals(1, reader.read(next));
+        assertEquals(chunk.keyId(0), next.keyId(0)); // 같은 key 는 같은 id
+        assertEquals(333, next.num(0));
+        assertEquals(0, reader.read(new NumberChunk(chunk.dictionary(), 2)));
+        reader.close();
+    }
+
+    @Test
+    void columnarReaderCapsDictionaryAndInternsThroughCache() throws Exception {
+        Path input = tempDir.resolve("input.txt");
+        Files.write(input, "no|1\nyes|2\nno|3\nyes|4\n".getBytes(StandardCharsets.UTF_8));
+
+        KeyInternCache keyCache = new KeyInternCache(16);
+        MappedNumberItemReader delegate = new MappedNumberItemReader();
+        delegate.setResource(new FileSystemResource(input.toFile()));
+        delegate.setKeyCache(keyCache);
+        ColumnarNumberItemReader reader = new ColumnarNumberItemReader(delegate, 2);
+        reader.setMaxKeys(2);
+        reader.open(new ExecutionContext());
+
+        NumberChunk first = reader.read();
+        NumberChunk second = reader.read();
+        assertNull(reader.read());
+        reader.close();
+
+        /* 사전이 maxKeys 에 차서 두번째 chunk 는 새 사전, 이전 chunk 의 key 는 그대로 */
+        assertNotSame(first.dictionary(), second.dictionary());
+        assertEquals("yes", first.key(1));
+        assertSame(first.key(0), second.key(0));
+        /* 새 사전의 miss 는 공유 cache 에서 hit */
+        assertEquals(2, keyCache.misses());
+        assertEquals(2, keyCache.hits());
+    }
+
+    @Test
+    void readGzipAndRestartInsideStream() throws Exception {
+        Path input = tempDir.resolve("input.txt.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(input))) {
+            outputStream.write("no|1\nyes|-22\nno|333\nlast|-2147483648".getBytes(StandardCharsets.UTF_8));
+        }
+
+        MappedNumberItemReader reader = new MappedNumberItemReader();
+        reader.setResource(new FileSystemResource(input.toFile()));
+
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        assertItem(reader.read(), "no", 1);
+        assertItem(reader.read(), "yes", -22);
+        reader.update(executionContext);
+        reader.close();
+
+        /* 일반 gzip 은 처음부터 풀고 저장된 byte 수 만큼 건너뜀 */
+        reader.open(executionContext);
+        assertItem(reader.read(), "no", 333);
+        assertItem(reader.read(), "last", Integer.MIN_VALUE);
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    void readBlockGzipInParallelAndRestartInsideLaterBlock() throws Exception {
+        /* ChannelNumberItemWriter(compressed) 는 chunk 마다 BGZF block 1개 : 3건씩 10 block */
+        Path input = tempDir.resolve("input.txt.gz");
+        ChannelNumberItemWriter writer = new ChannelNumberItemWriter();
+        writer.setResource(new FileSystemResource(input.toFile()));
+        writer.setDelimiter("|");
+        writer.setLineSeparator("\n");
+        writer.setCompressed(true);
+        writer.open(new ExecutionContext());
+        for (int block = 0; block < 10; block++) {
+            List<NumberVO> chunk = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                chunk.add(item("key" + (block * 3 + i), block * 3 + i));
+            }
+            commit(() -> writer.write(chunk));
+        }
+        writer.close();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            assertTrue(new GzipBlockInput(channel, 0, 1).isBlocked());
+        }
+
+        MappedNumberItemReader reader = new MappedNumberItemReader();
+        reader.setResource(new FileSystemResource(input.toFile()));
+        reader.setDecompressThreads(2);
+
+        /* 5번째 block(12 ~ 14) 의 중간까지 읽고 저장 */
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        for (int i = 0; i < 14; i++) {
+            assertItem(reader.read(), "key" + i, i);
+        }
+        reader.update(executionContext);
+        reader.close();
+        assertTrue(executionContext.getLong("MappedNumberItemReader." + MappedNumberItemReader.OFFSET_KEY) > 0);
+        assertTrue(executionContext.getLong("MappedNumberItemReader.blockSkip") > 0);
+
+        /* 재시작 : 저장된 block offset 부터 해제하고 block 안 위치만큼 건너뜀 */
+        reader.open(executionContext);
+        for (int i = 14; i < 30; i++) {
+            assertItem(reader.read(), "key" + i, i);
+        }
+        assertNull(reader.read());
+        reader.close();
+    }
+}
@@ -0,0 +1,107 @@
+package hhy.study.springbatch.common.reader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedItemReaderTest {
+
+    private static final int BATCH_SIZE = 5;
+
+    @AfterEach
+    void tearDown() {
+        if (StepSynchronizationManager.getContext() != null) {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    @Test
+    void readInSourceOrder() throws Exception {
+        Random random = new Random(7);
+        PipelinedItemReader<Integer, Integer> reader = new PipelinedItemReader<>(new SequenceItemReader(100), item -> {
+            Thread.sleep(random.nextInt(2));
+            return item * 10;
+        }, BATCH_SIZE, 2);
+
+        reader.open(new ExecutionContext());
+        List<Integer> items = readAll(reader);
+        reader.close();
+
+        assertEquals(IntStream.range(0, 100).map(i -> i * 10).boxed().collect(Collectors.toList()), items);
+    }
+
+    @Test
+    void restartFromLastCommittedBatch() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        PipelinedItemReader<Integer, Integer> reader = new PipelinedItemReader<>(new SequenceItemReader(20), null, BATCH_SIZE, 2);
+        reader.open(executionContext);
+
+        /* chunk 0 commit, chunk 1 은 중간까지 읽고 실패 */
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), readChunk(reader));
+        reader.update(executionContext);
+        reader.read();
+        reader.read();
+        reader.close();
+        assertEquals(5, executionContext.getInt("numbers.read.count"));
+
+        PipelinedItemReader<Integer, Integer> restarted = new PipelinedItemReader<>(new SequenceItemReader(20), null, BATCH_SIZE, 2);
+        restarted.open(new ExecutionContext(executionContext));
+        List<Integer> items = readAll(restarted);
+        restarted.close();
+
+        assertEquals(IntStream.range(5, 20).boxed().collect(Collectors.toList()), items);
+    }
+
+    @Test
+    void allFilteredBatchIsSkippedAndCounted() throws Exception {
+        StepExecution stepExecution = new StepExecution("pipelineStep", new JobExecution(new JobInstance(1L, "pipelineJob"), new JobParameters(), null));
+        StepSynchronizationManager.register(stepExecution);
+
+        /* 두번째 batch(5 ~ 9) 는 전부 filter */
+        ExecutionContext executionContext = new ExecutionContext();
+        PipelinedItemReader<Integer, Integer> reader = new PipelinedItemReader<>(new SequenceItemReader(20), item -> item >= 5 && item < 10 ? null : item, BATCH_SIZE, 2);
+        reader.open(executionContext);
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), readChunk(reader));
+        reader.update(executionContext);
+        /* 빈 batch 는 건너뛰고 다음 batch 를 같은 chunk 로 이어서 읽음 */
+        assertEquals(Arrays.asList(10, 11, 12, 13, 14), readChunk(reader));
+        reader.update(executionContext);
+        assertEquals(15, executionContext.getInt("numbers.read.count"));
+
+        assertEquals(Arrays.asList(15, 16, 17, 18, 19), readAll(reader));
+        reader.close();
+        assertEquals(5, stepExecution.getFilterCount());
+    }
+
+    /* completionPolicy 처럼 현재 batch 를 다 읽을 때까지 */
+    private List<Integer> readChunk(PipelinedItemReader<Integer, Integer> reader) throws Exception {
+        List<Integer> items = new ArrayList<>();
+        do {
+            items.add(reader.read());
+        } while (items.size() < BATCH_SIZE);
+        return items;
+    }
+
+    private List<Integer> readAll(PipelinedItemReader<Integer, Integer> reader) throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (Integer item; (item = reader.read()) != null; ) {
+            items.add(item);
+        }
+        return items;
+    }
+}
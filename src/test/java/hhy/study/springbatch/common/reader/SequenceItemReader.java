@@ -0,0 +1,30 @@
+package hhy.study.springbatch.common.reader;
+
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+/**
+ * @Purpose         : 0 ~ count-1 을 순서대로 읽는 재시작 가능한 테스트용 reader
+ * @Comment         : 위치는 AbstractItemCountingItemStreamItemReader 의 item count ("numbers.read.count") 로 저장
+ */
+public class SequenceItemReader extends AbstractItemCountingItemStreamItemReader<Integer> {
+
+    private final int count;
+
+    public SequenceItemReader(int count) {
+        this.count = count;
+        setName("numbers");
+    }
+
+    @Override
+    protected Integer doRead() {
+        return getCurrentItemCount() <= count ? getCurrentItemCount() - 1 : null;
+    }
+
+    @Override
+    protected void doOpen() {
+    }
+
+    @Override
+    protected void doClose() {
+    }
+}
@@ -0,0 +1,91 @@
+package hhy.study.springbatch.common.reader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SynchronizedBatchItemReaderTest {
+
+    private static final int BATCH_SIZE = 5;
+
+    /* batch 는 쓰레드(ThreadLocal) 에 묶이므로 chunk 쓰레드마다 executor 1개 */
+    private final ExecutorService thread1 = Executors.newSingleThreadExecutor();
+    private final ExecutorService thread2 = Executors.newSingleThreadExecutor();
+    private final ExecutorService thread3 = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        thread1.shutdownNow();
+        thread2.shutdownNow();
+        thread3.shutdownNow();
+    }
+
+    @Test
+    void restartFromContiguouslyCommittedBatch() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        SynchronizedBatchItemReader<Integer> reader = new SynchronizedBatchItemReader<>(new SequenceItemReader(20), BATCH_SIZE);
+        reader.open(executionContext);
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), on(thread1, () -> readBatch(reader)));
+        assertEquals(Arrays.asList(5, 6, 7, 8, 9), on(thread2, () -> readBatch(reader)));
+        assertEquals(Arrays.asList(10, 11, 12, 13, 14), on(thread3, () -> readBatch(reader)));
+
+        /* batch 0, 2 는 commit, batch 1 은 commit 전에 죽음 -> batch 0 까지만 저장 */
+        on(thread1, () -> commit(reader, executionContext));
+        on(thread3, () -> commit(reader, executionContext));
+        assertEquals(5, executionContext.getInt("numbers.read.count"));
+
+        SynchronizedBatchItemReader<Integer> restarted = new SynchronizedBatchItemReader<>(new SequenceItemReader(20), BATCH_SIZE);
+        restarted.open(new ExecutionContext(executionContext));
+        assertEquals(Arrays.asList(5, 6, 7, 8, 9), on(thread1, () -> readBatch(restarted)));
+        assertEquals(Arrays.asList(10, 11, 12, 13, 14), on(thread1, () -> readBatch(restarted)));
+    }
+
+    @Test
+    void outOfOrderCommitAdvancesOnceGapIsFilled() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        SynchronizedBatchItemReader<Integer> reader = new SynchronizedBatchItemReader<>(new SequenceItemReader(12), BATCH_SIZE);
+        reader.open(executionContext);
+
+        on(thread1, () -> readBatch(reader));
+        on(thread2, () -> readBatch(reader));
+        on(thread2, () -> commit(reader, executionContext));
+        assertFalse(executionContext.containsKey("numbers.read.count"));
+
+        /* batch 0 이 commit 되면 이미 commit 된 batch 1 까지 이어서 저장 */
+        on(thread1, () -> commit(reader, executionContext));
+        assertEquals(10, executionContext.getInt("numbers.read.count"));
+
+        /* 마지막 batch 는 남은 2개 */
+        assertEquals(Arrays.asList(10, 11), on(thread3, () -> readBatch(reader)));
+        assertNull(on(thread3, reader::read));
+    }
+
+    private <T> T on(ExecutorService thread, Callable<T> task) throws Exception {
+        return thread.submit(task).get();
+    }
+
+    private List<Integer> readBatch(SynchronizedBatchItemReader<Integer> reader) throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (Integer item; items.size() < BATCH_SIZE && (item = reader.read()) != null; ) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    /* TaskletStep 처럼 commit 직전 update, commit 후 afterChunk */
+    private Void commit(SynchronizedBatchItemReader<Integer> reader, ExecutionContext executionContext) {
+        reader.update(executionContext);
+        reader.afterChunk(null);
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package hhy.study.springbatch.common.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferedJobRepositoryTest {
+
+    /* delegate 에 넘어간 StepExecution 호출 이름 */
+    private final List<String> calls = new ArrayList<>();
+    private BufferedJobRepository repository;
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    void setUp() {
+        JobRepository delegate = (JobRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{JobRepository.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName());
+                    return null;
+                });
+        repository = new BufferedJobRepository(delegate, 10, Long.MAX_VALUE);
+
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "bufferedJob"), 1L, new JobParameters(), null);
+        stepExecution = new StepExecution("bufferedStep", jobExecution, 1L);
+        stepExecution.setStatus(BatchStatus.STARTED);
+        repository.update(stepExecution);
+        calls.clear();
+    }
+
+    @Test
+    void flushEveryFlushChunks() {
+        for (int chunk = 1; chunk < 10; chunk++) {
+            commitChunk();
+        }
+        assertEquals(Collections.emptyList(), calls);
+
+        commitChunk();
+        assertEquals(Arrays.asList("updateExecutionContext", "update"), calls);
+    }
+
+    @Test
+    void flushEveryChunkWhenStepAsksForIt() {
+        /* JdbcNumberItemWriter 처럼 다시 쓰면 중복되는 writer 가 open 에서 넣는 표시 */
+        stepExecution.getExecutionContext().put(BufferedJobRepository.FLUSH_EVERY_CHUNK_KEY, true);
+
+        commitChunk();
+        commitChunk();
+        assertEquals(Arrays.asList("updateExecutionContext", "update", "updateExecutionContext", "update"), calls);
+    }
+
+    /* TaskletStep 의 chunk commit 직전 호출 순서 */
+    private void commitChunk() {
+        repository.updateExecutionContext(stepExecution);
+        repository.update(stepExecution);
+    }
+}
@@ -0,0 +1,53 @@
+package hhy.study.springbatch.common.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.repository.dao.Jackson2ExecutionContextStringSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactExecutionContextSerializerTest {
+
+    private final CompactExecutionContextSerializer serializer = new CompactExecutionContextSerializer();
+
+    @Test
+    void roundTripAndLegacyJson() throws Exception {
+        Map<String, Object> context = new HashMap<>();
+        context.put("MappedNumberItemReader.offset", 123L);
+        context.put("MappedNumberItemReader.line", 7);
+        context.put("ratio", 0.5d);
+        context.put("done", true);
+        context.put("date", new Date(1000L));
+        context.put("tab\tkey", "multi\nline \\ value");
+        context.put("bytes", new byte[]{1, 2});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(context, out);
+        Map<String, Object> restored = serializer.deserialize(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(123L, restored.get("MappedNumberItemReader.offset"));
+        assertEquals(7, restored.get("MappedNumberItemReader.line"));
+        assertEquals(0.5d, restored.get("ratio"));
+        assertEquals(true, restored.get("done"));
+        assertEquals(new Date(1000L), restored.get("date"));
+        assertEquals("multi\nline \\ value", restored.get("tab\tkey"));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) restored.get("bytes"));
+
+        /* 기존 JSON 값도 읽을 수 있어야 함 */
+        Map<String, Object> simple = new HashMap<>();
+        simple.put("MappedNumberItemReader.offset", 123L);
+        simple.put("MappedNumberItemReader.line", 7);
+
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        serializer.serialize(simple, compact);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        new Jackson2ExecutionContextStringSerializer().serialize(simple, json);
+        assertTrue(json.size() > compact.size());
+        assertEquals(simple, serializer.deserialize(new ByteArrayInputStream(json.toByteArray())));
+    }
+}
@@ -0,0 +1,78 @@
+package hhy.study.springbatch.common.schedule;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.batch.core.launch.JobLauncher;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchScheduleRunnerTest {
+
+    private static final long STALE_MILLIS = 60_000;
+
+    /* 다른 node 에서 실행중인 execution (JobExplorer.findRunningJobExecutions 결과) */
+    private final Set<JobExecution> running = new HashSet<>();
+    private final List<JobParameters> launched = new ArrayList<>();
+    private BatchScheduleRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        JobExplorer jobExplorer = (JobExplorer) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{JobExplorer.class},
+                (proxy, method, args) -> "findRunningJobExecutions".equals(method.getName()) ? running : null);
+        JobLauncher jobLauncher = (job, jobParameters) -> {
+            launched.add(jobParameters);
+            return new JobExecution(1L, jobParameters);
+        };
+        BatchSchedule schedule = BatchSchedule.builder("staleJob").cron("0 0/10 * * * ?").maxConcurrent(1).build();
+
+        runner = new BatchScheduleRunner(jobLauncher, jobExplorer, Collections.<String, Job>singletonMap("staleJob", new SimpleJob("StaleJob")),
+                Collections.singletonList(schedule), 2);
+        runner.setStaleMillis(STALE_MILLIS);
+    }
+
+    @Test
+    void skipWhileAnotherNodeIsRunning() throws Exception {
+        /* job 은 오래전에 시작했어도 step 이 최근에 commit 했으면 실행중 */
+        running.add(execution(System.currentTimeMillis() - 10 * STALE_MILLIS, System.currentTimeMillis() - 1_000));
+
+        assertNull(runner.run("staleJob", new Date(), null));
+        assertTrue(launched.isEmpty());
+    }
+
+    @Test
+    void ignoreStaleExecutionOfDeadNode() throws Exception {
+        /* 죽은 node 가 STARTED 로 남긴 execution : job/step 모두 staleMillis 넘게 갱신 없음 */
+        long lastUpdated = System.currentTimeMillis() - 2 * STALE_MILLIS;
+        running.add(execution(lastUpdated, lastUpdated));
+
+        assertNotNull(runner.run("staleJob", new Date(), null));
+        assertEquals(1, launched.size());
+    }
+
+    private JobExecution execution(long jobUpdated, long stepUpdated) {
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "StaleJob"), 1L, new JobParameters(), null);
+        jobExecution.setStatus(BatchStatus.STARTED);
+        jobExecution.setCreateTime(new Date(jobUpdated));
+        jobExecution.setStartTime(new Date(jobUpdated));
+        jobExecution.setLastUpdated(new Date(jobUpdated));
+        StepExecution stepExecution = jobExecution.createStepExecution("staleStep");
+        stepExecution.setLastUpdated(new Date(stepUpdated));
+        return jobExecution;
+    }
+}
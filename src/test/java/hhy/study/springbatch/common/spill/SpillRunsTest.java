@@ -0,0 +1,55 @@
+package hhy.study.springbatch.common.spill;
+
+import hhy.study.springbatch.common.aggregate.AggregateRun;
+import hhy.study.springbatch.job.NumberAggregateVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillRunsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void mergeInParallelPassesAndCombineSameKey() throws Exception {
+        SpillRuns<NumberAggregateVO> spillRuns = new SpillRuns<>(tempDir.toFile(), AggregateRun::reader, AggregateRun::writer,
+                Comparator.comparing(NumberAggregateVO::getKey));
+        spillRuns.setCombiner(NumberAggregateVO::merge);
+        spillRuns.setMergeFanIn(2);
+        spillRuns.open(MetaDataInstanceFactory.createStepExecution());
+
+        /* run 5개, fan-in 2 -> 중간 병합 2번 */
+        String[][] runs = {{"a", "c"}, {"a", "b"}, {"c"}, {"b", "d"}, {"a"}};
+        for (int run = 0; run < runs.length; run++) {
+            try (AggregateRun.Writer writer = AggregateRun.writer(spillRuns.runFile(run))) {
+                for (String key : runs[run]) {
+                    writer.write(key, run, 1, run, run);
+                }
+            }
+        }
+
+        List<String> merged = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            spillRuns.merge(runs.length, executor, aggregate -> merged.add(aggregate.getKey() + "=" + aggregate.getCount()));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("[a=3, b=2, c=2, d=1]", merged.toString());
+
+        /* 중간 병합 run 까지 삭제 */
+        assertTrue(tempDir.toFile().list().length > runs.length);
+        spillRuns.deleteRuns();
+        assertEquals(0, tempDir.toFile().list().length);
+    }
+}
@@ -0,0 +1,70 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.common.reader.BinaryNumberItemReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Path;
+
+import static hhy.study.springbatch.job.NumberItems.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryNumberItemWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rollbackAndRestartThenReadBack() throws Exception {
+        Path output = tempDir.resolve("output.nbf");
+        BinaryNumberItemWriter writer = newWriter(output);
+
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+
+        /* chunk 1 commit (blockItems 2 -> block 2개) */
+        commit(() -> {
+            write(writer, item("no", 1), item("no", -20), item("yes", 7));
+            writer.update(executionContext);
+        });
+
+        /* chunk 2 rollback -> 파일/index 에서 제거되어야 함 */
+        rollback(() -> write(writer, item("rollback", 3)));
+
+        /* commit 안된 내용 + footer 가 남아있는 상태에서 재시작 */
+        write(writer, item("uncommitted", 4));
+        writer.close();
+
+        BinaryNumberItemWriter restarted = newWriter(output);
+        restarted.open(executionContext);
+        write(restarted, item("no", Integer.MIN_VALUE), item("", Integer.MAX_VALUE));
+        restarted.close();
+
+        BinaryNumberItemReader reader = new BinaryNumberItemReader();
+        reader.setResource(new FileSystemResource(output.toFile()));
+        ExecutionContext readerContext = new ExecutionContext();
+        reader.open(readerContext);
+        assertItem(reader.read(), "no", 1);
+        assertItem(reader.read(), "no", -20);
+        reader.update(readerContext);
+        reader.close();
+
+        /* block 경계에서 재시작 */
+        reader.open(readerContext);
+        assertItem(reader.read(), "yes", 7);
+        assertItem(reader.read(), "no", Integer.MIN_VALUE);
+        assertItem(reader.read(), "", Integer.MAX_VALUE);
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    private BinaryNumberItemWriter newWriter(Path output) {
+        BinaryNumberItemWriter writer = new BinaryNumberItemWriter();
+        writer.setResource(new FileSystemResource(output.toFile()));
+        writer.setBlockItems(2);
+        writer.setCompressed(true);
+        return writer;
+    }
+}
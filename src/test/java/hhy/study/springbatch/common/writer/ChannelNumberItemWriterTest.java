@@ -0,0 +1,105 @@
+package hhy.study.springbatch.common.writer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static hhy.study.springbatch.job.NumberItems.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelNumberItemWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rollbackAndRestartTruncateToLastCommit() throws Exception {
+        Path output = tempDir.resolve("output.csv");
+        ChannelNumberItemWriter writer = newWriter(output);
+
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+
+        /* chunk 1 commit */
+        commit(() -> {
+            write(writer, item("no", 1), item("no", -20));
+            writer.update(executionContext);
+        });
+
+        /* chunk 2 rollback -> 파일에서 제거되어야 함 */
+        rollback(() -> write(writer, item("rollback", 3)));
+        assertEquals("no@1\nno@-20\n", read(output));
+
+        /* commit 안된 내용이 남아있는 상태에서 재시작 */
+        write(writer, item("uncommitted", 4));
+        writer.close();
+
+        ChannelNumberItemWriter restarted = newWriter(output);
+        restarted.open(executionContext);
+        write(restarted, item("no", Integer.MIN_VALUE));
+        restarted.close();
+
+        assertEquals("no@1\nno@-20\nno@" + Integer.MIN_VALUE + "\n", read(output));
+    }
+
+    @Test
+    void compressedRollbackAndRestartTruncateToLastCommit() throws Exception {
+        Path output = tempDir.resolve("output.csv.gz");
+        ChannelNumberItemWriter writer = newWriter(output);
+        writer.setCompressed(true);
+
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+
+        commit(() -> {
+            write(writer, item("no", 1), item("no", -20));
+            writer.update(executionContext);
+        });
+
+        rollback(() -> write(writer, item("rollback", 3)));
+
+        write(writer, item("uncommitted", 4));
+        writer.close();
+
+        ChannelNumberItemWriter restarted = newWriter(output);
+        restarted.setCompressed(true);
+        restarted.open(executionContext);
+        write(restarted, item("no", Integer.MIN_VALUE));
+        restarted.close();
+
+        /* block 마다 gzip member -> 일반 GZIPInputStream 으로도 읽힘 */
+        assertEquals("no@1\nno@-20\nno@" + Integer.MIN_VALUE + "\n", readGzip(output));
+    }
+
+    private ChannelNumberItemWriter newWriter(Path output) {
+        ChannelNumberItemWriter writer = new ChannelNumberItemWriter();
+        writer.setResource(new FileSystemResource(output.toFile()));
+        writer.setLineSeparator("\n");
+        writer.setSyncPolicy(ChannelNumberItemWriter.SyncPolicy.parse("chunks:1"));
+        return writer;
+    }
+
+    private String read(Path output) throws Exception {
+        return new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+    }
+
+    private String readGzip(Path output) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(output))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = inputStream.read(buffer)) > 0) {
+                outputStream.write(buffer, 0, n);
+            }
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+package hhy.study.springbatch.common.writer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hhy.study.springbatch.common.repository.BufferedJobRepository;
+import hhy.study.springbatch.job.NumberVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static hhy.study.springbatch.job.NumberItems.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcNumberItemWriterTest {
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:jdbcWriter;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(4);
+        execute("CREATE TABLE NUMBER_ITEM (NUM_KEY VARCHAR(255) NOT NULL, NUM INT NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        execute("DROP TABLE NUMBER_ITEM");
+        dataSource.close();
+    }
+
+    @Test
+    void multiRowParallelCommitAndRollback() throws Exception {
+        JdbcNumberItemWriter writer = new JdbcNumberItemWriter();
+        writer.setDataSource(dataSource);
+        writer.setRowsPerStatement(3);
+        writer.setParallelism(2);
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+        /* insert 는 되돌릴 수 없으므로 step metadata 를 chunk 마다 쓰도록 표시 */
+        assertTrue(executionContext.containsKey(BufferedJobRepository.FLUSH_EVERY_CHUNK_KEY));
+
+        /* 7건 = connection 2개, 각각 3건 statement + 나머지 1건 statement */
+        List<NumberVO> chunk = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            chunk.add(item(i % 2 == 0 ? "no" : "yes", i - 3));
+        }
+        commit(() -> writer.write(chunk));
+        assertEquals(7, count("SELECT COUNT(*) FROM NUMBER_ITEM"));
+        assertEquals(0, count("SELECT SUM(NUM) FROM NUMBER_ITEM"));
+        assertEquals(4, count("SELECT COUNT(*) FROM NUMBER_ITEM WHERE NUM_KEY = 'no'"));
+
+        /* rollback 된 chunk 는 남지 않음 */
+        rollback(() -> write(writer, item("rollback", 1), item("rollback", 2), item("rollback", 3), item("rollback", 4)));
+        assertEquals(7, count("SELECT COUNT(*) FROM NUMBER_ITEM"));
+
+        /* transaction 밖은 바로 commit */
+        write(writer, item("", Integer.MIN_VALUE), item("max", Integer.MAX_VALUE));
+        assertEquals(9, count("SELECT COUNT(*) FROM NUMBER_ITEM"));
+        assertEquals(Integer.MAX_VALUE, count("SELECT NUM FROM NUMBER_ITEM WHERE NUM_KEY = 'max'"));
+
+        writer.close();
+    }
+
+    private long count(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
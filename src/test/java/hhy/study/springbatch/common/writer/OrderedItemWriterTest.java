@@ -0,0 +1,91 @@
+package hhy.study.springbatch.common.writer;
+
+import hhy.study.springbatch.common.reader.SequenceItemReader;
+import hhy.study.springbatch.common.reader.SynchronizedBatchItemReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderedItemWriterTest {
+
+    private static final int CHUNK_SIZE = 5;
+
+    @Test
+    void writeInReadOrderAcrossThreads() throws Exception {
+        SynchronizedBatchItemReader<Integer> reader = new SynchronizedBatchItemReader<>(new SequenceItemReader(200), CHUNK_SIZE);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        Random random = new Random(7);
+
+        /* item 마다 처리 시간을 다르게 해서 chunk 가 읽은 순서와 다르게 끝나도록 함 */
+        runChunks(reader, new OrderedItemWriter<>(written::addAll, reader), item -> {
+            Thread.sleep(random.nextInt(3));
+            return item;
+        }, 4);
+
+        assertEquals(IntStream.range(0, 200).boxed().collect(Collectors.toList()), written);
+    }
+
+    @Test
+    void allFilteredChunkDoesNotBlockLaterChunks() throws Exception {
+        SynchronizedBatchItemReader<Integer> reader = new SynchronizedBatchItemReader<>(new SequenceItemReader(40), CHUNK_SIZE);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+
+        /* 두번째 chunk(5 ~ 9) 는 전부 filter -> 빈 chunk 도 commit 순번을 넘겨줘야 뒤 chunk 가 write 됨 */
+        runChunks(reader, new OrderedItemWriter<>(written::addAll, reader), item -> item >= 5 && item < 10 ? null : item, 4);
+
+        List<Integer> expected = IntStream.range(0, 40).filter(i -> i < 5 || i >= 10).boxed().collect(Collectors.toList());
+        assertEquals(expected, written);
+    }
+
+    /* multi-thread TaskletStep 처럼 worker 마다 chunk 를 read -> process -> write -> update(직렬화) -> afterChunk 순서로 반복 */
+    private void runChunks(SynchronizedBatchItemReader<Integer> reader, OrderedItemWriter<Integer> writer,
+                           ItemProcessor<Integer, Integer> processor, int workers) throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int worker = 0; worker < workers; worker++) {
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        List<Integer> outputs = new ArrayList<>();
+                        int read = 0;
+                        for (Integer item; read < CHUNK_SIZE && (item = reader.read()) != null; read++) {
+                            Integer output = processor.process(item);
+                            if (output != null) {
+                                outputs.add(output);
+                            }
+                        }
+                        if (read == 0) {
+                            return null;
+                        }
+                        writer.write(outputs);
+                        synchronized (executionContext) {
+                            reader.update(executionContext);
+                        }
+                        reader.afterChunk(null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            reader.close();
+        }
+    }
+}
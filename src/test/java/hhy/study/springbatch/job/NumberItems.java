@@ -0,0 +1,70 @@
+package hhy.study.springbatch.job;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @Purpose         : reader / writer 테스트에서 같이 쓰는 NumberVO fixture
+ * @Comment         : commit / rollback 은 chunk transaction 흉내 (writer 의 TransactionSynchronization 이 실행됨)
+ *                    TransactionTemplate 과 달리 checked exception 을 그대로 던짐
+ */
+public final class NumberItems {
+
+    private static final PlatformTransactionManager TRANSACTION_MANAGER = new ResourcelessTransactionManager();
+
+    private NumberItems() {
+    }
+
+    public static NumberVO item(String key, int num) {
+        NumberVO numberVO = new NumberVO();
+        numberVO.setKey(key);
+        numberVO.setNum(num);
+        return numberVO;
+    }
+
+    public static void assertItem(NumberVO numberVO, String key, int num) {
+        assertNotNull(numberVO);
+        assertEquals(key, numberVO.getKey());
+        assertEquals(num, numberVO.getNum());
+    }
+
+    public static void write(ItemWriter<? super NumberVO> writer, NumberVO... items) throws Exception {
+        writer.write(Arrays.asList(items));
+    }
+
+    /* chunk 1개 : work 가 끝나면 commit, 예외면 rollback 후 다시 던짐 */
+    public static void commit(Work work) throws Exception {
+        run(work, false);
+    }
+
+    /* chunk 1개 : work 가 끝나도 rollback */
+    public static void rollback(Work work) throws Exception {
+        run(work, true);
+    }
+
+    private static void run(Work work, boolean rollbackOnly) throws Exception {
+        TransactionStatus status = TRANSACTION_MANAGER.getTransaction(new DefaultTransactionDefinition());
+        try {
+            work.run();
+        } catch (Exception | Error e) {
+            TRANSACTION_MANAGER.rollback(status);
+            throw e;
+        }
+        if (rollbackOnly) {
+            TRANSACTION_MANAGER.rollback(status);
+        } else {
+            TRANSACTION_MANAGER.commit(status);
+        }
+    }
+
+    public interface Work {
+        void run() throws Exception;
+    }
+}